@@ -5,7 +5,7 @@ echo.
 echo Compiling Java files...
 if not exist "build\classes" mkdir build\classes
 
-javac -d build\classes -cp "src\main\java" src\main\java\com\samesame\service\PasswordComparator.java src\main\java\com\samesame\DemoRunner.java src\main\java\com\samesame\ConsolePasswordComparator.java
+javac -d build\classes -cp "samesame-core\src\main\java" samesame-core\src\main\java\com\samesame\service\PasswordComparator.java samesame-core\src\main\java\com\samesame\DemoRunner.java samesame-core\src\main\java\com\samesame\ConsolePasswordComparator.java
 
 if %ERRORLEVEL% NEQ 0 (
     echo Compilation failed!
@@ -21,7 +21,7 @@ echo Compiling SameSame JavaFX Application...
 if not exist "build\classes" mkdir "build\classes"
 
 :: Compile Java files
-javac -d build\classes --module-path "%JAVAFX_PATH%" --add-modules javafx.controls,javafx.fxml -cp "src\main\java" src\main\java\com\samesame\*.java src\main\java\com\samesame\controller\*.java src\main\java\com\samesame\service\*.java
+javac -d build\classes --module-path "%JAVAFX_PATH%" --add-modules javafx.controls,javafx.fxml -cp "samesame-core\src\main\java;samesame-gui\src\main\java" samesame-gui\src\main\java\com\samesame\gui\*.java samesame-gui\src\main\java\com\samesame\controller\*.java samesame-core\src\main\java\com\samesame\*.java samesame-core\src\main\java\com\samesame\service\*.java
 
 if %ERRORLEVEL% neq 0 (
     echo.
@@ -32,8 +32,9 @@ if %ERRORLEVEL% neq 0 (
 )
 
 echo Copying resources...
-:: Copy FXML and CSS resources
-xcopy "src\main\resources" "build\classes" /E /I /Y >nul 2>&1
+:: Copy FXML, CSS and dictionary resources
+xcopy "samesame-core\src\main\resources" "build\classes" /E /I /Y >nul 2>&1
+xcopy "samesame-gui\src\main\resources" "build\classes" /E /I /Y >nul 2>&1
 
 echo.
 echo Starting SameSame GUI Application...
@@ -41,7 +42,7 @@ echo.
 
 :: Run the JavaFX application
 :: Note: Warnings about deprecated methods are from JavaFX internals and can be safely ignored
-java --module-path "%JAVAFX_PATH%" --add-modules javafx.controls,javafx.fxml --enable-native-access=javafx.graphics -cp build\classes com.samesame.PasswordComparatorApp
+java --module-path "%JAVAFX_PATH%" --add-modules javafx.controls,javafx.fxml --enable-native-access=javafx.graphics -cp build\classes com.samesame.gui.PasswordComparatorApp
 
 if %ERRORLEVEL% neq 0 (
     echo.
@@ -13,7 +13,7 @@ echo.
 
 REM Compile Java files
 echo Compiling Java source files...
-javac -d build\classes -cp "src\main\java" src\main\java\com\samesame\*.java src\main\java\com\samesame\controller\*.java src\main\java\com\samesame\service\*.java
+javac -d build\classes -cp "samesame-core\src\main\java;samesame-gui\src\main\java" samesame-gui\src\main\java\com\samesame\gui\*.java samesame-gui\src\main\java\com\samesame\controller\*.java samesame-core\src\main\java\com\samesame\*.java samesame-core\src\main\java\com\samesame\service\*.java
 
 if %ERRORLEVEL% NEQ 0 (
     echo Compilation failed. Please check for errors.
@@ -28,12 +28,12 @@ REM Copy resources
 echo Copying resources...
 if not exist "build\classes\fxml" mkdir build\classes\fxml
 if not exist "build\classes\css" mkdir build\classes\css
-copy "src\main\resources\fxml\*.fxml" "build\classes\fxml\"
-copy "src\main\resources\css\*.css" "build\classes\css\"
+copy "samesame-gui\src\main\resources\fxml\*.fxml" "build\classes\fxml\"
+copy "samesame-gui\src\main\resources\css\*.css" "build\classes\css\"
 
 echo.
 echo To run the application, you need JavaFX runtime.
 echo Please install JavaFX and run:
-echo java --module-path "path\to\javafx\lib" --add-modules javafx.controls,javafx.fxml -cp build\classes com.samesame.PasswordComparatorApp
+echo java --module-path "path\to\javafx\lib" --add-modules javafx.controls,javafx.fxml -cp build\classes com.samesame.gui.PasswordComparatorApp
 echo.
 pause
\ No newline at end of file
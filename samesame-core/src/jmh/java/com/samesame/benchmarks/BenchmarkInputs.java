@@ -0,0 +1,66 @@
+package com.samesame.benchmarks;
+
+import java.util.SplittableRandom;
+
+/**
+ * Deterministic input generator shared by the benchmarks
+ * Inputs are built once per trial so generation never shows up in the measurements
+ */
+public final class BenchmarkInputs {
+
+    /** Printable ASCII including the special characters the strength rules look for */
+    private static final String ASCII_ALPHABET =
+        "abcdefghijklmnopqrstuvwxyzABCDEFGHIJKLMNOPQRSTUVWXYZ0123456789!@#$%^&*()_+-=[]{};':,.<>?";
+
+    /** Latin-1, Greek, Cyrillic and CJK characters, all single UTF-16 code units */
+    private static final String UNICODE_ALPHABET =
+        "äöüßéèêñçåøæλπΣΩжщЯфи密码安全字符";
+
+    private static final long SEED = 0x5A3E5A3EL;
+
+    private BenchmarkInputs() {
+    }
+
+    /**
+     * Character sets the benchmarks are parameterised over
+     */
+    public enum Alphabet {
+        ASCII(ASCII_ALPHABET),
+        UNICODE(UNICODE_ALPHABET);
+
+        private final String characters;
+
+        Alphabet(String characters) {
+            this.characters = characters;
+        }
+    }
+
+    /**
+     * Builds a pseudo-random password of the given length from the alphabet
+     */
+    static String password(Alphabet alphabet, int length) {
+        SplittableRandom random = new SplittableRandom(SEED + length);
+        char[] chars = new char[length];
+        for (int i = 0; i < length; i++) {
+            chars[i] = alphabet.characters.charAt(random.nextInt(alphabet.characters.length()));
+        }
+        return new String(chars);
+    }
+
+    /**
+     * Returns a distinct copy of the password whose first character differs
+     * A fresh instance defeats the identity shortcut a String comparison could take
+     */
+    static String earlyDifferingCopy(String password) {
+        char[] chars = password.toCharArray();
+        chars[0] = (char) (chars[0] ^ 1);
+        return new String(chars);
+    }
+
+    /**
+     * Returns a distinct but equal copy of the password
+     */
+    static String equalCopy(String password) {
+        return new String(password.toCharArray());
+    }
+}
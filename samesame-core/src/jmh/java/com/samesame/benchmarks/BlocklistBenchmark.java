@@ -0,0 +1,90 @@
+package com.samesame.benchmarks;
+
+import com.samesame.service.BlocklistFilter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures blocklist lookup latency for hits and misses against a mapped filter
+ * The setup prints the memory used per entry for each configuration
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class BlocklistBenchmark {
+
+    private static final int LOOKUP_KEYS = 1 << 16;
+
+    @Param({"1000000", "10000000"})
+    private int entries;
+
+    @Param({"0.01", "0.001"})
+    private double falsePositiveRate;
+
+    private BlocklistFilter filter;
+    private Path file;
+    private String[] present;
+    private String[] absent;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        BlocklistFilter builder = BlocklistFilter.create(entries, falsePositiveRate);
+        for (int i = 0; i < entries; i++) {
+            builder.add("common-password-" + i);
+        }
+        file = Files.createTempFile("blocklist-bench", ".bin");
+        builder.save(file);
+
+        long startTime = System.nanoTime();
+        filter = BlocklistFilter.open(file);
+        double openMillis = (System.nanoTime() - startTime) / 1_000_000.0;
+        System.out.printf("%n%,d entries: %,d bytes, %.2f bits/entry, k=%d, opened in %.2f ms%n",
+            entries, filter.memoryBytes(), filter.bitsPerEntry(), filter.hashCount(), openMillis);
+
+        // Spread the keys over the whole filter so lookups miss the CPU caches
+        present = new String[LOOKUP_KEYS];
+        absent = new String[LOOKUP_KEYS];
+        for (int i = 0; i < LOOKUP_KEYS; i++) {
+            present[i] = "common-password-" + (int) ((long) i * entries / LOOKUP_KEYS);
+            absent[i] = "unlisted-password-" + i;
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        filter.close();
+        Files.deleteIfExists(file);
+    }
+
+    @Benchmark
+    public boolean lookupHit() {
+        next = (next + 1) & (LOOKUP_KEYS - 1);
+        return filter.mightContain(present[next]);
+    }
+
+    @Benchmark
+    public boolean lookupMiss() {
+        next = (next + 1) & (LOOKUP_KEYS - 1);
+        return filter.mightContain(absent[next]);
+    }
+}
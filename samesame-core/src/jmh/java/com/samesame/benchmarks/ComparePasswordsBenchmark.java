@@ -0,0 +1,74 @@
+package com.samesame.benchmarks;
+
+import com.samesame.service.PasswordComparator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures comparePasswords for matching and early-differing inputs
+ * A constant-time comparison should show the same cost for both cases
+ */
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ComparePasswordsBenchmark {
+
+    @Param({"8", "64", "512", "4096"})
+    private int length;
+
+    @Param({"ASCII", "UNICODE"})
+    private BenchmarkInputs.Alphabet alphabet;
+
+    @Param({"MATCH", "EARLY_DIFF"})
+    private String outcome;
+
+    private final PasswordComparator passwordComparator = new PasswordComparator();
+    private String password1;
+    private String password2;
+    private char[] chars1;
+    private char[] chars2;
+    private byte[] bytes1;
+    private byte[] bytes2;
+
+    @Setup
+    public void setUp() {
+        password1 = BenchmarkInputs.password(alphabet, length);
+        password2 = "MATCH".equals(outcome)
+            ? BenchmarkInputs.equalCopy(password1)
+            : BenchmarkInputs.earlyDifferingCopy(password1);
+        chars1 = password1.toCharArray();
+        chars2 = password2.toCharArray();
+        bytes1 = password1.getBytes(StandardCharsets.UTF_8);
+        bytes2 = password2.getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Benchmark
+    public boolean comparePasswords() {
+        return passwordComparator.comparePasswords(password1, password2);
+    }
+
+    @Benchmark
+    public boolean compareChars() {
+        return passwordComparator.compareChars(chars1, chars2);
+    }
+
+    @Benchmark
+    public boolean compareBytes() {
+        return passwordComparator.compareBytes(bytes1, bytes2);
+    }
+}
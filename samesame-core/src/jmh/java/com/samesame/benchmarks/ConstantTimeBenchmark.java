@@ -0,0 +1,70 @@
+package com.samesame.benchmarks;
+
+import com.samesame.service.ConstantTime;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.nio.ByteBuffer;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the vectorized and scalar constant-time comparisons across secret lengths
+ * Both inputs differ only in their last byte, so neither can finish early
+ * Run with -jvmArgsAppend -Dsamesame.vector=false to measure the fallback through the public API
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "--add-modules=jdk.incubator.vector")
+@State(Scope.Benchmark)
+public class ConstantTimeBenchmark {
+
+    @Param({"16", "64", "256", "1024", "4096", "16384"})
+    private int length;
+
+    private byte[] a;
+    private byte[] b;
+    private ByteBuffer directA;
+    private ByteBuffer directB;
+
+    @Setup
+    public void setup() {
+        a = new byte[length];
+        new Random(length).nextBytes(a);
+        b = a.clone();
+        b[length - 1] ^= 1;
+        directA = ByteBuffer.allocateDirect(length).put(a).flip();
+        directB = ByteBuffer.allocateDirect(length).put(b).flip();
+    }
+
+    @Benchmark
+    public boolean vectorArrays() {
+        return ConstantTime.equals(a, b);
+    }
+
+    @Benchmark
+    public boolean scalarArrays() {
+        return ConstantTime.scalarEquals(a, b);
+    }
+
+    @Benchmark
+    public boolean vectorDirectBuffers() {
+        return ConstantTime.equals(directA, directB);
+    }
+
+    @Benchmark
+    public boolean scalarDirectBuffers() {
+        return ConstantTime.scalarEquals(directA, directB);
+    }
+}
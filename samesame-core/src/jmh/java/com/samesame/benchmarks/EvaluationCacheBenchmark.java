@@ -0,0 +1,88 @@
+package com.samesame.benchmarks;
+
+import com.samesame.service.EvaluationCache;
+import com.samesame.service.PasswordComparator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the evaluation cache on a duplicate-heavy audit dataset
+ * The dataset draws 65,536 passwords from 20,000 distinct ones with a Zipf
+ * distribution (s = 1), the shape of real password exports, where the most
+ * popular passwords appear thousands of times. Each invocation estimates
+ * the guesses for the whole dataset; the cache hit rate is printed after
+ * each trial
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class EvaluationCacheBenchmark {
+
+    private static final int DATASET_SIZE = 1 << 16;
+    private static final int DISTINCT = 20_000;
+
+    @Param({"0", "4096", "65536"})
+    private int cacheSize;
+
+    private final PasswordComparator passwordComparator = new PasswordComparator();
+    private String[] dataset;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        String[] distinct = new String[DISTINCT];
+        for (int i = 0; i < DISTINCT; i++) {
+            distinct[i] = BenchmarkInputs.password(BenchmarkInputs.Alphabet.ASCII, 8 + i % 13) + i;
+        }
+
+        // Inverse-CDF sampling of Zipf ranks
+        double[] cumulative = new double[DISTINCT];
+        double total = 0;
+        for (int rank = 0; rank < DISTINCT; rank++) {
+            total += 1.0 / (rank + 1);
+            cumulative[rank] = total;
+        }
+        SplittableRandom random = new SplittableRandom(19);
+        dataset = new String[DATASET_SIZE];
+        for (int i = 0; i < DATASET_SIZE; i++) {
+            int rank = Arrays.binarySearch(cumulative, random.nextDouble() * total);
+            dataset[i] = distinct[Math.min(DISTINCT - 1, rank < 0 ? -rank - 1 : rank)];
+        }
+
+        passwordComparator.setEvaluationCache(cacheSize == 0 ? null : new EvaluationCache(cacheSize));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        EvaluationCache cache = passwordComparator.getEvaluationCache();
+        if (cache != null) {
+            System.out.println("Cache " + cacheSize + ": " + cache.stats());
+        }
+    }
+
+    @Benchmark
+    public double estimateGuesses() {
+        double sum = 0;
+        for (String password : dataset) {
+            sum += passwordComparator.estimateGuesses(password);
+        }
+        return sum;
+    }
+}
@@ -0,0 +1,206 @@
+package com.samesame.benchmarks;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Footprint of the HTTP service in the fat setup and in the jlink image
+ * Each run starts the server, sends a fixed mix of requests and then reads
+ * the resident set size and its peak from /proc (Linux only). Loaded
+ * classes are counted from the class+load log of the same run
+ *
+ * Setups:
+ *   fat    the full JDK running the service from a class path; pass the
+ *          GUI runtime class path (core, GUI and JavaFX JARs) to reproduce
+ *          the single-module build, the default is the core JAR alone
+ *   jlink  the image from mvn -Pjlink package, if it exists
+ *
+ * Disk size is the JDK plus the class path, or the whole image.
+ *
+ * Usage: java -cp target/benchmarks.jar com.samesame.benchmarks.FootprintBenchmark
+ *        [--jar target/samesame-core-1.0.0.jar] [--fat-classpath path]
+ *        [--image target/image] [--requests 3000] [--runs 5]
+ */
+public class FootprintBenchmark {
+
+    private static final String MAIN_CLASS = "com.samesame.PasswordComparatorServer";
+    private static final String MARKER = "listening on ";
+
+    public static void main(String[] args) throws Exception {
+        Path jar = Paths.get("target/samesame-core-1.0.0.jar");
+        String fatClasspath = null;
+        Path image = Paths.get("target/image");
+        int requests = 3000;
+        int runs = 5;
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            switch (args[i]) {
+                case "--jar": jar = Paths.get(args[i + 1]); break;
+                case "--fat-classpath": fatClasspath = args[i + 1]; break;
+                case "--image": image = Paths.get(args[i + 1]); break;
+                case "--requests": requests = Integer.parseInt(args[i + 1]); break;
+                case "--runs": runs = Integer.parseInt(args[i + 1]); break;
+                default: throw new IllegalArgumentException("Unknown option: " + args[i]);
+            }
+        }
+        if (!Files.isRegularFile(jar)) {
+            throw new IllegalArgumentException(jar + " not found; run mvn package first");
+        }
+        if (fatClasspath == null) {
+            fatClasspath = jar.toString();
+        }
+
+        Path javaHome = Paths.get(System.getProperty("java.home"));
+        System.out.printf("%-6s %10s %10s %10s %10s %10s%n",
+            "Setup", "disk MB", "classes", "RSS MB", "peak MB", "ready ms");
+
+        List<String> fat = List.of(javaHome.resolve("bin/java").toString(), "-cp", fatClasspath, MAIN_CLASS);
+        long fatDisk = size(javaHome);
+        for (String entry : fatClasspath.split(File.pathSeparator)) {
+            fatDisk += size(Paths.get(entry));
+        }
+        measure("fat", fat, fatDisk, requests, runs);
+
+        Path imageJava = image.resolve("bin/java");
+        if (Files.isExecutable(imageJava)) {
+            List<String> linked = List.of(imageJava.toString(), "-m", "com.samesame.core/" + MAIN_CLASS);
+            measure("jlink", linked, size(image), requests, runs);
+        } else {
+            System.out.printf("%-6s skipped, %s not found%n", "jlink", imageJava);
+        }
+    }
+
+    private static void measure(String setup, List<String> command, long disk, int requests, int runs)
+            throws IOException, InterruptedException {
+        long[] classes = new long[runs];
+        long[] rss = new long[runs];
+        long[] peak = new long[runs];
+        long[] ready = new long[runs];
+        for (int run = 0; run < runs; run++) {
+            long[] sample = sample(command, requests);
+            classes[run] = sample[0];
+            rss[run] = sample[1];
+            peak[run] = sample[2];
+            ready[run] = sample[3];
+        }
+        System.out.printf("%-6s %10.1f %10d %10.1f %10.1f %10.1f%n", setup, disk / 1e6,
+            median(classes), median(rss) / 1024.0, median(peak) / 1024.0, median(ready) / 1e6);
+    }
+
+    /**
+     * @return Loaded classes, RSS and peak RSS in kB, and nanoseconds until the server was listening
+     */
+    private static long[] sample(List<String> command, int requests) throws IOException, InterruptedException {
+        Path classLog = Files.createTempFile("samesame-classes", ".log");
+        List<String> full = new ArrayList<>(command.subList(0, 1));
+        full.add("-Xlog:class+load=info:file=" + classLog);
+        full.addAll(command.subList(1, command.size()));
+        full.addAll(List.of("--port", "0"));
+
+        long start = System.nanoTime();
+        Process process = new ProcessBuilder(full).redirectErrorStream(true).start();
+        try {
+            BufferedReader stdout = new BufferedReader(
+                new InputStreamReader(process.getInputStream(), StandardCharsets.UTF_8));
+            String line;
+            while ((line = stdout.readLine()) != null && !line.contains(MARKER)) {
+                // Skip anything printed before the server is up
+            }
+            if (line == null) {
+                throw new IllegalStateException(String.join(" ", full) + " exited before listening");
+            }
+            long ready = System.nanoTime() - start;
+            String address = line.substring(line.indexOf(MARKER) + MARKER.length()).split(" ")[0];
+
+            exercise("http://" + address, requests);
+            long[] memory = memory(process.pid());
+            return new long[] {classesLoaded(classLog), memory[0], memory[1], ready};
+        } finally {
+            process.destroy();
+            process.waitFor(10, TimeUnit.SECONDS);
+            Files.deleteIfExists(classLog);
+        }
+    }
+
+    /**
+     * Sends the same mix as {@link ServerLoadTest}, one request at a time
+     */
+    private static void exercise(String url, int requests) throws IOException, InterruptedException {
+        byte[] secret = "correct horse battery staple".getBytes(StandardCharsets.UTF_8);
+        byte[] compareBody = ByteBuffer.allocate(8 + 2 * secret.length)
+            .putInt(secret.length).put(secret).putInt(secret.length).put(secret).array();
+        HttpClient client = HttpClient.newHttpClient();
+        HttpRequest[] mix = {
+            HttpRequest.newBuilder(URI.create(url + "/compare"))
+                .POST(HttpRequest.BodyPublishers.ofByteArray(compareBody)).build(),
+            HttpRequest.newBuilder(URI.create(url + "/strength"))
+                .POST(HttpRequest.BodyPublishers.ofByteArray(secret)).build(),
+            HttpRequest.newBuilder(URI.create(url + "/hash?algorithm=SHA-256"))
+                .POST(HttpRequest.BodyPublishers.ofByteArray(secret)).build()
+        };
+        for (int i = 0; i < requests; i++) {
+            HttpResponse<Void> response = client.send(mix[i % mix.length], HttpResponse.BodyHandlers.discarding());
+            if (response.statusCode() != 200) {
+                throw new IllegalStateException(response.uri() + " returned " + response.statusCode());
+            }
+        }
+    }
+
+    /**
+     * @return VmRSS and VmHWM of the process in kB
+     */
+    private static long[] memory(long pid) throws IOException {
+        long[] memory = new long[2];
+        for (String line : Files.readAllLines(Paths.get("/proc", Long.toString(pid), "status"))) {
+            if (line.startsWith("VmRSS:")) {
+                memory[0] = kilobytes(line);
+            } else if (line.startsWith("VmHWM:")) {
+                memory[1] = kilobytes(line);
+            }
+        }
+        return memory;
+    }
+
+    private static long kilobytes(String line) {
+        return Long.parseLong(line.replaceAll("[^0-9]", ""));
+    }
+
+    /**
+     * Counts the classes loaded so far; the JVM writes each log line before the class is used
+     */
+    private static long classesLoaded(Path classLog) throws IOException {
+        try (Stream<String> lines = Files.lines(classLog)) {
+            return lines.filter(line -> line.contains("source:")).count();
+        }
+    }
+
+    private static long size(Path path) throws IOException {
+        if (!Files.isDirectory(path)) {
+            return Files.isRegularFile(path) ? Files.size(path) : 0;
+        }
+        try (Stream<Path> files = Files.walk(path)) {
+            return files.filter(Files::isRegularFile).mapToLong(file -> file.toFile().length()).sum();
+        }
+    }
+
+    private static long median(long[] values) {
+        long[] sorted = values.clone();
+        Arrays.sort(sorted);
+        return sorted[sorted.length / 2];
+    }
+}
@@ -0,0 +1,43 @@
+package com.samesame.benchmarks;
+
+import com.samesame.service.GuessEstimator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the guess estimator on 20-character passwords of different shapes
+ * The target is under 50 µs per call with no allocation (see gc.alloc.rate.norm)
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class GuessEstimatorBenchmark {
+
+    @Param({
+        "q8Zr!t2Lm#w0Xy7eK3$v",
+        "Tr0ub4dor&3Michael19",
+        "Password123!qwerty12",
+        "aaaaaaaaaaaaaaaaaaaa"
+    })
+    private String password;
+
+    private final GuessEstimator estimator = GuessEstimator.standard();
+
+    @Benchmark
+    public double log10Guesses() {
+        return estimator.log10Guesses(password);
+    }
+}
@@ -0,0 +1,93 @@
+package com.samesame.benchmarks;
+
+import com.samesame.service.HashingEngine;
+import com.samesame.service.PasswordComparator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures generateSecureHash across input lengths and character sets
+ * The legacy variant reproduces the original per-call getInstance, getBytes("UTF-8")
+ * and Integer.toHexString implementation as the baseline for the hashing engine
+ */
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class HashBenchmark {
+
+    private static final int BATCH_SIZE = 64;
+
+    @Param({"8", "64", "512", "4096"})
+    private int length;
+
+    @Param({"ASCII", "UNICODE"})
+    private BenchmarkInputs.Alphabet alphabet;
+
+    private final PasswordComparator passwordComparator = new PasswordComparator();
+    private final HashingEngine sha256 = new HashingEngine(HashingEngine.Algorithm.SHA_256);
+    private final byte[] digest = new byte[32];
+    private String password;
+    private List<String> batch;
+
+    @Setup
+    public void setUp() {
+        password = BenchmarkInputs.password(alphabet, length);
+        batch = new ArrayList<>();
+        for (int i = 0; i < BATCH_SIZE; i++) {
+            batch.add(BenchmarkInputs.password(alphabet, length + i).substring(i));
+        }
+    }
+
+    @Benchmark
+    public String generateSecureHash() {
+        return passwordComparator.generateSecureHash(password);
+    }
+
+    @Benchmark
+    public String legacyGenerateSecureHash() throws Exception {
+        MessageDigest messageDigest = MessageDigest.getInstance("SHA-256");
+        byte[] hash = messageDigest.digest(password.getBytes("UTF-8"));
+        
+        StringBuilder hexString = new StringBuilder();
+        for (byte b : hash) {
+            String hex = Integer.toHexString(0xff & b);
+            if (hex.length() == 1) {
+                hexString.append('0');
+            }
+            hexString.append(hex);
+        }
+        
+        return hexString.toString();
+    }
+
+    @Benchmark
+    public byte[] hashRaw() {
+        sha256.hash(password, digest, 0);
+        return digest;
+    }
+
+    /**
+     * Hashes BATCH_SIZE inputs per invocation; divide the time per operation by 64
+     */
+    @Benchmark
+    public byte[] hashBatch() {
+        return sha256.hashAll(batch);
+    }
+}
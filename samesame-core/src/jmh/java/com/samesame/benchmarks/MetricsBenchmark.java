@@ -0,0 +1,90 @@
+package com.samesame.benchmarks;
+
+import com.samesame.metrics.ComparatorMetrics;
+import com.samesame.service.PasswordComparator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import jdk.jfr.Configuration;
+import jdk.jfr.Recording;
+
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures what the metrics layer and the Flight Recorder events add to a 16-character comparison
+ * DISABLED is the baseline, with no metrics and no recording; SAMPLED is the
+ * default metrics configuration and should stay within 20 ns of it;
+ * EVERY_CALL times each call and shows the cost of reading the clock on this
+ * host; FLIGHT_RECORDING runs a recording with jfr/samesame.jfc, whose
+ * thresholds drop these fast calls after timing them
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class MetricsBenchmark {
+
+    public enum Instrumentation { DISABLED, SAMPLED, EVERY_CALL, FLIGHT_RECORDING }
+
+    @Param({"DISABLED", "SAMPLED", "EVERY_CALL", "FLIGHT_RECORDING"})
+    private Instrumentation instrumentation;
+
+    private final PasswordComparator passwordComparator = new PasswordComparator();
+    private String password1;
+    private String password2;
+    private Recording recording;
+
+    @Setup
+    public void setUp() throws Exception {
+        password1 = BenchmarkInputs.password(BenchmarkInputs.Alphabet.ASCII, 16);
+        password2 = BenchmarkInputs.equalCopy(password1);
+        switch (instrumentation) {
+            case SAMPLED:
+                passwordComparator.setMetrics(new ComparatorMetrics());
+                break;
+            case EVERY_CALL:
+                passwordComparator.setMetrics(new ComparatorMetrics(1));
+                break;
+            case FLIGHT_RECORDING:
+                try (InputStream in = MetricsBenchmark.class.getResourceAsStream("/jfr/samesame.jfc")) {
+                    recording = new Recording(Configuration.create(new InputStreamReader(in, StandardCharsets.UTF_8)));
+                }
+                recording.start();
+                break;
+            default:
+                passwordComparator.setMetrics(null);
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        if (recording != null) {
+            recording.close();
+        }
+    }
+
+    @Benchmark
+    public boolean comparePasswords() {
+        return passwordComparator.comparePasswords(password1, password2);
+    }
+
+    @Benchmark
+    public String evaluatePasswordStrength() {
+        return passwordComparator.evaluatePasswordStrength(password1);
+    }
+}
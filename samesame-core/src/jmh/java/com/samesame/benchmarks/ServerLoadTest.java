@@ -0,0 +1,107 @@
+package com.samesame.benchmarks;
+
+import com.samesame.server.ComparisonServer;
+import com.samesame.service.PasswordComparator;
+
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Closed-loop load test of the HTTP service over keep-alive connections
+ * Starts an in-process server unless --url points at a running one and
+ * reports requests per second with p50/p99/max latency for each endpoint
+ *
+ * Usage: java -cp target/benchmarks.jar com.samesame.benchmarks.ServerLoadTest
+ *        [--url http://127.0.0.1:8080] [--clients 64] [--requests 20000]
+ */
+public class ServerLoadTest {
+
+    public static void main(String[] args) throws Exception {
+        String url = null;
+        int clients = 64;
+        int requests = 20_000;
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            switch (args[i]) {
+                case "--url": url = args[i + 1]; break;
+                case "--clients": clients = Integer.parseInt(args[i + 1]); break;
+                case "--requests": requests = Integer.parseInt(args[i + 1]); break;
+                default: throw new IllegalArgumentException("Unknown option: " + args[i]);
+            }
+        }
+
+        ComparisonServer server = null;
+        if (url == null) {
+            server = new ComparisonServer(new PasswordComparator(), 256, ComparisonServer.DEFAULT_MAX_BODY_BYTES);
+            server.start(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0));
+            url = "http://127.0.0.1:" + server.port();
+        }
+
+        byte[] secret = "correct horse battery staple".getBytes(StandardCharsets.UTF_8);
+        byte[] compareBody = ByteBuffer.allocate(8 + 2 * secret.length)
+            .putInt(secret.length).put(secret).putInt(secret.length).put(secret).array();
+        try {
+            run("compare", URI.create(url + "/compare"), compareBody, clients, requests);
+            run("strength", URI.create(url + "/strength"), secret, clients, requests);
+            run("hash", URI.create(url + "/hash?algorithm=SHA-256"), secret, clients, requests);
+        } finally {
+            if (server != null) {
+                server.stop();
+            }
+        }
+    }
+
+    private static void run(String name, URI uri, byte[] body, int clients, int requests) throws Exception {
+        HttpClient client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+        HttpRequest request = HttpRequest.newBuilder(uri).POST(HttpRequest.BodyPublishers.ofByteArray(body)).build();
+
+        // Warm up the JIT and the connection pool
+        for (int i = 0; i < Math.min(requests, 2_000); i++) {
+            client.send(request, HttpResponse.BodyHandlers.discarding());
+        }
+
+        ExecutorService pool = Executors.newFixedThreadPool(clients);
+        int perClient = requests / clients;
+        long startTime = System.nanoTime();
+        List<Future<long[]>> futures = new ArrayList<>();
+        for (int c = 0; c < clients; c++) {
+            futures.add(pool.submit(() -> {
+                long[] latencies = new long[perClient];
+                for (int i = 0; i < perClient; i++) {
+                    long sent = System.nanoTime();
+                    HttpResponse<Void> response = client.send(request, HttpResponse.BodyHandlers.discarding());
+                    if (response.statusCode() != 200) {
+                        throw new IllegalStateException(name + " returned " + response.statusCode());
+                    }
+                    latencies[i] = System.nanoTime() - sent;
+                }
+                return latencies;
+            }));
+        }
+        long[] all = new long[perClient * clients];
+        int offset = 0;
+        for (Future<long[]> future : futures) {
+            long[] latencies = future.get();
+            System.arraycopy(latencies, 0, all, offset, latencies.length);
+            offset += latencies.length;
+        }
+        long elapsed = System.nanoTime() - startTime;
+        pool.shutdown();
+
+        Arrays.sort(all);
+        System.out.printf("%-8s %,10.0f req/s  p50 %7.1f us  p99 %8.1f us  max %8.1f us%n",
+            name, all.length * 1e9 / elapsed,
+            all[all.length / 2] / 1e3, all[(int) (all.length * 0.99)] / 1e3, all[all.length - 1] / 1e3);
+    }
+}
@@ -0,0 +1,87 @@
+package com.samesame.benchmarks;
+
+import com.samesame.service.EditDistance;
+import com.samesame.service.PasswordComparator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures classifySimilarity for the near-miss kinds the UI reports
+ * Up to 64 characters the pattern fits one word; 128 exercises the blocked path.
+ * Single-word cases should stay under a microsecond; blocked ones grow with the block count.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class SimilarityBenchmark {
+
+    @Param({"8", "16", "64", "128"})
+    private int length;
+
+    @Param({"ASCII", "UNICODE"})
+    private BenchmarkInputs.Alphabet alphabet;
+
+    @Param({"CASE_ONLY", "ONE_EDIT", "TRANSPOSITION", "DIFFERENT"})
+    private EditDistance.Similarity expected;
+
+    private final PasswordComparator passwordComparator = new PasswordComparator();
+    private String password1;
+    private String password2;
+
+    @Setup
+    public void setUp() {
+        password1 = BenchmarkInputs.password(alphabet, length);
+        char[] chars = password1.toCharArray();
+        int middle = length / 2;
+        switch (expected) {
+            case CASE_ONLY:
+                // Character by character, so that no letter changes length as String.toUpperCase may
+                char[] upper = chars.clone();
+                for (int i = 0; i < length; i++) {
+                    chars[i] = Character.toLowerCase(chars[i]);
+                    upper[i] = Character.toUpperCase(chars[i]);
+                }
+                password1 = new String(chars);
+                password2 = new String(upper);
+                break;
+            case ONE_EDIT:
+                chars[middle] = (char) (chars[middle] ^ 1);
+                password2 = new String(chars);
+                break;
+            case TRANSPOSITION:
+                // Neighbours that are the same character would make the swap a no-op
+                chars[middle] = '1';
+                chars[middle + 1] = '2';
+                password1 = new String(chars);
+                chars[middle] = '2';
+                chars[middle + 1] = '1';
+                password2 = new String(chars);
+                break;
+            default:
+                password2 = BenchmarkInputs.password(alphabet, length + 1).substring(1);
+        }
+        EditDistance.Similarity actual = passwordComparator.classifySimilarity(password1, password2);
+        if (actual != expected) {
+            throw new IllegalStateException("Inputs classify as " + actual + ", expected " + expected);
+        }
+    }
+
+    @Benchmark
+    public EditDistance.Similarity classifySimilarity() {
+        return passwordComparator.classifySimilarity(password1, password2);
+    }
+}
@@ -0,0 +1,125 @@
+package com.samesame.benchmarks;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Time to first result of the console and the demo in each launch mode
+ * Every run starts a fresh process and stops the clock when the process
+ * prints its first result line, so JVM startup, class loading and the
+ * first evaluation are all included
+ *
+ * Modes:
+ *   jvm     plain JVM on the packaged JAR
+ *   appcds  the same with the archives from mvn -Pappcds package
+ *   native  the executable from mvn -Pnative package, if it exists
+ *
+ * Usage: java -cp target/benchmarks.jar com.samesame.benchmarks.StartupBenchmark
+ *        [--jar target/samesame-core-1.0.0.jar] [--cds target/cds]
+ *        [--native target/samesame] [--runs 20]
+ */
+public class StartupBenchmark {
+
+    /** Piped to the console; standard input is not a terminal, so it reads lines */
+    private static final String CONSOLE_INPUT = "Tr0ub4dor&3\nTr0ub4dor&3\nn\n";
+
+    public static void main(String[] args) throws Exception {
+        Path jar = Paths.get("target/samesame-core-1.0.0.jar");
+        Path cds = Paths.get("target/cds");
+        Path nativeImage = Paths.get("target/samesame");
+        int runs = 20;
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            switch (args[i]) {
+                case "--jar": jar = Paths.get(args[i + 1]); break;
+                case "--cds": cds = Paths.get(args[i + 1]); break;
+                case "--native": nativeImage = Paths.get(args[i + 1]); break;
+                case "--runs": runs = Integer.parseInt(args[i + 1]); break;
+                default: throw new IllegalArgumentException("Unknown option: " + args[i]);
+            }
+        }
+        if (!Files.isRegularFile(jar)) {
+            throw new IllegalArgumentException(jar + " not found; run mvn package first");
+        }
+
+        String java = Paths.get(System.getProperty("java.home"), "bin", "java").toString();
+        String classpath = jar.toString();
+        System.out.printf("%-8s %-7s %10s %10s %10s%n", "Entry", "Mode", "min ms", "p50 ms", "max ms");
+        for (String entry : new String[] {"console", "demo"}) {
+            boolean console = entry.equals("console");
+            String mainClass = console ? "com.samesame.ConsolePasswordComparator" : "com.samesame.DemoRunner";
+            String marker = console ? "RESULT:" : "Result:";
+            String input = console ? CONSOLE_INPUT : "";
+
+            run(entry, "jvm", List.of(java, "-cp", classpath, mainClass), input, marker, runs);
+
+            Path archive = cds.resolve(entry + ".jsa");
+            if (Files.isRegularFile(archive)) {
+                run(entry, "appcds", List.of(java, "-XX:SharedArchiveFile=" + archive, "-Xshare:auto",
+                    "-cp", classpath, mainClass), input, marker, runs);
+            } else {
+                System.out.printf("%-8s %-7s skipped, %s not found%n", entry, "appcds", archive);
+            }
+
+            if (Files.isExecutable(nativeImage)) {
+                List<String> command = new ArrayList<>(List.of(nativeImage.toString()));
+                if (!console) {
+                    command.add("demo");
+                }
+                run(entry, "native", command, input, marker, runs);
+            } else {
+                System.out.printf("%-8s %-7s skipped, %s not found%n", entry, "native", nativeImage);
+            }
+        }
+    }
+
+    private static void run(String entry, String mode, List<String> command, String input,
+                            String marker, int runs) throws IOException, InterruptedException {
+        // One untimed run fills the page cache
+        launch(command, input, marker);
+        long[] nanos = new long[runs];
+        for (int i = 0; i < runs; i++) {
+            nanos[i] = launch(command, input, marker);
+        }
+        Arrays.sort(nanos);
+        System.out.printf("%-8s %-7s %10.1f %10.1f %10.1f%n", entry, mode,
+            nanos[0] / 1e6, nanos[runs / 2] / 1e6, nanos[runs - 1] / 1e6);
+    }
+
+    /**
+     * @return Nanoseconds from starting the process to its first line containing the marker
+     */
+    private static long launch(List<String> command, String input, String marker)
+            throws IOException, InterruptedException {
+        long start = System.nanoTime();
+        Process process = new ProcessBuilder(command).redirectErrorStream(true).start();
+        try (OutputStream stdin = process.getOutputStream()) {
+            stdin.write(input.getBytes(StandardCharsets.UTF_8));
+        }
+
+        long elapsed = -1;
+        try (BufferedReader stdout = new BufferedReader(
+                new InputStreamReader(process.getInputStream(), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = stdout.readLine()) != null) {
+                if (elapsed < 0 && line.contains(marker)) {
+                    elapsed = System.nanoTime() - start;
+                }
+            }
+        }
+        int exitCode = process.waitFor();
+        if (elapsed < 0 || exitCode != 0) {
+            throw new IllegalStateException(String.join(" ", command)
+                + " exited with " + exitCode + " before printing " + marker);
+        }
+        return elapsed;
+    }
+}
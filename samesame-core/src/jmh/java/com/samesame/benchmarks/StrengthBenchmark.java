@@ -0,0 +1,71 @@
+package com.samesame.benchmarks;
+
+import com.samesame.service.IncrementalStrengthEvaluator;
+import com.samesame.service.PasswordComparator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures evaluatePasswordStrength across input lengths and character sets
+ * The typing benchmarks compare re-evaluating every prefix of the password
+ * against feeding the same keystrokes to an incremental evaluator
+ */
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class StrengthBenchmark {
+
+    @Param({"8", "64", "512", "4096"})
+    private int length;
+
+    @Param({"ASCII", "UNICODE"})
+    private BenchmarkInputs.Alphabet alphabet;
+
+    private final PasswordComparator passwordComparator = new PasswordComparator();
+    private final IncrementalStrengthEvaluator incremental = passwordComparator.newIncrementalEvaluator();
+    private String password;
+
+    @Setup
+    public void setUp() {
+        password = BenchmarkInputs.password(alphabet, length);
+    }
+
+    @Benchmark
+    public String evaluatePasswordStrength() {
+        return passwordComparator.evaluatePasswordStrength(password);
+    }
+
+    @Benchmark
+    public int typeWithFullEvaluation() {
+        int scores = 0;
+        for (int i = 1; i <= password.length(); i++) {
+            scores += passwordComparator.evaluateStrengthCriteria(password.subSequence(0, i));
+        }
+        return scores;
+    }
+
+    @Benchmark
+    public int typeWithIncrementalEvaluation() {
+        incremental.clear();
+        int scores = 0;
+        for (int i = 0; i < password.length(); i++) {
+            incremental.append(password.charAt(i));
+            scores += incremental.criteria();
+        }
+        return scores;
+    }
+}
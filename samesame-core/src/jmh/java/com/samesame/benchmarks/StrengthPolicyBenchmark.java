@@ -0,0 +1,71 @@
+package com.samesame.benchmarks;
+
+import com.samesame.service.PasswordComparator;
+import com.samesame.service.StrengthEvaluator;
+import com.samesame.service.StrengthPolicy;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures strength evaluation under the built-in policy and a custom one
+ * Both should cost the same: a custom policy only changes table contents.
+ * The structured result should not allocate.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class StrengthPolicyBenchmark {
+
+    /** Longer thresholds, other special characters, extra patterns and weights */
+    private static final String CUSTOM_POLICY = "{"
+        + "\"length\": {\"minimum\": 10, \"long\": 14, \"veryLong\": 20},"
+        + "\"characters\": {\"special\": \"!#$%&*?@\"},"
+        + "\"repeat\": {\"maxRun\": 3},"
+        + "\"weakPatterns\": [\"123\", \"abc\", \"qwerty\", \"password\", \"admin\", \"welcome\", \"summer\", \"acme\"],"
+        + "\"weight\": {\"digit\": 2, \"special\": 2, \"noCommonPattern\": 3},"
+        + "\"verdict\": {\"weak\": 3, \"medium\": 6, \"strong\": 9}"
+        + "}";
+
+    @Param({"8", "64", "512"})
+    private int length;
+
+    @Param({"ASCII", "UNICODE"})
+    private BenchmarkInputs.Alphabet alphabet;
+
+    @Param({"BUILT_IN", "CUSTOM"})
+    private String policy;
+
+    private final PasswordComparator passwordComparator = new PasswordComparator();
+    private String password;
+
+    @Setup
+    public void setUp() {
+        password = BenchmarkInputs.password(alphabet, length);
+        passwordComparator.setStrengthPolicy(
+            policy.equals("CUSTOM") ? StrengthPolicy.fromJson(CUSTOM_POLICY) : StrengthPolicy.defaults());
+    }
+
+    @Benchmark
+    public StrengthEvaluator.Result evaluateStrength() {
+        return passwordComparator.evaluateStrength(password);
+    }
+
+    @Benchmark
+    public String evaluatePasswordStrength() {
+        return passwordComparator.evaluatePasswordStrength(password);
+    }
+}
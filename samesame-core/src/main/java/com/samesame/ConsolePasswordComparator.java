@@ -0,0 +1,563 @@
+package com.samesame;
+
+import com.samesame.metrics.RecordingSummary;
+import com.samesame.service.BatchComparator;
+import com.samesame.service.BlocklistFilter;
+import com.samesame.service.BreachIndex;
+import com.samesame.service.BreachIndexBuilder;
+import com.samesame.service.EditDistance;
+import com.samesame.service.FileComparator;
+import com.samesame.service.GuessEstimator;
+import com.samesame.service.PasswordComparator;
+import com.samesame.service.PasswordHasher;
+import com.samesame.service.PasswordReuseDetector;
+import com.samesame.service.SecretBuffer;
+import com.samesame.service.StrengthAudit;
+import com.samesame.service.StrengthEvaluator;
+import com.samesame.service.StrengthPolicy;
+import java.io.BufferedReader;
+import java.io.Console;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.NoSuchElementException;
+import java.util.Scanner;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Console-based version of the Password Comparator
+ * This version runs without JavaFX dependencies for systems where JavaFX is not available
+ */
+public class ConsolePasswordComparator {
+    
+    private static final PasswordComparator passwordComparator = new PasswordComparator();
+    private static final Scanner scanner = new Scanner(System.in);
+    
+    public static void main(String[] args) {
+        if (args.length > 0) {
+            System.exit(runCommand(args));
+        }
+        
+        printWelcome();
+        loadStrengthPolicy();
+        loadBreachIndex();
+        loadBlocklist();
+        
+        while (true) {
+            try {
+                runPasswordComparison();
+                
+                System.out.print("\nWould you like to compare another set of passwords? (y/n): ");
+                String choice = scanner.nextLine().trim().toLowerCase();
+                
+                if (!choice.equals("y") && !choice.equals("yes")) {
+                    break;
+                }
+                
+                System.out.println(); // Add spacing
+            } catch (NoSuchElementException e) {
+                // Standard input ended, as it does when passwords are piped in
+                break;
+            } catch (Exception e) {
+                System.err.println("An error occurred: " + e.getMessage());
+            }
+        }
+        
+        System.out.println("\nThank you for using SameSame Password Comparator!");
+        scanner.close();
+    }
+    
+    private static void printWelcome() {
+        System.out.println("=".repeat(60));
+        System.out.println("           SameSame - Secure Password Comparator");
+        System.out.println("=".repeat(60));
+        System.out.println("A secure tool for comparing passwords to ensure they match.");
+        System.out.println("Features: Constant-time comparison, Memory clearing, Strength evaluation");
+        System.out.println("=".repeat(60));
+        System.out.println();
+    }
+    
+    /**
+     * Runs a non-interactive command
+     * 
+     * @return Process exit code
+     */
+    private static int runCommand(String[] args) {
+        try {
+            switch (args[0]) {
+                case "build-breach-index":
+                    return buildBreachIndex(args);
+                case "build-blocklist":
+                    return buildBlocklist(args);
+                case "batch":
+                    return runBatch(args);
+                case "compare-files":
+                    return runFileComparison(args);
+                case "reuse":
+                    return runReuseDetection(args);
+                case "audit":
+                    return runAudit(args);
+                case "calibrate":
+                    return runCalibrate(args);
+                case "jfr-summary":
+                    return runRecordingSummary(args);
+                case "demo":
+                    runDemo();
+                    return 0;
+                default:
+                    printUsage();
+                    return 2;
+            }
+        } catch (IOException e) {
+            System.err.println("An error occurred: " + e.getMessage());
+            return 1;
+        } catch (IllegalArgumentException e) {
+            // Also covers NumberFormatException from option values
+            System.err.println("Invalid argument: " + e.getMessage());
+            printUsage();
+            return 2;
+        }
+    }
+    
+    /**
+     * @return The value following the option at index i
+     * @throws IllegalArgumentException if the option is the last argument
+     */
+    private static String optionValue(String[] args, int i) {
+        if (i + 1 >= args.length) {
+            throw new IllegalArgumentException("Missing value for " + args[i]);
+        }
+        return args[i + 1];
+    }
+    
+    private static void printUsage() {
+        System.err.println("Usage: ConsolePasswordComparator [command]");
+        System.err.println("  (no command)                                  interactive comparison");
+        System.err.println("  build-breach-index <hashes> <index> [SHA-1|SHA-256]");
+        System.err.println("                                                pack a raw hash list into a breach index");
+        System.err.println("  build-blocklist <passwords> <filter> [false-positive-rate]");
+        System.err.println("                                                build a Bloom filter of common passwords");
+        System.err.println("  batch <pairs> [--format tsv|csv|bin] [--out <results>] [--threads <n>] [--chunk-size <bytes>]");
+        System.err.println("                                                compare every credential pair in a file");
+        System.err.println("  compare-files <first> <second> [--window-mb <n>]");
+        System.err.println("                                                constant-time check that two files are identical");
+        System.err.println("  reuse <accounts> [--out <groups>] [--threads <n>] [--partitions <n>] [--spill-dir <dir>]");
+        System.err.println("                                                group accounts that share a password");
+        System.err.println("  audit <passwords> [--threads <n>]             strength histogram of a password export");
+        System.err.println("  calibrate [--target-ms <ms>] [--per-core <n>] pick the PBKDF2 iteration count for this host");
+        System.err.println("  jfr-summary <recording.jfr>                   latency percentiles of SameSame events");
+        System.err.println("  demo                                          compare a fixed set of test passwords");
+    }
+    
+    private static int runBatch(String[] args) throws IOException {
+        if (args.length < 2) {
+            printUsage();
+            return 2;
+        }
+        Path input = Paths.get(args[1]);
+        BatchComparator.Format format = BatchComparator.Format.forFile(input);
+        Path output = Paths.get(args[1] + ".results");
+        int threads = Runtime.getRuntime().availableProcessors();
+        int chunkSize = BatchComparator.DEFAULT_CHUNK_SIZE;
+        
+        for (int i = 2; i < args.length; i += 2) {
+            String value = optionValue(args, i);
+            switch (args[i]) {
+                case "--format":
+                    format = "bin".equalsIgnoreCase(value)
+                        ? BatchComparator.Format.BINARY
+                        : BatchComparator.Format.valueOf(value.toUpperCase());
+                    break;
+                case "--out":
+                    output = Paths.get(value);
+                    break;
+                case "--threads":
+                    threads = Integer.parseInt(value);
+                    break;
+                case "--chunk-size":
+                    chunkSize = Integer.parseInt(value);
+                    break;
+                default:
+                    printUsage();
+                    return 2;
+            }
+        }
+        
+        BatchComparator batch = new BatchComparator(passwordComparator, threads, chunkSize);
+        BatchComparator.Summary summary = batch.run(input, format, output);
+        
+        System.out.println("=".repeat(40));
+        System.out.printf("Rows:       %,d%n", summary.rows());
+        System.out.printf("Matches:    %,d%n", summary.matches());
+        System.out.printf("Mismatches: %,d%n", summary.mismatches());
+        System.out.printf("Invalid:    %,d%n", summary.invalid());
+        System.out.printf("Throughput: %,.0f rows/s (%.1f MB/s)%n", summary.rowsPerSecond(), summary.megabytesPerSecond());
+        System.out.println("Results written to " + output);
+        System.out.println("=".repeat(40));
+        return summary.invalid() == 0 ? 0 : 1;
+    }
+    
+    private static int runFileComparison(String[] args) throws IOException {
+        if (args.length < 3) {
+            printUsage();
+            return 2;
+        }
+        int windowSize = FileComparator.DEFAULT_WINDOW_SIZE;
+        for (int i = 3; i < args.length; i += 2) {
+            String value = optionValue(args, i);
+            if (!args[i].equals("--window-mb")) {
+                printUsage();
+                return 2;
+            }
+            long windowMb = Long.parseLong(value);
+            if (windowMb > Integer.MAX_VALUE >> 20) {
+                throw new IllegalArgumentException("--window-mb must be at most " + (Integer.MAX_VALUE >> 20));
+            }
+            windowSize = (int) Math.max(0, windowMb << 20);
+        }
+        
+        FileComparator fileComparator = new FileComparator(windowSize);
+        FileComparator.Result result = fileComparator.compare(Paths.get(args[1]), Paths.get(args[2]));
+        
+        System.out.println("=".repeat(40));
+        System.out.println("Result:     " + (result.identical() ? "IDENTICAL" : "DIFFERENT"));
+        if (result.sameSize()) {
+            System.out.printf("Size:       %,d bytes%n", result.bytesCompared());
+            System.out.printf("Throughput: %.2f GB/s (%d MiB windows)%n",
+                result.gigabytesPerSecond(), windowSize >> 20);
+        } else {
+            System.out.printf("Sizes:      %,d and %,d bytes; contents not compared%n",
+                result.firstSize(), result.secondSize());
+        }
+        System.out.println("=".repeat(40));
+        return result.identical() ? 0 : 1;
+    }
+    
+    private static int runReuseDetection(String[] args) throws IOException {
+        if (args.length < 2) {
+            printUsage();
+            return 2;
+        }
+        Path input = Paths.get(args[1]);
+        Path output = Paths.get(args[1] + ".groups");
+        int threads = Runtime.getRuntime().availableProcessors();
+        int partitions = PasswordReuseDetector.partitionsFor(Files.size(input));
+        Path spillDirectory = null;
+        
+        for (int i = 2; i < args.length; i += 2) {
+            String value = optionValue(args, i);
+            switch (args[i]) {
+                case "--out":
+                    output = Paths.get(value);
+                    break;
+                case "--threads":
+                    threads = Integer.parseInt(value);
+                    break;
+                case "--partitions":
+                    partitions = Integer.parseInt(value);
+                    break;
+                case "--spill-dir":
+                    spillDirectory = Paths.get(value);
+                    break;
+                default:
+                    printUsage();
+                    return 2;
+            }
+        }
+        
+        PasswordReuseDetector detector = new PasswordReuseDetector(
+            threads, partitions, PasswordReuseDetector.DEFAULT_RANGE_SIZE, spillDirectory);
+        PasswordReuseDetector.Summary summary = detector.run(input, output);
+        
+        System.out.println("=".repeat(40));
+        System.out.printf("Rows:             %,d%n", summary.rows());
+        System.out.printf("Invalid:          %,d%n", summary.invalid());
+        System.out.printf("Distinct secrets: %,d%n", summary.distinctSecrets());
+        System.out.printf("Reused secrets:   %,d%n", summary.groups());
+        System.out.printf("Affected rows:    %,d%n", summary.reusedAccounts());
+        System.out.printf("Largest group:    %,d%n", summary.largestGroup());
+        System.out.printf("Throughput: %,.0f rows/s (%.1f MB/s) on %d threads, %d partitions%n",
+            summary.rowsPerSecond(), summary.megabytesPerSecond(), threads, partitions);
+        System.out.println("Groups written to " + output);
+        System.out.println("=".repeat(40));
+        return summary.invalid() == 0 ? 0 : 1;
+    }
+    
+    private static int runAudit(String[] args) throws IOException {
+        if (args.length < 2) {
+            printUsage();
+            return 2;
+        }
+        int threads = Runtime.getRuntime().availableProcessors();
+        for (int i = 2; i < args.length; i += 2) {
+            String value = optionValue(args, i);
+            if (!args[i].equals("--threads")) {
+                printUsage();
+                return 2;
+            }
+            threads = Integer.parseInt(value);
+        }
+        loadStrengthPolicy();
+        loadBlocklist();
+        
+        StrengthAudit audit = new StrengthAudit(passwordComparator, threads, StrengthAudit.DEFAULT_RANGE_SIZE);
+        StrengthAudit.Report report = audit.run(Paths.get(args[1]));
+        long total = Math.max(1, report.passwords());
+        
+        System.out.println("=".repeat(40));
+        System.out.printf("Passwords audited: %,d%n", report.passwords());
+        System.out.println("-".repeat(40));
+        for (int i = 0; i < StrengthAudit.VERDICTS.length; i++) {
+            long count = report.verdictCount(i);
+            System.out.printf("%-12s %,12d  %5.1f%%%n", StrengthAudit.VERDICTS[i], count, count * 100.0 / total);
+        }
+        System.out.println("-".repeat(40));
+        System.out.println("Failed rules:");
+        for (int i = 0; i < StrengthAudit.RULES.length; i++) {
+            long count = report.ruleFailures(i);
+            System.out.printf("%-16s %,12d  %5.1f%%%n", StrengthAudit.RULES[i], count, count * 100.0 / total);
+        }
+        System.out.println("-".repeat(40));
+        System.out.printf("Throughput: %,.0f passwords/s on %d threads%n", report.passwordsPerSecond(), threads);
+        System.out.println("=".repeat(40));
+        return 0;
+    }
+    
+    private static int runCalibrate(String[] args) {
+        long targetMillis = 50;
+        double perCore = 10;
+        for (int i = 1; i < args.length; i += 2) {
+            String value = optionValue(args, i);
+            switch (args[i]) {
+                case "--target-ms":
+                    targetMillis = Long.parseLong(value);
+                    break;
+                case "--per-core":
+                    perCore = Double.parseDouble(value);
+                    break;
+                default:
+                    printUsage();
+                    return 2;
+            }
+        }
+        
+        for (PasswordHasher.Scheme scheme : PasswordHasher.Scheme.values()) {
+            int iterations = PasswordHasher.calibrate(scheme, Duration.ofMillis(targetMillis), perCore);
+            try (PasswordHasher hasher = new PasswordHasher(scheme, iterations, 1, 1)) {
+                char[] password = "calibration".toCharArray();
+                String stored = hasher.hash(password);
+                long startTime = System.nanoTime();
+                hasher.verify(password, stored);
+                double millis = (System.nanoTime() - startTime) / 1_000_000.0;
+                System.out.printf("%-14s %,11d iterations  %6.1f ms per verification%n", scheme.id(), iterations, millis);
+            }
+        }
+        return 0;
+    }
+    
+    private static int runRecordingSummary(String[] args) throws IOException {
+        if (args.length < 2) {
+            printUsage();
+            return 2;
+        }
+        RecordingSummary summary = RecordingSummary.read(Paths.get(args[1]));
+        System.out.print(summary.format());
+        return 0;
+    }
+    
+    private static int buildBreachIndex(String[] args) throws IOException {
+        if (args.length < 3) {
+            printUsage();
+            return 2;
+        }
+        Path input = Paths.get(args[1]);
+        Path output = Paths.get(args[2]);
+        String algorithm = args.length > 3 ? args[3] : "SHA-1";
+        Path tempDirectory = output.toAbsolutePath().getParent();
+        
+        BreachIndexBuilder builder = new BreachIndexBuilder(algorithm, BreachIndexBuilder.DEFAULT_RUN_SIZE, tempDirectory);
+        long startTime = System.nanoTime();
+        long entries = builder.build(input, output);
+        double seconds = (System.nanoTime() - startTime) / 1_000_000_000.0;
+        
+        System.out.printf("Read %,d lines (%,d skipped), wrote %,d distinct %s digests in %.1f s%n",
+            builder.linesRead(), builder.linesSkipped(), entries, algorithm.toUpperCase(), seconds);
+        return 0;
+    }
+    
+    private static int buildBlocklist(String[] args) throws IOException {
+        if (args.length < 3) {
+            printUsage();
+            return 2;
+        }
+        Path input = Paths.get(args[1]);
+        Path output = Paths.get(args[2]);
+        double falsePositiveRate = args.length > 3 ? Double.parseDouble(args[3]) : 0.001;
+        
+        long startTime = System.nanoTime();
+        long lines;
+        try (Stream<String> stream = Files.lines(input, StandardCharsets.UTF_8)) {
+            lines = stream.filter(line -> !line.isEmpty()).count();
+        }
+        
+        BlocklistFilter filter = BlocklistFilter.create(Math.max(1, lines), falsePositiveRate);
+        try (BufferedReader reader = Files.newBufferedReader(input, StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (!line.isEmpty()) {
+                    filter.add(line);
+                }
+            }
+        }
+        filter.save(output);
+        double seconds = (System.nanoTime() - startTime) / 1_000_000_000.0;
+        
+        System.out.printf("Added %,d passwords in %.1f s%n", filter.size(), seconds);
+        System.out.printf("Filter size: %,d bytes (%.2f bits per entry, k=%d, target false-positive rate %s)%n",
+            filter.memoryBytes(), filter.bitsPerEntry(), filter.hashCount(), falsePositiveRate);
+        return 0;
+    }
+    
+    private static void loadBlocklist() {
+        try {
+            BlocklistFilter filter = BlocklistFilter.openConfigured();
+            if (filter != null) {
+                passwordComparator.setBlocklist(filter);
+                System.out.printf("Blocklist loaded: %,d common passwords%n%n", filter.size());
+            }
+        } catch (IOException e) {
+            System.err.println("Could not load blocklist: " + e.getMessage());
+        }
+    }
+    
+    private static void loadStrengthPolicy() {
+        try {
+            StrengthPolicy policy = StrengthPolicy.loadConfigured();
+            if (policy != null) {
+                passwordComparator.setStrengthPolicy(policy);
+                System.out.println("Strength policy loaded from " + StrengthPolicy.configuredFile() + "\n");
+            }
+        } catch (IOException e) {
+            System.err.println("Could not load strength policy: " + e.getMessage());
+        }
+    }
+    
+    private static void loadBreachIndex() {
+        try {
+            BreachIndex index = BreachIndex.openConfigured();
+            if (index != null) {
+                passwordComparator.setBreachIndex(index);
+                System.out.printf("Breach index loaded: %,d known compromised passwords%n%n", index.size());
+            }
+        } catch (IOException e) {
+            System.err.println("Could not load breach index: " + e.getMessage());
+        }
+    }
+    
+    private static void runPasswordComparison() {
+        // Both passwords stay off the heap and are zeroed when the block ends
+        try (SecretBuffer password1 = getPasswordInput("Enter the first password: ");
+             SecretBuffer password2 = getPasswordInput("Enter the second password: ")) {
+            reportComparison(password1, password2);
+        }
+    }
+    
+    private static void reportComparison(SecretBuffer password1, SecretBuffer password2) {
+        // Evaluate password strength
+        if (password1.length() > 0) {
+            StrengthEvaluator.Result strength = passwordComparator.evaluateStrength(password1);
+            System.out.println("\nPassword strength: " + strength.verdict().label() + " (score " + strength.score() + ")");
+            if (!strength.failedRules().isEmpty()) {
+                System.out.println("Failed rules: " + strength.failedRules().stream()
+                    .map(StrengthPolicy.Rule::key).collect(Collectors.joining(", ")));
+            }
+            double guesses = passwordComparator.estimateGuesses(password1);
+            System.out.printf("Estimated guesses: 10^%.1f (%.0f bits, score %d/4)%n",
+                guesses, GuessEstimator.entropyBits(guesses), GuessEstimator.score(guesses));
+        }
+        
+        // Check the offline breach corpus, if one is configured
+        if (passwordComparator.hasBreachIndex() && passwordComparator.isBreached(password1)) {
+            System.out.println("⚠ WARNING: This password appears in a known breach corpus!");
+        }
+        
+        // Compare passwords
+        boolean isMatch = passwordComparator.compareSecrets(password1, password2);
+        
+        System.out.println("\n" + "=".repeat(40));
+        if (isMatch) {
+            System.out.println("✓ RESULT: Passwords MATCH!");
+            System.out.println("The passwords are identical.");
+        } else {
+            System.out.println("✗ RESULT: Passwords DO NOT MATCH!");
+            EditDistance.Similarity similarity = passwordComparator.classifySimilarity(password1, password2);
+            if (similarity == EditDistance.Similarity.DIFFERENT) {
+                System.out.println("The passwords are different.");
+            } else {
+                System.out.println("Near match: " + similarity.description() + ".");
+            }
+        }
+        System.out.println("=".repeat(40));
+    }
+    
+    private static SecretBuffer getPasswordInput(String prompt) {
+        Console console = System.console();
+        
+        if (console != null) {
+            // Hidden input; the array is zeroed as soon as it is copied off the heap
+            char[] passwordChars = console.readPassword(prompt);
+            return SecretBuffer.takeFrom(passwordChars != null ? passwordChars : new char[0]);
+        } else {
+            // Fallback to regular input (password will be visible)
+            System.out.print(prompt + "(Warning: Password will be visible) ");
+            return SecretBuffer.takeFrom(scanner.nextLine().toCharArray());
+        }
+    }
+    
+    /**
+     * Demonstrates the password comparison functionality with test cases
+     */
+    public static void runDemo() {
+        System.out.println("\n" + "=".repeat(50));
+        System.out.println("           DEMO MODE - Test Cases");
+        System.out.println("=".repeat(50));
+        
+        // Test cases
+        String[][] testCases = {
+            {"Password123!", "Password123!", "Identical passwords"},
+            {"Password123!", "Password123", "Different passwords (missing !)"},
+            {"password123", "Password123", "Case sensitivity test"},
+            {"", "", "Empty passwords"},
+            {"Weak123", "Weak123", "Weak password test"},
+            {"VerySecureP@ssw0rd2023!", "VerySecureP@ssw0rd2023!", "Strong password test"}
+        };
+        
+        for (int i = 0; i < testCases.length; i++) {
+            String pwd1 = testCases[i][0];
+            String pwd2 = testCases[i][1];
+            String description = testCases[i][2];
+            
+            System.out.println("\nTest " + (i + 1) + ": " + description);
+            System.out.println("Password 1: " + (pwd1.isEmpty() ? "(empty)" : "*".repeat(pwd1.length())));
+            System.out.println("Password 2: " + (pwd2.isEmpty() ? "(empty)" : "*".repeat(pwd2.length())));
+            
+            boolean match = passwordComparator.comparePasswords(pwd1, pwd2);
+            String strength = passwordComparator.evaluatePasswordStrength(pwd1);
+            
+            System.out.println("Result: " + (match ? "✓ MATCH" : "✗ NO MATCH"));
+            if (!match) {
+                System.out.println("Similarity: " + passwordComparator.classifySimilarity(pwd1, pwd2).description());
+            }
+            if (!strength.isEmpty()) {
+                System.out.println("Strength: " + strength);
+            }
+            System.out.println("-".repeat(30));
+        }
+        
+        System.out.println("\nDemo completed. All tests use secure comparison methods.");
+    }
+}
\ No newline at end of file
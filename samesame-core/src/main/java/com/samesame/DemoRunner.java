@@ -1,5 +1,6 @@
 package com.samesame;
 
+import com.samesame.service.EditDistance;
 import com.samesame.service.PasswordComparator;
 
 /**
@@ -65,6 +66,11 @@ public class DemoRunner {
             
             // Display result
             System.out.println("Result:     " + (match ? "✓ PASSWORDS MATCH" : "✗ PASSWORDS DO NOT MATCH"));
+            if (!match) {
+                EditDistance.Similarity similarity =
+                    passwordComparator.classifySimilarity(testCase.password1, testCase.password2);
+                System.out.println("Similarity: " + similarity.description());
+            }
             System.out.printf("Time:       %.3f ms (constant-time algorithm)%n", durationMs);
             
             // Security demonstration
@@ -134,7 +140,7 @@ public class DemoRunner {
         System.out.println();
         System.out.println("For the GUI version, install JavaFX and run:");
         System.out.println("  java --module-path path\\to\\javafx\\lib --add-modules javafx.controls,javafx.fxml");
-        System.out.println("       -cp build\\classes com.samesame.PasswordComparatorApp");
+        System.out.println("       -cp build\\classes com.samesame.gui.PasswordComparatorApp");
         System.out.println("=".repeat(70));
     }
     
@@ -0,0 +1,105 @@
+package com.samesame;
+
+import com.samesame.metrics.ComparatorMetrics;
+import com.samesame.metrics.MetricsReporter;
+import com.samesame.server.ComparisonServer;
+import com.samesame.service.BlocklistFilter;
+import com.samesame.service.PasswordComparator;
+import com.samesame.service.StrengthPolicy;
+import com.samesame.service.StrengthPolicyReloader;
+import com.samesame.service.VirtualThreads;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.file.Path;
+import java.time.Duration;
+
+/**
+ * Runs SameSame as a local HTTP sidecar
+ * 
+ * Usage: PasswordComparatorServer [--port 8080] [--bind 127.0.0.1]
+ *        [--max-concurrency 256] [--max-body-bytes 65536]
+ *        [--metrics true] [--metrics-dump-seconds 60]
+ *        [--policy-reload-seconds 5]
+ * 
+ * With metrics enabled, counters and latencies are published as the MBean
+ * {@value ComparatorMetrics#DEFAULT_OBJECT_NAME} and, if a dump interval is
+ * given, printed to standard output.
+ * 
+ * A strength policy named by {@value StrengthPolicy#POLICY_PROPERTY} is
+ * checked for changes every few seconds and swapped in without a restart;
+ * a reload interval of 0 loads it once.
+ */
+public class PasswordComparatorServer {
+
+    public static void main(String[] args) throws IOException {
+        int port = 8080;
+        String bind = InetAddress.getLoopbackAddress().getHostAddress();
+        int maxConcurrency = 256;
+        int maxBodyBytes = ComparisonServer.DEFAULT_MAX_BODY_BYTES;
+        boolean metricsEnabled = false;
+        int metricsDumpSeconds = 0;
+        int policyReloadSeconds = 5;
+        
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            switch (args[i]) {
+                case "--port":
+                    port = Integer.parseInt(args[i + 1]);
+                    break;
+                case "--bind":
+                    bind = args[i + 1];
+                    break;
+                case "--max-concurrency":
+                    maxConcurrency = Integer.parseInt(args[i + 1]);
+                    break;
+                case "--max-body-bytes":
+                    maxBodyBytes = Integer.parseInt(args[i + 1]);
+                    break;
+                case "--metrics":
+                    metricsEnabled = Boolean.parseBoolean(args[i + 1]);
+                    break;
+                case "--metrics-dump-seconds":
+                    metricsDumpSeconds = Integer.parseInt(args[i + 1]);
+                    metricsEnabled |= metricsDumpSeconds > 0;
+                    break;
+                case "--policy-reload-seconds":
+                    policyReloadSeconds = Integer.parseInt(args[i + 1]);
+                    break;
+                default:
+                    System.err.println("Unknown option: " + args[i]);
+                    System.exit(2);
+            }
+        }
+        
+        PasswordComparator passwordComparator = new PasswordComparator();
+        passwordComparator.setBlocklist(BlocklistFilter.openConfigured());
+        Path policyFile = StrengthPolicy.configuredFile();
+        if (policyFile != null && policyReloadSeconds > 0) {
+            // Lives as long as the process; its thread is a daemon
+            new StrengthPolicyReloader(passwordComparator, policyFile,
+                Duration.ofSeconds(policyReloadSeconds), System.out::println);
+        } else if (policyFile != null) {
+            passwordComparator.setStrengthPolicy(StrengthPolicy.load(policyFile));
+        }
+        if (metricsEnabled) {
+            ComparatorMetrics metrics = new ComparatorMetrics();
+            metrics.register(ComparatorMetrics.DEFAULT_OBJECT_NAME);
+            passwordComparator.setMetrics(metrics);
+            if (metricsDumpSeconds > 0) {
+                MetricsReporter reporter = new MetricsReporter(
+                    metrics, Duration.ofSeconds(metricsDumpSeconds), System.out::print);
+                // One last snapshot covers the requests since the previous dump
+                Runtime.getRuntime().addShutdownHook(new Thread(reporter::report));
+            }
+        }
+        
+        ComparisonServer server = new ComparisonServer(passwordComparator, maxConcurrency, maxBodyBytes);
+        server.start(new InetSocketAddress(bind, port));
+        Runtime.getRuntime().addShutdownHook(new Thread(server::stop));
+        
+        System.out.println("SameSame server listening on " + bind + ":" + server.port()
+            + (VirtualThreads.isSupported() ? " (virtual threads)" : " (platform threads)")
+            + ", max concurrency " + maxConcurrency);
+    }
+}
@@ -0,0 +1,268 @@
+package com.samesame.metrics;
+
+import javax.management.InstanceAlreadyExistsException;
+import javax.management.InstanceNotFoundException;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Call counts and latency histograms for the comparator's public operations
+ *
+ * Every call is counted, split by operation and outcome. Latency is measured
+ * on a random sample of calls: reading the clock twice costs more than the
+ * whole budget of this layer on some hosts, so only one call in
+ * {@link #sampleInterval()} pays for it. Counters and histograms are
+ * lock-free and recording never allocates.
+ *
+ * Instrumentation is off unless an instance is passed to
+ * {@code PasswordComparator.setMetrics}; a comparator without metrics pays
+ * a single null check. The counters can be read through the platform MBean
+ * server once {@link #register(String)} has been called, or printed with
+ * {@link #format()} and {@link MetricsReporter}.
+ */
+public final class ComparatorMetrics implements ComparatorMetricsMXBean {
+
+    /** Default JMX object name */
+    public static final String DEFAULT_OBJECT_NAME = "com.samesame:type=ComparatorMetrics";
+
+    /** Default number of calls per timed call */
+    public static final int DEFAULT_SAMPLE_INTERVAL = 32;
+
+    /** Value returned by {@link #start()} when the call is not timed */
+    public static final long NOT_SAMPLED = Long.MIN_VALUE;
+
+    /**
+     * Operation and result of one instrumented call
+     */
+    public enum Outcome {
+        COMPARE_MATCH("compare", "match"),
+        COMPARE_MISMATCH("compare", "mismatch"),
+        STRENGTH_EMPTY("strength", "empty"),
+        STRENGTH_WEAK("strength", "weak"),
+        STRENGTH_MEDIUM("strength", "medium"),
+        STRENGTH_STRONG("strength", "strong"),
+        STRENGTH_VERY_STRONG("strength", "very-strong"),
+        HASH("hash", "ok");
+
+        private final String operation;
+        private final String result;
+
+        Outcome(String operation, String result) {
+            this.operation = operation;
+            this.result = result;
+        }
+
+        /**
+         * @return Name of the outcome as exported, e.g. "compare.match"
+         */
+        public String key() {
+            return operation + "." + result;
+        }
+
+        /**
+         * @return Outcome of a strength evaluation with the given verdict
+         */
+        public static Outcome strength(String verdict) {
+            switch (verdict) {
+                case "Weak":
+                    return STRENGTH_WEAK;
+                case "Medium":
+                    return STRENGTH_MEDIUM;
+                case "Strong":
+                    return STRENGTH_STRONG;
+                case "Very Strong":
+                    return STRENGTH_VERY_STRONG;
+                default:
+                    return STRENGTH_EMPTY;
+            }
+        }
+    }
+
+    private static final Outcome[] OUTCOMES = Outcome.values();
+
+    private final LongAdder[] counts = new LongAdder[OUTCOMES.length];
+    private final LatencyHistogram[] latencies = new LatencyHistogram[OUTCOMES.length];
+    private final int sampleMask;
+
+    /**
+     * Creates metrics that time one call in {@link #DEFAULT_SAMPLE_INTERVAL}
+     */
+    public ComparatorMetrics() {
+        this(DEFAULT_SAMPLE_INTERVAL);
+    }
+
+    /**
+     * @param sampleInterval Calls per timed call; a power of two, 1 times every call
+     */
+    public ComparatorMetrics(int sampleInterval) {
+        if (sampleInterval < 1 || Integer.bitCount(sampleInterval) != 1) {
+            throw new IllegalArgumentException("Sample interval must be a power of two");
+        }
+        this.sampleMask = sampleInterval - 1;
+        for (int i = 0; i < OUTCOMES.length; i++) {
+            counts[i] = new LongAdder();
+            latencies[i] = new LatencyHistogram();
+        }
+    }
+
+    /**
+     * Starts timing a call if it is sampled
+     *
+     * @return Start time to pass to {@link #record(Outcome, long)}, or {@link #NOT_SAMPLED}
+     */
+    public long start() {
+        if ((ThreadLocalRandom.current().nextInt() & sampleMask) != 0) {
+            return NOT_SAMPLED;
+        }
+        return System.nanoTime();
+    }
+
+    /**
+     * Counts a finished call and records its latency if it was sampled
+     *
+     * @param outcome What the call did
+     * @param start Value returned by {@link #start()}
+     */
+    public void record(Outcome outcome, long start) {
+        counts[outcome.ordinal()].increment();
+        if (start != NOT_SAMPLED) {
+            latencies[outcome.ordinal()].record(System.nanoTime() - start);
+        }
+    }
+
+    /**
+     * @return Calls counted with the given outcome
+     */
+    public long count(Outcome outcome) {
+        return counts[outcome.ordinal()].sum();
+    }
+
+    /**
+     * @return Latencies sampled for the given outcome
+     */
+    public LatencyHistogram.Snapshot latency(Outcome outcome) {
+        return latencies[outcome.ordinal()].snapshot();
+    }
+
+    /**
+     * Registers this instance with the platform MBean server
+     *
+     * @param objectName JMX name, usually {@link #DEFAULT_OBJECT_NAME}
+     * @return The registered name
+     * @throws IllegalStateException if the name is malformed or already taken
+     */
+    public ObjectName register(String objectName) {
+        try {
+            ObjectName name = new ObjectName(objectName);
+            ManagementFactory.getPlatformMBeanServer().registerMBean(this, name);
+            return name;
+        } catch (InstanceAlreadyExistsException e) {
+            throw new IllegalStateException("MBean already registered: " + objectName, e);
+        } catch (JMException e) {
+            throw new IllegalStateException("Could not register MBean " + objectName, e);
+        }
+    }
+
+    /**
+     * Removes a registration made by {@link #register(String)}; does nothing if there is none
+     */
+    public static void unregister(ObjectName name) {
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        try {
+            server.unregisterMBean(name);
+        } catch (InstanceNotFoundException e) {
+            // Already gone
+        } catch (JMException e) {
+            throw new IllegalStateException("Could not unregister MBean " + name, e);
+        }
+    }
+
+    @Override
+    public long getComparisons() {
+        return count(Outcome.COMPARE_MATCH) + count(Outcome.COMPARE_MISMATCH);
+    }
+
+    @Override
+    public long getStrengthEvaluations() {
+        long total = 0;
+        for (Outcome outcome : OUTCOMES) {
+            if (outcome.operation.equals("strength")) {
+                total += count(outcome);
+            }
+        }
+        return total;
+    }
+
+    @Override
+    public long getHashes() {
+        return count(Outcome.HASH);
+    }
+
+    @Override
+    public int getSampleInterval() {
+        return sampleMask + 1;
+    }
+
+    @Override
+    public Map<String, Long> getCounts() {
+        Map<String, Long> values = new LinkedHashMap<>();
+        for (Outcome outcome : OUTCOMES) {
+            values.put(outcome.key(), count(outcome));
+        }
+        return values;
+    }
+
+    @Override
+    public Map<String, Long> getLatencyP50Nanos() {
+        return percentiles(50);
+    }
+
+    @Override
+    public Map<String, Long> getLatencyP99Nanos() {
+        return percentiles(99);
+    }
+
+    @Override
+    public Map<String, Long> getLatencyMaxNanos() {
+        return percentiles(100);
+    }
+
+    @Override
+    public void reset() {
+        for (int i = 0; i < OUTCOMES.length; i++) {
+            counts[i].reset();
+            latencies[i].reset();
+        }
+    }
+
+    /**
+     * @return One line per outcome with its count and sampled latency percentiles
+     */
+    @Override
+    public String format() {
+        StringBuilder text = new StringBuilder();
+        for (Outcome outcome : OUTCOMES) {
+            LatencyHistogram.Snapshot latency = latency(outcome);
+            text.append(String.format(Locale.ROOT,
+                "%-22s count=%d sampled=%d p50=%dns p99=%dns max=%dns%n",
+                outcome.key(), count(outcome), latency.count(),
+                latency.percentileNanos(50), latency.percentileNanos(99), latency.maxNanos()));
+        }
+        return text.toString();
+    }
+
+    private Map<String, Long> percentiles(double percentile) {
+        Map<String, Long> values = new LinkedHashMap<>();
+        for (Outcome outcome : OUTCOMES) {
+            values.put(outcome.key(), latency(outcome).percentileNanos(percentile));
+        }
+        return values;
+    }
+}
@@ -0,0 +1,62 @@
+package com.samesame.metrics;
+
+import java.util.Map;
+
+/**
+ * JMX view of {@link ComparatorMetrics}
+ *
+ * Maps are keyed by outcome, e.g. "compare.match" or "strength.weak".
+ * Latencies are sampled and rounded up to their histogram bucket.
+ */
+public interface ComparatorMetricsMXBean {
+
+    /**
+     * @return Comparisons of any kind, matching or not
+     */
+    long getComparisons();
+
+    /**
+     * @return Strength evaluations, including empty input
+     */
+    long getStrengthEvaluations();
+
+    /**
+     * @return Secure hashes generated
+     */
+    long getHashes();
+
+    /**
+     * @return Calls per timed call
+     */
+    int getSampleInterval();
+
+    /**
+     * @return Calls per outcome
+     */
+    Map<String, Long> getCounts();
+
+    /**
+     * @return Median latency per outcome in nanoseconds
+     */
+    Map<String, Long> getLatencyP50Nanos();
+
+    /**
+     * @return 99th percentile latency per outcome in nanoseconds
+     */
+    Map<String, Long> getLatencyP99Nanos();
+
+    /**
+     * @return Largest sampled latency per outcome in nanoseconds
+     */
+    Map<String, Long> getLatencyMaxNanos();
+
+    /**
+     * Clears all counters and histograms
+     */
+    void reset();
+
+    /**
+     * @return Human-readable snapshot of all counters
+     */
+    String format();
+}
@@ -0,0 +1,17 @@
+package com.samesame.metrics;
+
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Flight Recorder event for one password comparison
+ */
+@Name(CompareEvent.NAME)
+@Label("Password Comparison")
+@Description("Constant-time comparison of two secrets; outcome is match or mismatch")
+public final class CompareEvent extends OperationEvent {
+
+    /** Event type name in recordings */
+    public static final String NAME = "com.samesame.Compare";
+}
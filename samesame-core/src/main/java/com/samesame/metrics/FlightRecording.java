@@ -0,0 +1,103 @@
+package com.samesame.metrics;
+
+import jdk.jfr.FlightRecorder;
+import jdk.jfr.FlightRecorderListener;
+import jdk.jfr.Recording;
+import jdk.jfr.RecordingState;
+
+/**
+ * Tracks whether any Flight Recorder recording is running and creates the
+ * operation events only while one is
+ *
+ * With recording off an instrumented call costs one read of a flag. Relying
+ * on escape analysis alone is not enough: once a recording has committed
+ * events, the JIT keeps allocating them even after the recording stops.
+ *
+ * Nothing here touches Flight Recorder until it has been initialized by a
+ * recording. The event classes are not initialized either, since the first
+ * initialization of an event class sets up Flight Recorder's event
+ * machinery, which takes about 300 ms and would otherwise land on the
+ * startup path of every process.
+ */
+public final class FlightRecording {
+
+    private static volatile boolean active;
+    private static volatile boolean listening;
+
+    private FlightRecording() {
+    }
+
+    /**
+     * @return true if a recording is running and events may be committed
+     */
+    public static boolean isActive() {
+        if (listening) {
+            return active;
+        }
+        // No recording can be running before Flight Recorder is initialized
+        return FlightRecorder.isInitialized() && startListening();
+    }
+
+    /**
+     * @return A started comparison event, or null if no recording is running
+     */
+    public static CompareEvent beginCompare() {
+        if (!isActive()) {
+            return null;
+        }
+        CompareEvent event = new CompareEvent();
+        event.begin();
+        return event;
+    }
+
+    /**
+     * @return A started strength evaluation event, or null if no recording is running
+     */
+    public static StrengthEvent beginStrength() {
+        if (!isActive()) {
+            return null;
+        }
+        StrengthEvent event = new StrengthEvent();
+        event.begin();
+        return event;
+    }
+
+    /**
+     * @return A started hashing event, or null if no recording is running
+     */
+    public static HashEvent beginHash() {
+        if (!isActive()) {
+            return null;
+        }
+        HashEvent event = new HashEvent();
+        event.begin();
+        return event;
+    }
+
+    private static synchronized boolean startListening() {
+        if (!listening) {
+            // Called back at once, since the recorder is already initialized
+            FlightRecorder.addListener(new FlightRecorderListener() {
+                @Override
+                public void recorderInitialized(FlightRecorder recorder) {
+                    update(recorder);
+                }
+
+                @Override
+                public void recordingStateChanged(Recording recording) {
+                    update(FlightRecorder.getFlightRecorder());
+                }
+            });
+            listening = true;
+        }
+        return active;
+    }
+
+    private static synchronized void update(FlightRecorder recorder) {
+        boolean running = false;
+        for (Recording recording : recorder.getRecordings()) {
+            running |= recording.getState() == RecordingState.RUNNING;
+        }
+        active = running;
+    }
+}
@@ -0,0 +1,17 @@
+package com.samesame.metrics;
+
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Flight Recorder event for one secure hash
+ */
+@Name(HashEvent.NAME)
+@Label("Secure Hash")
+@Description("Digest of a password; outcome is the algorithm")
+public final class HashEvent extends OperationEvent {
+
+    /** Event type name in recordings */
+    public static final String NAME = "com.samesame.Hash";
+}
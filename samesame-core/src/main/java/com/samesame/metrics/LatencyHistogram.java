@@ -0,0 +1,138 @@
+package com.samesame.metrics;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Lock-free latency histogram with log-linear buckets
+ *
+ * Values below 16 ns get a bucket each; above that every power of two is
+ * split into 8 linear sub-buckets, so a recorded value is never off by more
+ * than 12.5%. Each bucket is a {@link LongAdder}, which stays a single CAS
+ * while uncontended and stripes itself across cells when many threads
+ * record at once. Recording never allocates and never blocks.
+ *
+ * Values above {@link #MAX_TRACKABLE_NANOS} are clamped to it.
+ */
+public final class LatencyHistogram {
+
+    /** Largest value tracked exactly; about 18 minutes */
+    public static final long MAX_TRACKABLE_NANOS = (1L << 40) - 1;
+
+    private static final int SUB_BUCKET_BITS = 3;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    private static final int BUCKETS = bucketIndex(MAX_TRACKABLE_NANOS) + 1;
+
+    private final LongAdder[] buckets = new LongAdder[BUCKETS];
+    private final LongAdder totalNanos = new LongAdder();
+
+    public LatencyHistogram() {
+        for (int i = 0; i < BUCKETS; i++) {
+            buckets[i] = new LongAdder();
+        }
+    }
+
+    /**
+     * Records one measurement
+     */
+    public void record(long nanos) {
+        long value = Math.max(0, Math.min(nanos, MAX_TRACKABLE_NANOS));
+        buckets[bucketIndex(value)].increment();
+        totalNanos.add(value);
+    }
+
+    /**
+     * Clears all buckets
+     * Measurements recorded concurrently may or may not survive
+     */
+    public void reset() {
+        for (LongAdder bucket : buckets) {
+            bucket.reset();
+        }
+        totalNanos.reset();
+    }
+
+    /**
+     * Copies the current counts
+     * Not atomic across buckets, but every measurement that completed before the call is included
+     */
+    public Snapshot snapshot() {
+        long[] counts = new long[BUCKETS];
+        for (int i = 0; i < BUCKETS; i++) {
+            counts[i] = buckets[i].sum();
+        }
+        return new Snapshot(counts, totalNanos.sum());
+    }
+
+    static int bucketIndex(long value) {
+        int exponent = 63 - Long.numberOfLeadingZeros(value | SUB_BUCKETS);
+        int shift = exponent - SUB_BUCKET_BITS;
+        return (shift << SUB_BUCKET_BITS) + (int) (value >>> shift);
+    }
+
+    static long bucketLowerBound(int index) {
+        int group = index >>> SUB_BUCKET_BITS;
+        if (group < 2) {
+            return index;
+        }
+        return (long) (SUB_BUCKETS + (index & (SUB_BUCKETS - 1))) << (group - 1);
+    }
+
+    /**
+     * Immutable copy of a histogram
+     */
+    public static final class Snapshot {
+        private final long[] counts;
+        private final long count;
+        private final long totalNanos;
+
+        Snapshot(long[] counts, long totalNanos) {
+            this.counts = counts;
+            long sum = 0;
+            for (long bucket : counts) {
+                sum += bucket;
+            }
+            this.count = sum;
+            this.totalNanos = totalNanos;
+        }
+
+        /**
+         * @return Number of recorded measurements
+         */
+        public long count() {
+            return count;
+        }
+
+        /**
+         * @return Mean in nanoseconds, 0 if empty
+         */
+        public double meanNanos() {
+            return count == 0 ? 0 : (double) totalNanos / count;
+        }
+
+        /**
+         * @param percentile Between 0 and 100
+         * @return Upper bound of the bucket holding that percentile, 0 if empty
+         */
+        public long percentileNanos(double percentile) {
+            if (count == 0) {
+                return 0;
+            }
+            long rank = (long) Math.ceil(percentile / 100 * count);
+            long seen = 0;
+            for (int i = 0; i < counts.length; i++) {
+                seen += counts[i];
+                if (seen >= Math.max(1, rank)) {
+                    return i + 1 < counts.length ? bucketLowerBound(i + 1) - 1 : MAX_TRACKABLE_NANOS;
+                }
+            }
+            return MAX_TRACKABLE_NANOS;
+        }
+
+        /**
+         * @return Upper bound of the highest non-empty bucket, 0 if empty
+         */
+        public long maxNanos() {
+            return percentileNanos(100);
+        }
+    }
+}
@@ -0,0 +1,63 @@
+package com.samesame.metrics;
+
+import java.io.Closeable;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Periodically writes a snapshot of {@link ComparatorMetrics}
+ *
+ * Runs on a single daemon thread, so it never keeps the JVM alive.
+ */
+public final class MetricsReporter implements Closeable {
+
+    private final ComparatorMetrics metrics;
+    private final Consumer<String> sink;
+    private final ScheduledExecutorService scheduler;
+
+    /**
+     * Starts reporting
+     *
+     * @param metrics Metrics to report
+     * @param interval Time between snapshots
+     * @param sink Receives each snapshot, e.g. {@code System.out::print}
+     */
+    public MetricsReporter(ComparatorMetrics metrics, Duration interval, Consumer<String> sink) {
+        if (interval.isNegative() || interval.isZero()) {
+            throw new IllegalArgumentException("Report interval must be positive");
+        }
+        this.metrics = metrics;
+        this.sink = sink;
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "samesame-metrics");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long millis = interval.toMillis();
+        scheduler.scheduleAtFixedRate(this::report, millis, millis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Writes one snapshot now
+     */
+    public void report() {
+        try {
+            sink.accept("metrics " + Instant.now() + System.lineSeparator() + metrics.format());
+        } catch (RuntimeException e) {
+            // A failing sink must not cancel the schedule
+            System.err.println("Metrics report failed: " + e);
+        }
+    }
+
+    /**
+     * Stops reporting
+     */
+    @Override
+    public void close() {
+        scheduler.shutdownNow();
+    }
+}
@@ -0,0 +1,55 @@
+package com.samesame.metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.StackTrace;
+
+/**
+ * Common shape of the Flight Recorder events for comparator operations
+ *
+ * Events carry the duration, the input length rounded down to a power of
+ * two and the outcome, never the input itself. They are disabled unless a
+ * recording enables them, for example with {@code jfr/samesame.jfc}, and
+ * are only created while some recording runs (see {@link FlightRecording}),
+ * so with recording off an instrumented call neither allocates nor reads
+ * the clock.
+ *
+ * Usage on the hot path:
+ * <pre>
+ *   CompareEvent event = FlightRecording.beginCompare();
+ *   ...
+ *   if (event != null) {
+ *       event.finish(length, outcome);
+ *   }
+ * </pre>
+ */
+@Category("SameSame")
+@Enabled(false)
+@StackTrace(false)
+public abstract class OperationEvent extends Event {
+
+    @Label("Length Bucket")
+    @Description("Input length in characters or bytes, rounded down to a power of two")
+    int lengthBucket;
+
+    @Label("Outcome")
+    String outcome;
+
+    /**
+     * Ends the event and commits it if the recording wants it
+     *
+     * @param length Exact input length; only its bucket is recorded
+     * @param outcome Result of the operation
+     */
+    public void finish(int length, String outcome) {
+        end();
+        if (shouldCommit()) {
+            this.lengthBucket = Integer.highestOneBit(Math.max(0, length));
+            this.outcome = outcome;
+            commit();
+        }
+    }
+}
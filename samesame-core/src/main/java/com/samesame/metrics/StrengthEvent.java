@@ -0,0 +1,17 @@
+package com.samesame.metrics;
+
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Flight Recorder event for one strength evaluation
+ */
+@Name(StrengthEvent.NAME)
+@Label("Strength Evaluation")
+@Description("Rule-based strength evaluation; outcome is the verdict")
+public final class StrengthEvent extends OperationEvent {
+
+    /** Event type name in recordings */
+    public static final String NAME = "com.samesame.StrengthEvaluate";
+}
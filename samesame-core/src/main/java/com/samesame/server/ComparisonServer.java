@@ -0,0 +1,307 @@
+package com.samesame.server;
+
+import com.samesame.service.HashingEngine;
+import com.samesame.service.PasswordComparator;
+import com.samesame.service.VirtualThreads;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+
+/**
+ * Embedded HTTP service exposing comparison, strength and hashing
+ * 
+ * Built on the JDK's {@code com.sun.net.httpserver} with one virtual thread
+ * per request where the runtime supports it. Request bodies are read into
+ * pooled byte buffers and never become Strings; the pool size is the
+ * concurrency limit, so a request that finds the pool empty is rejected with
+ * 503 instead of queueing. Buffers are zeroed before they return to the pool.
+ * Connections are kept alive between requests (HTTP/1.1).
+ * 
+ * Endpoints, all POST:
+ * <ul>
+ *   <li>{@code /compare} body is two secrets, each a big-endian 32-bit length
+ *       followed by the bytes; answers {@code MATCH} or {@code MISMATCH}</li>
+ *   <li>{@code /strength} body is the UTF-8 password; answers the verdict</li>
+ *   <li>{@code /hash?algorithm=SHA-256} body is hashed as-is; answers the hex digest</li>
+ * </ul>
+ * plus {@code GET /health}.
+ */
+public final class ComparisonServer {
+
+    static {
+        // Responses are written as separate header and body segments; without
+        // TCP_NODELAY, Nagle plus delayed ACKs adds ~40 ms to every keep-alive request.
+        // The JDK server reads this once, so it has to be set before the first server is created.
+        if (System.getProperty("sun.net.httpserver.nodelay") == null) {
+            System.setProperty("sun.net.httpserver.nodelay", "true");
+        }
+    }
+
+    /** Default largest accepted request body */
+    public static final int DEFAULT_MAX_BODY_BYTES = 64 * 1024;
+
+    private final PasswordComparator passwordComparator;
+    private final BlockingQueue<RequestBuffers> buffers;
+    private final int maxBodyBytes;
+    private HttpServer server;
+    private ExecutorService executor;
+
+    /**
+     * @param passwordComparator Service answering the requests
+     * @param maxConcurrency Maximum number of requests processed at once
+     * @param maxBodyBytes Largest accepted request body
+     */
+    public ComparisonServer(PasswordComparator passwordComparator, int maxConcurrency, int maxBodyBytes) {
+        if (maxConcurrency < 1) {
+            throw new IllegalArgumentException("Concurrency limit must be at least 1");
+        }
+        this.passwordComparator = passwordComparator;
+        this.maxBodyBytes = maxBodyBytes;
+        this.buffers = new ArrayBlockingQueue<>(maxConcurrency);
+        for (int i = 0; i < maxConcurrency; i++) {
+            buffers.add(new RequestBuffers(maxBodyBytes));
+        }
+    }
+
+    /**
+     * Binds and starts the server
+     * 
+     * @param address Address to listen on; use a loopback address for a local sidecar
+     * @throws IOException if the address cannot be bound
+     */
+    public void start(InetSocketAddress address) throws IOException {
+        server = HttpServer.create(address, 1024);
+        executor = VirtualThreads.newThreadPerTaskExecutor("samesame-http");
+        server.setExecutor(executor);
+        server.createContext("/compare", limited(this::handleCompare));
+        server.createContext("/strength", limited(this::handleStrength));
+        server.createContext("/hash", limited(this::handleHash));
+        server.createContext("/health", exchange -> respond(exchange, 200, "OK"));
+        server.start();
+    }
+
+    /**
+     * @return Port the server is listening on
+     */
+    public int port() {
+        return server.getAddress().getPort();
+    }
+
+    /**
+     * Stops accepting requests and waits briefly for in-flight ones
+     */
+    public void stop() {
+        if (server != null) {
+            server.stop(1);
+            executor.shutdown();
+        }
+    }
+
+    /**
+     * Handler that reads the body into a pooled buffer and enforces the concurrency limit
+     */
+    private HttpHandler limited(BodyHandler handler) {
+        return exchange -> {
+            try (exchange) {
+                if (!"POST".equals(exchange.getRequestMethod())) {
+                    respond(exchange, 405, "Method Not Allowed");
+                    return;
+                }
+                RequestBuffers request = buffers.poll();
+                if (request == null) {
+                    drain(exchange.getRequestBody());
+                    respond(exchange, 503, "Busy");
+                    return;
+                }
+                try {
+                    if (!request.read(exchange.getRequestBody())) {
+                        respond(exchange, 413, "Payload Too Large");
+                        return;
+                    }
+                    handler.handle(exchange, request);
+                } finally {
+                    // The length tracks every byte read, even on a rejected or failed read
+                    request.clear();
+                    buffers.add(request);
+                }
+            }
+        };
+    }
+
+    private void handleCompare(HttpExchange exchange, RequestBuffers request) throws IOException {
+        ByteBuffer body = ByteBuffer.wrap(request.body, 0, request.length);
+        int length1 = body.remaining() >= 4 ? body.getInt(0) : -1;
+        // Bounds are checked before any arithmetic so a hostile prefix cannot overflow
+        if (length1 < 0 || length1 > request.length - 8) {
+            respond(exchange, 400, "Malformed compare request");
+            return;
+        }
+        int start2 = 4 + length1;
+        int length2 = body.getInt(start2);
+        if (length2 != request.length - start2 - 4) {
+            respond(exchange, 400, "Malformed compare request");
+            return;
+        }
+        
+        request.first.limit(4 + length1).position(4);
+        request.second.limit(start2 + 4 + length2).position(start2 + 4);
+        boolean match = passwordComparator.compareBytes(request.first, request.second);
+        respond(exchange, 200, match ? "MATCH" : "MISMATCH");
+    }
+
+    private void handleStrength(HttpExchange exchange, RequestBuffers request) throws IOException {
+        CharBuffer password = request.decode();
+        if (password == null) {
+            respond(exchange, 400, "Body is not valid UTF-8");
+            return;
+        }
+        respond(exchange, 200, passwordComparator.evaluatePasswordStrength(password));
+    }
+
+    private void handleHash(HttpExchange exchange, RequestBuffers request) throws IOException {
+        HashingEngine.Algorithm algorithm = HashingEngine.Algorithm.SHA_256;
+        String query = exchange.getRequestURI().getQuery();
+        if (query != null && query.startsWith("algorithm=")) {
+            try {
+                algorithm = HashingEngine.Algorithm.forName(query.substring("algorithm=".length()));
+            } catch (IllegalArgumentException e) {
+                respond(exchange, 400, e.getMessage());
+                return;
+            }
+        }
+        // Through the comparator, so served hashes show up in its metrics and recordings
+        respond(exchange, 200, passwordComparator.generateSecureHash(request.body, 0, request.length, algorithm));
+    }
+
+    private static void drain(InputStream in) throws IOException {
+        // The body must be consumed for the connection to be reused
+        in.transferTo(OutputStream.nullOutputStream());
+    }
+
+    private static void respond(HttpExchange exchange, int status, String text) throws IOException {
+        byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "text/plain; charset=utf-8");
+        exchange.sendResponseHeaders(status, bytes.length == 0 ? -1 : bytes.length);
+        if (bytes.length > 0) {
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(bytes);
+            }
+        }
+    }
+
+    /**
+     * @return true if every pooled buffer is back in the pool and zeroed
+     */
+    boolean buffersCleared() {
+        if (buffers.remainingCapacity() > 0) {
+            return false;
+        }
+        for (RequestBuffers request : buffers) {
+            if (!request.isZeroed()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Request handler working on an already-read body
+     */
+    @FunctionalInterface
+    private interface BodyHandler {
+        void handle(HttpExchange exchange, RequestBuffers request) throws IOException;
+    }
+
+    /**
+     * Pooled buffers for one in-flight request
+     */
+    private static final class RequestBuffers {
+        final byte[] body;
+        final char[] chars;
+        final ByteBuffer first;
+        final ByteBuffer second;
+        final CharsetDecoder decoder = StandardCharsets.UTF_8.newDecoder()
+            .onMalformedInput(CodingErrorAction.REPORT)
+            .onUnmappableCharacter(CodingErrorAction.REPORT);
+        int length;
+
+        RequestBuffers(int maxBodyBytes) {
+            body = new byte[maxBodyBytes];
+            chars = new char[maxBodyBytes];
+            first = ByteBuffer.wrap(body);
+            second = ByteBuffer.wrap(body);
+        }
+
+        /**
+         * Reads the whole body into the buffer
+         * {@link #length} is updated after every read, so {@link #clear()} wipes
+         * everything read even when this returns false or throws.
+         * 
+         * @return true if the body fit, false if it was too large and was drained
+         */
+        boolean read(InputStream in) throws IOException {
+            while (true) {
+                if (length == body.length) {
+                    // Exactly full is fine only if the stream is exhausted
+                    if (in.read() < 0) {
+                        return true;
+                    }
+                    drain(in);
+                    return false;
+                }
+                int read = in.read(body, length, body.length - length);
+                if (read < 0) {
+                    return true;
+                }
+                length += read;
+            }
+        }
+
+        /**
+         * Decodes the body as UTF-8 into the pooled character buffer
+         * 
+         * @return Decoded characters, or null if the body is not valid UTF-8
+         */
+        CharBuffer decode() {
+            CharBuffer out = CharBuffer.wrap(chars);
+            decoder.reset();
+            CoderResult result = decoder.decode(ByteBuffer.wrap(body, 0, length), out, true);
+            if (result.isError() || decoder.flush(out).isError()) {
+                return null;
+            }
+            return out.flip();
+        }
+
+        void clear() {
+            Arrays.fill(body, 0, length, (byte) 0);
+            Arrays.fill(chars, 0, length, '\0');
+            first.clear();
+            second.clear();
+            length = 0;
+        }
+
+        boolean isZeroed() {
+            for (int i = 0; i < body.length; i++) {
+                if (body[i] != 0 || chars[i] != '\0') {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+}
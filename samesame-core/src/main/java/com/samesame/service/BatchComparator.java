@@ -0,0 +1,506 @@
+package com.samesame.service;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Streaming, non-interactive comparison of many credential pairs
+ * 
+ * The input is read through a file channel in fixed-size chunks that end on
+ * a record boundary. Each chunk is compared by a bounded worker pool while
+ * the next one is read; results are written strictly in input order. At most
+ * {@code 2 * threads} chunks are in flight, so memory use does not depend on
+ * the file size. Secrets are compared as raw bytes with the constant-time
+ * {@link PasswordComparator#compareBytes(ByteBuffer, ByteBuffer)} and never
+ * become Strings; every chunk buffer is zeroed before it is reused.
+ * 
+ * Supported inputs, one pair per record:
+ * <ul>
+ *   <li>TSV: {@code secret1 TAB secret2}, one pair per line</li>
+ *   <li>CSV: {@code secret1,secret2} with RFC 4180 quoting for fields
+ *       containing commas, quotes or line breaks</li>
+ *   <li>BINARY: big-endian 32-bit length followed by the bytes, twice per pair</li>
+ * </ul>
+ * 
+ * The output has one line per record: {@code row TAB MATCH|MISMATCH|INVALID}.
+ */
+public final class BatchComparator {
+
+    /** Default chunk size; records must fit in one chunk */
+    public static final int DEFAULT_CHUNK_SIZE = 1 << 20;
+
+    /**
+     * Input record formats
+     */
+    public enum Format {
+        TSV, CSV, BINARY;
+
+        /**
+         * Picks a format from a file name extension, defaulting to TSV
+         */
+        public static Format forFile(Path file) {
+            String name = file.getFileName().toString().toLowerCase();
+            if (name.endsWith(".csv")) {
+                return CSV;
+            } else if (name.endsWith(".bin")) {
+                return BINARY;
+            }
+            return TSV;
+        }
+    }
+
+    private static final byte MATCH = 1;
+    private static final byte MISMATCH = 2;
+    private static final byte INVALID = 3;
+    private static final byte[][] RESULT_TEXT = {
+        null,
+        "\tMATCH\n".getBytes(StandardCharsets.US_ASCII),
+        "\tMISMATCH\n".getBytes(StandardCharsets.US_ASCII),
+        "\tINVALID\n".getBytes(StandardCharsets.US_ASCII)
+    };
+
+    private final PasswordComparator passwordComparator;
+    private final int threads;
+    private final int chunkSize;
+
+    /**
+     * @param passwordComparator Service performing the comparisons
+     * @param threads Number of worker threads
+     * @param chunkSize Size in bytes of each input chunk
+     */
+    public BatchComparator(PasswordComparator passwordComparator, int threads, int chunkSize) {
+        if (threads < 1) {
+            throw new IllegalArgumentException("At least one worker thread is required");
+        }
+        if (chunkSize < 64) {
+            throw new IllegalArgumentException("Chunk size must be at least 64 bytes");
+        }
+        this.passwordComparator = passwordComparator;
+        this.threads = threads;
+        this.chunkSize = chunkSize;
+    }
+
+    /**
+     * Compares every pair of the input and writes per-row results in input order
+     * 
+     * @param input File of credential pairs
+     * @param format Record format of the input
+     * @param output File receiving one result line per record
+     * @return Totals of the run
+     * @throws IOException if reading or writing fails, or a record exceeds the chunk size
+     */
+    public Summary run(Path input, Format format, Path output) throws IOException {
+        int maxInFlight = threads * 2;
+        Chunk[] chunks = new Chunk[maxInFlight + 1];
+        Deque<Chunk> pool = new ArrayDeque<>();
+        for (int i = 0; i < chunks.length; i++) {
+            chunks[i] = new Chunk(chunkSize);
+            pool.add(chunks[i]);
+        }
+        Deque<Future<Chunk>> inFlight = new ArrayDeque<>();
+        ExecutorService workers = Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, "batch-compare");
+            thread.setDaemon(true);
+            return thread;
+        });
+        
+        Summary summary = new Summary();
+        long startTime = System.nanoTime();
+        try (FileChannel in = FileChannel.open(input, StandardOpenOption.READ);
+             FileChannel out = FileChannel.open(output, StandardOpenOption.CREATE,
+                 StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            ByteBuffer outBuffer = ByteBuffer.allocate(1 << 16);
+            Chunk previous = null;
+            boolean endOfInput = false;
+            
+            while (!endOfInput) {
+                if (inFlight.size() == maxInFlight) {
+                    drain(inFlight.removeFirst(), pool, out, outBuffer, summary);
+                }
+                
+                Chunk chunk = pool.removeFirst();
+                ByteBuffer buffer = chunk.data;
+                if (previous != null) {
+                    // Carry the incomplete tail of the previous chunk over
+                    for (int i = previous.end; i < previous.filled; i++) {
+                        buffer.put(previous.data.get(i));
+                    }
+                }
+                while (buffer.hasRemaining()) {
+                    int read = in.read(buffer);
+                    if (read < 0) {
+                        endOfInput = true;
+                        break;
+                    }
+                    summary.bytes += read;
+                }
+                chunk.filled = buffer.position();
+                chunk.end = endOfInput ? chunk.filled : lastRecordEnd(buffer, chunk.filled, format);
+                if (chunk.end == 0 && chunk.filled > 0 && !endOfInput) {
+                    throw new IOException("Record larger than the " + chunkSize + "-byte chunk size");
+                }
+                
+                inFlight.addLast(workers.submit(() -> compareChunk(chunk, format)));
+                previous = chunk;
+            }
+            
+            while (!inFlight.isEmpty()) {
+                drain(inFlight.removeFirst(), pool, out, outBuffer, summary);
+            }
+            outBuffer.flip();
+            while (outBuffer.hasRemaining()) {
+                out.write(outBuffer);
+            }
+        } finally {
+            workers.shutdownNow();
+            for (Future<Chunk> future : inFlight) {
+                future.cancel(true);
+            }
+            // After a failure, chunks still in flight or half read hold decoded secrets
+            awaitWorkers(workers);
+            for (Chunk chunk : chunks) {
+                chunk.recycle();
+            }
+        }
+        summary.nanos = System.nanoTime() - startTime;
+        return summary;
+    }
+
+    /**
+     * Finds the end of the last complete record in the buffer
+     */
+    private static int lastRecordEnd(ByteBuffer buffer, int filled, Format format) {
+        if (format == Format.BINARY) {
+            int position = 0;
+            while (true) {
+                int next = binaryRecordEnd(buffer, position, filled);
+                if (next < 0) {
+                    return position;
+                }
+                position = next;
+            }
+        }
+        
+        // A newline inside a quoted CSV field does not end the record
+        int end = 0;
+        boolean quoted = false;
+        for (int i = 0; i < filled; i++) {
+            byte b = buffer.get(i);
+            if (format == Format.CSV && b == '"') {
+                quoted = !quoted;
+            } else if (b == '\n' && !quoted) {
+                end = i + 1;
+            }
+        }
+        return end;
+    }
+
+    /**
+     * @return End of the binary record starting at position, or -1 if it is incomplete
+     */
+    private static int binaryRecordEnd(ByteBuffer buffer, int position, int limit) {
+        for (int field = 0; field < 2; field++) {
+            if (limit - position < 4) {
+                return -1;
+            }
+            int length = buffer.getInt(position);
+            if (length < 0 || length > limit - position - 4) {
+                return -1;
+            }
+            position += 4 + length;
+        }
+        return position;
+    }
+
+    /**
+     * Compares every record of a chunk; runs on a worker thread
+     */
+    private Chunk compareChunk(Chunk chunk, Format format) {
+        ByteBuffer first = chunk.data.duplicate();
+        ByteBuffer second = chunk.data.duplicate();
+        int position = 0;
+        
+        while (position < chunk.end) {
+            byte result;
+            if (format == Format.BINARY) {
+                int next = binaryRecordEnd(chunk.data, position, chunk.end);
+                if (next < 0) {
+                    chunk.addResult(INVALID);
+                    break;
+                }
+                int length1 = chunk.data.getInt(position);
+                int start2 = position + 4 + length1;
+                select(first, position + 4, length1);
+                select(second, start2 + 4, chunk.data.getInt(start2));
+                result = passwordComparator.compareBytes(first, second) ? MATCH : MISMATCH;
+                position = next;
+            } else {
+                int lineEnd = position;
+                while (lineEnd < chunk.end && chunk.data.get(lineEnd) != '\n') {
+                    if (format == Format.CSV && chunk.data.get(lineEnd) == '"') {
+                        // Skip over the quoted section, which may contain newlines
+                        lineEnd++;
+                        while (lineEnd < chunk.end && chunk.data.get(lineEnd) != '"') {
+                            lineEnd++;
+                        }
+                    }
+                    lineEnd++;
+                }
+                int contentEnd = Math.min(lineEnd, chunk.end);
+                if (contentEnd > position && chunk.data.get(contentEnd - 1) == '\r') {
+                    contentEnd--;
+                }
+                result = format == Format.CSV
+                    ? compareCsvLine(chunk, position, contentEnd)
+                    : compareTsvLine(chunk.data, position, contentEnd, first, second);
+                position = lineEnd + 1;
+            }
+            chunk.addResult(result);
+        }
+        return chunk;
+    }
+
+    private byte compareTsvLine(ByteBuffer data, int start, int end, ByteBuffer first, ByteBuffer second) {
+        for (int i = start; i < end; i++) {
+            if (data.get(i) == '\t') {
+                select(first, start, i - start);
+                select(second, i + 1, end - i - 1);
+                return passwordComparator.compareBytes(first, second) ? MATCH : MISMATCH;
+            }
+        }
+        return INVALID;
+    }
+
+    private byte compareCsvLine(Chunk chunk, int start, int end) {
+        ByteBuffer data = chunk.data;
+        ByteBuffer field1 = chunk.field1.clear();
+        ByteBuffer field2 = chunk.field2.clear();
+        byte result = INVALID;
+        try {
+            // Both unquoted fields come from one line, so they fit one buffer back to back
+            int fieldEnd = unquoteField(data, start, end, field1);
+            if (fieldEnd >= 0 && fieldEnd < end && data.get(fieldEnd) == ',') {
+                int start2 = field1.position();
+                field2.position(start2);
+                fieldEnd = unquoteField(data, fieldEnd + 1, end, field2);
+                if (fieldEnd == end) {
+                    field2.limit(field2.position()).position(start2);
+                    result = passwordComparator.compareBytes(field1.flip(), field2) ? MATCH : MISMATCH;
+                }
+            }
+        } finally {
+            // Unquoted copies are wiped immediately rather than when the chunk is recycled;
+            // together they are never longer than the line
+            Chunk.zero(chunk.fields, end - start);
+        }
+        return result;
+    }
+
+    /**
+     * Copies one CSV field into the scratch buffer at its position, removing RFC 4180 quoting
+     * 
+     * @return Index just past the field, or -1 if the quoting is malformed
+     */
+    private static int unquoteField(ByteBuffer data, int start, int end, ByteBuffer field) {
+        if (start < end && data.get(start) == '"') {
+            int i = start + 1;
+            while (i < end) {
+                byte b = data.get(i);
+                if (b == '"') {
+                    if (i + 1 < end && data.get(i + 1) == '"') {
+                        field.put((byte) '"');
+                        i += 2;
+                        continue;
+                    }
+                    return i + 1;
+                }
+                field.put(b);
+                i++;
+            }
+            return -1;
+        }
+        int i = start;
+        while (i < end && data.get(i) != ',') {
+            field.put(data.get(i++));
+        }
+        return i;
+    }
+
+    private static void select(ByteBuffer view, int offset, int length) {
+        view.limit(offset + length).position(offset);
+    }
+
+    /**
+     * Waits for cancelled workers to let go of their chunks so they can be zeroed
+     */
+    private static void awaitWorkers(ExecutorService workers) {
+        try {
+            workers.awaitTermination(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Waits for a chunk, writes its results in order and recycles its buffers
+     */
+    private void drain(Future<Chunk> future, Deque<Chunk> pool, FileChannel out,
+                       ByteBuffer outBuffer, Summary summary) throws IOException {
+        Chunk chunk;
+        try {
+            chunk = future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Batch comparison interrupted", e);
+        } catch (ExecutionException e) {
+            throw new IOException("Batch comparison failed", e.getCause());
+        }
+        
+        for (int i = 0; i < chunk.resultCount; i++) {
+            byte result = chunk.results[i];
+            summary.rows++;
+            if (result == MATCH) {
+                summary.matches++;
+            } else if (result == MISMATCH) {
+                summary.mismatches++;
+            } else {
+                summary.invalid++;
+            }
+            
+            if (outBuffer.remaining() < 32) {
+                outBuffer.flip();
+                while (outBuffer.hasRemaining()) {
+                    out.write(outBuffer);
+                }
+                outBuffer.clear();
+            }
+            writeDecimal(outBuffer, summary.rows);
+            outBuffer.put(RESULT_TEXT[result]);
+        }
+        
+        chunk.recycle();
+        pool.addLast(chunk);
+    }
+
+    private static void writeDecimal(ByteBuffer out, long value) {
+        int start = out.position();
+        do {
+            out.put((byte) ('0' + value % 10));
+            value /= 10;
+        } while (value > 0);
+        // Digits were written least significant first
+        for (int i = start, j = out.position() - 1; i < j; i++, j--) {
+            byte swap = out.get(i);
+            out.put(i, out.get(j));
+            out.put(j, swap);
+        }
+    }
+
+    /**
+     * Pooled input buffer plus the per-row results computed from it
+     */
+    private static final class Chunk {
+        final ByteBuffer data;
+        final ByteBuffer fields;
+        final ByteBuffer field1;
+        final ByteBuffer field2;
+        byte[] results = new byte[1024];
+        int resultCount;
+        int filled;
+        int end;
+
+        Chunk(int size) {
+            data = ByteBuffer.allocateDirect(size).order(ByteOrder.BIG_ENDIAN);
+            fields = ByteBuffer.allocateDirect(size);
+            field1 = fields.duplicate();
+            field2 = fields.duplicate();
+        }
+
+        void addResult(byte result) {
+            if (resultCount == results.length) {
+                results = Arrays.copyOf(results, results.length * 2);
+            }
+            results[resultCount++] = result;
+        }
+
+        /**
+         * Zeroes every input byte before the buffer is reused
+         * The CSV field buffer is zeroed right after each comparison
+         */
+        void recycle() {
+            // A chunk abandoned mid-read has not recorded how much it holds yet
+            zero(data, Math.max(filled, data.position()));
+            data.clear();
+            resultCount = 0;
+            filled = 0;
+            end = 0;
+        }
+
+        static void zero(ByteBuffer buffer, int length) {
+            int i = 0;
+            for (; i + 8 <= length; i += 8) {
+                buffer.putLong(i, 0L);
+            }
+            for (; i < length; i++) {
+                buffer.put(i, (byte) 0);
+            }
+        }
+    }
+
+    /**
+     * Totals of one batch run
+     */
+    public static final class Summary {
+        long rows;
+        long matches;
+        long mismatches;
+        long invalid;
+        long bytes;
+        long nanos;
+
+        public long rows() {
+            return rows;
+        }
+
+        public long matches() {
+            return matches;
+        }
+
+        public long mismatches() {
+            return mismatches;
+        }
+
+        public long invalid() {
+            return invalid;
+        }
+
+        public long bytes() {
+            return bytes;
+        }
+
+        public long nanos() {
+            return nanos;
+        }
+
+        public double rowsPerSecond() {
+            return nanos == 0 ? 0 : rows * 1_000_000_000.0 / nanos;
+        }
+
+        public double megabytesPerSecond() {
+            return nanos == 0 ? 0 : bytes * 1_000.0 / nanos;
+        }
+    }
+}
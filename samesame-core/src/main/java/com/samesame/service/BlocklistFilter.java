@@ -0,0 +1,244 @@
+package com.samesame.service;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Off-heap blocked Bloom filter for common-password blocklists
+ * 
+ * Each password hashes to one 512-bit block (a single cache line) and sets
+ * or tests k bits inside it, so a lookup costs one cache miss at most. The
+ * bits live in a direct or memory-mapped buffer rather than on the Java heap;
+ * a saved filter is mapped back in milliseconds regardless of its size.
+ * 
+ * Lookups may return false positives at roughly the configured rate but
+ * never false negatives. Passwords are hashed as UTF-16 code units and are
+ * case-sensitive.
+ * 
+ * File layout (big-endian): magic "SSBLOOM1", int version, int k,
+ * long block count, long entry count, padded to 64 bytes, then the blocks.
+ */
+public final class BlocklistFilter implements Closeable {
+
+    /** System property naming the filter file the applications load at startup */
+    public static final String FILTER_PROPERTY = "samesame.blocklist";
+
+    private static final byte[] MAGIC = "SSBLOOM1".getBytes(StandardCharsets.US_ASCII);
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = 64;
+    private static final int BLOCK_BYTES = 64;
+    private static final int BLOCK_BITS = BLOCK_BYTES * 8;
+    private static final long MAX_BLOCKS = (Integer.MAX_VALUE - HEADER_SIZE) / BLOCK_BYTES;
+
+    private final ByteBuffer blocks;
+    private final long blockCount;
+    private final int hashCount;
+    private final FileChannel channel;
+    private long entries;
+
+    private BlocklistFilter(ByteBuffer blocks, long blockCount, int hashCount, long entries, FileChannel channel) {
+        this.blocks = blocks;
+        this.blockCount = blockCount;
+        this.hashCount = hashCount;
+        this.entries = entries;
+        this.channel = channel;
+    }
+
+    /**
+     * Creates an empty filter sized for the expected number of entries
+     * 
+     * @param expectedEntries Number of passwords that will be added
+     * @param falsePositiveRate Target false-positive rate, for example 0.01
+     * @return Empty filter backed by a direct buffer
+     */
+    public static BlocklistFilter create(long expectedEntries, double falsePositiveRate) {
+        if (expectedEntries < 1) {
+            throw new IllegalArgumentException("Expected entries must be positive");
+        }
+        if (!(falsePositiveRate > 0 && falsePositiveRate < 1)) {
+            throw new IllegalArgumentException("False-positive rate must be between 0 and 1");
+        }
+        
+        // Classic Bloom sizing plus ~15% headroom for uneven block loads
+        double bitsPerEntry = -Math.log(falsePositiveRate) / (Math.log(2) * Math.log(2)) * 1.15;
+        int hashCount = (int) Math.max(1, Math.min(16, Math.round(bitsPerEntry / 1.15 * Math.log(2))));
+        long blockCount = Math.max(1, (long) Math.ceil(expectedEntries * bitsPerEntry / BLOCK_BITS));
+        if (blockCount > MAX_BLOCKS) {
+            throw new IllegalArgumentException("Filter would exceed 2 GB; raise the false-positive rate");
+        }
+        
+        ByteBuffer blocks = ByteBuffer.allocateDirect((int) (blockCount * BLOCK_BYTES));
+        return new BlocklistFilter(blocks, blockCount, hashCount, 0, null);
+    }
+
+    /**
+     * Maps a saved filter read-only
+     * 
+     * @param file File written by {@link #save(Path)}
+     * @return Mapped filter; close it to release the file handle
+     * @throws IOException if the file cannot be read or is not a valid filter
+     */
+    public static BlocklistFilter open(Path file) throws IOException {
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.READ);
+        try {
+            ByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0, HEADER_SIZE);
+            for (int i = 0; i < MAGIC.length; i++) {
+                if (header.get(i) != MAGIC[i]) {
+                    throw new IOException("Not a blocklist filter file");
+                }
+            }
+            if (header.getInt(8) != VERSION) {
+                throw new IOException("Unsupported blocklist filter version: " + header.getInt(8));
+            }
+            int hashCount = header.getInt(12);
+            long blockCount = header.getLong(16);
+            long entries = header.getLong(24);
+            if (hashCount < 1 || blockCount < 1 || blockCount > MAX_BLOCKS
+                    || channel.size() != HEADER_SIZE + blockCount * BLOCK_BYTES) {
+                throw new IOException("Blocklist filter is truncated or corrupt");
+            }
+            
+            ByteBuffer blocks = channel.map(FileChannel.MapMode.READ_ONLY, HEADER_SIZE, blockCount * BLOCK_BYTES);
+            return new BlocklistFilter(blocks, blockCount, hashCount, entries, channel);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Opens the filter named by the {@value #FILTER_PROPERTY} system property
+     * 
+     * @return Mapped filter, or null if the property is not set
+     * @throws IOException if the configured file cannot be opened
+     */
+    public static BlocklistFilter openConfigured() throws IOException {
+        String file = System.getProperty(FILTER_PROPERTY);
+        if (file == null || file.isBlank()) {
+            return null;
+        }
+        return open(Paths.get(file));
+    }
+
+    /**
+     * Adds a password to the filter
+     * 
+     * @throws java.nio.ReadOnlyBufferException if the filter was opened from a file
+     */
+    public void add(CharSequence password) {
+        long hash = hash(password);
+        int base = blockOffset(hash);
+        int bits = (int) hash;
+        int step = (int) ((hash * 0xC2B2AE3D27D4EB4FL) >>> 32) | 1;
+        for (int i = 0; i < hashCount; i++) {
+            int bit = (bits + i * step) & (BLOCK_BITS - 1);
+            int word = base + (bit >>> 6) * 8;
+            blocks.putLong(word, blocks.getLong(word) | (1L << bit));
+        }
+        entries++;
+    }
+
+    /**
+     * Tests whether a password may be in the blocklist, without allocating
+     * 
+     * @return false if the password is definitely not blocklisted
+     */
+    public boolean mightContain(CharSequence password) {
+        long hash = hash(password);
+        int base = blockOffset(hash);
+        int bits = (int) hash;
+        int step = (int) ((hash * 0xC2B2AE3D27D4EB4FL) >>> 32) | 1;
+        for (int i = 0; i < hashCount; i++) {
+            int bit = (bits + i * step) & (BLOCK_BITS - 1);
+            if ((blocks.getLong(base + (bit >>> 6) * 8) & (1L << bit)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Writes the filter to a file that {@link #open(Path)} can map
+     */
+    public void save(Path file) throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).order(ByteOrder.BIG_ENDIAN);
+        header.put(MAGIC).putInt(VERSION).putInt(hashCount).putLong(blockCount).putLong(entries);
+        header.clear();
+        
+        ByteBuffer data = blocks.duplicate();
+        data.clear();
+        try (FileChannel out = FileChannel.open(file, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            while (header.hasRemaining()) {
+                out.write(header);
+            }
+            while (data.hasRemaining()) {
+                out.write(data);
+            }
+        }
+    }
+
+    /**
+     * @return Number of passwords added to the filter
+     */
+    public long size() {
+        return entries;
+    }
+
+    /**
+     * @return Size of the bit array in bytes
+     */
+    public long memoryBytes() {
+        return blockCount * BLOCK_BYTES;
+    }
+
+    /**
+     * @return Bits of filter memory per added password
+     */
+    public double bitsPerEntry() {
+        return entries == 0 ? 0 : memoryBytes() * 8.0 / entries;
+    }
+
+    /**
+     * @return Number of bits set per password
+     */
+    public int hashCount() {
+        return hashCount;
+    }
+
+    private int blockOffset(long hash) {
+        // Multiply-shift maps the upper 32 hash bits uniformly onto the block range
+        return (int) (((hash >>> 32) * blockCount) >>> 32) * BLOCK_BYTES;
+    }
+
+    /**
+     * 64-bit hash of the UTF-16 code units with a murmur3 finaliser
+     */
+    private static long hash(CharSequence password) {
+        long h = 0x9E3779B97F4A7C15L ^ password.length();
+        for (int i = 0; i < password.length(); i++) {
+            h = (h ^ password.charAt(i)) * 0xFF51AFD7ED558CCDL;
+            h = Long.rotateLeft(h, 29);
+        }
+        h ^= h >>> 33;
+        h *= 0xC4CEB9FE1A85EC53L;
+        h ^= h >>> 33;
+        h *= 0xFF51AFD7ED558CCDL;
+        h ^= h >>> 33;
+        return h;
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (channel != null) {
+            channel.close();
+        }
+    }
+}
@@ -0,0 +1,236 @@
+package com.samesame.service;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Read-only, memory-mapped index of breached password digests
+ * 
+ * The index file holds fixed-width SHA-1 or SHA-256 digests in ascending
+ * unsigned byte order, preceded by a fan-out table over the first two digest
+ * bytes. A lookup reads two fan-out entries and binary searches the small
+ * slice they delimit, so it touches only a few pages and never allocates.
+ * The records stay in the OS page cache instead of the Java heap, which keeps
+ * indexes with hundreds of millions of entries usable from the GUI as well as
+ * from long-running services.
+ * 
+ * File layout (big-endian):
+ * <pre>
+ *   header   magic "SSBREACH", int version, int digest length, long entry count
+ *   fan-out  65537 longs, entry i is the index of the first record whose
+ *            two-byte prefix is &gt;= i
+ *   records  entry count * digest length bytes
+ * </pre>
+ * 
+ * Use {@link BreachIndexBuilder} to produce the file from a raw hash list.
+ */
+public final class BreachIndex implements Closeable {
+
+    /** System property naming the index file the applications load at startup */
+    public static final String INDEX_PROPERTY = "samesame.breachIndex";
+
+    static final byte[] MAGIC = "SSBREACH".getBytes(StandardCharsets.US_ASCII);
+    static final int VERSION = 1;
+    static final int HEADER_SIZE = 32;
+    static final int FANOUT_ENTRIES = (1 << 16) + 1;
+    static final long DATA_OFFSET = HEADER_SIZE + FANOUT_ENTRIES * 8L;
+
+    private final FileChannel channel;
+    private final MappedByteBuffer fanout;
+    private final MappedByteBuffer[] segments;
+    private final int digestLength;
+    private final long recordsPerSegment;
+    private final long entryCount;
+    private final HashingEngine hashingEngine;
+    private final ScratchPool<byte[]> digestBuffers;
+
+    private BreachIndex(FileChannel channel) throws IOException {
+        this.channel = channel;
+        
+        MappedByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0, DATA_OFFSET);
+        header.order(ByteOrder.BIG_ENDIAN);
+        for (int i = 0; i < MAGIC.length; i++) {
+            if (header.get(i) != MAGIC[i]) {
+                throw new IOException("Not a breach index file");
+            }
+        }
+        if (header.getInt(8) != VERSION) {
+            throw new IOException("Unsupported breach index version: " + header.getInt(8));
+        }
+        digestLength = header.getInt(12);
+        if (digestLength != 20 && digestLength != 32) {
+            throw new IOException("Unsupported digest length: " + digestLength);
+        }
+        entryCount = header.getLong(16);
+        long expectedSize;
+        try {
+            // A count that wraps when multiplied could otherwise match the file size
+            expectedSize = Math.addExact(DATA_OFFSET, Math.multiplyExact(entryCount, (long) digestLength));
+        } catch (ArithmeticException e) {
+            throw new IOException("Breach index is truncated or corrupt", e);
+        }
+        if (entryCount < 0 || channel.size() != expectedSize) {
+            throw new IOException("Breach index is truncated or corrupt");
+        }
+        // Lookups trust the fan-out table, so a corrupt one must fail here rather than on a lookup
+        long previous = 0;
+        for (int i = 0; i < FANOUT_ENTRIES; i++) {
+            long start = header.getLong(HEADER_SIZE + i * 8);
+            if (start < previous || start > entryCount || (i == 0 && start != 0)) {
+                throw new IOException("Breach index fan-out table is corrupt");
+            }
+            previous = start;
+        }
+        if (previous != entryCount) {
+            throw new IOException("Breach index fan-out table is corrupt");
+        }
+        fanout = header;
+        hashingEngine = new HashingEngine(HashingEngine.Algorithm.forName(algorithmFor(digestLength)));
+        digestBuffers = new ScratchPool<>(() -> new byte[digestLength]);
+        
+        // A single mapping is limited to 2 GB, so records are mapped in aligned segments
+        recordsPerSegment = Integer.MAX_VALUE / digestLength;
+        int segmentCount = (int) ((entryCount + recordsPerSegment - 1) / recordsPerSegment);
+        segments = new MappedByteBuffer[segmentCount];
+        for (int i = 0; i < segmentCount; i++) {
+            long first = i * recordsPerSegment;
+            long records = Math.min(recordsPerSegment, entryCount - first);
+            segments[i] = channel.map(FileChannel.MapMode.READ_ONLY,
+                DATA_OFFSET + first * digestLength, records * digestLength);
+        }
+    }
+
+    /**
+     * Opens and maps an index file
+     * 
+     * @param file Index produced by {@link BreachIndexBuilder}
+     * @return Mapped index; close it to release the file handle
+     * @throws IOException if the file cannot be read or is not a valid index
+     */
+    public static BreachIndex open(Path file) throws IOException {
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.READ);
+        try {
+            return new BreachIndex(channel);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Opens the index named by the {@value #INDEX_PROPERTY} system property
+     * 
+     * @return Mapped index, or null if the property is not set
+     * @throws IOException if the configured file cannot be opened
+     */
+    public static BreachIndex openConfigured() throws IOException {
+        String file = System.getProperty(INDEX_PROPERTY);
+        if (file == null || file.isBlank()) {
+            return null;
+        }
+        return open(Paths.get(file));
+    }
+
+    /**
+     * @return Name of the digest algorithm the index was built with
+     */
+    public String algorithm() {
+        return algorithmFor(digestLength);
+    }
+
+    /**
+     * @return Length in bytes of every digest in the index
+     */
+    public int digestLength() {
+        return digestLength;
+    }
+
+    /**
+     * @return Number of distinct digests in the index
+     */
+    public long size() {
+        return entryCount;
+    }
+
+    /**
+     * Looks up a digest without allocating
+     * 
+     * @param digest Digest computed with {@link #algorithm()}
+     * @return true if the digest is in the index
+     */
+    public boolean contains(byte[] digest) {
+        if (digest.length != digestLength) {
+            throw new IllegalArgumentException("Expected a " + digestLength + "-byte digest");
+        }
+        
+        int prefix = ((digest[0] & 0xff) << 8) | (digest[1] & 0xff);
+        long low = fanout.getLong(HEADER_SIZE + prefix * 8);
+        long high = fanout.getLong(HEADER_SIZE + (prefix + 1) * 8) - 1;
+        
+        // All records in the slice share the prefix, so comparisons start at byte 2
+        while (low <= high) {
+            long middle = (low + high) >>> 1;
+            int comparison = compareRecord(middle, digest);
+            if (comparison < 0) {
+                low = middle + 1;
+            } else if (comparison > 0) {
+                high = middle - 1;
+            } else {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Hashes a password with the index's algorithm and looks it up
+     * Uses pooled buffers, so steady-state lookups do not allocate
+     * 
+     * @param password The password to look up
+     * @return true if the password's digest is in the index
+     */
+    public boolean containsPassword(CharSequence password) {
+        byte[] digest = digestBuffers.acquire();
+        try {
+            hashingEngine.hash(password, digest, 0);
+            return contains(digest);
+        } finally {
+            digestBuffers.release(digest);
+        }
+    }
+
+    /**
+     * Compares the record at the given index with a digest as unsigned bytes
+     */
+    private int compareRecord(long record, byte[] digest) {
+        ByteBuffer segment = segments[(int) (record / recordsPerSegment)];
+        int offset = (int) (record % recordsPerSegment) * digestLength;
+        for (int i = 2; i < digestLength; i++) {
+            int difference = (segment.get(offset + i) & 0xff) - (digest[i] & 0xff);
+            if (difference != 0) {
+                return difference;
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * @return Algorithm name for a supported digest length
+     */
+    static String algorithmFor(int digestLength) {
+        return digestLength == 20 ? "SHA-1" : "SHA-256";
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+}
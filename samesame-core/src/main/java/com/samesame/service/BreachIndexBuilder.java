@@ -0,0 +1,347 @@
+package com.samesame.service;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.PriorityQueue;
+
+/**
+ * Offline builder for {@link BreachIndex} files
+ * 
+ * Reads a raw list of hex digests, one per line (an optional ":count" suffix
+ * as found in public breach corpora is ignored), and packs them into the
+ * sorted, de-duplicated index format. Inputs larger than memory are handled
+ * with an external merge sort: bounded runs are sorted in memory and spilled
+ * to temporary files, then merged in a single streaming pass.
+ */
+public final class BreachIndexBuilder {
+
+    /** Default number of digests sorted in memory per run (about 80 MB of SHA-1 digests) */
+    public static final int DEFAULT_RUN_SIZE = 4 * 1024 * 1024;
+
+    private static final int IO_BUFFER_SIZE = 1 << 16;
+
+    private final int digestLength;
+    private final int runSize;
+    private final Path tempDirectory;
+
+    private long linesRead;
+    private long linesSkipped;
+
+    /**
+     * @param algorithm "SHA-1" or "SHA-256"
+     * @param runSize Maximum number of digests sorted in memory at once
+     * @param tempDirectory Directory for the sorted runs
+     */
+    public BreachIndexBuilder(String algorithm, int runSize, Path tempDirectory) {
+        if ("SHA-1".equalsIgnoreCase(algorithm)) {
+            digestLength = 20;
+        } else if ("SHA-256".equalsIgnoreCase(algorithm)) {
+            digestLength = 32;
+        } else {
+            throw new IllegalArgumentException("Unsupported algorithm: " + algorithm);
+        }
+        if (runSize < 2) {
+            throw new IllegalArgumentException("Run size must be at least 2");
+        }
+        if (runSize > Integer.MAX_VALUE / digestLength) {
+            // One run is sorted in a single array
+            throw new IllegalArgumentException("Run size must be at most " + Integer.MAX_VALUE / digestLength);
+        }
+        this.runSize = runSize;
+        this.tempDirectory = tempDirectory;
+    }
+
+    /**
+     * Builds an index from a raw hash list
+     * 
+     * @param input Text file with one hex digest per line
+     * @param output Index file to create or replace
+     * @return Number of distinct digests written
+     * @throws IOException if reading, spilling or writing fails
+     */
+    public long build(Path input, Path output) throws IOException {
+        List<Path> runs = new ArrayList<>();
+        try {
+            try (InputStream in = new BufferedInputStream(Files.newInputStream(input), IO_BUFFER_SIZE)) {
+                writeSortedRuns(in, runs);
+            }
+            return mergeRuns(runs, output);
+        } finally {
+            for (Path run : runs) {
+                Files.deleteIfExists(run);
+            }
+        }
+    }
+
+    /**
+     * @return Number of input lines read by the last build
+     */
+    public long linesRead() {
+        return linesRead;
+    }
+
+    /**
+     * @return Number of input lines that did not hold a digest of the expected length
+     */
+    public long linesSkipped() {
+        return linesSkipped;
+    }
+
+    // ---- Phase 1: bounded in-memory runs --------------------------------------------
+
+    private void writeSortedRuns(InputStream in, List<Path> runs) throws IOException {
+        byte[] records = new byte[runSize * digestLength];
+        byte[] line = new byte[digestLength * 2];
+        int count = 0;
+        
+        while (true) {
+            int status = readDigest(in, line, records, count * digestLength);
+            if (status < 0) {
+                break;
+            }
+            linesRead++;
+            if (status == 0) {
+                linesSkipped++;
+                continue;
+            }
+            if (++count == runSize) {
+                runs.add(spillRun(records, count));
+                count = 0;
+            }
+        }
+        if (count > 0 || runs.isEmpty()) {
+            runs.add(spillRun(records, count));
+        }
+    }
+
+    /**
+     * Reads one line and decodes its leading hex digest into the record buffer
+     * 
+     * @return -1 at end of input, 0 for a malformed line, 1 for a digest
+     */
+    private int readDigest(InputStream in, byte[] line, byte[] records, int offset) throws IOException {
+        int length = 0;
+        boolean overflow = false;
+        int b = in.read();
+        if (b < 0) {
+            return -1;
+        }
+        while (b >= 0 && b != '\n') {
+            if (b == ':' || b == ' ' || b == '\t' || b == '\r' || b == ',') {
+                // Ignore counts and other trailing columns
+                while (b >= 0 && b != '\n') {
+                    b = in.read();
+                }
+                break;
+            }
+            if (length < line.length) {
+                line[length++] = (byte) b;
+            } else {
+                overflow = true;
+            }
+            b = in.read();
+        }
+        if (overflow || length != line.length) {
+            return 0;
+        }
+        for (int i = 0; i < digestLength; i++) {
+            int high = Character.digit(line[2 * i], 16);
+            int low = Character.digit(line[2 * i + 1], 16);
+            if (high < 0 || low < 0) {
+                return 0;
+            }
+            records[offset + i] = (byte) ((high << 4) | low);
+        }
+        return 1;
+    }
+
+    private Path spillRun(byte[] records, int count) throws IOException {
+        sortRecords(records, 0, count - 1, new byte[digestLength], new byte[digestLength]);
+        
+        Path run = Files.createTempFile(tempDirectory, "breach-run-", ".bin");
+        try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(run), IO_BUFFER_SIZE)) {
+            int previous = -1;
+            for (int i = 0; i < count; i++) {
+                if (previous >= 0 && compareRecords(records, previous, records, i) == 0) {
+                    continue;
+                }
+                out.write(records, i * digestLength, digestLength);
+                previous = i;
+            }
+        }
+        return run;
+    }
+
+    /**
+     * In-place quicksort of fixed-width records, insertion sort for small ranges
+     * The partition is three-way, so runs of duplicate digests, common in
+     * breach dumps, are set aside in one pass instead of degrading to O(n^2)
+     */
+    private void sortRecords(byte[] records, int low, int high, byte[] scratch, byte[] pivot) {
+        while (high - low > 16) {
+            int middle = (low + high) >>> 1;
+            // Median of three as the pivot
+            if (compareRecords(records, middle, records, low) < 0) swapRecords(records, middle, low, scratch);
+            if (compareRecords(records, high, records, low) < 0) swapRecords(records, high, low, scratch);
+            if (compareRecords(records, high, records, middle) < 0) swapRecords(records, high, middle, scratch);
+            System.arraycopy(records, middle * digestLength, pivot, 0, digestLength);
+            
+            // [low, less) < pivot, [less, i) == pivot, (greater, high] > pivot
+            int less = low;
+            int greater = high;
+            int i = low;
+            while (i <= greater) {
+                int comparison = compareRecords(records, i, pivot, 0);
+                if (comparison < 0) {
+                    swapRecords(records, less++, i++, scratch);
+                } else if (comparison > 0) {
+                    swapRecords(records, i, greater--, scratch);
+                } else {
+                    i++;
+                }
+            }
+            
+            // Recurse into the smaller side to bound the stack depth
+            if (less - low < high - greater) {
+                sortRecords(records, low, less - 1, scratch, pivot);
+                low = greater + 1;
+            } else {
+                sortRecords(records, greater + 1, high, scratch, pivot);
+                high = less - 1;
+            }
+        }
+        for (int i = low + 1; i <= high; i++) {
+            for (int j = i; j > low && compareRecords(records, j, records, j - 1) < 0; j--) {
+                swapRecords(records, j, j - 1, scratch);
+            }
+        }
+    }
+
+    private int compareRecords(byte[] a, int indexA, byte[] b, int indexB) {
+        int offsetA = indexA * digestLength;
+        int offsetB = indexB * digestLength;
+        for (int i = 0; i < digestLength; i++) {
+            int difference = (a[offsetA + i] & 0xff) - (b[offsetB + i] & 0xff);
+            if (difference != 0) {
+                return difference;
+            }
+        }
+        return 0;
+    }
+
+    private void swapRecords(byte[] records, int i, int j, byte[] scratch) {
+        System.arraycopy(records, i * digestLength, scratch, 0, digestLength);
+        System.arraycopy(records, j * digestLength, records, i * digestLength, digestLength);
+        System.arraycopy(scratch, 0, records, j * digestLength, digestLength);
+    }
+
+    // ---- Phase 2: streaming k-way merge ---------------------------------------------
+
+    private long mergeRuns(List<Path> runs, Path output) throws IOException {
+        long[] prefixCounts = new long[BreachIndex.FANOUT_ENTRIES - 1];
+        long written = 0;
+        
+        PriorityQueue<RunReader> queue = new PriorityQueue<>(
+            (a, b) -> compareRecords(a.current, 0, b.current, 0));
+        try (FileChannel channel = FileChannel.open(output, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            for (Path run : runs) {
+                RunReader reader = new RunReader(run, digestLength);
+                if (reader.advance()) {
+                    queue.add(reader);
+                } else {
+                    reader.close();
+                }
+            }
+            
+            channel.position(BreachIndex.DATA_OFFSET);
+            OutputStream out = new BufferedOutputStream(Channels.newOutputStream(channel), IO_BUFFER_SIZE);
+            byte[] previous = new byte[digestLength];
+            while (!queue.isEmpty()) {
+                RunReader reader = queue.remove();
+                if (written == 0 || compareRecords(previous, 0, reader.current, 0) != 0) {
+                    out.write(reader.current);
+                    System.arraycopy(reader.current, 0, previous, 0, digestLength);
+                    prefixCounts[((previous[0] & 0xff) << 8) | (previous[1] & 0xff)]++;
+                    written++;
+                }
+                if (reader.advance()) {
+                    queue.add(reader);
+                } else {
+                    reader.close();
+                }
+            }
+            out.flush();
+            
+            writeHeader(channel, prefixCounts, written);
+        } finally {
+            for (RunReader reader : queue) {
+                reader.close();
+            }
+        }
+        return written;
+    }
+
+    private void writeHeader(FileChannel channel, long[] prefixCounts, long entryCount) throws IOException {
+        ByteBuffer header = ByteBuffer.allocate((int) BreachIndex.DATA_OFFSET).order(ByteOrder.BIG_ENDIAN);
+        header.put(BreachIndex.MAGIC);
+        header.putInt(BreachIndex.VERSION);
+        header.putInt(digestLength);
+        header.putLong(entryCount);
+        header.position(BreachIndex.HEADER_SIZE);
+        
+        long start = 0;
+        for (long count : prefixCounts) {
+            header.putLong(start);
+            start += count;
+        }
+        header.putLong(start);
+        header.flip();
+        
+        long position = 0;
+        while (header.hasRemaining()) {
+            position += channel.write(header, position);
+        }
+    }
+
+    /**
+     * Sequential reader over one sorted run
+     */
+    private static final class RunReader {
+        final byte[] current;
+        private final InputStream in;
+
+        RunReader(Path run, int digestLength) throws IOException {
+            this.current = new byte[digestLength];
+            this.in = new BufferedInputStream(Files.newInputStream(run), IO_BUFFER_SIZE);
+        }
+
+        boolean advance() throws IOException {
+            int read = in.readNBytes(current, 0, current.length);
+            if (read == 0) {
+                return false;
+            }
+            if (read != current.length) {
+                throw new EOFException("Truncated sort run");
+            }
+            return true;
+        }
+
+        void close() throws IOException {
+            in.close();
+        }
+    }
+}
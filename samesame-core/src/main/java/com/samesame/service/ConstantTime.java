@@ -0,0 +1,134 @@
+package com.samesame.service;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Constant-time equality for byte secrets of any length
+ *
+ * Long secrets such as API tokens, PEM blocks and recovery phrases are
+ * compared with the Vector API when the {@code jdk.incubator.vector} module
+ * is available (start the JVM with {@code --add-modules jdk.incubator.vector}).
+ * Otherwise the scalar XOR-accumulate loop is used. Both paths return
+ * identical results, touch every byte exactly once and take time that
+ * depends only on the length, never on where the inputs differ. Inputs
+ * shorter than one vector always take the scalar loop.
+ *
+ * The vector path can be disabled with {@code -Dsamesame.vector=false}.
+ */
+public final class ConstantTime {
+
+    /** System property that disables the vectorized path when set to false */
+    public static final String VECTOR_PROPERTY = "samesame.vector";
+
+    private static final boolean VECTORIZED =
+        ModuleLayer.boot().findModule("jdk.incubator.vector").isPresent()
+            && !"false".equalsIgnoreCase(System.getProperty(VECTOR_PROPERTY));
+
+    /** Shorter inputs never fill a vector and go straight to the scalar loop */
+    private static final int VECTOR_MIN_LENGTH = VECTORIZED ? ConstantTimeVectors.laneCount() : Integer.MAX_VALUE;
+
+    private ConstantTime() {
+    }
+
+    /**
+     * @return true if comparisons use the Vector API
+     */
+    public static boolean isVectorized() {
+        return VECTORIZED;
+    }
+
+    /**
+     * @return Bytes compared per step: the vector width, or 1 for the scalar path
+     */
+    public static int bytesPerStep() {
+        return VECTORIZED ? ConstantTimeVectors.laneCount() : 1;
+    }
+
+    /**
+     * Compares two byte arrays in time that depends only on their length
+     * 
+     * @return true if both have the same length and contents
+     */
+    public static boolean equals(byte[] a, byte[] b) {
+        if (a.length != b.length) {
+            return false;
+        }
+        int difference = a.length >= VECTOR_MIN_LENGTH
+            ? ConstantTimeVectors.difference(a, b, a.length)
+            : scalarDifference(a, b, a.length);
+        return difference == 0;
+    }
+
+    /**
+     * Compares the remaining bytes of two buffers in time that depends only on their length
+     * Positions and limits are left untouched
+     * 
+     * @return true if both have the same number of remaining bytes with the same contents
+     */
+    public static boolean equals(ByteBuffer a, ByteBuffer b) {
+        int length = a.remaining();
+        if (length != b.remaining()) {
+            return false;
+        }
+        int difference = length >= VECTOR_MIN_LENGTH
+            ? ConstantTimeVectors.difference(a, a.position(), b, b.position(), length)
+            : scalarDifference(a, a.position(), b, b.position(), length);
+        return difference == 0;
+    }
+
+    /**
+     * Folds the remaining bytes of two buffers of equal length into one difference word
+     * Callers comparing data in pieces OR the words together and test the
+     * result once at the end. Reads eight bytes at a time: on mapped file
+     * windows this beats the vector path, whose per-load bounds and scope
+     * checks on a MappedByteBuffer cost more than the wider lanes save.
+     * Positions and limits are left untouched
+     *
+     * @return OR of the XOR of every byte pair; 0 if the contents are equal
+     */
+    static int difference(ByteBuffer a, ByteBuffer b) {
+        int length = a.remaining();
+        if (length != b.remaining()) {
+            throw new IllegalArgumentException("Buffers must have the same number of remaining bytes");
+        }
+        int offsetA = a.position();
+        int offsetB = b.position();
+        long wide = 0;
+        int i = 0;
+        for (; i <= length - Long.BYTES; i += Long.BYTES) {
+            wide |= a.getLong(offsetA + i) ^ b.getLong(offsetB + i);
+        }
+        return (int) (wide | wide >>> 32) | scalarDifference(a, offsetA + i, b, offsetB + i, length - i);
+    }
+
+    /**
+     * Scalar reference implementation of {@link #equals(byte[], byte[])}
+     */
+    public static boolean scalarEquals(byte[] a, byte[] b) {
+        return a.length == b.length && scalarDifference(a, b, a.length) == 0;
+    }
+
+    /**
+     * Scalar reference implementation of {@link #equals(ByteBuffer, ByteBuffer)}
+     */
+    public static boolean scalarEquals(ByteBuffer a, ByteBuffer b) {
+        int length = a.remaining();
+        return length == b.remaining() && scalarDifference(a, a.position(), b, b.position(), length) == 0;
+    }
+
+    private static int scalarDifference(byte[] a, byte[] b, int length) {
+        int result = 0;
+        for (int i = 0; i < length; i++) {
+            result |= a[i] ^ b[i];
+        }
+        return result;
+    }
+
+    private static int scalarDifference(ByteBuffer a, int offsetA, ByteBuffer b, int offsetB, int length) {
+        int result = 0;
+        for (int i = 0; i < length; i++) {
+            result |= a.get(offsetA + i) ^ b.get(offsetB + i);
+        }
+        return result;
+    }
+}
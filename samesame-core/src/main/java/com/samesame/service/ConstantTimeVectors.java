@@ -0,0 +1,71 @@
+package com.samesame.service;
+
+import jdk.incubator.vector.ByteVector;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * Vector API kernels behind {@link ConstantTime}
+ *
+ * Each step XORs a whole vector of bytes from both inputs and ORs the result
+ * into an accumulator; the accumulator is reduced once at the end. The loop
+ * runs the same number of steps for any input of a given length and has no
+ * data-dependent branch. This class references {@code jdk.incubator.vector}
+ * and must only be loaded when that module is present.
+ */
+final class ConstantTimeVectors {
+
+    private static final VectorSpecies<Byte> SPECIES = ByteVector.SPECIES_PREFERRED;
+
+    private ConstantTimeVectors() {
+    }
+
+    /**
+     * @return OR of a[i] ^ b[i] over the first length bytes; 0 if they are equal
+     */
+    static int difference(byte[] a, byte[] b, int length) {
+        int bound = SPECIES.loopBound(length);
+        ByteVector accumulator = ByteVector.zero(SPECIES);
+        int i = 0;
+        for (; i < bound; i += SPECIES.length()) {
+            ByteVector va = ByteVector.fromArray(SPECIES, a, i);
+            ByteVector vb = ByteVector.fromArray(SPECIES, b, i);
+            accumulator = accumulator.or(va.lanewise(VectorOperators.XOR, vb));
+        }
+        int result = accumulator.reduceLanes(VectorOperators.OR);
+        for (; i < length; i++) {
+            result |= a[i] ^ b[i];
+        }
+        return result;
+    }
+
+    /**
+     * @return OR of the XOR of length bytes from a at offsetA and b at offsetB; 0 if they are equal
+     */
+    static int difference(ByteBuffer a, int offsetA, ByteBuffer b, int offsetB, int length) {
+        int bound = SPECIES.loopBound(length);
+        ByteOrder order = ByteOrder.nativeOrder();
+        ByteVector accumulator = ByteVector.zero(SPECIES);
+        int i = 0;
+        for (; i < bound; i += SPECIES.length()) {
+            ByteVector va = ByteVector.fromByteBuffer(SPECIES, a, offsetA + i, order);
+            ByteVector vb = ByteVector.fromByteBuffer(SPECIES, b, offsetB + i, order);
+            accumulator = accumulator.or(va.lanewise(VectorOperators.XOR, vb));
+        }
+        int result = accumulator.reduceLanes(VectorOperators.OR);
+        for (; i < length; i++) {
+            result |= a.get(offsetA + i) ^ b.get(offsetB + i);
+        }
+        return result;
+    }
+
+    /**
+     * @return Bytes processed per vector step
+     */
+    static int laneCount() {
+        return SPECIES.length();
+    }
+}
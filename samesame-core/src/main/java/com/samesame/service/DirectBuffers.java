@@ -0,0 +1,59 @@
+package com.samesame.service;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Field;
+import java.nio.ByteBuffer;
+
+/**
+ * Explicit release of direct and mapped buffers
+ *
+ * Uses Unsafe.invokeCleaner, the supported way to free a direct buffer or
+ * unmap a mapped one before it is collected. Where the JVM does not allow
+ * it, {@link #free(ByteBuffer)} does nothing and the memory is returned
+ * when the buffer is garbage collected.
+ */
+final class DirectBuffers {
+
+    private static final MethodHandle INVOKE_CLEANER = findCleaner();
+
+    private DirectBuffers() {
+    }
+
+    /**
+     * @return true if {@link #free(ByteBuffer)} releases memory at once
+     */
+    static boolean freesEagerly() {
+        return INVOKE_CLEANER != null;
+    }
+
+    /**
+     * Releases the memory of a direct buffer now; neither it nor any view of it may be used afterwards
+     *
+     * @param buffer Buffer returned by allocateDirect or map, not a slice or duplicate
+     */
+    static void free(ByteBuffer buffer) {
+        if (INVOKE_CLEANER == null) {
+            return;
+        }
+        try {
+            INVOKE_CLEANER.invokeExact(buffer);
+        } catch (Throwable e) {
+            throw new IllegalStateException("Could not free a direct buffer", e);
+        }
+    }
+
+    private static MethodHandle findCleaner() {
+        try {
+            Class<?> unsafeClass = Class.forName("sun.misc.Unsafe");
+            Field field = unsafeClass.getDeclaredField("theUnsafe");
+            field.setAccessible(true);
+            return MethodHandles.lookup()
+                .findVirtual(unsafeClass, "invokeCleaner", MethodType.methodType(void.class, ByteBuffer.class))
+                .bindTo(field.get(null));
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            return null;
+        }
+    }
+}
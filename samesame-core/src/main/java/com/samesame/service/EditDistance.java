@@ -0,0 +1,353 @@
+package com.samesame.service;
+
+import java.util.Arrays;
+
+/**
+ * Classifies how close two non-matching passwords are, without saying where they differ
+ *
+ * Distances are computed with Myers' bit-parallel algorithm in Hyyrö's
+ * formulation, which also covers the optimal string alignment (restricted
+ * Damerau) distance. The shorter password becomes the pattern: one bit per
+ * character, so a password of up to 64 characters fits a single machine
+ * word and each character of the other password costs about fifteen
+ * word operations. Longer patterns are split into 64-bit blocks, with
+ * carries passed from block to block.
+ *
+ * Only a {@link Similarity} is returned. The distance itself, and the
+ * positions any edit-distance algorithm could report, stay inside this
+ * class. The pattern tables are cleared after every call, so no trace of
+ * either password is left behind. Telling a user that two entries are
+ * almost the same is still a disclosure, so callers use this only after a
+ * comparison has failed, and only where the user typed both entries.
+ *
+ * Instances are not needed: scratch tables are borrowed from a shared pool.
+ */
+public final class EditDistance {
+
+    /**
+     * How two passwords relate, from identical to different
+     */
+    public enum Similarity {
+        IDENTICAL("identical"),
+        CASE_ONLY("only letter case differs"),
+        ONE_EDIT("one character off"),
+        TRANSPOSITION("two neighbouring characters swapped"),
+        DIFFERENT("different");
+
+        private final String description;
+
+        Similarity(String description) {
+            this.description = description;
+        }
+
+        /**
+         * @return Short lowercase phrase for display
+         */
+        public String description() {
+            return description;
+        }
+    }
+
+    /** Longest password that can be classified */
+    public static final int MAX_LENGTH = 4096;
+
+    /** Characters below this find their row directly instead of through the hash table */
+    private static final int DIRECT = 256;
+
+    private static final ScratchPool<Scratch> SCRATCH = new ScratchPool<>(Scratch::new);
+
+    private EditDistance() {
+    }
+
+    /**
+     * Classifies two passwords; case differences take precedence over edits
+     *
+     * @param a First password
+     * @param b Second password
+     * @return Closest matching class
+     * @throws IllegalArgumentException if either password is longer than {@link #MAX_LENGTH}
+     */
+    public static Similarity classify(CharSequence a, CharSequence b) {
+        if (a.length() > MAX_LENGTH || b.length() > MAX_LENGTH) {
+            throw new IllegalArgumentException("Passwords longer than " + MAX_LENGTH + " characters cannot be classified");
+        }
+        if (Math.abs(a.length() - b.length()) > 1) {
+            // At least two insertions apart, and the lengths are visible anyway
+            return Similarity.DIFFERENT;
+        }
+        int distance = distance(a, b, true);
+        if (distance == 0) {
+            return Similarity.IDENTICAL;
+        }
+        if (equalIgnoringCase(a, b)) {
+            return Similarity.CASE_ONLY;
+        }
+        if (distance > 1) {
+            return Similarity.DIFFERENT;
+        }
+        // One edit of the same length either replaced one character or swapped two
+        return a.length() == b.length() && differingPositions(a, b) == 2
+            ? Similarity.TRANSPOSITION
+            : Similarity.ONE_EDIT;
+    }
+
+    /**
+     * @return Levenshtein distance
+     */
+    static int levenshtein(CharSequence a, CharSequence b) {
+        return distance(a, b, false);
+    }
+
+    /**
+     * @return Optimal string alignment distance: Levenshtein plus swaps of neighbouring characters
+     */
+    static int damerau(CharSequence a, CharSequence b) {
+        return distance(a, b, true);
+    }
+
+    /**
+     * Same test as {@link String#equalsIgnoreCase}, one character at a time
+     */
+    private static boolean equalIgnoringCase(CharSequence a, CharSequence b) {
+        int length = a.length();
+        if (length != b.length()) {
+            return false;
+        }
+        for (int i = 0; i < length; i++) {
+            char charA = a.charAt(i);
+            char charB = b.charAt(i);
+            if (charA == charB) {
+                continue;
+            }
+            char upperA = Character.toUpperCase(charA);
+            char upperB = Character.toUpperCase(charB);
+            if (upperA != upperB && Character.toLowerCase(upperA) != Character.toLowerCase(upperB)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @return Number of positions at which two sequences of equal length differ
+     */
+    private static int differingPositions(CharSequence a, CharSequence b) {
+        int count = 0;
+        for (int i = 0, length = a.length(); i < length; i++) {
+            count += a.charAt(i) != b.charAt(i) ? 1 : 0;
+        }
+        return count;
+    }
+
+    /**
+     * @param transpositions Whether swapping two neighbouring characters counts as one edit
+     */
+    private static int distance(CharSequence a, CharSequence b, boolean transpositions) {
+        CharSequence pattern = a.length() <= b.length() ? a : b;
+        CharSequence text = pattern == a ? b : a;
+        int m = pattern.length();
+        if (m == 0) {
+            return text.length();
+        }
+        Scratch scratch = SCRATCH.acquire();
+        int blocks = (m + Long.SIZE - 1) >>> 6;
+        try {
+            scratch.build(pattern, blocks);
+            return blocks == 1
+                ? singleWord(scratch, m, text, transpositions)
+                : blocked(scratch, m, blocks, text, transpositions);
+        } finally {
+            scratch.clear(blocks);
+            SCRATCH.release(scratch);
+        }
+    }
+
+    /**
+     * Patterns of up to 64 characters: each DP column is a pair of words
+     */
+    private static int singleWord(Scratch scratch, int m, CharSequence text, boolean transpositions) {
+        long[] masks = scratch.masks;
+        long transpositionMask = transpositions ? -1L : 0L;
+        int last = m - 1;
+        int score = m;
+        long vp = -1L;
+        long vn = 0;
+        long d0 = 0;
+        long previous = 0;
+        for (int j = 0, n = text.length(); j < n; j++) {
+            long pm = masks[scratch.row(text.charAt(j))];
+            long tr = (((~d0) & pm) << 1) & previous & transpositionMask;
+            d0 = (((pm & vp) + vp) ^ vp) | pm | vn | tr;
+            long hp = vn | ~(d0 | vp);
+            long hn = d0 & vp;
+            score += (int) ((hp >>> last) & 1) - (int) ((hn >>> last) & 1);
+            // The top row of a global distance grows by one per column
+            long x = (hp << 1) | 1;
+            vn = x & d0;
+            vp = (hn << 1) | ~(x | d0);
+            previous = pm;
+        }
+        return score;
+    }
+
+    /**
+     * Longer patterns: the same recurrence over 64-row blocks, lowest rows first
+     *
+     * @param transpositions Whether swapping two neighbouring characters counts as one edit
+     */
+    private static int blocked(Scratch scratch, int m, int blocks, CharSequence text, boolean transpositions) {
+        long[] masks = scratch.masks;
+        long[] vp = scratch.vp;
+        long[] vn = scratch.vn;
+        long[] d0 = scratch.d0;
+        long[] previous = scratch.previous;
+        Arrays.fill(vp, 0, blocks, -1L);
+        Arrays.fill(vn, 0, blocks, 0L);
+        Arrays.fill(d0, 0, blocks, 0L);
+        Arrays.fill(previous, 0, blocks, 0L);
+        long transpositionMask = transpositions ? -1L : 0L;
+        int lastBlock = blocks - 1;
+        int last = (m - 1) & (Long.SIZE - 1);
+        int score = m;
+
+        for (int j = 0, n = text.length(); j < n; j++) {
+            int base = scratch.row(text.charAt(j)) * blocks;
+            long addCarry = 0;
+            long trCarry = 0;
+            long hpCarry = 1;
+            long hnCarry = 0;
+            for (int k = 0; k < blocks; k++) {
+                long pm = masks[base + k];
+                long trSource = (~d0[k]) & pm;
+                long tr = ((trSource << 1) | trCarry) & previous[k] & transpositionMask;
+                trCarry = trSource >>> 63;
+
+                long match = pm & vp[k];
+                long partial = match + vp[k];
+                long sum = partial + addCarry;
+                addCarry = (((match & vp[k]) | ((match | vp[k]) & ~partial)) | (partial & ~sum)) >>> 63;
+
+                long d = (sum ^ vp[k]) | pm | vn[k] | tr;
+                long hp = vn[k] | ~(d | vp[k]);
+                long hn = d & vp[k];
+                if (k == lastBlock) {
+                    score += (int) ((hp >>> last) & 1) - (int) ((hn >>> last) & 1);
+                }
+                long x = (hp << 1) | hpCarry;
+                hpCarry = hp >>> 63;
+                vn[k] = x & d;
+                vp[k] = ((hn << 1) | hnCarry) | ~(x | d);
+                hnCarry = hn >>> 63;
+                d0[k] = d;
+                previous[k] = pm;
+            }
+        }
+        return score;
+    }
+
+    /**
+     * Pooled pattern tables: a map from character to a row of block
+     * masks, plus the column state of the blocked algorithm
+     * Latin-1 characters find their row directly, others through an
+     * open-addressing table. Row 0 is all zeros and stands for characters
+     * missing from the pattern.
+     */
+    private static final class Scratch {
+        private final int[] directRows = new int[DIRECT];
+        private int[] keys = new int[256];
+        private int[] rows = new int[256];
+        /** Entry of each row: the character if direct, else DIRECT plus its slot */
+        private int[] entries = new int[64];
+        private int rowCount;
+        private long[] masks = new long[65];
+        private long[] vp = new long[0];
+        private long[] vn = new long[0];
+        private long[] d0 = new long[0];
+        private long[] previous = new long[0];
+
+        /**
+         * Sets one bit per pattern position in the row of its character
+         */
+        void build(CharSequence pattern, int blocks) {
+            int m = pattern.length();
+            int capacity = Integer.highestOneBit(Math.max(64, m) * 4 - 1);
+            if (keys.length < capacity) {
+                keys = new int[capacity];
+                rows = new int[capacity];
+            }
+            if (entries.length < m) {
+                entries = new int[m];
+            }
+            if (masks.length < (m + 1) * blocks) {
+                masks = new long[(m + 1) * blocks];
+            }
+            if (vp.length < blocks) {
+                vp = new long[blocks];
+                vn = new long[blocks];
+                d0 = new long[blocks];
+                previous = new long[blocks];
+            }
+            for (int i = 0; i < m; i++) {
+                char c = pattern.charAt(i);
+                int row = row(c);
+                if (row == 0) {
+                    row = ++rowCount;
+                    if (c < DIRECT) {
+                        directRows[c] = row;
+                        entries[row - 1] = c;
+                    } else {
+                        int slot = slot(c);
+                        keys[slot] = c + 1;
+                        rows[slot] = row;
+                        entries[row - 1] = DIRECT + slot;
+                    }
+                }
+                masks[row * blocks + (i >>> 6)] |= 1L << i;
+            }
+        }
+
+        /**
+         * @return Row of the character's masks, or 0 if the pattern does not contain it
+         */
+        int row(char c) {
+            return c < DIRECT ? directRows[c] : rows[slot(c)];
+        }
+
+        /**
+         * @return Slot holding the character, or the empty slot where it belongs
+         */
+        private int slot(char c) {
+            int key = c + 1;
+            int mask = keys.length - 1;
+            int slot = ((key * 0x9E3779B1) >>> 7) & mask;
+            while (keys[slot] != 0 && keys[slot] != key) {
+                slot = (slot + 1) & mask;
+            }
+            return slot;
+        }
+
+        /**
+         * Forgets the pattern, so no characters or positions stay in the tables
+         */
+        void clear(int blocks) {
+            for (int i = 0; i < rowCount; i++) {
+                int entry = entries[i];
+                if (entry < DIRECT) {
+                    directRows[entry] = 0;
+                } else {
+                    keys[entry - DIRECT] = 0;
+                    rows[entry - DIRECT] = 0;
+                }
+                entries[i] = 0;
+            }
+            Arrays.fill(masks, 0, (rowCount + 1) * blocks, 0L);
+            if (blocks > 1) {
+                Arrays.fill(vp, 0, blocks, 0L);
+                Arrays.fill(vn, 0, blocks, 0L);
+                Arrays.fill(d0, 0, blocks, 0L);
+                Arrays.fill(previous, 0, blocks, 0L);
+            }
+            rowCount = 0;
+        }
+    }
+}
@@ -0,0 +1,369 @@
+package com.samesame.service;
+
+import java.security.DigestException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.ToLongFunction;
+
+/**
+ * Bounded, concurrent cache of evaluation results for repeated passwords
+ *
+ * Entries are keyed by the first 128 bits of an HMAC-SHA256 of the password,
+ * under a random key that is generated when the cache is created and never
+ * leaves the process. The plaintext is never stored, and the keys are useless
+ * to anyone who dumps the cache without also dumping the HMAC key.
+ *
+ * The cache is set-associative: a key maps to one set of {@link #WAYS}
+ * entries, and each set evicts with its own CLOCK hand, so an entry that was
+ * read since the hand last passed gets a second chance. Sets are guarded by
+ * striped locks held only for the probe, never while evaluating. Lookups and
+ * inserts do not allocate.
+ *
+ * Computing the key takes about 300 ns, so only evaluations that cost more,
+ * such as guess estimation and breach lookups, are worth caching. Results are
+ * stored as longs: the raw bits of a double, or 0 and 1.
+ * Instances are safe to share between threads.
+ */
+public final class EvaluationCache {
+
+    /**
+     * Evaluations that can be cached; each has its own key space
+     */
+    public enum Kind {
+        GUESSES,
+        BREACHED
+    }
+
+    /** Default maximum number of entries */
+    public static final int DEFAULT_MAXIMUM_SIZE = 1 << 16;
+
+    /** Entries per set */
+    static final int WAYS = 8;
+
+    private static final int STRIPES = 64;
+    private static final int KEY_LENGTH = 32;
+    private static final int BLOCK_LENGTH = 64;
+    private static final int ENCODE_CHUNK = 128;
+
+    private static final byte EMPTY = 0;
+    private static final byte PRESENT = 1;
+    private static final byte REFERENCED = 2;
+
+    private final int setMask;
+    private final long[] keys;
+    private final long[] values;
+    private final byte[] marks;
+    private final byte[] hands;
+    private final Object[] locks = new Object[STRIPES];
+    private final ScratchPool<Hmac> hmacs;
+    /** Advanced by every clear, so results computed before it are not inserted after it */
+    private final AtomicInteger generation = new AtomicInteger();
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    /**
+     * Creates a cache with {@link #DEFAULT_MAXIMUM_SIZE} entries
+     */
+    public EvaluationCache() {
+        this(DEFAULT_MAXIMUM_SIZE);
+    }
+
+    /**
+     * @param maximumSize Maximum number of entries, rounded up to a power of two of at least {@link #WAYS}
+     */
+    public EvaluationCache(int maximumSize) {
+        this(maximumSize, randomKey());
+    }
+
+    /**
+     * Creates a cache with a fixed HMAC key, so tests can check the keys
+     */
+    EvaluationCache(int maximumSize, byte[] key) {
+        if (maximumSize < 1 || maximumSize > 1 << 24) {
+            throw new IllegalArgumentException("Maximum size must be between 1 and 2^24");
+        }
+        int sets = Math.max(1, Integer.highestOneBit(Math.max(WAYS, maximumSize) * 2 - 1) / WAYS);
+        setMask = sets - 1;
+        keys = new long[sets * WAYS * 2];
+        values = new long[sets * WAYS];
+        marks = new byte[sets * WAYS];
+        hands = new byte[sets];
+        for (int i = 0; i < STRIPES; i++) {
+            locks[i] = new Object();
+        }
+        byte[] secret = key.clone();
+        hmacs = new ScratchPool<>(() -> new Hmac(secret));
+    }
+
+    /**
+     * Returns the cached result for a password, evaluating and caching it on a miss
+     * The evaluator runs without any lock held, so two threads missing on
+     * the same password may both evaluate it; the results are identical.
+     * A result is not cached if {@link #clear()} ran while it was computed.
+     *
+     * @param kind Evaluation the result belongs to
+     * @param password The password; only its HMAC is kept
+     * @param evaluator Computes the result on a miss
+     * @return Cached or freshly computed result
+     */
+    public long computeIfAbsent(Kind kind, CharSequence password, ToLongFunction<CharSequence> evaluator) {
+        Hmac state = hmacs.acquire();
+        long high;
+        long low;
+        try {
+            state.compute(kind, password);
+            high = state.high;
+            low = state.low;
+        } finally {
+            hmacs.release(state);
+        }
+        int set = (int) low & setMask;
+
+        synchronized (locks[set & (STRIPES - 1)]) {
+            int entry = find(set, high, low);
+            if (entry >= 0) {
+                marks[entry] = REFERENCED;
+                hits.increment();
+                return values[entry];
+            }
+        }
+
+        misses.increment();
+        int started = generation.get();
+        long value = evaluator.applyAsLong(password);
+        synchronized (locks[set & (STRIPES - 1)]) {
+            if (generation.get() != started) {
+                // The result may come from the state the clear was for
+                return value;
+            }
+            int entry = find(set, high, low);
+            if (entry < 0) {
+                entry = victim(set);
+                keys[entry * 2] = high;
+                keys[entry * 2 + 1] = low;
+            }
+            values[entry] = value;
+            marks[entry] = PRESENT;
+        }
+        return value;
+    }
+
+    /**
+     * Removes every entry; the statistics are kept
+     * Call it whenever a change would alter cached results, such as a new breach index
+     */
+    public void clear() {
+        // Advanced before any stripe is emptied, so an insert that still sees the old
+        // generation under a stripe lock is removed when clear reaches that stripe
+        generation.incrementAndGet();
+        for (int stripe = 0; stripe < STRIPES; stripe++) {
+            synchronized (locks[stripe]) {
+                for (int set = stripe; set <= setMask; set += STRIPES) {
+                    Arrays.fill(marks, set * WAYS, (set + 1) * WAYS, EMPTY);
+                }
+            }
+        }
+    }
+
+    /**
+     * @return Maximum number of entries
+     */
+    public int maximumSize() {
+        return marks.length;
+    }
+
+    /**
+     * @return Hit, miss and eviction counts since the cache was created
+     */
+    public Stats stats() {
+        int size = 0;
+        for (int stripe = 0; stripe < STRIPES; stripe++) {
+            synchronized (locks[stripe]) {
+                for (int set = stripe; set <= setMask; set += STRIPES) {
+                    for (int i = set * WAYS; i < (set + 1) * WAYS; i++) {
+                        if (marks[i] != EMPTY) {
+                            size++;
+                        }
+                    }
+                }
+            }
+        }
+        return new Stats(hits.sum(), misses.sum(), evictions.sum(), size);
+    }
+
+    /**
+     * Computes the 32-byte HMAC the cache key is taken from
+     */
+    byte[] authenticate(Kind kind, CharSequence password) {
+        Hmac state = hmacs.acquire();
+        try {
+            state.compute(kind, password);
+            return state.tag.clone();
+        } finally {
+            hmacs.release(state);
+        }
+    }
+
+    /**
+     * @return Index of the entry in the set holding the key, or -1
+     */
+    private int find(int set, long high, long low) {
+        for (int i = set * WAYS; i < (set + 1) * WAYS; i++) {
+            if (marks[i] != EMPTY && keys[i * 2] == high && keys[i * 2 + 1] == low) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Picks the entry to overwrite: a free one, or the first unreferenced one under the CLOCK hand
+     */
+    private int victim(int set) {
+        int base = set * WAYS;
+        for (int i = base; i < base + WAYS; i++) {
+            if (marks[i] == EMPTY) {
+                return i;
+            }
+        }
+
+        // Every pass clears the reference bits it skips, so two passes always find a victim
+        int hand = hands[set];
+        while (marks[base + hand] == REFERENCED) {
+            marks[base + hand] = PRESENT;
+            hand = (hand + 1) & (WAYS - 1);
+        }
+        hands[set] = (byte) ((hand + 1) & (WAYS - 1));
+        evictions.increment();
+        return base + hand;
+    }
+
+    private static byte[] randomKey() {
+        byte[] key = new byte[KEY_LENGTH];
+        new SecureRandom().nextBytes(key);
+        return key;
+    }
+
+    /**
+     * Pooled HMAC-SHA256 (RFC 2104) over a reusable digest and scratch buffer
+     */
+    private static final class Hmac {
+        private final MessageDigest digest;
+        private final byte[] innerPad = new byte[BLOCK_LENGTH];
+        private final byte[] outerPad = new byte[BLOCK_LENGTH];
+        private final byte[] encoded = new byte[ENCODE_CHUNK * 2];
+        private final byte[] tag = new byte[KEY_LENGTH];
+        private long high;
+        private long low;
+
+        Hmac(byte[] key) {
+            try {
+                digest = MessageDigest.getInstance("SHA-256");
+            } catch (NoSuchAlgorithmException e) {
+                throw new IllegalStateException("Hash algorithm not available: SHA-256", e);
+            }
+            for (int i = 0; i < BLOCK_LENGTH; i++) {
+                byte k = i < key.length ? key[i] : 0;
+                innerPad[i] = (byte) (k ^ 0x36);
+                outerPad[i] = (byte) (k ^ 0x5c);
+            }
+        }
+
+        /**
+         * Authenticates the kind followed by the UTF-16 code units of the password
+         */
+        void compute(Kind kind, CharSequence password) {
+            digest.update(innerPad);
+            digest.update((byte) kind.ordinal());
+            int length = password.length();
+            for (int start = 0; start < length; start += ENCODE_CHUNK) {
+                int end = Math.min(length, start + ENCODE_CHUNK);
+                int n = 0;
+                for (int i = start; i < end; i++) {
+                    char c = password.charAt(i);
+                    encoded[n++] = (byte) (c >>> 8);
+                    encoded[n++] = (byte) c;
+                }
+                digest.update(encoded, 0, n);
+            }
+            // The encoded password must not linger in the scratch buffer
+            Arrays.fill(encoded, (byte) 0);
+
+            try {
+                digest.digest(tag, 0, KEY_LENGTH);
+                digest.update(outerPad);
+                digest.update(tag);
+                digest.digest(tag, 0, KEY_LENGTH);
+            } catch (DigestException e) {
+                throw new IllegalStateException("SHA-256 digest is not 32 bytes", e);
+            }
+            high = readLong(tag, 0);
+            low = readLong(tag, 8);
+        }
+
+        private static long readLong(byte[] bytes, int offset) {
+            long value = 0;
+            for (int i = 0; i < 8; i++) {
+                value = (value << 8) | (bytes[offset + i] & 0xFF);
+            }
+            return value;
+        }
+    }
+
+    /**
+     * Point-in-time cache statistics
+     */
+    public static final class Stats {
+        private final long hits;
+        private final long misses;
+        private final long evictions;
+        private final int size;
+
+        Stats(long hits, long misses, long evictions, int size) {
+            this.hits = hits;
+            this.misses = misses;
+            this.evictions = evictions;
+            this.size = size;
+        }
+
+        public long hits() {
+            return hits;
+        }
+
+        public long misses() {
+            return misses;
+        }
+
+        public long evictions() {
+            return evictions;
+        }
+
+        /**
+         * @return Number of entries currently cached
+         */
+        public int size() {
+            return size;
+        }
+
+        /**
+         * @return Fraction of lookups that were hits, 0 before the first lookup
+         */
+        public double hitRate() {
+            long lookups = hits + misses;
+            return lookups == 0 ? 0 : (double) hits / lookups;
+        }
+
+        @Override
+        public String toString() {
+            return String.format(Locale.ROOT, "hits=%d misses=%d evictions=%d size=%d hitRate=%.1f%%",
+                hits, misses, evictions, size, hitRate() * 100);
+        }
+    }
+}
@@ -0,0 +1,168 @@
+package com.samesame.service;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Constant-time comparison of two files of any size, such as copies of a
+ * keyfile, a certificate bundle or a sealed secret blob
+ *
+ * Both files are mapped window by window with {@link FileChannel#map}. Each
+ * pair of windows is folded into a difference word by {@link ConstantTime}
+ * and the words are ORed into one accumulator, which is only tested after
+ * the last window. Every byte is read exactly once and nothing branches on
+ * the contents, so the time taken depends on the file length alone, never
+ * on where or whether the files differ. As with {@link ConstantTime}, files
+ * of different lengths are reported unequal at once: the length of a file
+ * is visible to anyone who can list it.
+ *
+ * Each window is unmapped before the next one is mapped, so at most one
+ * window per file is mapped at any time and multi-GB files need no more
+ * memory than small ones. Where the JVM does not allow explicit unmapping,
+ * windows are released when they are garbage collected.
+ *
+ * Files must not be truncated while they are compared. Instances are safe
+ * to share between threads.
+ */
+public final class FileComparator {
+
+    /** Default window size: 64 MiB of each file */
+    public static final int DEFAULT_WINDOW_SIZE = 1 << 26;
+
+    /** Smallest window size: one page */
+    public static final int MIN_WINDOW_SIZE = 1 << 12;
+
+    private final int windowSize;
+
+    /**
+     * Creates a comparator with {@link #DEFAULT_WINDOW_SIZE} windows
+     */
+    public FileComparator() {
+        this(DEFAULT_WINDOW_SIZE);
+    }
+
+    /**
+     * @param windowSize Bytes of each file mapped at a time, at least {@link #MIN_WINDOW_SIZE}
+     */
+    public FileComparator(int windowSize) {
+        if (windowSize < MIN_WINDOW_SIZE) {
+            throw new IllegalArgumentException("Window size must be at least " + MIN_WINDOW_SIZE + " bytes");
+        }
+        this.windowSize = windowSize;
+    }
+
+    /**
+     * @return Bytes of each file mapped at a time
+     */
+    public int windowSize() {
+        return windowSize;
+    }
+
+    /**
+     * Compares the contents of two files in time that depends only on their length
+     *
+     * @param first First file
+     * @param second Second file
+     * @return Outcome and throughput of the comparison
+     * @throws IOException if either file cannot be read
+     */
+    public Result compare(Path first, Path second) throws IOException {
+        long startTime = System.nanoTime();
+        try (FileChannel a = FileChannel.open(first, StandardOpenOption.READ);
+             FileChannel b = FileChannel.open(second, StandardOpenOption.READ)) {
+            long size = a.size();
+            long otherSize = b.size();
+            if (size != otherSize) {
+                return new Result(false, size, otherSize, System.nanoTime() - startTime);
+            }
+
+            int difference = 0;
+            for (long offset = 0; offset < size; offset += windowSize) {
+                long length = Math.min(windowSize, size - offset);
+                MappedByteBuffer windowA = a.map(FileChannel.MapMode.READ_ONLY, offset, length);
+                MappedByteBuffer windowB = b.map(FileChannel.MapMode.READ_ONLY, offset, length);
+                try {
+                    difference |= ConstantTime.difference(windowA, windowB);
+                } finally {
+                    unmap(windowA);
+                    unmap(windowB);
+                }
+            }
+            return new Result(difference == 0, size, otherSize, System.nanoTime() - startTime);
+        }
+    }
+
+    /**
+     * @return true if windows are unmapped as soon as they are compared
+     */
+    public static boolean unmapsEagerly() {
+        return DirectBuffers.freesEagerly();
+    }
+
+    /**
+     * Releases a mapping now; the buffer must not be used afterwards
+     */
+    private static void unmap(MappedByteBuffer window) {
+        DirectBuffers.free(window);
+    }
+
+    /**
+     * Outcome of one file comparison
+     */
+    public static final class Result {
+        private final boolean identical;
+        private final long firstSize;
+        private final long secondSize;
+        private final long nanos;
+
+        Result(boolean identical, long firstSize, long secondSize, long nanos) {
+            this.identical = identical;
+            this.firstSize = firstSize;
+            this.secondSize = secondSize;
+            this.nanos = nanos;
+        }
+
+        /**
+         * @return true if both files have the same length and contents
+         */
+        public boolean identical() {
+            return identical;
+        }
+
+        /**
+         * @return true if both files have the same length, so their contents were compared
+         */
+        public boolean sameSize() {
+            return firstSize == secondSize;
+        }
+
+        public long firstSize() {
+            return firstSize;
+        }
+
+        public long secondSize() {
+            return secondSize;
+        }
+
+        /**
+         * @return Bytes compared from each file; 0 if the lengths differ
+         */
+        public long bytesCompared() {
+            return sameSize() ? firstSize : 0;
+        }
+
+        public long nanos() {
+            return nanos;
+        }
+
+        /**
+         * @return Bytes compared from each file per second, in GB/s
+         */
+        public double gigabytesPerSecond() {
+            return nanos == 0 ? 0 : (double) bytesCompared() / nanos;
+        }
+    }
+}
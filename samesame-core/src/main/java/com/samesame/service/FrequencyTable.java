@@ -0,0 +1,200 @@
+package com.samesame.service;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Ranked word lists packed for allocation-free substring lookups
+ *
+ * All words share one character pool. An open-addressing table of longs
+ * maps a word's hash to its rank, length and pool offset, so a lookup is a
+ * few array reads plus one character comparison. The hash is built one
+ * character at a time with {@link #hash(long, char)}, which lets a caller
+ * test every substring starting at some index while extending it.
+ *
+ * A word that occurs in several lists keeps its best (lowest) rank.
+ */
+final class FrequencyTable {
+
+    /** Ranked lists bundled with the application, most common word first */
+    static final String[] BUNDLED_LISTS = {
+        "/dictionaries/passwords.txt", "/dictionaries/english.txt", "/dictionaries/names.txt"
+    };
+
+    /** Initial value of a substring hash */
+    static final long HASH_SEED = 0xcbf29ce484222325L;
+
+    private static final int RANK_BITS = 24;
+    private static final int LENGTH_BITS = 8;
+    private static final long EMPTY = 0;
+
+    private final char[] pool;
+    private final long[] slots;
+    private final int mask;
+    private final int maxWordLength;
+
+    private FrequencyTable(List<List<String>> lists) {
+        int words = 0;
+        int characters = 0;
+        for (List<String> list : lists) {
+            words += list.size();
+            for (String word : list) {
+                characters += word.length();
+            }
+        }
+
+        pool = new char[characters];
+        slots = new long[Integer.highestOneBit(Math.max(2, words * 2) - 1) << 1];
+        mask = slots.length - 1;
+        int offset = 0;
+        int longest = 0;
+        for (List<String> list : lists) {
+            for (int rank = 1; rank <= list.size(); rank++) {
+                String word = list.get(rank - 1);
+                if (word.length() >= 1 << LENGTH_BITS || rank >= 1 << RANK_BITS) {
+                    continue;
+                }
+                word.getChars(0, word.length(), pool, offset);
+                if (insert(offset, word.length(), rank)) {
+                    offset += word.length();
+                    longest = Math.max(longest, word.length());
+                }
+            }
+        }
+        maxWordLength = longest;
+    }
+
+    /**
+     * @return Table of the bundled lists, loaded on first use
+     */
+    static FrequencyTable bundled() {
+        return Bundled.TABLE;
+    }
+
+    /**
+     * Builds a table from in-memory lists, each ordered by frequency
+     */
+    static FrequencyTable of(List<List<String>> lists) {
+        return new FrequencyTable(lists);
+    }
+
+    /**
+     * Extends a substring hash by one lowercase character
+     */
+    static long hash(long hash, char c) {
+        return (hash ^ c) * 0x100000001b3L;
+    }
+
+    /**
+     * Looks up chars[start, start + length), whose hash is given
+     *
+     * @return Rank of the word, or 0 if it is not in any list
+     */
+    int rank(char[] chars, int start, int length, long hash) {
+        int index = index(hash);
+        while (true) {
+            long slot = slots[index];
+            if (slot == EMPTY) {
+                return 0;
+            }
+            if (length(slot) == length && equals(offset(slot), chars, start, length)) {
+                return rank(slot);
+            }
+            index = (index + 1) & mask;
+        }
+    }
+
+    /**
+     * @return Length of the longest word
+     */
+    int maxWordLength() {
+        return maxWordLength;
+    }
+
+    private boolean insert(int offset, int length, int rank) {
+        long hash = HASH_SEED;
+        for (int i = 0; i < length; i++) {
+            hash = hash(hash, pool[offset + i]);
+        }
+        int index = index(hash);
+        while (slots[index] != EMPTY) {
+            long slot = slots[index];
+            if (length(slot) == length && equals(offset(slot), pool, offset, length)) {
+                // Keep the better rank; the first occurrence already owns the characters
+                if (rank < rank(slot)) {
+                    slots[index] = pack(offset(slot), length, rank);
+                }
+                return false;
+            }
+            index = (index + 1) & mask;
+        }
+        slots[index] = pack(offset, length, rank);
+        return true;
+    }
+
+    private boolean equals(int offset, char[] chars, int start, int length) {
+        for (int i = 0; i < length; i++) {
+            if (pool[offset + i] != chars[start + i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private int index(long hash) {
+        return (int) (hash ^ (hash >>> 29)) & mask;
+    }
+
+    // Slot layout: offset (32 bits) | length (8 bits) | rank (24 bits); rank 0 never occurs
+    private static long pack(int offset, int length, int rank) {
+        return ((long) offset << 32) | ((long) length << RANK_BITS) | rank;
+    }
+
+    private static int offset(long slot) {
+        return (int) (slot >>> 32);
+    }
+
+    private static int length(long slot) {
+        return (int) (slot >>> RANK_BITS) & ((1 << LENGTH_BITS) - 1);
+    }
+
+    private static int rank(long slot) {
+        return (int) slot & ((1 << RANK_BITS) - 1);
+    }
+
+    /**
+     * Lazy holder so the lists are read only when an estimate is first needed
+     */
+    private static final class Bundled {
+        static final FrequencyTable TABLE = load();
+
+        private static FrequencyTable load() {
+            List<List<String>> lists = new ArrayList<>();
+            for (String resource : BUNDLED_LISTS) {
+                try (InputStream in = FrequencyTable.class.getResourceAsStream(resource)) {
+                    if (in == null) {
+                        throw new IllegalStateException("Missing word list " + resource);
+                    }
+                    BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+                    List<String> words = new ArrayList<>();
+                    String line;
+                    while ((line = reader.readLine()) != null) {
+                        if (!line.isBlank()) {
+                            words.add(line.strip());
+                        }
+                    }
+                    lists.add(words);
+                } catch (IOException e) {
+                    throw new UncheckedIOException("Could not read word list " + resource, e);
+                }
+            }
+            return new FrequencyTable(lists);
+        }
+    }
+}
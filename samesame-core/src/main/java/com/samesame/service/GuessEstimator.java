@@ -0,0 +1,758 @@
+package com.samesame.service;
+
+import java.time.Year;
+import java.util.Arrays;
+
+/**
+ * Estimates how many guesses an informed attacker needs for a password
+ *
+ * Modelled on zxcvbn: the password is scanned by pattern matchers
+ * (dictionary words with capitalisation and l33t variants, character
+ * sequences, repeats, dates, and keyboard walks on QWERTY and the numeric
+ * keypad), every match is given a guess count, and dynamic programming
+ * picks the decomposition into matches and brute-forced gaps that needs the
+ * fewest guesses overall. Unlike the rule-based verdict this tells
+ * "Password123!" (a common word plus a sequence) from a random string of
+ * the same length and classes.
+ *
+ * Guess counts are handled as base-10 logarithms throughout. Matches and
+ * dynamic-programming tables live in a pooled scratch arena sized for
+ * {@link #MAX_LENGTH} characters, so an estimate does not allocate once the
+ * pool has warmed up, even when every call runs on a new virtual thread.
+ * Characters beyond {@link #MAX_LENGTH} are counted as brute force.
+ *
+ * Instances are thread-safe.
+ */
+public final class GuessEstimator {
+
+    /** Characters analysed by the matchers; the rest are counted as brute force */
+    public static final int MAX_LENGTH = 128;
+
+    private static final int REFERENCE_YEAR = Year.now().getValue();
+    private static final int MIN_YEAR_SPACE = 20;
+    /** log10 of the extra guesses zxcvbn charges for each additional match in a sequence */
+    private static final double LOG10_SEQUENCE_GROWTH = 4;
+    private static final double LOG10_MIN_SINGLE_CHAR = Math.log10(11);
+    private static final double LOG10_MIN_SUBMATCH_SINGLE_CHAR = Math.log10(10);
+    private static final double LOG10_MIN_SUBMATCH = Math.log10(50);
+    private static final double LOG2_10 = Math.log(10) / Math.log(2);
+
+    private static final double[] LOG10_FACTORIAL = new double[MAX_LENGTH + 2];
+
+    static {
+        for (int i = 2; i < LOG10_FACTORIAL.length; i++) {
+            LOG10_FACTORIAL[i] = LOG10_FACTORIAL[i - 1] + Math.log10(i);
+        }
+    }
+
+    /** l33t substitution of each ASCII character, 0 if it has none */
+    private static final char[] L33T = new char[128];
+
+    static {
+        String from = "4@8(36!1|0$5+7%2";
+        String to = "aabcegiilossttxz";
+        for (int i = 0; i < from.length(); i++) {
+            L33T[from.charAt(i)] = to.charAt(i);
+        }
+    }
+
+    private static final KeyboardGraph QWERTY = KeyboardGraph.slanted(
+        new String[] {"`1234567890-=", " qwertyuiop[]\\", " asdfghjkl;'", " zxcvbnm,./"},
+        new String[] {"~!@#$%^&*()_+", " QWERTYUIOP{}|", " ASDFGHJKL:\"", " ZXCVBNM<>?"});
+
+    private static final KeyboardGraph KEYPAD = KeyboardGraph.aligned(
+        new String[] {" /*-", "789+", "456 ", "123 ", " 0. "});
+
+    private static final GuessEstimator STANDARD = new GuessEstimator(null);
+
+    private final FrequencyTable explicitDictionary;
+    private final ScratchPool<Scratch> scratch = new ScratchPool<>(Scratch::new);
+
+    private GuessEstimator(FrequencyTable dictionary) {
+        this.explicitDictionary = dictionary;
+    }
+
+    /**
+     * @return Shared estimator over the bundled word lists, which are read on first use
+     */
+    public static GuessEstimator standard() {
+        return STANDARD;
+    }
+
+    /**
+     * Creates an estimator over custom ranked word lists
+     */
+    static GuessEstimator withDictionary(FrequencyTable dictionary) {
+        return new GuessEstimator(dictionary);
+    }
+
+    /**
+     * Estimates the guesses needed for a password
+     *
+     * @param password The password to analyse
+     * @return Base-10 logarithm of the estimated guess count, 0 for an empty password
+     */
+    public double log10Guesses(CharSequence password) {
+        int length = password.length();
+        if (length == 0) {
+            return 0;
+        }
+        int analysed = Math.min(length, MAX_LENGTH);
+        Scratch s = scratch.acquire();
+        try {
+            s.load(password, analysed);
+            findMatches(s, analysed);
+            return minimumGuesses(s, analysed) + (length - analysed);
+        } finally {
+            s.clear(analysed);
+            scratch.release(s);
+        }
+    }
+
+    /**
+     * Converts a guess estimate to bits of entropy
+     */
+    public static double entropyBits(double log10Guesses) {
+        return log10Guesses * LOG2_10;
+    }
+
+    /**
+     * Maps a guess estimate to zxcvbn's 0-4 score
+     *
+     * @return 0 (too guessable) to 4 (very unguessable)
+     */
+    public static int score(double log10Guesses) {
+        if (log10Guesses < 3) {
+            return 0;
+        } else if (log10Guesses < 6) {
+            return 1;
+        } else if (log10Guesses < 8) {
+            return 2;
+        } else if (log10Guesses < 10) {
+            return 3;
+        }
+        return 4;
+    }
+
+    private FrequencyTable dictionary() {
+        return explicitDictionary != null ? explicitDictionary : FrequencyTable.bundled();
+    }
+
+    // ---------------------------------------------------------------- matchers
+
+    private void findMatches(Scratch s, int n) {
+        dictionaryMatches(s, n, s.lower, false);
+        if (s.hasL33t) {
+            dictionaryMatches(s, n, s.l33t, true);
+        }
+        sequenceMatches(s, n);
+        repeatMatches(s, n);
+        dateMatches(s, n);
+        spatialMatches(s, n, QWERTY);
+        spatialMatches(s, n, KEYPAD);
+    }
+
+    private void dictionaryMatches(Scratch s, int n, char[] text, boolean l33t) {
+        FrequencyTable dictionary = dictionary();
+        int longest = dictionary.maxWordLength();
+        for (int i = 0; i < n; i++) {
+            long hash = FrequencyTable.HASH_SEED;
+            int substitutions = 0;
+            for (int j = i; j < n && j - i < longest; j++) {
+                hash = FrequencyTable.hash(hash, text[j]);
+                if (l33t && s.lower[j] != text[j]) {
+                    substitutions++;
+                }
+                if (l33t && substitutions == 0) {
+                    // Already found by the plain pass
+                    continue;
+                }
+                int rank = dictionary.rank(text, i, j - i + 1, hash);
+                if (rank > 0) {
+                    double guesses = Math.log10(rank) + uppercaseVariations(s.chars, i, j);
+                    if (l33t) {
+                        guesses += substitutions * Math.log10(2);
+                    }
+                    s.addMatch(i, j, guesses, n);
+                }
+            }
+        }
+    }
+
+    /**
+     * log10 of the capitalisation variants an attacker tries for chars[i..j]
+     */
+    private static double uppercaseVariations(char[] chars, int i, int j) {
+        int upper = 0;
+        int lower = 0;
+        for (int k = i; k <= j; k++) {
+            char c = chars[k];
+            if (c >= 'A' && c <= 'Z') {
+                upper++;
+            } else if (c >= 'a' && c <= 'z') {
+                lower++;
+            }
+        }
+        if (upper == 0) {
+            return 0;
+        }
+        boolean firstUpper = chars[i] >= 'A' && chars[i] <= 'Z';
+        boolean lastUpper = chars[j] >= 'A' && chars[j] <= 'Z';
+        if (lower == 0 || (upper == 1 && (firstUpper || lastUpper))) {
+            return Math.log10(2);
+        }
+        double variations = 0;
+        for (int k = 1; k <= Math.min(upper, lower); k++) {
+            variations += binomial(upper + lower, k);
+        }
+        return Math.log10(variations);
+    }
+
+    private static void sequenceMatches(Scratch s, int n) {
+        char[] chars = s.chars;
+        int start = 0;
+        while (start < n - 2) {
+            int delta = chars[start + 1] - chars[start];
+            int end = start + 1;
+            while (end + 1 < n && chars[end + 1] - chars[end] == delta) {
+                end++;
+            }
+            if (end - start >= 2 && delta != 0 && Math.abs(delta) <= 5) {
+                char first = chars[start];
+                double base;
+                if ("aAzZ019".indexOf(first) >= 0) {
+                    base = 4;
+                } else if (first >= '0' && first <= '9') {
+                    base = 10;
+                } else {
+                    base = 26;
+                }
+                if (delta < 0) {
+                    base *= 2;
+                }
+                s.addMatch(start, end, Math.log10(base * (end - start + 1)), n);
+            }
+            start = end;
+        }
+    }
+
+    private void repeatMatches(Scratch s, int n) {
+        char[] chars = s.chars;
+        for (int i = 0; i < n; i++) {
+            for (int period = 1; period <= (n - i) / 2; period++) {
+                int repeats = 1;
+                while (i + (repeats + 1) * period <= n && sameBlock(chars, i, i + repeats * period, period)) {
+                    repeats++;
+                }
+                if (repeats >= 3 || (repeats == 2 && period > 1)) {
+                    double base = blockGuesses(s, i, period);
+                    s.addMatch(i, i + repeats * period - 1, base + Math.log10(repeats), n);
+                    // Larger periods only find the same repeat again
+                    break;
+                }
+            }
+        }
+    }
+
+    private static boolean sameBlock(char[] chars, int first, int second, int length) {
+        for (int k = 0; k < length; k++) {
+            if (chars[first + k] != chars[second + k]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * log10 of the guesses for one repeated block: a dictionary word or brute force
+     */
+    private double blockGuesses(Scratch s, int start, int length) {
+        if (length == 1) {
+            return Math.log10(cardinality(s.chars[start]));
+        }
+        long hash = FrequencyTable.HASH_SEED;
+        for (int k = start; k < start + length; k++) {
+            hash = FrequencyTable.hash(hash, s.lower[k]);
+        }
+        int rank = dictionary().rank(s.lower, start, length, hash);
+        return rank > 0 ? Math.min(length, Math.log10(rank)) : length;
+    }
+
+    private static int cardinality(char c) {
+        if (c >= '0' && c <= '9') {
+            return 10;
+        } else if ((c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z')) {
+            return 26;
+        } else if (c < 128) {
+            return 33;
+        }
+        return 100;
+    }
+
+    private static void dateMatches(Scratch s, int n) {
+        char[] chars = s.chars;
+        for (int i = 0; i < n; i++) {
+            if (!isDigit(chars[i])) {
+                continue;
+            }
+            // Digits only: 4 to 8 of them
+            int digits = 0;
+            while (i + digits < n && digits < 8 && isDigit(chars[i + digits])) {
+                digits++;
+                if (digits >= 4) {
+                    int year = bestDateYear(chars, i, digits);
+                    if (year > 0) {
+                        s.addMatch(i, i + digits - 1, Math.log10(365.0 * yearSpace(year)), n);
+                    } else if (digits == 4) {
+                        int alone = number(chars, i, 4);
+                        if (alone >= 1900 && alone <= 2099) {
+                            s.addMatch(i, i + 3, Math.log10(yearSpace(alone)), n);
+                        }
+                    }
+                }
+            }
+            // Three digit groups joined by the same separator, e.g. 31.12.1999
+            separatedDate(s, n, i);
+        }
+    }
+
+    private static void separatedDate(Scratch s, int n, int i) {
+        char[] chars = s.chars;
+        int[] groups = s.dateGroups;
+        int position = i;
+        char separator = 0;
+        for (int group = 0; group < 3; group++) {
+            int digits = 0;
+            while (position + digits < n && digits < 4 && isDigit(chars[position + digits])) {
+                digits++;
+            }
+            if (digits == 0 || (group == 1 && digits > 2)) {
+                return;
+            }
+            groups[group * 2] = number(chars, position, digits);
+            groups[group * 2 + 1] = digits;
+            position += digits;
+            if (group < 2) {
+                if (position >= n || " /\\_.-".indexOf(chars[position]) < 0
+                        || (separator != 0 && chars[position] != separator)) {
+                    return;
+                }
+                separator = chars[position];
+                position++;
+            }
+        }
+        int year = 0;
+        if (groups[5] >= 2 && groups[1] <= 2) {
+            year = validDate(groups[0], groups[2], groups[4], groups[5]);
+        }
+        if (year == 0 && groups[1] >= 2 && groups[5] <= 2) {
+            year = validDate(groups[4], groups[2], groups[0], groups[1]);
+        }
+        if (year > 0) {
+            s.addMatch(i, position - 1, Math.log10(365.0 * yearSpace(year) * 4), n);
+        }
+    }
+
+    /**
+     * Tries every split of chars[i, i + digits) into day, month and year
+     *
+     * @return The year of the split closest to the reference year, 0 if none is a date
+     */
+    private static int bestDateYear(char[] chars, int i, int digits) {
+        int best = 0;
+        for (int yearDigits = 2; yearDigits <= 4; yearDigits += 2) {
+            int rest = digits - yearDigits;
+            if (rest < 2 || rest > 4) {
+                continue;
+            }
+            for (int firstDigits = 1; firstDigits <= 2; firstDigits++) {
+                int secondDigits = rest - firstDigits;
+                if (secondDigits < 1 || secondDigits > 2) {
+                    continue;
+                }
+                // Year last: d m y or m d y
+                int a = number(chars, i, firstDigits);
+                int b = number(chars, i + firstDigits, secondDigits);
+                int y = number(chars, i + rest, yearDigits);
+                best = closer(best, validDate(a, b, y, yearDigits));
+                // Year first: y m d or y d m
+                y = number(chars, i, yearDigits);
+                a = number(chars, i + yearDigits, firstDigits);
+                b = number(chars, i + yearDigits + firstDigits, secondDigits);
+                best = closer(best, validDate(a, b, y, yearDigits));
+            }
+        }
+        return best;
+    }
+
+    /**
+     * @return The full year if the numbers form a day and month in either order plus a year, else 0
+     */
+    private static int validDate(int first, int second, int year, int yearDigits) {
+        boolean dayMonth = first >= 1 && first <= 31 && second >= 1 && second <= 12;
+        boolean monthDay = first >= 1 && first <= 12 && second >= 1 && second <= 31;
+        if (!dayMonth && !monthDay) {
+            return 0;
+        }
+        if (yearDigits <= 2) {
+            return year > 50 ? 1900 + year : 2000 + year;
+        }
+        return year >= 1000 && year <= 2050 ? year : 0;
+    }
+
+    private static int closer(int current, int candidate) {
+        if (candidate == 0) {
+            return current;
+        }
+        if (current == 0 || yearSpace(candidate) < yearSpace(current)) {
+            return candidate;
+        }
+        return current;
+    }
+
+    private static int yearSpace(int year) {
+        return Math.max(Math.abs(year - REFERENCE_YEAR), MIN_YEAR_SPACE);
+    }
+
+    private static boolean isDigit(char c) {
+        return c >= '0' && c <= '9';
+    }
+
+    private static int number(char[] chars, int start, int digits) {
+        int value = 0;
+        for (int k = start; k < start + digits; k++) {
+            value = value * 10 + (chars[k] - '0');
+        }
+        return value;
+    }
+
+    private static void spatialMatches(Scratch s, int n, KeyboardGraph graph) {
+        char[] chars = s.chars;
+        int i = 0;
+        while (i < n - 2) {
+            int j = i;
+            int turns = 0;
+            int shifted = graph.isShifted(chars[i]) ? 1 : 0;
+            int lastDirection = -1;
+            while (j + 1 < n) {
+                int direction = graph.direction(chars[j], chars[j + 1]);
+                if (direction < 0) {
+                    break;
+                }
+                if (direction != lastDirection) {
+                    turns++;
+                    lastDirection = direction;
+                }
+                if (graph.isShifted(chars[j + 1])) {
+                    shifted++;
+                }
+                j++;
+            }
+            if (j - i >= 2) {
+                s.addMatch(i, j, graph.log10Guesses(j - i + 1, turns, shifted), n);
+            }
+            i = Math.max(i + 1, j);
+        }
+    }
+
+    // ------------------------------------------------------ optimal decomposition
+
+    /**
+     * Finds the decomposition into matches and brute-forced gaps with the fewest guesses
+     *
+     * Follows zxcvbn's most_guessable_match_sequence: for a sequence of l
+     * parts with guess product P the cost is l! * P + 10000^(l - 1), which
+     * stops the search from splitting a password into many cheap pieces.
+     * cost[k][l] holds the lowest cost of covering chars[0..k] with l parts;
+     * only the few part counts that survive pruning are visited.
+     *
+     * @return log10 of the minimum guess count
+     */
+    private static double minimumGuesses(Scratch s, int n) {
+        int stride = n + 1;
+        double[] product = s.product;
+        double[] cost = s.cost;
+        boolean[] endsInBruteForce = s.endsInBruteForce;
+        int[] lengths = s.lengths;
+        int[] lengthCount = s.lengthCount;
+        Arrays.fill(cost, 0, n * stride, Double.POSITIVE_INFINITY);
+        Arrays.fill(lengthCount, 0, n, 0);
+
+        for (int k = 0; k < n; k++) {
+            for (int m = s.headByEnd[k]; m >= 0; m = s.nextMatch[m]) {
+                int i = s.matchStart[m];
+                double guesses = s.matchGuesses[m];
+                if (i == 0) {
+                    update(s, stride, k, 1, guesses, false);
+                } else {
+                    int row = (i - 1) * stride;
+                    for (int index = 0; index < lengthCount[i - 1]; index++) {
+                        int l = lengths[row + index];
+                        update(s, stride, k, l + 1, product[row + l] + guesses, false);
+                    }
+                }
+            }
+
+            // Brute force over chars[0..k], or appended to a sequence that ends in a match
+            update(s, stride, k, 1, bruteForceGuesses(k + 1), true);
+            for (int i = 1; i <= k; i++) {
+                double guesses = bruteForceGuesses(k - i + 1);
+                int row = (i - 1) * stride;
+                for (int index = 0; index < lengthCount[i - 1]; index++) {
+                    int l = lengths[row + index];
+                    if (!endsInBruteForce[row + l]) {
+                        update(s, stride, k, l + 1, product[row + l] + guesses, true);
+                    }
+                }
+            }
+        }
+
+        int row = (n - 1) * stride;
+        double best = Double.POSITIVE_INFINITY;
+        for (int index = 0; index < lengthCount[n - 1]; index++) {
+            best = Math.min(best, cost[row + lengths[row + index]]);
+        }
+        return best;
+    }
+
+    private static void update(Scratch s, int stride, int k, int l, double log10Product, boolean bruteForce) {
+        int row = k * stride;
+        double cost = log10Sum(LOG10_FACTORIAL[l] + log10Product, LOG10_SEQUENCE_GROWTH * (l - 1));
+        // A sequence with no more parts that is at least as good makes this one pointless
+        for (int index = 0; index < s.lengthCount[k]; index++) {
+            int other = s.lengths[row + index];
+            if (other <= l && s.cost[row + other] <= cost) {
+                return;
+            }
+        }
+        if (s.cost[row + l] == Double.POSITIVE_INFINITY) {
+            s.lengths[row + s.lengthCount[k]++] = l;
+        }
+        s.cost[row + l] = cost;
+        s.product[row + l] = log10Product;
+        s.endsInBruteForce[row + l] = bruteForce;
+    }
+
+    private static double bruteForceGuesses(int length) {
+        return length == 1 ? LOG10_MIN_SINGLE_CHAR : length;
+    }
+
+    /**
+     * @return log10(10^a + 10^b) without leaving log space
+     */
+    private static double log10Sum(double a, double b) {
+        double high = Math.max(a, b);
+        double low = Math.min(a, b);
+        if (high - low > 16) {
+            // Below double precision
+            return high;
+        }
+        return high + Math.log10(1 + Math.pow(10, low - high));
+    }
+
+    private static double binomial(int n, int k) {
+        double result = 1;
+        for (int i = 1; i <= k; i++) {
+            result = result * (n - k + i) / i;
+        }
+        return result;
+    }
+
+    // ------------------------------------------------------------------ scratch
+
+    /**
+     * Pooled working memory, reused by later estimates on any thread
+     */
+    private static final class Scratch {
+        final char[] chars = new char[MAX_LENGTH];
+        final char[] lower = new char[MAX_LENGTH];
+        final char[] l33t = new char[MAX_LENGTH];
+        boolean hasL33t;
+
+        // Matches, chained into one list per end position
+        int[] matchStart = new int[256];
+        double[] matchGuesses = new double[256];
+        int[] nextMatch = new int[256];
+        final int[] headByEnd = new int[MAX_LENGTH];
+        int matchCount;
+
+        final int[] dateGroups = new int[6];
+
+        final double[] product = new double[MAX_LENGTH * (MAX_LENGTH + 1)];
+        final double[] cost = new double[MAX_LENGTH * (MAX_LENGTH + 1)];
+        final boolean[] endsInBruteForce = new boolean[MAX_LENGTH * (MAX_LENGTH + 1)];
+        /** Part counts with a finite cost at each end position, in insertion order */
+        final int[] lengths = new int[MAX_LENGTH * (MAX_LENGTH + 1)];
+        final int[] lengthCount = new int[MAX_LENGTH];
+
+        void load(CharSequence password, int n) {
+            hasL33t = false;
+            for (int i = 0; i < n; i++) {
+                char c = password.charAt(i);
+                chars[i] = c;
+                char lowered = (c >= 'A' && c <= 'Z') ? (char) (c + ('a' - 'A')) : c;
+                lower[i] = lowered;
+                char substitute = lowered < 128 ? L33T[lowered] : 0;
+                l33t[i] = substitute != 0 ? substitute : lowered;
+                hasL33t |= substitute != 0;
+            }
+            Arrays.fill(headByEnd, 0, n, -1);
+            matchCount = 0;
+        }
+
+        void addMatch(int start, int end, double log10Guesses, int n) {
+            if (end - start + 1 < n) {
+                double minimum = start == end ? LOG10_MIN_SUBMATCH_SINGLE_CHAR : LOG10_MIN_SUBMATCH;
+                log10Guesses = Math.max(log10Guesses, minimum);
+            }
+            if (matchCount == matchStart.length) {
+                matchStart = Arrays.copyOf(matchStart, matchCount * 2);
+                matchGuesses = Arrays.copyOf(matchGuesses, matchCount * 2);
+                nextMatch = Arrays.copyOf(nextMatch, matchCount * 2);
+            }
+            matchStart[matchCount] = start;
+            matchGuesses[matchCount] = log10Guesses;
+            nextMatch[matchCount] = headByEnd[end];
+            headByEnd[end] = matchCount;
+            matchCount++;
+        }
+
+        void clear(int n) {
+            Arrays.fill(chars, 0, n, '\0');
+            Arrays.fill(lower, 0, n, '\0');
+            Arrays.fill(l33t, 0, n, '\0');
+        }
+    }
+
+    // ------------------------------------------------------------------ keyboards
+
+    /**
+     * Adjacency of keys on a keyboard layout, for detecting keyboard walks
+     */
+    private static final class KeyboardGraph {
+        /** Key index of each ASCII character, -1 if not on this keyboard */
+        private final int[] keyOf = new int[128];
+        private final boolean[] shifted = new boolean[128];
+        /** neighbors[key * directions + d] is the key in direction d, or -1 */
+        private final int[] neighbors;
+        private final int directions;
+        private final double log10StartingPositions;
+        private final double averageDegree;
+
+        private KeyboardGraph(String[] rows, String[] shiftedRows, int[][] offsets) {
+            Arrays.fill(keyOf, -1);
+            int columns = 0;
+            for (String row : rows) {
+                columns = Math.max(columns, row.length());
+            }
+            int keys = rows.length * columns;
+            directions = offsets.length;
+            neighbors = new int[keys * directions];
+            Arrays.fill(neighbors, -1);
+
+            int characters = 0;
+            for (int r = 0; r < rows.length; r++) {
+                for (int c = 0; c < rows[r].length(); c++) {
+                    char plain = rows[r].charAt(c);
+                    if (plain == ' ') {
+                        continue;
+                    }
+                    keyOf[plain] = r * columns + c;
+                    characters++;
+                    if (shiftedRows != null && c < shiftedRows[r].length()) {
+                        char upper = shiftedRows[r].charAt(c);
+                        keyOf[upper] = r * columns + c;
+                        shifted[upper] = true;
+                        characters++;
+                    }
+                }
+            }
+
+            int edges = 0;
+            int present = 0;
+            for (int r = 0; r < rows.length; r++) {
+                for (int c = 0; c < rows[r].length(); c++) {
+                    if (rows[r].charAt(c) == ' ') {
+                        continue;
+                    }
+                    present++;
+                    for (int d = 0; d < directions; d++) {
+                        int nr = r + offsets[d][0];
+                        int nc = c + offsets[d][1];
+                        if (nr >= 0 && nr < rows.length && nc >= 0 && nc < rows[nr].length()
+                                && rows[nr].charAt(nc) != ' ') {
+                            neighbors[(r * columns + c) * directions + d] = nr * columns + nc;
+                            edges++;
+                        }
+                    }
+                }
+            }
+            log10StartingPositions = Math.log10(characters);
+            averageDegree = (double) edges / present;
+        }
+
+        /**
+         * Standard keyboard: each row is offset half a key from the one above
+         */
+        static KeyboardGraph slanted(String[] rows, String[] shiftedRows) {
+            return new KeyboardGraph(rows, shiftedRows,
+                new int[][] {{0, -1}, {-1, 0}, {-1, 1}, {0, 1}, {1, 0}, {1, -1}});
+        }
+
+        /**
+         * Grid keyboard such as a numeric keypad, with diagonal neighbours
+         */
+        static KeyboardGraph aligned(String[] rows) {
+            return new KeyboardGraph(rows, null,
+                new int[][] {{0, -1}, {-1, -1}, {-1, 0}, {-1, 1}, {0, 1}, {1, 1}, {1, 0}, {1, -1}});
+        }
+
+        /**
+         * @return Direction from the key of a to the key of b, -1 if they are not adjacent
+         */
+        int direction(char a, char b) {
+            if (a >= 128 || b >= 128 || keyOf[a] < 0 || keyOf[b] < 0) {
+                return -1;
+            }
+            int base = keyOf[a] * directions;
+            int target = keyOf[b];
+            for (int d = 0; d < directions; d++) {
+                if (neighbors[base + d] == target) {
+                    return d;
+                }
+            }
+            return -1;
+        }
+
+        boolean isShifted(char c) {
+            return c < 128 && shifted[c];
+        }
+
+        /**
+         * zxcvbn's spatial estimate: walks of up to this length with up to this many turns
+         */
+        double log10Guesses(int length, int turns, int shiftedCount) {
+            double guesses = 0;
+            for (int i = 2; i <= length; i++) {
+                int possibleTurns = Math.min(turns, i - 1);
+                for (int j = 1; j <= possibleTurns; j++) {
+                    guesses += binomial(i - 1, j - 1) * Math.pow(averageDegree, j);
+                }
+            }
+            double log10 = log10StartingPositions + Math.log10(guesses);
+            int unshifted = length - shiftedCount;
+            if (shiftedCount > 0) {
+                if (unshifted == 0) {
+                    log10 += Math.log10(2);
+                } else {
+                    double variations = 0;
+                    for (int k = 1; k <= Math.min(shiftedCount, unshifted); k++) {
+                        variations += binomial(shiftedCount + unshifted, k);
+                    }
+                    log10 += Math.log10(variations);
+                }
+            }
+            return log10;
+        }
+    }
+}
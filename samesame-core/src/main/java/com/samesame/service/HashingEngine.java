@@ -0,0 +1,323 @@
+package com.samesame.service;
+
+import java.security.DigestException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * High-throughput password hashing
+ * 
+ * Each call borrows a {@link MessageDigest} and encode buffer from a small
+ * pool, so it does no provider lookup and no charset lookup. The pool is not
+ * per thread, because the server runs every request on a new virtual thread. Characters are encoded
+ * to UTF-8 straight into the reusable buffer (unpaired surrogates become '?',
+ * exactly as {@link String#getBytes(java.nio.charset.Charset)} does), and hex
+ * output is produced from a lookup table. The raw variants write into a
+ * caller-supplied array and do not allocate at all.
+ * 
+ * Instances are immutable and safe to share between threads.
+ */
+public final class HashingEngine {
+
+    /**
+     * Supported digest algorithms
+     */
+    public enum Algorithm {
+        SHA_1("SHA-1", 20),
+        SHA_256("SHA-256", 32),
+        SHA_512("SHA-512", 64),
+        SHA3_256("SHA3-256", 32);
+
+        private final String jcaName;
+        private final int digestLength;
+
+        Algorithm(String jcaName, int digestLength) {
+            this.jcaName = jcaName;
+            this.digestLength = digestLength;
+        }
+
+        /**
+         * @return Standard JCA algorithm name
+         */
+        public String jcaName() {
+            return jcaName;
+        }
+
+        /**
+         * @return Digest length in bytes
+         */
+        public int digestLength() {
+            return digestLength;
+        }
+
+        /**
+         * Looks up an algorithm by its JCA name, for example "SHA-256"
+         */
+        public static Algorithm forName(String name) {
+            for (Algorithm algorithm : values()) {
+                if (algorithm.jcaName.equalsIgnoreCase(name)) {
+                    return algorithm;
+                }
+            }
+            throw new IllegalArgumentException("Unsupported hash algorithm: " + name);
+        }
+    }
+
+    private static final char[] HEX_DIGITS = "0123456789abcdef".toCharArray();
+
+    private final Algorithm algorithm;
+    private final ScratchPool<State> states;
+
+    /**
+     * @param algorithm Digest algorithm used by every call
+     */
+    public HashingEngine(Algorithm algorithm) {
+        this.algorithm = algorithm;
+        this.states = new ScratchPool<>(() -> new State(algorithm));
+        // Fail fast if the platform lacks the algorithm
+        states.release(states.acquire());
+    }
+
+    /**
+     * @return Algorithm used by this engine
+     */
+    public Algorithm algorithm() {
+        return algorithm;
+    }
+
+    /**
+     * Hashes the UTF-8 encoding of the input into a caller-supplied array
+     * 
+     * @param input Characters to hash
+     * @param out Destination array
+     * @param offset Index in out of the first digest byte
+     * @return Number of digest bytes written
+     */
+    public int hash(CharSequence input, byte[] out, int offset) {
+        State s = states.acquire();
+        try {
+            int length = s.encode(input);
+            return s.digest(length, out, offset);
+        } finally {
+            states.release(s);
+        }
+    }
+
+    /**
+     * Hashes the UTF-8 encoding of part of a character array into a caller-supplied array
+     * 
+     * @return Number of digest bytes written
+     */
+    public int hash(char[] chars, int charOffset, int charLength, byte[] out, int offset) {
+        State s = states.acquire();
+        try {
+            int length = s.encode(chars, charOffset, charLength);
+            return s.digest(length, out, offset);
+        } finally {
+            states.release(s);
+        }
+    }
+
+    /**
+     * Hashes raw bytes into a caller-supplied array
+     * 
+     * @return Number of digest bytes written
+     */
+    public int hash(byte[] input, int inputOffset, int inputLength, byte[] out, int offset) {
+        State s = states.acquire();
+        try {
+            s.digest.update(input, inputOffset, inputLength);
+            return s.digest(0, out, offset);
+        } finally {
+            states.release(s);
+        }
+    }
+
+    /**
+     * @return Raw digest of the UTF-8 encoding of the input
+     */
+    public byte[] hash(CharSequence input) {
+        byte[] out = new byte[algorithm.digestLength];
+        hash(input, out, 0);
+        return out;
+    }
+
+    /**
+     * @return Lowercase hex digest of the UTF-8 encoding of the input
+     */
+    public String hashHex(CharSequence input) {
+        State s = states.acquire();
+        try {
+            int length = s.encode(input);
+            s.digest(length, s.digestBytes, 0);
+            return toHex(s.digestBytes, s.hexChars);
+        } finally {
+            states.release(s);
+        }
+    }
+
+    /**
+     * @return Lowercase hex digest of raw bytes
+     */
+    public String hashHex(byte[] input, int inputOffset, int inputLength) {
+        State s = states.acquire();
+        try {
+            s.digest.update(input, inputOffset, inputLength);
+            s.digest(0, s.digestBytes, 0);
+            return toHex(s.digestBytes, s.hexChars);
+        } finally {
+            states.release(s);
+        }
+    }
+
+    /**
+     * Hashes many inputs in one call
+     * 
+     * @param inputs Characters to hash
+     * @return Raw digests of all inputs, concatenated in input order
+     */
+    public byte[] hashAll(List<? extends CharSequence> inputs) {
+        State s = states.acquire();
+        try {
+            int digestLength = algorithm.digestLength;
+            byte[] out = new byte[inputs.size() * digestLength];
+            for (int i = 0; i < inputs.size(); i++) {
+                int length = s.encode(inputs.get(i));
+                s.digest(length, out, i * digestLength);
+            }
+            return out;
+        } finally {
+            states.release(s);
+        }
+    }
+
+    /**
+     * Hashes many inputs in one call
+     * 
+     * @param inputs Characters to hash
+     * @return Lowercase hex digests in input order
+     */
+    public String[] hashHexAll(List<? extends CharSequence> inputs) {
+        State s = states.acquire();
+        try {
+            String[] out = new String[inputs.size()];
+            for (int i = 0; i < out.length; i++) {
+                int length = s.encode(inputs.get(i));
+                s.digest(length, s.digestBytes, 0);
+                out[i] = toHex(s.digestBytes, s.hexChars);
+            }
+            return out;
+        } finally {
+            states.release(s);
+        }
+    }
+
+    private static String toHex(byte[] digest, char[] hex) {
+        for (int i = 0; i < digest.length; i++) {
+            hex[2 * i] = HEX_DIGITS[(digest[i] >> 4) & 0xf];
+            hex[2 * i + 1] = HEX_DIGITS[digest[i] & 0xf];
+        }
+        return new String(hex);
+    }
+
+    /**
+     * Pooled digest and scratch buffers
+     */
+    private static final class State {
+        final MessageDigest digest;
+        final byte[] digestBytes;
+        final char[] hexChars;
+        byte[] encoded = new byte[256];
+
+        State(Algorithm algorithm) {
+            try {
+                digest = MessageDigest.getInstance(algorithm.jcaName);
+            } catch (NoSuchAlgorithmException e) {
+                throw new IllegalStateException("Hash algorithm not available: " + algorithm.jcaName, e);
+            }
+            digestBytes = new byte[algorithm.digestLength];
+            hexChars = new char[algorithm.digestLength * 2];
+        }
+
+        /**
+         * Feeds the encoded bytes to the digest and writes the result
+         */
+        int digest(int encodedLength, byte[] out, int offset) {
+            try {
+                digest.update(encoded, 0, encodedLength);
+                return digest.digest(out, offset, digestBytes.length);
+            } catch (DigestException e) {
+                // The state goes back to the pool, so nothing may stay in the digest
+                digest.reset();
+                throw new IllegalArgumentException("Output array too small for digest", e);
+            } finally {
+                // The encoded password must not linger in the scratch buffer
+                Arrays.fill(encoded, 0, encodedLength, (byte) 0);
+            }
+        }
+
+        int encode(CharSequence input) {
+            int length = input.length();
+            ensureCapacity(length);
+            int position = 0;
+            for (int i = 0; i < length; i++) {
+                char c = input.charAt(i);
+                if (Character.isHighSurrogate(c) && i + 1 < length && Character.isLowSurrogate(input.charAt(i + 1))) {
+                    position = encodeCodePoint(Character.toCodePoint(c, input.charAt(++i)), position);
+                } else {
+                    position = encodeChar(c, position);
+                }
+            }
+            return position;
+        }
+
+        int encode(char[] chars, int offset, int length) {
+            ensureCapacity(length);
+            int position = 0;
+            int end = offset + length;
+            for (int i = offset; i < end; i++) {
+                char c = chars[i];
+                if (Character.isHighSurrogate(c) && i + 1 < end && Character.isLowSurrogate(chars[i + 1])) {
+                    position = encodeCodePoint(Character.toCodePoint(c, chars[++i]), position);
+                } else {
+                    position = encodeChar(c, position);
+                }
+            }
+            return position;
+        }
+
+        private void ensureCapacity(int chars) {
+            // At most three bytes per UTF-16 code unit
+            if (encoded.length < chars * 3) {
+                encoded = new byte[chars * 3];
+            }
+        }
+
+        private int encodeChar(char c, int position) {
+            if (c < 0x80) {
+                encoded[position++] = (byte) c;
+            } else if (c < 0x800) {
+                encoded[position++] = (byte) (0xc0 | (c >> 6));
+                encoded[position++] = (byte) (0x80 | (c & 0x3f));
+            } else if (Character.isSurrogate(c)) {
+                // Unpaired surrogate, replaced like String.getBytes does
+                encoded[position++] = (byte) '?';
+            } else {
+                encoded[position++] = (byte) (0xe0 | (c >> 12));
+                encoded[position++] = (byte) (0x80 | ((c >> 6) & 0x3f));
+                encoded[position++] = (byte) (0x80 | (c & 0x3f));
+            }
+            return position;
+        }
+
+        private int encodeCodePoint(int codePoint, int position) {
+            encoded[position++] = (byte) (0xf0 | (codePoint >> 18));
+            encoded[position++] = (byte) (0x80 | ((codePoint >> 12) & 0x3f));
+            encoded[position++] = (byte) (0x80 | ((codePoint >> 6) & 0x3f));
+            encoded[position++] = (byte) (0x80 | (codePoint & 0x3f));
+            return position;
+        }
+    }
+}
@@ -0,0 +1,269 @@
+package com.samesame.service;
+
+import java.util.Arrays;
+
+/**
+ * Stateful strength evaluator for text that is edited one keystroke at a time
+ *
+ * Instead of rescanning the whole password after every change, the evaluator
+ * keeps counts of each character class, of positions that end an over-long
+ * run and of positions where a weak pattern ends. Whether a position ends a
+ * run or a pattern depends only on the few characters before it (at most
+ * the policy's longest run + 1 and the longest pattern length), so
+ * an edit only rescans a window around the edited range. Every edit costs
+ * O(edit + longest pattern) evaluation work, plus the array copy that moves
+ * the characters after the edit.
+ *
+ * {@link #criteria()} always equals {@link StrengthEvaluator#evaluate(CharSequence)}
+ * of the current text, under the policy the evaluator was created with.
+ * The characters live in a private array that is zeroed when text is
+ * removed; {@link #toString()} copies them into a String and should be
+ * avoided for real passwords.
+ *
+ * Instances are not thread-safe.
+ */
+public final class IncrementalStrengthEvaluator implements CharSequence {
+
+    private static final int[] CLASS_BITS = {
+        StrengthEvaluator.LOWERCASE, StrengthEvaluator.UPPERCASE,
+        StrengthEvaluator.DIGIT, StrengthEvaluator.SPECIAL
+    };
+
+    private final StrengthEvaluator evaluator;
+    private final PatternAutomaton weakPatterns;
+    private final int maxRun;
+    private final int patternWindow;
+    /** Characters per class criteria bit, indexed by the bit's position */
+    private final int[] classCounts = new int[Integer.SIZE];
+    private char[] chars = new char[32];
+    private int length;
+    private int repeats;
+    private int matches;
+
+    /**
+     * Creates an evaluator for the built-in policy
+     */
+    public IncrementalStrengthEvaluator() {
+        this(new StrengthEvaluator());
+    }
+
+    /**
+     * Creates an evaluator for the built-in policy with the given compiled weak patterns
+     */
+    public IncrementalStrengthEvaluator(PatternAutomaton weakPatterns) {
+        this(new StrengthEvaluator(weakPatterns));
+    }
+
+    /**
+     * Creates an evaluator applying the policy of a compiled evaluator
+     */
+    public IncrementalStrengthEvaluator(StrengthEvaluator evaluator) {
+        this.evaluator = evaluator;
+        this.weakPatterns = evaluator.weakPatterns();
+        this.maxRun = evaluator.maxRun();
+        this.patternWindow = Math.max(1, weakPatterns.maxPatternLength());
+    }
+
+    /**
+     * @return Compiled policy the criteria are evaluated under; resolve verdicts through it
+     */
+    public StrengthEvaluator evaluator() {
+        return evaluator;
+    }
+
+    /**
+     * Appends one character
+     */
+    public void append(char c) {
+        retire(length, length);
+        open(length, length, 1);
+        chars[length - 1] = c;
+        admit(length - 1, 1);
+    }
+
+    /**
+     * Appends characters
+     */
+    public void append(CharSequence text) {
+        replace(length, length, text, 0, text.length());
+    }
+
+    /**
+     * Removes the character at the given index
+     */
+    public void deleteAt(int index) {
+        delete(index, index + 1);
+    }
+
+    /**
+     * Removes the characters in [start, end)
+     */
+    public void delete(int start, int end) {
+        replace(start, end, "", 0, 0);
+    }
+
+    /**
+     * Replaces the characters in [start, end) with the given text
+     */
+    public void replace(int start, int end, CharSequence text) {
+        replace(start, end, text, 0, text.length());
+    }
+
+    /**
+     * Replaces the characters in [start, end) with text[textStart, textEnd)
+     */
+    public void replace(int start, int end, CharSequence text, int textStart, int textEnd) {
+        if (start < 0 || start > end || end > length) {
+            throw new IndexOutOfBoundsException("Edit [" + start + ", " + end + ") outside length " + length);
+        }
+        // Checked before any counter changes, so a bad call leaves the evaluator consistent
+        if (textStart < 0 || textStart > textEnd || textEnd > text.length()) {
+            throw new IndexOutOfBoundsException(
+                "Text [" + textStart + ", " + textEnd + ") outside length " + text.length());
+        }
+        int count = textEnd - textStart;
+        retire(start, end);
+        open(start, end, count);
+        for (int i = 0; i < count; i++) {
+            chars[start + i] = text.charAt(textStart + i);
+        }
+        admit(start, count);
+    }
+
+    /**
+     * Removes and zeroes all characters
+     */
+    public void clear() {
+        Arrays.fill(chars, 0, length, '\0');
+        Arrays.fill(classCounts, 0);
+        length = 0;
+        repeats = 0;
+        matches = 0;
+    }
+
+    /**
+     * @return Bit mask of the {@link StrengthEvaluator} criteria the current text satisfies
+     */
+    public int criteria() {
+        int criteria = evaluator.lengthCriteria(length);
+        for (int bit : CLASS_BITS) {
+            if (classCounts[Integer.numberOfTrailingZeros(bit)] > 0) {
+                criteria |= bit;
+            }
+        }
+        if (repeats == 0) {
+            criteria |= StrengthEvaluator.NO_REPEATING;
+        }
+        if (matches == 0) {
+            criteria |= StrengthEvaluator.NO_COMMON_PATTERN;
+        }
+        return criteria;
+    }
+
+    @Override
+    public int length() {
+        return length;
+    }
+
+    @Override
+    public char charAt(int index) {
+        if (index < 0 || index >= length) {
+            throw new IndexOutOfBoundsException(index);
+        }
+        return chars[index];
+    }
+
+    @Override
+    public CharSequence subSequence(int start, int end) {
+        return new String(chars, start, end - start);
+    }
+
+    @Override
+    public String toString() {
+        return new String(chars, 0, length);
+    }
+
+    /**
+     * Removes the contributions of the characters in [start, end) and of the
+     * positions after them whose window reaches back into the range
+     */
+    private void retire(int start, int end) {
+        for (int i = start; i < end; i++) {
+            countClass(chars[i], -1);
+        }
+        repeats -= countRepeats(start, end + maxRun);
+        matches -= countMatches(start, end + patternWindow - 1);
+    }
+
+    /**
+     * Adds the contributions of the count characters now at start and of the
+     * positions after them whose window reaches back into them
+     */
+    private void admit(int start, int count) {
+        for (int i = start; i < start + count; i++) {
+            countClass(chars[i], 1);
+        }
+        repeats += countRepeats(start, start + count + maxRun);
+        matches += countMatches(start, start + count + patternWindow - 1);
+    }
+
+    /**
+     * Makes [start, end) exactly count characters long, moving the tail
+     */
+    private void open(int start, int end, int count) {
+        int newLength = length - (end - start) + count;
+        if (newLength > chars.length) {
+            char[] grown = Arrays.copyOf(chars, Math.max(newLength, chars.length * 2));
+            Arrays.fill(chars, '\0');
+            chars = grown;
+        }
+        System.arraycopy(chars, end, chars, start + count, length - end);
+        if (newLength < length) {
+            Arrays.fill(chars, newLength, length, '\0');
+        }
+        length = newLength;
+    }
+
+    private void countClass(char c, int delta) {
+        int bit = evaluator.characterClass(c);
+        if (bit != 0) {
+            classCounts[Integer.numberOfTrailingZeros(bit)] += delta;
+        }
+    }
+
+    /**
+     * Counts positions in [from, to) that end a run longer than maxRun
+     */
+    private int countRepeats(int from, int to) {
+        to = Math.min(to, length);
+        int scanStart = Math.max(0, from - maxRun);
+        int count = 0;
+        int run = 0;
+        for (int i = scanStart; i < to; i++) {
+            run = (i > scanStart && chars[i] == chars[i - 1]) ? run + 1 : 1;
+            if (i >= from && run > maxRun) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Counts positions in [from, to) where a weak pattern ends
+     * The automaton state at a position depends only on the last
+     * patternWindow characters, so the scan starts that far back
+     */
+    private int countMatches(int from, int to) {
+        to = Math.min(to, length);
+        int scanStart = Math.max(0, from - patternWindow + 1);
+        int count = 0;
+        int state = PatternAutomaton.START;
+        for (int i = scanStart; i < to; i++) {
+            state = weakPatterns.next(state, chars[i]);
+            if (i >= from && weakPatterns.isMatch(state)) {
+                count++;
+            }
+        }
+        return count;
+    }
+}
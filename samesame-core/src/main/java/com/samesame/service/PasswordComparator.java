@@ -0,0 +1,638 @@
+package com.samesame.service;
+
+import com.samesame.metrics.CompareEvent;
+import com.samesame.metrics.ComparatorMetrics;
+import com.samesame.metrics.FlightRecording;
+import com.samesame.metrics.HashEvent;
+import com.samesame.metrics.StrengthEvent;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.ToLongFunction;
+
+/**
+ * Service class for secure password comparison and strength evaluation
+ */
+public class PasswordComparator {
+
+    private volatile StrengthEvaluator strengthEvaluator = new StrengthEvaluator();
+    private volatile BreachIndex breachIndex;
+    private volatile BlocklistFilter blocklist;
+    private volatile PasswordHasher passwordHasher;
+    private volatile ComparatorMetrics metrics;
+    private volatile EvaluationCache evaluationCache;
+    
+    // Held in fields so a cached call does not allocate a function per lookup
+    private final ToLongFunction<CharSequence> guessBits = this::guessBits;
+    private final ToLongFunction<CharSequence> breachLookup = this::breachLookup;
+
+    /**
+     * Securely compares two passwords using constant-time comparison
+     * to prevent timing attacks
+     * 
+     * @param password1 First password to compare
+     * @param password2 Second password to compare
+     * @return true if passwords match exactly, false otherwise
+     */
+    public boolean comparePasswords(String password1, String password2) {
+        return comparePasswords((CharSequence) password1, (CharSequence) password2);
+    }
+
+    /**
+     * Securely compares two character sequences using constant-time comparison
+     * The characters are read in place, so no copies of the secrets are made
+     * and nothing is left behind that would need clearing
+     * 
+     * @param password1 First password to compare
+     * @param password2 Second password to compare
+     * @return true if passwords match exactly, false otherwise
+     */
+    public boolean comparePasswords(CharSequence password1, CharSequence password2) {
+        ComparatorMetrics metrics = this.metrics;
+        long start = metrics == null ? 0 : metrics.start();
+        CompareEvent event = FlightRecording.beginCompare();
+        
+        boolean match = password1 != null && password2 != null && constantTimeEquals(password1, password2);
+        return recordComparison(metrics, start, event, password1 == null ? 0 : password1.length(), match);
+    }
+
+    /**
+     * Securely compares two character arrays using constant-time comparison
+     * The arrays are neither copied nor modified; clearing them remains
+     * the responsibility of the caller
+     * 
+     * @param password1 First password to compare
+     * @param password2 Second password to compare
+     * @return true if passwords match exactly, false otherwise
+     */
+    public boolean compareChars(char[] password1, char[] password2) {
+        ComparatorMetrics metrics = this.metrics;
+        long start = metrics == null ? 0 : metrics.start();
+        CompareEvent event = FlightRecording.beginCompare();
+        
+        boolean match = password1 != null && password2 != null && constantTimeEquals(password1, password2);
+        return recordComparison(metrics, start, event, password1 == null ? 0 : password1.length, match);
+    }
+
+    /**
+     * Securely compares two encoded secrets using constant-time comparison
+     * Both arrays must use the same encoding (for example UTF-8)
+     * 
+     * @param secret1 First secret to compare
+     * @param secret2 Second secret to compare
+     * @return true if the secrets match byte for byte, false otherwise
+     */
+    public boolean compareBytes(byte[] secret1, byte[] secret2) {
+        ComparatorMetrics metrics = this.metrics;
+        long start = metrics == null ? 0 : metrics.start();
+        CompareEvent event = FlightRecording.beginCompare();
+        
+        boolean match = secret1 != null && secret2 != null && constantTimeEquals(secret1, secret2);
+        return recordComparison(metrics, start, event, secret1 == null ? 0 : secret1.length, match);
+    }
+
+    /**
+     * Securely compares the remaining bytes of two buffers using constant-time comparison
+     * Works for heap and direct buffers alike; positions and limits are left untouched
+     * 
+     * @param secret1 First secret to compare
+     * @param secret2 Second secret to compare
+     * @return true if the remaining bytes match exactly, false otherwise
+     */
+    public boolean compareBytes(ByteBuffer secret1, ByteBuffer secret2) {
+        ComparatorMetrics metrics = this.metrics;
+        long start = metrics == null ? 0 : metrics.start();
+        CompareEvent event = FlightRecording.beginCompare();
+        
+        boolean match = secret1 != null && secret2 != null && constantTimeEquals(secret1, secret2);
+        return recordComparison(metrics, start, event, secret1 == null ? 0 : secret1.remaining(), match);
+    }
+
+    /**
+     * Securely compares two off-heap secrets using constant-time comparison
+     * The characters are compared as raw UTF-16 bytes, a vector at a time
+     * where the platform allows, without copying them onto the heap
+     * 
+     * @param secret1 First secret to compare
+     * @param secret2 Second secret to compare
+     * @return true if both hold the same characters, false otherwise
+     * @throws IllegalStateException if either buffer is closed
+     */
+    public boolean compareSecrets(SecretBuffer secret1, SecretBuffer secret2) {
+        ComparatorMetrics metrics = this.metrics;
+        long start = metrics == null ? 0 : metrics.start();
+        CompareEvent event = FlightRecording.beginCompare();
+        
+        boolean match = secret1 != null && secret2 != null && ConstantTime.equals(secret1.bytes(), secret2.bytes());
+        return recordComparison(metrics, start, event, secret1 == null ? 0 : secret1.length(), match);
+    }
+
+    /**
+     * Tells how close two passwords are, for example after a comparison failed
+     * Opt-in and separate from the comparisons, which stay constant-time:
+     * the result reveals whether the entries were almost the same, though
+     * never where they differ. Use it only where the user typed both.
+     * 
+     * @param password1 First password
+     * @param password2 Second password
+     * @return Similarity class; DIFFERENT if either is null or longer than {@link EditDistance#MAX_LENGTH}
+     */
+    public EditDistance.Similarity classifySimilarity(CharSequence password1, CharSequence password2) {
+        if (password1 == null || password2 == null
+                || password1.length() > EditDistance.MAX_LENGTH || password2.length() > EditDistance.MAX_LENGTH) {
+            return EditDistance.Similarity.DIFFERENT;
+        }
+        return EditDistance.classify(password1, password2);
+    }
+
+    /**
+     * Counts a comparison when metrics are enabled and reports it to Flight Recorder
+     * 
+     * @return The comparison result, unchanged
+     */
+    private static boolean recordComparison(ComparatorMetrics metrics, long start,
+                                            CompareEvent event, int length, boolean match) {
+        if (event != null) {
+            event.finish(length, match ? "match" : "mismatch");
+        }
+        if (metrics != null) {
+            metrics.record(match
+                ? ComparatorMetrics.Outcome.COMPARE_MATCH
+                : ComparatorMetrics.Outcome.COMPARE_MISMATCH, start);
+        }
+        return match;
+    }
+
+    /**
+     * Performs constant-time comparison of two character arrays
+     * This prevents timing attacks by ensuring the comparison always
+     * takes the same amount of time regardless of where differences occur
+     */
+    private boolean constantTimeEquals(char[] a, char[] b) {
+        if (a.length != b.length) {
+            return false;
+        }
+        
+        int result = 0;
+        for (int i = 0; i < a.length; i++) {
+            result |= a[i] ^ b[i];
+        }
+        
+        return result == 0;
+    }
+
+    /**
+     * Performs constant-time comparison of two character sequences
+     */
+    private boolean constantTimeEquals(CharSequence a, CharSequence b) {
+        int length = a.length();
+        if (length != b.length()) {
+            return false;
+        }
+        
+        int result = 0;
+        for (int i = 0; i < length; i++) {
+            result |= a.charAt(i) ^ b.charAt(i);
+        }
+        
+        return result == 0;
+    }
+
+    /**
+     * Performs constant-time comparison of two byte arrays
+     * Long secrets are compared a vector at a time where the platform allows
+     */
+    private boolean constantTimeEquals(byte[] a, byte[] b) {
+        return ConstantTime.equals(a, b);
+    }
+
+    /**
+     * Performs constant-time comparison of the remaining bytes of two buffers
+     * Uses absolute reads so the buffers' positions are not modified
+     */
+    private boolean constantTimeEquals(ByteBuffer a, ByteBuffer b) {
+        return ConstantTime.equals(a, b);
+    }
+
+    /**
+     * Evaluates the strength of a password based on various criteria
+     * 
+     * @param password The password to evaluate
+     * @return String representation of password strength
+     */
+    public String evaluatePasswordStrength(String password) {
+        return evaluatePasswordStrength((CharSequence) password);
+    }
+
+    /**
+     * Evaluates the strength of a password held in any character sequence,
+     * such as a {@link SecretBuffer}
+     * The characters are read in place, so no String copy is made
+     * 
+     * @param password The password to evaluate
+     * @return String representation of password strength
+     */
+    public String evaluatePasswordStrength(CharSequence password) {
+        StrengthEvaluator.Result result = evaluateStrength(password);
+        return password == null || password.length() == 0 ? "" : result.verdict().label();
+    }
+
+    /**
+     * Evaluates the strength of a password under the current {@link StrengthPolicy}
+     * The result is shared, so nothing is allocated per call
+     * 
+     * @param password The password to evaluate; null is treated as empty
+     * @return Score, verdict and failed rules
+     */
+    public StrengthEvaluator.Result evaluateStrength(CharSequence password) {
+        CharSequence text = password == null ? "" : password;
+        ComparatorMetrics metrics = this.metrics;
+        long start = metrics == null ? 0 : metrics.start();
+        StrengthEvent event = FlightRecording.beginStrength();
+        
+        // One read of the evaluator, so a concurrent policy swap never mixes two policies
+        StrengthEvaluator evaluator = strengthEvaluator;
+        // Common passwords are among the first guesses of any attacker
+        boolean blocklisted = text.length() > 0 && isBlocklisted(text);
+        // Not cached: the rules are cheaper than the keyed hash a cache lookup needs
+        StrengthEvaluator.Result result = evaluator.result(evaluator.evaluate(text), blocklisted);
+        String verdict = text.length() == 0 ? "" : result.verdict().label();
+        if (event != null) {
+            event.finish(text.length(), verdict);
+        }
+        if (metrics != null) {
+            metrics.record(ComparatorMetrics.Outcome.strength(verdict), start);
+        }
+        return result;
+    }
+
+    /**
+     * Creates an evaluator for text that is edited keystroke by keystroke
+     * It applies the current {@link StrengthPolicy}, and keeps it when the policy is replaced
+     */
+    public IncrementalStrengthEvaluator newIncrementalEvaluator() {
+        return new IncrementalStrengthEvaluator(strengthEvaluator);
+    }
+
+    /**
+     * Evaluates the strength of the text held by an incremental evaluator
+     * The verdict is the one {@link #evaluatePasswordStrength(CharSequence)} gives for the same text
+     * 
+     * @param password Incremental evaluator holding the password
+     * @return Strength rating: "Weak", "Medium", "Strong", "Very Strong", or "" if empty
+     */
+    public String evaluateIncrementalStrength(IncrementalStrengthEvaluator password) {
+        // Its criteria follow the policy it was created with, which may have been replaced since
+        return strengthVerdict(password.evaluator(), password, password.criteria());
+    }
+
+    /**
+     * Turns already-evaluated criteria into the verdict of {@link #evaluatePasswordStrength(CharSequence)}
+     * Lets callers evaluate the criteria on one thread and apply the blocklist on another.
+     * The criteria must come from the current policy; where it may be replaced in between,
+     * use {@link #strengthVerdict(StrengthEvaluator, CharSequence, int)}.
+     * 
+     * @param password The password the criteria were evaluated for
+     * @param criteria Bit mask of satisfied {@link StrengthEvaluator} criteria
+     * @return Strength rating: "Weak", "Medium", "Strong", "Very Strong", or "" if empty
+     */
+    public String strengthVerdict(CharSequence password, int criteria) {
+        return strengthVerdict(strengthEvaluator, password, criteria);
+    }
+
+    /**
+     * Turns criteria evaluated under a given compiled policy into a verdict under that same policy
+     * 
+     * @param evaluator Compiled policy the criteria were evaluated by
+     * @param password The password the criteria were evaluated for
+     * @param criteria Bit mask of satisfied {@link StrengthEvaluator} criteria
+     * @return Strength rating: "Weak", "Medium", "Strong", "Very Strong", or "" if empty
+     */
+    public String strengthVerdict(StrengthEvaluator evaluator, CharSequence password, int criteria) {
+        if (password == null || password.length() == 0) {
+            return "";
+        }
+        return strengthResult(evaluator, password, criteria).verdict().label();
+    }
+
+    /**
+     * Turns already-evaluated criteria into the result of {@link #evaluateStrength(CharSequence)},
+     * without instrumentation
+     * The criteria must come from the current policy, as for {@link #strengthVerdict(CharSequence, int)}.
+     * 
+     * @param password The password the criteria were evaluated for, checked against the blocklist
+     * @param criteria Bit mask of satisfied {@link StrengthEvaluator} criteria
+     * @return Score, verdict and failed rules under the current policy
+     */
+    public StrengthEvaluator.Result strengthResult(CharSequence password, int criteria) {
+        return strengthResult(strengthEvaluator, password, criteria);
+    }
+
+    /**
+     * Evaluates a password like {@link #evaluateStrength(CharSequence)}, without instrumentation
+     * The criteria and the result come from one read of the policy, so a concurrent swap never mixes two
+     * 
+     * @param password The password to evaluate, checked against the blocklist; null is treated as empty
+     * @return Score, verdict and failed rules under the current policy
+     */
+    public StrengthEvaluator.Result strengthResult(CharSequence password) {
+        CharSequence text = password == null ? "" : password;
+        StrengthEvaluator evaluator = strengthEvaluator;
+        return strengthResult(evaluator, text, evaluator.evaluate(text));
+    }
+
+    private StrengthEvaluator.Result strengthResult(StrengthEvaluator evaluator, CharSequence password,
+                                                    int criteria) {
+        boolean blocklisted = password != null && password.length() > 0 && isBlocklisted(password);
+        return evaluator.result(criteria, blocklisted);
+    }
+
+    /**
+     * Replaces the strength policy
+     * The policy is compiled first and then swapped in with a single write,
+     * so concurrent evaluations see either the old or the new policy in full
+     * 
+     * @param policy Policy to apply, or null for the built-in one
+     * @throws IllegalArgumentException if the policy cannot be compiled
+     */
+    public void setStrengthPolicy(StrengthPolicy policy) {
+        this.strengthEvaluator = (policy == null ? StrengthPolicy.defaults() : policy).compile();
+    }
+
+    /**
+     * @return The strength policy in effect
+     */
+    public StrengthPolicy getStrengthPolicy() {
+        return strengthEvaluator.policy();
+    }
+
+    /**
+     * Estimates how many guesses an attacker using common words, keyboard
+     * walks, sequences, repeats and dates would need for a password
+     * Complements the verdict of {@link #evaluatePasswordStrength(String)}
+     * 
+     * @param password The password to analyse
+     * @return Base-10 logarithm of the estimated guess count, 0 for null or empty input
+     * @see GuessEstimator#score(double)
+     */
+    public double estimateGuesses(CharSequence password) {
+        if (password == null) {
+            return 0;
+        }
+        EvaluationCache cache = evaluationCache;
+        if (cache == null || password.length() == 0) {
+            return GuessEstimator.standard().log10Guesses(password);
+        }
+        return Double.longBitsToDouble(cache.computeIfAbsent(EvaluationCache.Kind.GUESSES, password, guessBits));
+    }
+
+    private long guessBits(CharSequence password) {
+        return Double.doubleToRawLongBits(GuessEstimator.standard().log10Guesses(password));
+    }
+
+    /**
+     * Evaluates the strength criteria of a password without allocating
+     * 
+     * @param password The password to evaluate
+     * @return Bit mask of the satisfied {@link StrengthEvaluator} criteria
+     */
+    public int evaluateStrengthCriteria(CharSequence password) {
+        return strengthEvaluator.evaluate(password);
+    }
+
+    /**
+     * Checks a password against the configured common-password blocklist
+     * 
+     * @return true if a blocklist is configured and may contain the password
+     */
+    public boolean isBlocklisted(CharSequence password) {
+        BlocklistFilter filter = blocklist;
+        return filter != null && filter.mightContain(password);
+    }
+
+    /**
+     * Sets the common-password blocklist consulted by {@link #evaluatePasswordStrength(String)}
+     * Blocklisted passwords are always rated "Weak"
+     * 
+     * @param blocklist Blocklist filter, or null to disable the check
+     */
+    public void setBlocklist(BlocklistFilter blocklist) {
+        this.blocklist = blocklist;
+    }
+
+    /**
+     * Sets the offline breach corpus used by {@link #isBreached(String)}
+     * 
+     * @param breachIndex Mapped index, or null to disable breach checks
+     */
+    public void setBreachIndex(BreachIndex breachIndex) {
+        this.breachIndex = breachIndex;
+        invalidateCache();
+    }
+
+    /**
+     * @return true if a breach corpus is configured
+     */
+    public boolean hasBreachIndex() {
+        return breachIndex != null;
+    }
+
+    /**
+     * Checks whether a password appears in the configured breach corpus
+     * The lookup is local; the password never leaves the process
+     * 
+     * @param password The password to look up
+     * @return true if the password's digest is in the breach index
+     * @throws IllegalStateException if no breach index is configured
+     */
+    public boolean isBreached(String password) {
+        return isBreached((CharSequence) password);
+    }
+
+    /**
+     * Checks whether a password held in any character sequence, such as a
+     * {@link SecretBuffer}, appears in the configured breach corpus
+     * 
+     * @param password The password to look up
+     * @return true if the password's digest is in the breach index
+     * @throws IllegalStateException if no breach index is configured
+     */
+    public boolean isBreached(CharSequence password) {
+        BreachIndex index = breachIndex;
+        if (index == null) {
+            throw new IllegalStateException("No breach index configured");
+        }
+        if (password == null || password.length() == 0) {
+            return false;
+        }
+        
+        EvaluationCache cache = evaluationCache;
+        if (cache == null) {
+            return index.containsPassword(password);
+        }
+        return cache.computeIfAbsent(EvaluationCache.Kind.BREACHED, password, breachLookup) != 0;
+    }
+
+    private long breachLookup(CharSequence password) {
+        BreachIndex index = breachIndex;
+        return index != null && index.containsPassword(password) ? 1 : 0;
+    }
+
+    /**
+     * Enables call counting and latency sampling for comparisons, strength
+     * evaluations and hashing
+     * 
+     * @param metrics Metrics to record into, or null to disable instrumentation
+     */
+    public void setMetrics(ComparatorMetrics metrics) {
+        this.metrics = metrics;
+    }
+
+    /**
+     * Caches guess estimates and breach lookups of repeated passwords under
+     * keyed hashes of the passwords
+     * The cache is cleared whenever the breach index changes
+     * 
+     * @param evaluationCache Cache to use, or null to evaluate every call
+     */
+    public void setEvaluationCache(EvaluationCache evaluationCache) {
+        this.evaluationCache = evaluationCache;
+    }
+
+    /**
+     * @return The configured evaluation cache, or null
+     */
+    public EvaluationCache getEvaluationCache() {
+        return evaluationCache;
+    }
+
+    private void invalidateCache() {
+        EvaluationCache cache = evaluationCache;
+        if (cache != null) {
+            cache.clear();
+        }
+    }
+
+    /**
+     * Sets the hasher used for stored-hash verification
+     * 
+     * @param passwordHasher Calibrated hasher, or null to disable verification
+     */
+    public void setPasswordHasher(PasswordHasher passwordHasher) {
+        this.passwordHasher = passwordHasher;
+    }
+
+    /**
+     * Verifies a candidate password against a stored salted hash on the calling thread
+     * The KDF runs outside the hasher's bounded executor, so use this only where the
+     * caller already limits concurrency, such as a single interactive user; services
+     * should call {@link #verifyStoredHashAsync(char[], String)}
+     * 
+     * @param candidate The password entered by the user; not modified
+     * @param storedHash Hash previously produced by {@link PasswordHasher#hash(char[])}
+     * @return Whether it matched, and whether the stored hash should be upgraded
+     * @throws IllegalStateException if no password hasher is configured
+     * @throws IllegalArgumentException if the stored hash is malformed
+     */
+    public PasswordHasher.Verification verifyStoredHash(char[] candidate, String storedHash) {
+        PasswordHasher hasher = passwordHasher;
+        if (hasher == null) {
+            throw new IllegalStateException("No password hasher configured");
+        }
+        return hasher.verify(candidate, storedHash);
+    }
+
+    /**
+     * Verifies a candidate password on the hasher's bounded executor
+     * The candidate is copied, so the caller may clear its array as soon as this returns
+     * 
+     * @param candidate The password entered by the user; not modified
+     * @param storedHash Hash previously produced by {@link PasswordHasher#hash(char[])}
+     * @return Future completing with the verification; a malformed stored hash completes it exceptionally
+     * @throws IllegalStateException if no password hasher is configured
+     * @throws java.util.concurrent.RejectedExecutionException if every verification thread is busy and the queue is full
+     */
+    public CompletableFuture<PasswordHasher.Verification> verifyStoredHashAsync(char[] candidate, String storedHash) {
+        PasswordHasher hasher = passwordHasher;
+        if (hasher == null) {
+            throw new IllegalStateException("No password hasher configured");
+        }
+        return hasher.verifyAsync(candidate, storedHash);
+    }
+
+    /**
+     * Generates a secure hash of the password for additional security operations
+     * Note: This is not used for comparison but could be useful for future features
+     * 
+     * @return Lowercase hex SHA-256 digest of the UTF-8 encoded password
+     */
+    public String generateSecureHash(String password) {
+        return generateSecureHash((CharSequence) password);
+    }
+
+    /**
+     * Generates a secure hash of a password held in any character sequence,
+     * such as a {@link SecretBuffer}; the characters are read in place
+     * 
+     * @return Lowercase hex SHA-256 digest of the UTF-8 encoded password
+     */
+    public String generateSecureHash(CharSequence password) {
+        ComparatorMetrics metrics = this.metrics;
+        long start = metrics == null ? 0 : metrics.start();
+        HashEvent event = FlightRecording.beginHash();
+        String hash;
+        try {
+            hash = SecureHash.ENGINE.hashHex(password);
+        } catch (Exception e) {
+            throw new RuntimeException("Error generating secure hash", e);
+        }
+        finishHash(event, metrics, start, password.length(), HashingEngine.Algorithm.SHA_256);
+        return hash;
+    }
+
+    /**
+     * Hashes raw bytes, such as a request body, with the given algorithm
+     * Counted and recorded like {@link #generateSecureHash(CharSequence)}
+     * 
+     * @param input Array holding the bytes to hash
+     * @param offset Index of the first byte
+     * @param length Number of bytes
+     * @param algorithm Digest algorithm
+     * @return Lowercase hex digest of the bytes
+     */
+    public String generateSecureHash(byte[] input, int offset, int length, HashingEngine.Algorithm algorithm) {
+        ComparatorMetrics metrics = this.metrics;
+        long start = metrics == null ? 0 : metrics.start();
+        HashEvent event = FlightRecording.beginHash();
+        String hash = SecureHash.ENGINES[algorithm.ordinal()].hashHex(input, offset, length);
+        finishHash(event, metrics, start, length, algorithm);
+        return hash;
+    }
+
+    private static void finishHash(HashEvent event, ComparatorMetrics metrics, long start, int length,
+                                   HashingEngine.Algorithm algorithm) {
+        if (event != null) {
+            event.finish(length, algorithm.jcaName());
+        }
+        if (metrics != null) {
+            metrics.record(ComparatorMetrics.Outcome.HASH, start);
+        }
+    }
+
+    /**
+     * Holds the hashing engines, so the security providers are only loaded once something is hashed
+     */
+    private static final class SecureHash {
+        static final HashingEngine[] ENGINES = engines();
+        static final HashingEngine ENGINE = ENGINES[HashingEngine.Algorithm.SHA_256.ordinal()];
+
+        private static HashingEngine[] engines() {
+            HashingEngine.Algorithm[] algorithms = HashingEngine.Algorithm.values();
+            HashingEngine[] engines = new HashingEngine[algorithms.length];
+            for (int i = 0; i < algorithms.length; i++) {
+                engines[i] = new HashingEngine(algorithms[i]);
+            }
+            return engines;
+        }
+    }
+}
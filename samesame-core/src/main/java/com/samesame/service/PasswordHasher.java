@@ -0,0 +1,340 @@
+package com.samesame.service;
+
+import javax.crypto.SecretKeyFactory;
+import javax.crypto.spec.PBEKeySpec;
+import java.io.Closeable;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Salted password hashing and verification against stored hashes
+ *
+ * Hashes are derived with the JDK's PBKDF2 and stored as a self-describing,
+ * versioned string so other KDFs can be added without migrating old rows:
+ * <pre>
+ *   $pbkdf2-sha256$v=1$i=600000$&lt;salt&gt;$&lt;derived key&gt;
+ * </pre>
+ * where salt and key are unpadded standard Base64.
+ *
+ * The iteration count is a property of the hasher, usually chosen by
+ * {@link #calibrate(Scheme, Duration, double)} at startup so that one
+ * verification costs a fixed amount of time on this host. A stored hash
+ * produced with a weaker scheme or fewer iterations still verifies, but the
+ * result is {@link Verification#MATCH_NEEDS_REHASH} so the caller can store
+ * a fresh hash while it holds the plaintext.
+ *
+ * Asynchronous verifications run on a fixed number of threads with a
+ * bounded queue; when both are full the request is rejected rather than
+ * queued, so a burst of logins cannot take every core away from other work.
+ */
+public final class PasswordHasher implements Closeable {
+
+    /** Version of the stored-hash layout written by this class */
+    public static final int FORMAT_VERSION = 1;
+
+    /** Salt length in bytes for new hashes */
+    public static final int SALT_LENGTH = 16;
+
+    /** Calibration never goes below this many iterations, however slow the host */
+    public static final int MIN_ITERATIONS = 100_000;
+
+    private static final long CALIBRATION_PROBE_ITERATIONS = 20_000;
+    private static final int CALIBRATION_ROUNDS = 5;
+
+    /**
+     * Supported key derivation functions
+     */
+    public enum Scheme {
+        PBKDF2_SHA256("pbkdf2-sha256", "PBKDF2WithHmacSHA256", 32),
+        PBKDF2_SHA512("pbkdf2-sha512", "PBKDF2WithHmacSHA512", 64);
+
+        private final String id;
+        private final String jcaName;
+        private final int keyLength;
+
+        Scheme(String id, String jcaName, int keyLength) {
+            this.id = id;
+            this.jcaName = jcaName;
+            this.keyLength = keyLength;
+        }
+
+        /**
+         * @return Identifier used in the stored-hash string
+         */
+        public String id() {
+            return id;
+        }
+
+        /**
+         * @return Derived key length in bytes
+         */
+        public int keyLength() {
+            return keyLength;
+        }
+
+        static Scheme forId(String id) {
+            for (Scheme scheme : values()) {
+                if (scheme.id.equals(id)) {
+                    return scheme;
+                }
+            }
+            throw new IllegalArgumentException("Unsupported hash scheme: " + id);
+        }
+    }
+
+    /**
+     * Outcome of a verification
+     */
+    public enum Verification {
+        MISMATCH,
+        MATCH,
+        /** The password is correct but the stored hash is below the current cost */
+        MATCH_NEEDS_REHASH;
+
+        /**
+         * @return true if the candidate password was correct
+         */
+        public boolean matched() {
+            return this != MISMATCH;
+        }
+    }
+
+    private final Scheme scheme;
+    private final int iterations;
+    private final SecureRandom random = new SecureRandom();
+    private final ThreadPoolExecutor executor;
+
+    /**
+     * @param scheme KDF used for new hashes
+     * @param iterations Iteration count for new hashes and the rehash threshold
+     * @param threads Threads available to {@link #verifyAsync(char[], String)}
+     * @param queueCapacity Verifications allowed to wait for a thread before new ones are rejected
+     */
+    public PasswordHasher(Scheme scheme, int iterations, int threads, int queueCapacity) {
+        if (iterations < 1) {
+            throw new IllegalArgumentException("Iteration count must be positive");
+        }
+        this.scheme = scheme;
+        this.iterations = iterations;
+
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS,
+            new ArrayBlockingQueue<>(queueCapacity),
+            runnable -> {
+                Thread thread = new Thread(runnable, "samesame-kdf-" + threadNumber.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            },
+            new ThreadPoolExecutor.AbortPolicy());
+        // Fail fast if the platform lacks the KDF
+        derive(new char[] {'x'}, new byte[SALT_LENGTH], 1);
+    }
+
+    /**
+     * Measures this host and picks the iteration count that meets both targets
+     *
+     * @param scheme KDF to measure
+     * @param targetLatency Time one verification should take
+     * @param verificationsPerCore Verifications per second each core should sustain
+     * @return Iteration count, rounded down to a multiple of 1,000 and at least {@link #MIN_ITERATIONS}
+     * @throws IllegalArgumentException if the verification rate is not positive
+     */
+    public static int calibrate(Scheme scheme, Duration targetLatency, double verificationsPerCore) {
+        if (!(verificationsPerCore > 0)) {
+            throw new IllegalArgumentException("Verifications per core must be positive");
+        }
+        long budgetNanos = Math.min(targetLatency.toNanos(), (long) (1_000_000_000L / verificationsPerCore));
+
+        char[] password = "calibration".toCharArray();
+        byte[] salt = new byte[SALT_LENGTH];
+        long bestNanos = Long.MAX_VALUE;
+        // The first round warms up the JIT; the fastest round is the least disturbed one
+        for (int round = 0; round <= CALIBRATION_ROUNDS; round++) {
+            long startTime = System.nanoTime();
+            derive(scheme, password, salt, (int) CALIBRATION_PROBE_ITERATIONS);
+            long elapsed = System.nanoTime() - startTime;
+            if (round > 0) {
+                bestNanos = Math.min(bestNanos, elapsed);
+            }
+        }
+
+        long iterations = budgetNanos * CALIBRATION_PROBE_ITERATIONS / Math.max(1, bestNanos);
+        iterations = iterations / 1_000 * 1_000;
+        return (int) Math.max(MIN_ITERATIONS, Math.min(Integer.MAX_VALUE / 2, iterations));
+    }
+
+    /**
+     * @return KDF used for new hashes
+     */
+    public Scheme scheme() {
+        return scheme;
+    }
+
+    /**
+     * @return Iteration count used for new hashes
+     */
+    public int iterations() {
+        return iterations;
+    }
+
+    /**
+     * Hashes a password with a fresh random salt
+     *
+     * @return Stored-hash string
+     */
+    public String hash(char[] password) {
+        byte[] salt = new byte[SALT_LENGTH];
+        random.nextBytes(salt);
+        byte[] key = derive(password, salt, iterations);
+        try {
+            Base64.Encoder base64 = Base64.getEncoder().withoutPadding();
+            return "$" + scheme.id + "$v=" + FORMAT_VERSION + "$i=" + iterations
+                + "$" + base64.encodeToString(salt) + "$" + base64.encodeToString(key);
+        } finally {
+            Arrays.fill(key, (byte) 0);
+        }
+    }
+
+    /**
+     * Verifies a candidate password against a stored hash on the calling thread
+     *
+     * @param candidate Password to check; not modified
+     * @param storedHash Value previously produced by {@link #hash(char[])}
+     * @return Whether it matched, and whether the stored hash should be replaced
+     * @throws IllegalArgumentException if the stored hash is malformed or uses an unknown scheme
+     */
+    public Verification verify(char[] candidate, String storedHash) {
+        StoredHash stored = StoredHash.parse(storedHash);
+        byte[] key = derive(stored.scheme, candidate, stored.salt, stored.iterations);
+        try {
+            if (!MessageDigest.isEqual(key, stored.key)) {
+                return Verification.MISMATCH;
+            }
+            return needsRehash(stored) ? Verification.MATCH_NEEDS_REHASH : Verification.MATCH;
+        } finally {
+            Arrays.fill(key, (byte) 0);
+        }
+    }
+
+    /**
+     * Verifies on the bounded verification executor
+     * The candidate is copied, so the caller may clear its array as soon as this returns
+     *
+     * @throws RejectedExecutionException if every verification thread is busy and the queue is full
+     */
+    public CompletableFuture<Verification> verifyAsync(char[] candidate, String storedHash) {
+        char[] copy = candidate.clone();
+        try {
+            return CompletableFuture.supplyAsync(() -> {
+                try {
+                    return verify(copy, storedHash);
+                } finally {
+                    Arrays.fill(copy, '\0');
+                }
+            }, executor);
+        } catch (RejectedExecutionException e) {
+            Arrays.fill(copy, '\0');
+            throw e;
+        }
+    }
+
+    /**
+     * Checks whether a stored hash is weaker than what this hasher would produce
+     *
+     * @throws IllegalArgumentException if the stored hash is malformed or uses an unknown scheme
+     */
+    public boolean needsRehash(String storedHash) {
+        return needsRehash(StoredHash.parse(storedHash));
+    }
+
+    private boolean needsRehash(StoredHash stored) {
+        return stored.version < FORMAT_VERSION
+            || stored.scheme != scheme
+            || stored.iterations < iterations
+            || stored.salt.length < SALT_LENGTH;
+    }
+
+    /**
+     * @return Verifications waiting for a thread
+     */
+    public int queuedVerifications() {
+        return executor.getQueue().size();
+    }
+
+    /**
+     * Stops the verification threads; queued verifications still complete
+     */
+    @Override
+    public void close() {
+        executor.shutdown();
+    }
+
+    private byte[] derive(char[] password, byte[] salt, int iterations) {
+        return derive(scheme, password, salt, iterations);
+    }
+
+    private static byte[] derive(Scheme scheme, char[] password, byte[] salt, int iterations) {
+        PBEKeySpec spec = new PBEKeySpec(password, salt, iterations, scheme.keyLength * 8);
+        try {
+            return SecretKeyFactory.getInstance(scheme.jcaName).generateSecret(spec).getEncoded();
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException(scheme.jcaName + " is not available", e);
+        } finally {
+            spec.clearPassword();
+        }
+    }
+
+    /**
+     * Parsed form of a stored-hash string
+     */
+    private static final class StoredHash {
+        final Scheme scheme;
+        final int version;
+        final int iterations;
+        final byte[] salt;
+        final byte[] key;
+
+        private StoredHash(Scheme scheme, int version, int iterations, byte[] salt, byte[] key) {
+            this.scheme = scheme;
+            this.version = version;
+            this.iterations = iterations;
+            this.salt = salt;
+            this.key = key;
+        }
+
+        static StoredHash parse(String value) {
+            // "", scheme, version, iterations, salt, key
+            String[] fields = value == null ? new String[0] : value.split("\\$", -1);
+            if (fields.length != 6 || !fields[0].isEmpty()
+                    || !fields[2].startsWith("v=") || !fields[3].startsWith("i=")) {
+                throw new IllegalArgumentException("Malformed stored hash");
+            }
+            Scheme scheme = Scheme.forId(fields[1]);
+            try {
+                int version = Integer.parseInt(fields[2].substring(2));
+                if (version < 1 || version > FORMAT_VERSION) {
+                    throw new IllegalArgumentException("Unsupported stored hash version: " + version);
+                }
+                int iterations = Integer.parseInt(fields[3].substring(2));
+                byte[] salt = Base64.getDecoder().decode(fields[4]);
+                byte[] key = Base64.getDecoder().decode(fields[5]);
+                if (iterations < 1 || salt.length == 0 || key.length != scheme.keyLength) {
+                    throw new IllegalArgumentException("Malformed stored hash");
+                }
+                return new StoredHash(scheme, version, iterations, salt, key);
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Malformed stored hash", e);
+            }
+        }
+    }
+}
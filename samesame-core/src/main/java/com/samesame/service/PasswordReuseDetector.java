@@ -0,0 +1,508 @@
+package com.samesame.service;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.GeneralSecurityException;
+import java.security.SecureRandom;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Stream;
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+
+/**
+ * Finds every group of accounts that share a password in a large credential export
+ *
+ * The input has one {@code account TAB secret} row per line, in UTF-8. The
+ * run makes two passes, and neither holds the whole export in memory:
+ * <ol>
+ *   <li>Line-aligned byte ranges of the input are memory-mapped and hashed
+ *       in parallel. Each secret is authenticated with HMAC-SHA256 under a
+ *       random key generated for the run. The top bits of the tag pick a
+ *       partition, and the next 64 bits plus the account name are appended
+ *       to that partition's spill file.</li>
+ *   <li>Each spill file is read back on its own and grouped by an
+ *       open-addressing map from the 64-bit tag to a chain of records, all
+ *       in primitive arrays. Partitions are grouped in parallel and their
+ *       groups written out in partition order.</li>
+ * </ol>
+ *
+ * Memory use is bounded by the range size in the first pass and by the
+ * largest partition in the second, times the number of threads, so larger
+ * exports need more partitions; {@link #partitionsFor(long)} picks enough.
+ * Secrets never become Strings and never reach the disk: the spill files
+ * hold only truncated tags under a key that is dropped when the run ends,
+ * and the files are deleted as soon as they have been grouped.
+ *
+ * Two different secrets share a group only if the partition bits and the
+ * 64 stored bits of their tags all collide, which is negligible even for
+ * billions of rows.
+ *
+ * The output has one line per group of two or more accounts with the same
+ * secret, {@code count TAB account TAB account ...}, in no particular order.
+ * It never contains secrets or tags.
+ */
+public final class PasswordReuseDetector {
+
+    /** Default size of the byte range hashed by one task */
+    public static final int DEFAULT_RANGE_SIZE = 8 << 20;
+
+    /** Largest number of partitions */
+    public static final int MAX_PARTITIONS = 1 << 12;
+
+    /** Longest account name, in UTF-8 bytes */
+    public static final int MAX_ACCOUNT_LENGTH = 0xFFFF;
+
+    private static final String ALGORITHM = "HmacSHA256";
+    private static final int KEY_LENGTH = 32;
+    private static final long TARGET_PARTITION_SIZE = 32L << 20;
+    private static final int STRIPES = 64;
+
+    /** Spill record header: 64-bit tag and 16-bit account length */
+    private static final int RECORD_HEADER = Long.BYTES + Short.BYTES;
+
+    private final int threads;
+    private final int partitions;
+    private final int partitionBits;
+    private final int rangeSize;
+    private final Path spillDirectory;
+    private final Object[] locks = new Object[STRIPES];
+
+    /**
+     * @param threads Number of worker threads
+     * @param partitions Number of spill files, a power of two up to {@link #MAX_PARTITIONS}
+     * @param rangeSize Size in bytes of the input range hashed by one task
+     * @param spillDirectory Directory for the spill files, or null for the system temporary directory
+     */
+    public PasswordReuseDetector(int threads, int partitions, int rangeSize, Path spillDirectory) {
+        if (threads < 1) {
+            throw new IllegalArgumentException("At least one worker thread is required");
+        }
+        if (partitions < 1 || partitions > MAX_PARTITIONS || Integer.bitCount(partitions) != 1) {
+            throw new IllegalArgumentException("Partitions must be a power of two up to " + MAX_PARTITIONS);
+        }
+        if (rangeSize < 1) {
+            throw new IllegalArgumentException("Range size must be positive");
+        }
+        this.threads = threads;
+        this.partitions = partitions;
+        this.partitionBits = Integer.numberOfTrailingZeros(partitions);
+        this.rangeSize = rangeSize;
+        this.spillDirectory = spillDirectory;
+        for (int i = 0; i < STRIPES; i++) {
+            locks[i] = new Object();
+        }
+    }
+
+    /**
+     * Picks a partition count that keeps each spill file near 32 MB
+     *
+     * @param inputSize Size of the export in bytes
+     * @return Power of two between 16 and {@link #MAX_PARTITIONS}
+     */
+    public static int partitionsFor(long inputSize) {
+        long wanted = Math.max(1, (inputSize + TARGET_PARTITION_SIZE - 1) / TARGET_PARTITION_SIZE);
+        long partitions = Long.highestOneBit(wanted * 2 - 1);
+        return (int) Math.max(16, Math.min(MAX_PARTITIONS, partitions));
+    }
+
+    /**
+     * Groups the accounts of an export by shared secret
+     *
+     * @param input File of {@code account TAB secret} rows
+     * @param output File receiving one line per group of accounts
+     * @return Totals of the run
+     * @throws IOException if reading, spilling or writing fails, or a partition exceeds 2 GB
+     */
+    public Summary run(Path input, Path output) throws IOException {
+        long startTime = System.nanoTime();
+        byte[] key = new byte[KEY_LENGTH];
+        new SecureRandom().nextBytes(key);
+        Path directory = spillDirectory == null
+            ? Files.createTempDirectory("samesame-reuse")
+            : Files.createTempDirectory(spillDirectory, "samesame-reuse");
+        ExecutorService workers = Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, "reuse-detect");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        Summary summary = new Summary();
+        try {
+            long[] records = new long[partitions];
+            try (FileChannel in = FileChannel.open(input, StandardOpenOption.READ)) {
+                long[] bounds = StrengthAudit.lineAlignedBounds(in, rangeSize);
+                List<Future<RangeResult>> hashed = new ArrayList<>();
+                for (int i = 0; i + 1 < bounds.length; i++) {
+                    long start = bounds[i];
+                    long end = bounds[i + 1];
+                    hashed.add(workers.submit(() -> hashRange(in, start, end, key, directory)));
+                }
+                for (Future<RangeResult> future : hashed) {
+                    RangeResult range = await(future);
+                    summary.rows += range.rows;
+                    summary.invalid += range.invalid;
+                    for (int p = 0; p < partitions; p++) {
+                        records[p] += range.records[p];
+                    }
+                }
+                summary.bytes = in.size();
+            }
+
+            try (FileChannel out = FileChannel.open(output, StandardOpenOption.CREATE,
+                     StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+                Deque<Future<PartitionResult>> inFlight = new ArrayDeque<>();
+                for (int p = 0; p < partitions; p++) {
+                    if (inFlight.size() == threads) {
+                        drain(inFlight.removeFirst(), out, summary);
+                    }
+                    int partition = p;
+                    long count = records[p];
+                    inFlight.addLast(workers.submit(() -> groupPartition(directory, partition, count)));
+                }
+                while (!inFlight.isEmpty()) {
+                    drain(inFlight.removeFirst(), out, summary);
+                }
+            }
+        } finally {
+            Arrays.fill(key, (byte) 0);
+            workers.shutdownNow();
+            deleteDirectory(directory);
+        }
+        summary.nanos = System.nanoTime() - startTime;
+        return summary;
+    }
+
+    /**
+     * Hashes every row of one input range and appends the records to the spill files; runs on a worker thread
+     */
+    private RangeResult hashRange(FileChannel channel, long start, long end, byte[] key, Path directory)
+            throws IOException {
+        RangeResult result = new RangeResult(partitions);
+        if (end <= start) {
+            return result;
+        }
+
+        MappedByteBuffer range = channel.map(FileChannel.MapMode.READ_ONLY, start, end - start);
+        ByteBuffer field = range.duplicate();
+        Mac mac = newMac(key);
+        byte[] tag = new byte[mac.getMacLength()];
+        ByteBuffer tagView = ByteBuffer.wrap(tag);
+        ByteBuffer spill = ByteBuffer.allocate((int) (end - start) + 64);
+        int[] recordPartitions = new int[1024];
+        int[] spillBytes = new int[partitions];
+
+        int lineStart = 0;
+        int limit = range.limit();
+        for (int i = 0; i <= limit; i++) {
+            if (i < limit && range.get(i) != '\n') {
+                continue;
+            }
+            int lineEnd = (i > lineStart && range.get(i - 1) == '\r') ? i - 1 : i;
+            if (lineEnd > lineStart) {
+                result.rows++;
+                int tab = lineStart;
+                while (tab < lineEnd && range.get(tab) != '\t') {
+                    tab++;
+                }
+                int accountLength = tab - lineStart;
+                if (tab >= lineEnd - 1 || accountLength == 0 || accountLength > MAX_ACCOUNT_LENGTH) {
+                    result.invalid++;
+                } else {
+                    field.limit(lineEnd).position(tab + 1);
+                    mac.update(field);
+                    try {
+                        mac.doFinal(tag, 0);
+                    } catch (GeneralSecurityException e) {
+                        throw new IllegalStateException("HMAC tag does not fit", e);
+                    }
+                    long high = tagView.getLong(0);
+                    int partition = partitionBits == 0 ? 0 : (int) (high >>> (Long.SIZE - partitionBits));
+
+                    int recordLength = RECORD_HEADER + accountLength;
+                    if (spill.remaining() < recordLength) {
+                        spill = ByteBuffer.allocate(spill.capacity() * 2 + recordLength).put(spill.flip());
+                    }
+                    field.limit(tab).position(lineStart);
+                    spill.putLong(tagView.getLong(Long.BYTES)).putShort((short) accountLength).put(field);
+
+                    result.records[partition]++;
+                    if (result.recordCount == recordPartitions.length) {
+                        recordPartitions = Arrays.copyOf(recordPartitions, recordPartitions.length * 2);
+                    }
+                    recordPartitions[result.recordCount++] = partition;
+                    spillBytes[partition] += recordLength;
+                }
+            }
+            lineStart = i + 1;
+        }
+        Arrays.fill(tag, (byte) 0);
+
+        // Counting sort by partition, so each spill file gets one contiguous append
+        int[] starts = new int[partitions + 1];
+        for (int p = 0; p < partitions; p++) {
+            starts[p + 1] = starts[p] + spillBytes[p];
+        }
+        int[] cursors = Arrays.copyOf(starts, partitions);
+        ByteBuffer sorted = ByteBuffer.allocate(spill.position());
+        int offset = 0;
+        for (int r = 0; r < result.recordCount; r++) {
+            int recordLength = RECORD_HEADER + (spill.getShort(offset + Long.BYTES) & 0xFFFF);
+            sorted.put(cursors[recordPartitions[r]], spill, offset, recordLength);
+            cursors[recordPartitions[r]] += recordLength;
+            offset += recordLength;
+        }
+        for (int p = 0; p < partitions; p++) {
+            if (starts[p + 1] > starts[p]) {
+                append(spillFile(directory, p), p, sorted.limit(starts[p + 1]).position(starts[p]));
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Appends records to a spill file; appends from different ranges never interleave
+     */
+    private void append(Path file, int partition, ByteBuffer records) throws IOException {
+        synchronized (locks[partition & (STRIPES - 1)]) {
+            try (FileChannel out = FileChannel.open(file, StandardOpenOption.CREATE,
+                     StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
+                while (records.hasRemaining()) {
+                    out.write(records);
+                }
+            }
+        }
+    }
+
+    /**
+     * Groups the records of one spill file by tag and formats the groups; runs on a worker thread
+     */
+    private PartitionResult groupPartition(Path directory, int partition, long count) throws IOException {
+        PartitionResult result = new PartitionResult();
+        Path file = spillFile(directory, partition);
+        if (count == 0) {
+            return result;
+        }
+        long size = Files.size(file);
+        if (size > Integer.MAX_VALUE - 8) {
+            throw new IOException("Partition " + partition + " holds " + size + " bytes; use more partitions");
+        }
+        ByteBuffer data = ByteBuffer.allocate((int) size);
+        try (FileChannel in = FileChannel.open(file, StandardOpenOption.READ)) {
+            while (data.hasRemaining() && in.read(data) >= 0) {
+                // Read the whole partition
+            }
+        }
+        Files.delete(file);
+
+        // Open addressing at a load factor of at most 1/2; tags are uniformly random, so no mixing is needed
+        int records = (int) count;
+        int capacity = Integer.highestOneBit(records * 2 - 1) * 2;
+        int mask = capacity - 1;
+        long[] keys = new long[capacity];
+        int[] heads = new int[capacity];
+        int[] sizes = new int[capacity];
+        int[] offsets = new int[records];
+        int[] next = new int[records];
+
+        int offset = 0;
+        for (int r = 0; r < records; r++) {
+            long tag = data.getLong(offset);
+            int slot = (int) tag & mask;
+            while (heads[slot] != 0 && keys[slot] != tag) {
+                slot = (slot + 1) & mask;
+            }
+            if (heads[slot] == 0) {
+                keys[slot] = tag;
+                result.distinct++;
+            }
+            offsets[r] = offset;
+            next[r] = heads[slot] - 1;
+            heads[slot] = r + 1;
+            sizes[slot]++;
+            offset += RECORD_HEADER + (data.getShort(offset + Long.BYTES) & 0xFFFF);
+        }
+
+        ByteArrayOutputStream groups = new ByteArrayOutputStream();
+        for (int slot = 0; slot < capacity; slot++) {
+            if (sizes[slot] < 2) {
+                continue;
+            }
+            result.groups++;
+            result.accounts += sizes[slot];
+            result.largest = Math.max(result.largest, sizes[slot]);
+            groups.writeBytes(Integer.toString(sizes[slot]).getBytes(StandardCharsets.US_ASCII));
+            for (int r = heads[slot] - 1; r >= 0; r = next[r]) {
+                int start = offsets[r] + RECORD_HEADER;
+                groups.write('\t');
+                groups.write(data.array(), start, data.getShort(offsets[r] + Long.BYTES) & 0xFFFF);
+            }
+            groups.write('\n');
+        }
+        result.output = groups.toByteArray();
+        return result;
+    }
+
+    /**
+     * Waits for a partition, adds it to the totals and writes its groups
+     */
+    private void drain(Future<PartitionResult> future, FileChannel out, Summary summary) throws IOException {
+        PartitionResult partition = await(future);
+        summary.distinct += partition.distinct;
+        summary.groups += partition.groups;
+        summary.reusedAccounts += partition.accounts;
+        summary.largestGroup = Math.max(summary.largestGroup, partition.largest);
+        ByteBuffer buffer = ByteBuffer.wrap(partition.output);
+        while (buffer.hasRemaining()) {
+            out.write(buffer);
+        }
+    }
+
+    private static <T> T await(Future<T> future) throws IOException {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Reuse detection interrupted", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException) {
+                throw (IOException) e.getCause();
+            }
+            throw new IOException("Reuse detection failed", e.getCause());
+        }
+    }
+
+    private static Mac newMac(byte[] key) {
+        try {
+            Mac mac = Mac.getInstance(ALGORITHM);
+            mac.init(new SecretKeySpec(key, ALGORITHM));
+            return mac;
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("MAC algorithm not available: " + ALGORITHM, e);
+        }
+    }
+
+    private static Path spillFile(Path directory, int partition) {
+        return directory.resolve("partition-" + partition);
+    }
+
+    private static void deleteDirectory(Path directory) throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            for (Path file : (Iterable<Path>) files::iterator) {
+                Files.deleteIfExists(file);
+            }
+        }
+        Files.deleteIfExists(directory);
+    }
+
+    /**
+     * Counts from one hashed input range
+     */
+    private static final class RangeResult {
+        final long[] records;
+        int recordCount;
+        long rows;
+        long invalid;
+
+        RangeResult(int partitions) {
+            records = new long[partitions];
+        }
+    }
+
+    /**
+     * Groups found in one partition, already formatted
+     */
+    private static final class PartitionResult {
+        long distinct;
+        long groups;
+        long accounts;
+        int largest;
+        byte[] output = new byte[0];
+    }
+
+    /**
+     * Totals of one run; contains counts only
+     */
+    public static final class Summary {
+        long rows;
+        long invalid;
+        long distinct;
+        long groups;
+        long reusedAccounts;
+        long largestGroup;
+        long bytes;
+        long nanos;
+
+        /**
+         * @return Non-empty lines read, valid or not
+         */
+        public long rows() {
+            return rows;
+        }
+
+        /**
+         * @return Lines without a tab, with an empty account or secret, or with an overlong account
+         */
+        public long invalid() {
+            return invalid;
+        }
+
+        /**
+         * @return Number of different secrets among the valid rows
+         */
+        public long distinctSecrets() {
+            return distinct;
+        }
+
+        /**
+         * @return Number of secrets shared by two or more rows
+         */
+        public long groups() {
+            return groups;
+        }
+
+        /**
+         * @return Rows whose secret is shared with at least one other row
+         */
+        public long reusedAccounts() {
+            return reusedAccounts;
+        }
+
+        /**
+         * @return Rows in the largest group, 0 if there is none
+         */
+        public long largestGroup() {
+            return largestGroup;
+        }
+
+        public long bytes() {
+            return bytes;
+        }
+
+        public long nanos() {
+            return nanos;
+        }
+
+        public double rowsPerSecond() {
+            return nanos == 0 ? 0 : rows * 1_000_000_000.0 / nanos;
+        }
+
+        public double megabytesPerSecond() {
+            return nanos == 0 ? 0 : bytes * 1_000.0 / nanos;
+        }
+    }
+}
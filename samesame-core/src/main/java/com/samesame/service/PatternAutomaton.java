@@ -0,0 +1,166 @@
+package com.samesame.service;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.Queue;
+
+/**
+ * Precompiled multi-pattern matcher (Aho-Corasick) for weak password patterns
+ * 
+ * The patterns are compiled once into a dense transition table, so scanning a
+ * password is one table lookup per character and never allocates. Matching is
+ * case-insensitive for ASCII letters; any non-ASCII character resets the
+ * automaton because none of its lowercase forms can take part in a pattern.
+ */
+public final class PatternAutomaton {
+
+    /** Initial state of every scan */
+    public static final int START = 0;
+
+    /** Symbol index of characters that do not occur in any pattern */
+    private static final int OTHER = 0;
+
+    /** Maps an ASCII character to its symbol index, after lowercasing */
+    private final int[] symbols = new int[128];
+    private final int symbolCount;
+    private final int[] transitions;
+    private final boolean[] accepting;
+    private final int maxPatternLength;
+
+    private PatternAutomaton(String[] patterns) {
+        // Assign compact symbol indexes to the characters used by the patterns
+        int nextSymbol = OTHER + 1;
+        int states = 1;
+        int longest = 0;
+        for (String pattern : patterns) {
+            if (pattern.isEmpty()) {
+                throw new IllegalArgumentException("Weak patterns must not be empty");
+            }
+            for (int i = 0; i < pattern.length(); i++) {
+                char c = pattern.charAt(i);
+                if (c >= 128 || (c >= 'A' && c <= 'Z')) {
+                    throw new IllegalArgumentException("Weak patterns must be lowercase ASCII: " + pattern);
+                }
+                if (symbols[c] == OTHER) {
+                    symbols[c] = nextSymbol++;
+                }
+            }
+            states += pattern.length();
+            longest = Math.max(longest, pattern.length());
+        }
+        for (char c = 'A'; c <= 'Z'; c++) {
+            symbols[c] = symbols[Character.toLowerCase(c)];
+        }
+        symbolCount = nextSymbol;
+        maxPatternLength = longest;
+
+        // Build the trie; -1 marks a missing edge until failure links fill it in
+        int[] table = new int[states * symbolCount];
+        Arrays.fill(table, -1);
+        boolean[] output = new boolean[states];
+        int stateCount = 1;
+        for (String pattern : patterns) {
+            int state = START;
+            for (int i = 0; i < pattern.length(); i++) {
+                int edge = state * symbolCount + symbols[pattern.charAt(i)];
+                if (table[edge] < 0) {
+                    table[edge] = stateCount++;
+                }
+                state = table[edge];
+            }
+            output[state] = true;
+        }
+
+        // Breadth-first pass turns the trie into a complete DFA
+        int[] failure = new int[stateCount];
+        Queue<Integer> queue = new ArrayDeque<>();
+        for (int symbol = 0; symbol < symbolCount; symbol++) {
+            int target = table[symbol];
+            if (target < 0 || symbol == OTHER) {
+                table[symbol] = START;
+            } else {
+                failure[target] = START;
+                queue.add(target);
+            }
+        }
+        while (!queue.isEmpty()) {
+            int state = queue.remove();
+            output[state] |= output[failure[state]];
+            for (int symbol = 0; symbol < symbolCount; symbol++) {
+                int edge = state * symbolCount + symbol;
+                int target = table[edge];
+                int fallback = table[failure[state] * symbolCount + symbol];
+                if (symbol == OTHER) {
+                    table[edge] = START;
+                } else if (target < 0) {
+                    table[edge] = fallback;
+                } else {
+                    failure[target] = fallback;
+                    queue.add(target);
+                }
+            }
+        }
+
+        transitions = Arrays.copyOf(table, stateCount * symbolCount);
+        accepting = Arrays.copyOf(output, stateCount);
+    }
+
+    /**
+     * Compiles the given weak patterns; they are matched case-insensitively
+     * 
+     * @param patterns Non-empty ASCII patterns
+     * @return Compiled automaton
+     */
+    public static PatternAutomaton compile(String... patterns) {
+        String[] lowercase = new String[patterns.length];
+        for (int i = 0; i < patterns.length; i++) {
+            lowercase[i] = patterns[i].toLowerCase(Locale.ROOT);
+        }
+        return new PatternAutomaton(lowercase);
+    }
+
+    /**
+     * Advances the automaton by one character
+     * 
+     * @param state Current state, {@link #START} for a fresh scan
+     * @param c Next character of the input
+     * @return Next state
+     */
+    public int next(int state, char c) {
+        if (c >= 128) {
+            return START;
+        }
+        return transitions[state * symbolCount + symbols[c]];
+    }
+
+    /**
+     * @return true if some pattern ends at the character that led to this state
+     */
+    public boolean isMatch(int state) {
+        return accepting[state];
+    }
+
+    /**
+     * @return Length of the longest compiled pattern
+     */
+    public int maxPatternLength() {
+        return maxPatternLength;
+    }
+
+    /**
+     * Scans a character sequence for any of the compiled patterns
+     * 
+     * @return true if at least one pattern occurs in the input
+     */
+    public boolean matchesAny(CharSequence input) {
+        int state = START;
+        for (int i = 0; i < input.length(); i++) {
+            state = next(state, input.charAt(i));
+            if (accepting[state]) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
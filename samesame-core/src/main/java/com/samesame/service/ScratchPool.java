@@ -0,0 +1,61 @@
+package com.samesame.service;
+
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.Supplier;
+
+/**
+ * Small bounded pool of reusable scratch state
+ *
+ * Used instead of {@link ThreadLocal} for digests, MACs and work arrays.
+ * The server and the GUI run every task on a new virtual thread, so
+ * per-thread state would be rebuilt on every request. The pool is not tied
+ * to thread identity: a caller borrows an instance and must return it in a
+ * finally block. When the pool is empty a new instance is created, and an
+ * instance returned to a full pool is dropped, so callers never block.
+ * Slots are claimed with a single atomic swap.
+ */
+final class ScratchPool<T> {
+
+    private final Supplier<T> factory;
+    private final AtomicReferenceArray<T> slots;
+
+    /**
+     * Creates a pool holding up to one instance per available processor
+     *
+     * @param factory Creates an instance when the pool is empty
+     */
+    ScratchPool(Supplier<T> factory) {
+        this(factory, Runtime.getRuntime().availableProcessors());
+    }
+
+    ScratchPool(Supplier<T> factory, int capacity) {
+        this.factory = factory;
+        this.slots = new AtomicReferenceArray<>(capacity);
+    }
+
+    /**
+     * @return A pooled instance, or a new one if none is free
+     */
+    T acquire() {
+        for (int i = 0; i < slots.length(); i++) {
+            if (slots.get(i) != null) {
+                T instance = slots.getAndSet(i, null);
+                if (instance != null) {
+                    return instance;
+                }
+            }
+        }
+        return factory.get();
+    }
+
+    /**
+     * Returns an instance; it is dropped if every slot is taken
+     */
+    void release(T instance) {
+        for (int i = 0; i < slots.length(); i++) {
+            if (slots.get(i) == null && slots.compareAndSet(i, null, instance)) {
+                return;
+            }
+        }
+    }
+}
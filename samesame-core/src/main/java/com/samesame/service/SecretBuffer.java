@@ -0,0 +1,188 @@
+package com.samesame.service;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.CharBuffer;
+import java.util.Arrays;
+
+/**
+ * Password held outside the garbage-collected heap and zeroed on close
+ *
+ * The characters live in a direct buffer as UTF-16 code units. The GC
+ * never copies them while compacting, and {@link #close()} overwrites them
+ * at a point the caller chooses, instead of leaving an immutable String
+ * behind until a collection happens to reclaim it. Closing also returns the
+ * native memory at once where the JVM allows it; otherwise it is returned
+ * when the buffer becomes unreachable.
+ *
+ * A SecretBuffer is a {@link CharSequence}, so strength evaluation, guess
+ * estimation, hashing and breach lookups read it in place.
+ * {@link PasswordComparator#compareSecrets(SecretBuffer, SecretBuffer)}
+ * compares two buffers a vector at a time. {@link #toString()} does not
+ * reveal the contents and {@link #subSequence(int, int)} is not supported,
+ * since both would copy the secret onto the heap.
+ *
+ * Instances are not thread-safe.
+ */
+public final class SecretBuffer implements CharSequence, AutoCloseable {
+
+    private static final int DEFAULT_CAPACITY = 64;
+
+    private ByteBuffer bytes;
+    private CharBuffer chars;
+    private int length;
+    private boolean closed;
+
+    private SecretBuffer(int capacity) {
+        bytes = ByteBuffer.allocateDirect(Math.max(1, capacity) * Character.BYTES).order(ByteOrder.nativeOrder());
+        chars = bytes.asCharBuffer();
+        bytes.limit(0);
+    }
+
+    /**
+     * Creates an empty buffer with room for a typical password
+     */
+    public static SecretBuffer allocate() {
+        return new SecretBuffer(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Creates an empty buffer with room for the given number of characters
+     * It grows when needed, zeroing the memory it leaves
+     */
+    public static SecretBuffer allocate(int capacity) {
+        return new SecretBuffer(capacity);
+    }
+
+    /**
+     * Copies characters into a new buffer and zeroes the source array
+     * Use it with {@link java.io.Console#readPassword()} so the only heap copy is short-lived
+     */
+    public static SecretBuffer takeFrom(char[] source) {
+        SecretBuffer buffer = new SecretBuffer(source.length);
+        for (char c : source) {
+            buffer.append(c);
+        }
+        Arrays.fill(source, '\0');
+        return buffer;
+    }
+
+    /**
+     * Appends one character
+     */
+    public void append(char c) {
+        ensureOpen();
+        if (length == chars.capacity()) {
+            grow();
+        }
+        chars.put(length++, c);
+        bytes.limit(length * Character.BYTES);
+    }
+
+    /**
+     * Removes the last character, if any, and zeroes its memory
+     */
+    public void deleteLast() {
+        ensureOpen();
+        if (length > 0) {
+            chars.put(--length, '\0');
+            bytes.limit(length * Character.BYTES);
+        }
+    }
+
+    /**
+     * Zeroes all characters and empties the buffer
+     */
+    public void clear() {
+        ensureOpen();
+        for (int i = 0; i < length; i++) {
+            chars.put(i, '\0');
+        }
+        length = 0;
+        bytes.limit(0);
+    }
+
+    /**
+     * Zeroes the characters and frees the native memory; the buffer cannot be used afterwards
+     * Closing twice has no effect
+     */
+    @Override
+    public void close() {
+        if (!closed) {
+            clear();
+            closed = true;
+            ByteBuffer released = bytes;
+            // No view of the freed memory may stay reachable
+            bytes = ByteBuffer.allocate(0);
+            chars = bytes.asCharBuffer();
+            DirectBuffers.free(released);
+        }
+    }
+
+    /**
+     * @return true once {@link #close()} has been called
+     */
+    public boolean isClosed() {
+        return closed;
+    }
+
+    @Override
+    public int length() {
+        return length;
+    }
+
+    @Override
+    public char charAt(int index) {
+        if (index < 0 || index >= length) {
+            throw new IndexOutOfBoundsException(index);
+        }
+        return chars.get(index);
+    }
+
+    /**
+     * Not supported, because it would copy part of the secret onto the heap
+     */
+    @Override
+    public CharSequence subSequence(int start, int end) {
+        throw new UnsupportedOperationException("A SecretBuffer cannot be copied into a subsequence");
+    }
+
+    /**
+     * @return A description without the contents
+     */
+    @Override
+    public String toString() {
+        return "SecretBuffer[length=" + length + (closed ? ", closed]" : "]");
+    }
+
+    /**
+     * @return The UTF-16 code units as bytes, from position 0 to the current length
+     * The buffer is shared; callers must only use absolute reads
+     */
+    ByteBuffer bytes() {
+        ensureOpen();
+        return bytes;
+    }
+
+    private void grow() {
+        ByteBuffer grown = ByteBuffer.allocateDirect(bytes.capacity() * 2).order(ByteOrder.nativeOrder());
+        bytes.limit(bytes.capacity()).position(0);
+        grown.put(bytes);
+        // The old buffer may be left to the GC, so it must not keep the secret
+        for (int i = 0; i < bytes.capacity(); i++) {
+            bytes.put(i, (byte) 0);
+        }
+        ByteBuffer released = bytes;
+        grown.clear();
+        chars = grown.asCharBuffer();
+        bytes = grown;
+        bytes.limit(length * Character.BYTES);
+        DirectBuffers.free(released);
+    }
+
+    private void ensureOpen() {
+        if (closed) {
+            throw new IllegalStateException("SecretBuffer is closed");
+        }
+    }
+}
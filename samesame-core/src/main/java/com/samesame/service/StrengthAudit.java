@@ -0,0 +1,287 @@
+package com.samesame.service;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Parallel strength audit of large password exports
+ * 
+ * The file is cut into byte ranges that end on line boundaries; each range
+ * is memory-mapped and evaluated by a fork-join task with its own counters,
+ * and the counters are merged on the way back up the task tree. Lines are
+ * decoded from UTF-8 into a reusable buffer, so passwords never become
+ * Strings, and the report only ever contains counts.
+ * 
+ * Verdicts are the same as {@link PasswordComparator#evaluatePasswordStrength(String)},
+ * under the comparator's strength policy and including its blocklist.
+ */
+public final class StrengthAudit {
+
+    /** Default size of the byte range evaluated by one task */
+    public static final int DEFAULT_RANGE_SIZE = 8 << 20;
+
+    /** Verdict buckets, in report order */
+    public static final String[] VERDICTS = {"Weak", "Medium", "Strong", "Very Strong"};
+
+    /** Rule buckets, in report order */
+    public static final String[] RULES = {"length", "character class", "repetition", "common pattern", "blocklist"};
+
+    private static final int RULE_LENGTH = 0;
+    private static final int RULE_CLASS = 1;
+    private static final int RULE_REPETITION = 2;
+    private static final int RULE_COMMON_PATTERN = 3;
+    private static final int RULE_BLOCKLIST = 4;
+
+    private final PasswordComparator passwordComparator;
+    private final int parallelism;
+    private final int rangeSize;
+
+    /**
+     * @param passwordComparator Service providing the strength rules and blocklist
+     * @param parallelism Number of fork-join worker threads
+     * @param rangeSize Size in bytes of the range evaluated by one task
+     */
+    public StrengthAudit(PasswordComparator passwordComparator, int parallelism, int rangeSize) {
+        if (parallelism < 1) {
+            throw new IllegalArgumentException("Parallelism must be at least 1");
+        }
+        if (rangeSize < 1) {
+            throw new IllegalArgumentException("Range size must be positive");
+        }
+        this.passwordComparator = passwordComparator;
+        this.parallelism = parallelism;
+        this.rangeSize = rangeSize;
+    }
+
+    /**
+     * Audits a file with one UTF-8 password per line
+     * 
+     * @param input Password export
+     * @return Histogram of verdicts and failed rules
+     * @throws IOException if the file cannot be read
+     */
+    public Report run(Path input) throws IOException {
+        long startTime = System.nanoTime();
+        try (FileChannel channel = FileChannel.open(input, StandardOpenOption.READ)) {
+            long[] bounds = lineAlignedBounds(channel, rangeSize);
+            ForkJoinPool pool = new ForkJoinPool(parallelism);
+            try {
+                Report report = pool.invoke(new RangeTask(channel, bounds, 0, bounds.length - 1));
+                report.bytes = channel.size();
+                report.nanos = System.nanoTime() - startTime;
+                return report;
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            } finally {
+                pool.shutdown();
+            }
+        }
+    }
+
+    /**
+     * Cuts the file into ranges of about rangeSize bytes, each ending just after a newline
+     */
+    static long[] lineAlignedBounds(FileChannel channel, int rangeSize) throws IOException {
+        long size = channel.size();
+        List<Long> bounds = new ArrayList<>();
+        bounds.add(0L);
+        ByteBuffer probe = ByteBuffer.allocate(4096);
+        long position = 0;
+        
+        while (size - position > rangeSize) {
+            long candidate = position + rangeSize;
+            long boundary = -1;
+            while (boundary < 0 && candidate < size) {
+                probe.clear();
+                int read = channel.read(probe, candidate);
+                for (int i = 0; i < read; i++) {
+                    if (probe.get(i) == '\n') {
+                        boundary = candidate + i + 1;
+                        break;
+                    }
+                }
+                candidate += Math.max(read, 1);
+            }
+            if (boundary < 0 || boundary >= size) {
+                break;
+            }
+            bounds.add(boundary);
+            position = boundary;
+        }
+        bounds.add(size);
+        
+        long[] result = new long[bounds.size()];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = bounds.get(i);
+        }
+        return result;
+    }
+
+    /**
+     * Evaluates ranges [first, last) of the bounds, splitting until one range is left
+     */
+    private final class RangeTask extends RecursiveTask<Report> {
+        private final FileChannel channel;
+        private final long[] bounds;
+        private final int first;
+        private final int last;
+
+        RangeTask(FileChannel channel, long[] bounds, int first, int last) {
+            this.channel = channel;
+            this.bounds = bounds;
+            this.first = first;
+            this.last = last;
+        }
+
+        @Override
+        protected Report compute() {
+            if (last - first > 1) {
+                int middle = (first + last) >>> 1;
+                RangeTask left = new RangeTask(channel, bounds, first, middle);
+                left.fork();
+                Report right = new RangeTask(channel, bounds, middle, last).compute();
+                return right.merge(left.join());
+            }
+            
+            try {
+                return evaluateRange(channel, bounds[first], bounds[last]);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+
+    private Report evaluateRange(FileChannel channel, long start, long end) throws IOException {
+        Report report = new Report();
+        if (end <= start) {
+            return report;
+        }
+        
+        MappedByteBuffer range = channel.map(FileChannel.MapMode.READ_ONLY, start, end - start);
+        ByteBuffer line = range.duplicate();
+        CharsetDecoder decoder = StandardCharsets.UTF_8.newDecoder()
+            .onMalformedInput(CodingErrorAction.REPLACE)
+            .onUnmappableCharacter(CodingErrorAction.REPLACE);
+        CharBuffer chars = CharBuffer.allocate(256);
+        
+        try {
+            int lineStart = 0;
+            int limit = range.limit();
+            for (int i = 0; i <= limit; i++) {
+                if (i < limit && range.get(i) != '\n') {
+                    continue;
+                }
+                int lineEnd = (i > lineStart && range.get(i - 1) == '\r') ? i - 1 : i;
+                if (lineEnd > lineStart) {
+                    line.limit(lineEnd).position(lineStart);
+                    if (chars.capacity() < lineEnd - lineStart) {
+                        clear(chars);
+                        chars = CharBuffer.allocate(lineEnd - lineStart);
+                    }
+                    chars.clear();
+                    decoder.reset();
+                    decoder.decode(line, chars, true);
+                    decoder.flush(chars);
+                    chars.flip();
+                    record(report, chars);
+                }
+                lineStart = i + 1;
+            }
+        } finally {
+            clear(chars);
+        }
+        return report;
+    }
+
+    private void record(Report report, CharSequence password) {
+        StrengthEvaluator.Result result = passwordComparator.strengthResult(password);
+        
+        report.passwords++;
+        report.verdicts[result.verdict().ordinal()]++;
+        if (result.failed(StrengthPolicy.Rule.LENGTH)) report.rules[RULE_LENGTH]++;
+        if (result.failed(StrengthPolicy.Rule.LOWERCASE) || result.failed(StrengthPolicy.Rule.UPPERCASE)
+                || result.failed(StrengthPolicy.Rule.DIGIT) || result.failed(StrengthPolicy.Rule.SPECIAL)) {
+            report.rules[RULE_CLASS]++;
+        }
+        if (result.failed(StrengthPolicy.Rule.NO_REPEATING)) report.rules[RULE_REPETITION]++;
+        if (result.failed(StrengthPolicy.Rule.NO_COMMON_PATTERN)) report.rules[RULE_COMMON_PATTERN]++;
+        if (result.failed(StrengthPolicy.Rule.NOT_BLOCKLISTED)) report.rules[RULE_BLOCKLIST]++;
+    }
+
+    private static void clear(CharBuffer chars) {
+        chars.clear();
+        while (chars.hasRemaining()) {
+            chars.put('\0');
+        }
+    }
+
+    /**
+     * Aggregated audit result; contains counts only
+     */
+    public static final class Report {
+        final long[] verdicts = new long[VERDICTS.length];
+        final long[] rules = new long[RULES.length];
+        long passwords;
+        long bytes;
+        long nanos;
+
+        Report merge(Report other) {
+            for (int i = 0; i < verdicts.length; i++) {
+                verdicts[i] += other.verdicts[i];
+            }
+            for (int i = 0; i < rules.length; i++) {
+                rules[i] += other.rules[i];
+            }
+            passwords += other.passwords;
+            return this;
+        }
+
+        /**
+         * @return Number of passwords evaluated
+         */
+        public long passwords() {
+            return passwords;
+        }
+
+        /**
+         * @param verdict Index into {@link #VERDICTS}
+         * @return Number of passwords with that verdict
+         */
+        public long verdictCount(int verdict) {
+            return verdicts[verdict];
+        }
+
+        /**
+         * @param rule Index into {@link #RULES}
+         * @return Number of passwords failing that rule
+         */
+        public long ruleFailures(int rule) {
+            return rules[rule];
+        }
+
+        public long bytes() {
+            return bytes;
+        }
+
+        public long nanos() {
+            return nanos;
+        }
+
+        public double passwordsPerSecond() {
+            return nanos == 0 ? 0 : passwords * 1_000_000_000.0 / nanos;
+        }
+    }
+}
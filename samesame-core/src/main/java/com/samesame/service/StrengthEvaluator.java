@@ -0,0 +1,303 @@
+package com.samesame.service;
+
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.Set;
+
+/**
+ * Single-pass password strength evaluator, compiled from a {@link StrengthPolicy}
+ * 
+ * Every character is visited exactly once: a lookup table classifies it,
+ * a run counter tracks repeated characters and a precompiled
+ * {@link PatternAutomaton} looks for common weak patterns. Nothing is
+ * allocated per call, so the evaluator is cheap enough to run on every
+ * keystroke and in bulk audits.
+ * 
+ * The result is a bit mask of satisfied criteria, one bit per
+ * {@link StrengthPolicy.Rule}. Every possible mask is scored when the policy
+ * is compiled, so turning a mask into a {@link Result} is one array read,
+ * whatever weights and verdict limits the policy sets.
+ * 
+ * Instances are immutable and may be shared between threads.
+ */
+public final class StrengthEvaluator {
+
+    // Criteria bits, in the order of StrengthPolicy.Rule; the length bits are named after the default thresholds
+    public static final int LENGTH_8 = 1;
+    public static final int LENGTH_12 = 1 << 1;
+    public static final int LENGTH_16 = 1 << 2;
+    public static final int LOWERCASE = 1 << 3;
+    public static final int UPPERCASE = 1 << 4;
+    public static final int DIGIT = 1 << 5;
+    public static final int SPECIAL = 1 << 6;
+    public static final int NO_REPEATING = 1 << 7;
+    public static final int NO_COMMON_PATTERN = 1 << 8;
+
+    /** Weak patterns of the built-in policy, matched case-insensitively */
+    static final String[] WEAK_PATTERNS = {
+        "123", "abc", "qwe", "asd", "zxc",
+        "password", "admin", "user", "login",
+        "000", "111", "222", "333"
+    };
+
+    /** Under the built-in policy, more than this many identical characters in a row is a repetition */
+    static final int MAX_RUN = 2;
+
+    /** Criteria bits of all rules that can be evaluated from the text */
+    private static final int ALL_CRITERIA = (1 << StrengthPolicy.Rule.SCORED) - 1;
+
+    private final StrengthPolicy policy;
+    private final PatternAutomaton weakPatterns;
+    /** Character class criteria bit of every ASCII character */
+    private final int[] characterClasses = new int[128];
+    private final int minimumLength;
+    private final int longLength;
+    private final int veryLongLength;
+    private final int maxRun;
+    /** Result of every criteria mask, without and with the blocklist veto */
+    private final Result[] results = new Result[ALL_CRITERIA + 1];
+    private final Result[] blocklistedResults = new Result[ALL_CRITERIA + 1];
+
+    /**
+     * Creates an evaluator for the built-in policy
+     */
+    public StrengthEvaluator() {
+        this(StrengthPolicy.defaults());
+    }
+
+    /**
+     * Creates an evaluator for the built-in policy with the given compiled weak patterns
+     */
+    public StrengthEvaluator(PatternAutomaton weakPatterns) {
+        this(StrengthPolicy.defaults(), weakPatterns);
+    }
+
+    /**
+     * Compiles a policy
+     * 
+     * @see StrengthPolicy#compile()
+     */
+    StrengthEvaluator(StrengthPolicy policy) {
+        this(policy, PatternAutomaton.compile(policy.weakPatterns()));
+    }
+
+    private StrengthEvaluator(StrengthPolicy policy, PatternAutomaton weakPatterns) {
+        this.policy = policy;
+        this.weakPatterns = weakPatterns;
+        this.minimumLength = policy.lengthThreshold(StrengthPolicy.Rule.LENGTH);
+        this.longLength = policy.lengthThreshold(StrengthPolicy.Rule.LONG);
+        this.veryLongLength = policy.lengthThreshold(StrengthPolicy.Rule.VERY_LONG);
+        this.maxRun = policy.maxRun();
+        
+        for (char c = 'a'; c <= 'z'; c++) {
+            characterClasses[c] = LOWERCASE;
+        }
+        for (char c = 'A'; c <= 'Z'; c++) {
+            characterClasses[c] = UPPERCASE;
+        }
+        for (char c = '0'; c <= '9'; c++) {
+            characterClasses[c] = DIGIT;
+        }
+        for (char c : policy.specialCharacters().toCharArray()) {
+            characterClasses[c] = SPECIAL;
+        }
+        
+        // Score every mask once; rules with no weight never count as failed
+        StrengthPolicy.Rule[] rules = StrengthPolicy.Rule.values();
+        int weighted = 0;
+        for (int i = 0; i < StrengthPolicy.Rule.SCORED; i++) {
+            if (policy.weight(rules[i]) > 0) {
+                weighted |= rules[i].bit();
+            }
+        }
+        for (int criteria = 0; criteria <= ALL_CRITERIA; criteria++) {
+            int score = 0;
+            for (int i = 0; i < StrengthPolicy.Rule.SCORED; i++) {
+                if ((criteria & rules[i].bit()) != 0) {
+                    score += policy.weight(rules[i]);
+                }
+            }
+            int failed = ~criteria & weighted;
+            results[criteria] = new Result(criteria, score, policy.verdict(score), failed);
+            blocklistedResults[criteria] = new Result(criteria, 0, policy.verdict(0),
+                failed | StrengthPolicy.Rule.NOT_BLOCKLISTED.bit());
+        }
+    }
+
+    /**
+     * Evaluates all criteria in a single pass over the password
+     * 
+     * @param password The password to evaluate
+     * @return Bit mask of satisfied criteria
+     */
+    public int evaluate(CharSequence password) {
+        int length = password.length();
+        int criteria = lengthCriteria(length) | NO_REPEATING | NO_COMMON_PATTERN;
+        int state = PatternAutomaton.START;
+        int run = 0;
+        char previous = 0;
+        
+        for (int i = 0; i < length; i++) {
+            char c = password.charAt(i);
+            criteria |= characterClass(c);
+            
+            run = (i > 0 && c == previous) ? run + 1 : 1;
+            if (run > maxRun) {
+                criteria &= ~NO_REPEATING;
+            }
+            previous = c;
+            
+            state = weakPatterns.next(state, c);
+            if (weakPatterns.isMatch(state)) {
+                criteria &= ~NO_COMMON_PATTERN;
+            }
+        }
+        
+        return criteria;
+    }
+
+    /**
+     * Evaluates all criteria in a single pass over part of a character array
+     * 
+     * @param chars Characters holding the password
+     * @param offset Index of the first password character
+     * @param length Number of password characters
+     * @return Bit mask of satisfied criteria
+     */
+    public int evaluate(char[] chars, int offset, int length) {
+        int criteria = lengthCriteria(length) | NO_REPEATING | NO_COMMON_PATTERN;
+        int state = PatternAutomaton.START;
+        int run = 0;
+        char previous = 0;
+        
+        for (int i = offset; i < offset + length; i++) {
+            char c = chars[i];
+            criteria |= characterClass(c);
+            
+            run = (i > offset && c == previous) ? run + 1 : 1;
+            if (run > maxRun) {
+                criteria &= ~NO_REPEATING;
+            }
+            previous = c;
+            
+            state = weakPatterns.next(state, c);
+            if (weakPatterns.isMatch(state)) {
+                criteria &= ~NO_COMMON_PATTERN;
+            }
+        }
+        
+        return criteria;
+    }
+
+    /**
+     * Looks up the precomputed result of a criteria mask, without allocating
+     * 
+     * @param criteria Bit mask of satisfied criteria, as returned by {@link #evaluate(CharSequence)}
+     * @param blocklisted Whether the password is on the common-password blocklist
+     * @return Score, verdict and failed rules under this evaluator's policy
+     */
+    public Result result(int criteria, boolean blocklisted) {
+        return (blocklisted ? blocklistedResults : results)[criteria & ALL_CRITERIA];
+    }
+
+    /**
+     * @return Policy this evaluator was compiled from
+     */
+    public StrengthPolicy policy() {
+        return policy;
+    }
+
+    /**
+     * @return Compiled weak patterns this evaluator scans for
+     */
+    PatternAutomaton weakPatterns() {
+        return weakPatterns;
+    }
+
+    /**
+     * @return Longest run of one character that is not a repetition
+     */
+    int maxRun() {
+        return maxRun;
+    }
+
+    /**
+     * @return Length criteria bits satisfied by a password of the given length
+     */
+    int lengthCriteria(int length) {
+        int criteria = 0;
+        if (length >= minimumLength) criteria |= LENGTH_8;
+        if (length >= longLength) criteria |= LENGTH_12;
+        if (length >= veryLongLength) criteria |= LENGTH_16;
+        return criteria;
+    }
+
+    /**
+     * @return Character class criteria bit of a character, 0 if it has none
+     */
+    int characterClass(char c) {
+        return c < 128 ? characterClasses[c] : 0;
+    }
+
+    /**
+     * Outcome of one evaluation; one instance per criteria mask is shared by all callers
+     */
+    public static final class Result {
+        private final int criteria;
+        private final int score;
+        private final StrengthPolicy.Verdict verdict;
+        private final int failed;
+        private final Set<StrengthPolicy.Rule> failedRules;
+
+        Result(int criteria, int score, StrengthPolicy.Verdict verdict, int failed) {
+            this.criteria = criteria;
+            this.score = score;
+            this.verdict = verdict;
+            this.failed = failed;
+            EnumSet<StrengthPolicy.Rule> rules = EnumSet.noneOf(StrengthPolicy.Rule.class);
+            for (StrengthPolicy.Rule rule : StrengthPolicy.Rule.values()) {
+                if ((failed & rule.bit()) != 0) {
+                    rules.add(rule);
+                }
+            }
+            this.failedRules = Collections.unmodifiableSet(rules);
+        }
+
+        /**
+         * @return Sum of the weights of the satisfied rules, 0 if blocklisted
+         */
+        public int score() {
+            return score;
+        }
+
+        public StrengthPolicy.Verdict verdict() {
+            return verdict;
+        }
+
+        /**
+         * @return Bit mask of the satisfied criteria
+         */
+        public int criteria() {
+            return criteria;
+        }
+
+        /**
+         * @return true if the rule carries weight and the password breaks it
+         */
+        public boolean failed(StrengthPolicy.Rule rule) {
+            return (failed & rule.bit()) != 0;
+        }
+
+        /**
+         * @return Weighted rules the password breaks, including {@link StrengthPolicy.Rule#NOT_BLOCKLISTED}
+         */
+        public Set<StrengthPolicy.Rule> failedRules() {
+            return failedRules;
+        }
+
+        @Override
+        public String toString() {
+            return verdict.label() + " (score " + score + ", failed " + failedRules + ")";
+        }
+    }
+}
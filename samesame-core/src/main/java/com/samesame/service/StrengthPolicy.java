@@ -0,0 +1,513 @@
+package com.samesame.service;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Properties;
+
+/**
+ * Declarative password strength policy
+ *
+ * A policy names the length thresholds, the special characters, the
+ * longest allowed run of one character, the weak patterns, a weight per
+ * rule and the highest score of each verdict. It is read from a properties
+ * or JSON file once and {@link #compile() compiled} into a
+ * {@link StrengthEvaluator}, whose tables make a custom policy exactly as
+ * cheap to evaluate as the built-in one.
+ *
+ * Properties use the keys below; JSON uses the same names as nested
+ * objects, e.g. {@code {"length": {"minimum": 10}, "weight": {"digit": 2}}},
+ * and arrays for the weak patterns. Missing keys keep their default values,
+ * unknown keys are rejected.
+ *
+ * <pre>
+ * length.minimum=8
+ * length.long=12
+ * length.veryLong=16
+ * characters.special=!@#$%^&amp;*()_+-=[]{};':,.&lt;&gt;?
+ * repeat.maxRun=2
+ * weakPatterns=123,abc,qwe,asd,zxc,password,admin,user,login,000,111,222,333
+ * weight.digit=1
+ * verdict.weak=2
+ * verdict.medium=4
+ * verdict.strong=6
+ * </pre>
+ *
+ * Instances are immutable.
+ */
+public final class StrengthPolicy {
+
+    /** System property naming the policy file to load at startup */
+    public static final String POLICY_PROPERTY = "samesame.strengthPolicy";
+
+    /** Largest weight of a single rule */
+    public static final int MAX_WEIGHT = 100;
+
+    /**
+     * Rules a password is scored on, in the order of the {@link StrengthEvaluator} criteria bits
+     */
+    public enum Rule {
+        LENGTH("length"),
+        LONG("long"),
+        VERY_LONG("veryLong"),
+        LOWERCASE("lowercase"),
+        UPPERCASE("uppercase"),
+        DIGIT("digit"),
+        SPECIAL("special"),
+        NO_REPEATING("noRepeating"),
+        NO_COMMON_PATTERN("noCommonPattern"),
+        /** Not weighted: a blocklisted password always scores 0 */
+        NOT_BLOCKLISTED("notBlocklisted");
+
+        /** Rules that add their weight to the score when satisfied */
+        static final int SCORED = 9;
+
+        private final String key;
+
+        Rule(String key) {
+            this.key = key;
+        }
+
+        /**
+         * @return Criteria bit of the rule
+         */
+        public int bit() {
+            return 1 << ordinal();
+        }
+
+        /**
+         * @return Name of the rule in policy files, e.g. "noRepeating"
+         */
+        public String key() {
+            return key;
+        }
+    }
+
+    /**
+     * Strength verdicts, weakest first
+     */
+    public enum Verdict {
+        WEAK("Weak"),
+        MEDIUM("Medium"),
+        STRONG("Strong"),
+        VERY_STRONG("Very Strong");
+
+        private final String label;
+
+        Verdict(String label) {
+            this.label = label;
+        }
+
+        /**
+         * @return Verdict as displayed, e.g. "Very Strong"
+         */
+        public String label() {
+            return label;
+        }
+    }
+
+    private static final StrengthPolicy DEFAULT = new StrengthPolicy(
+        new int[] {8, 12, 16}, "!@#$%^&*()_+-=[]{};':,.<>?", StrengthEvaluator.MAX_RUN,
+        StrengthEvaluator.WEAK_PATTERNS, new int[] {1, 1, 1, 1, 1, 1, 1, 1, 1}, new int[] {2, 4, 6});
+
+    private static final String[] LENGTH_KEYS = {"length.minimum", "length.long", "length.veryLong"};
+    private static final String[] VERDICT_KEYS = {"verdict.weak", "verdict.medium", "verdict.strong"};
+
+    private final int[] lengths;
+    private final String specialCharacters;
+    private final int maxRun;
+    private final String[] weakPatterns;
+    private final int[] weights;
+    private final int[] verdictLimits;
+
+    private StrengthPolicy(int[] lengths, String specialCharacters, int maxRun, String[] weakPatterns,
+                           int[] weights, int[] verdictLimits) {
+        this.lengths = lengths;
+        this.specialCharacters = specialCharacters;
+        this.maxRun = maxRun;
+        this.weakPatterns = weakPatterns;
+        this.weights = weights;
+        this.verdictLimits = verdictLimits;
+    }
+
+    /**
+     * @return The built-in policy of {@link PasswordComparator#evaluatePasswordStrength(String)}
+     */
+    public static StrengthPolicy defaults() {
+        return DEFAULT;
+    }
+
+    /**
+     * Reads a policy file: JSON if its name ends in ".json", properties otherwise
+     *
+     * @throws IOException if the file cannot be read or does not hold a valid policy
+     */
+    public static StrengthPolicy load(Path file) throws IOException {
+        try {
+            if (file.getFileName().toString().toLowerCase(Locale.ROOT).endsWith(".json")) {
+                return fromJson(Files.readString(file, StandardCharsets.UTF_8));
+            }
+            Properties properties = new Properties();
+            try (Reader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+                properties.load(reader);
+            }
+            return fromProperties(properties);
+        } catch (IllegalArgumentException e) {
+            throw new IOException("Invalid strength policy " + file + ": " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Loads the policy named by the {@value #POLICY_PROPERTY} system property
+     *
+     * @return Policy, or null if the property is not set
+     * @throws IOException if the configured file cannot be read or is invalid
+     */
+    public static StrengthPolicy loadConfigured() throws IOException {
+        Path file = configuredFile();
+        return file == null ? null : load(file);
+    }
+
+    /**
+     * @return File named by the {@value #POLICY_PROPERTY} system property, or null
+     */
+    public static Path configuredFile() {
+        String file = System.getProperty(POLICY_PROPERTY);
+        return file == null || file.isBlank() ? null : Paths.get(file);
+    }
+
+    /**
+     * Reads a policy from properties; the weak patterns are comma-separated
+     *
+     * @throws IllegalArgumentException if a key is unknown or a value is invalid
+     */
+    public static StrengthPolicy fromProperties(Properties properties) {
+        Map<String, Object> values = new LinkedHashMap<>();
+        for (String key : properties.stringPropertyNames()) {
+            String value = properties.getProperty(key).trim();
+            values.put(key, key.equals("weakPatterns") ? splitList(value) : value);
+        }
+        return fromValues(values);
+    }
+
+    /**
+     * Reads a policy from a JSON object
+     *
+     * @throws IllegalArgumentException if the JSON is malformed, a key is unknown or a value is invalid
+     */
+    public static StrengthPolicy fromJson(CharSequence json) {
+        Map<String, Object> values = new LinkedHashMap<>();
+        new JsonReader(json).readDocument(values);
+        return fromValues(values);
+    }
+
+    private static StrengthPolicy fromValues(Map<String, Object> values) {
+        int[] lengths = DEFAULT.lengths.clone();
+        String specialCharacters = DEFAULT.specialCharacters;
+        int maxRun = DEFAULT.maxRun;
+        String[] weakPatterns = DEFAULT.weakPatterns;
+        int[] weights = DEFAULT.weights.clone();
+        int[] verdictLimits = DEFAULT.verdictLimits.clone();
+
+        for (Map.Entry<String, Object> entry : values.entrySet()) {
+            String key = entry.getKey();
+            Object value = entry.getValue();
+            int length = Arrays.asList(LENGTH_KEYS).indexOf(key);
+            int verdict = Arrays.asList(VERDICT_KEYS).indexOf(key);
+            if (length >= 0) {
+                lengths[length] = intValue(key, value, 0, Integer.MAX_VALUE);
+            } else if (verdict >= 0) {
+                verdictLimits[verdict] = intValue(key, value, 0, Rule.SCORED * MAX_WEIGHT);
+            } else if (key.equals("characters.special")) {
+                specialCharacters = stringValue(key, value);
+            } else if (key.equals("repeat.maxRun")) {
+                maxRun = intValue(key, value, 1, Integer.MAX_VALUE);
+            } else if (key.equals("weakPatterns")) {
+                if (!(value instanceof List)) {
+                    throw new IllegalArgumentException(key + " must be a list of patterns");
+                }
+                weakPatterns = ((List<?>) value).stream()
+                    .map(pattern -> weakPattern(key, pattern))
+                    .toArray(String[]::new);
+            } else if (key.startsWith("weight.")) {
+                weights[scoredRule(key).ordinal()] = intValue(key, value, 0, MAX_WEIGHT);
+            } else {
+                throw new IllegalArgumentException("Unknown policy key: " + key);
+            }
+        }
+
+        if (lengths[0] > lengths[1] || lengths[1] > lengths[2]) {
+            throw new IllegalArgumentException("Length thresholds must not decrease: " + Arrays.toString(lengths));
+        }
+        if (verdictLimits[0] > verdictLimits[1] || verdictLimits[1] > verdictLimits[2]) {
+            throw new IllegalArgumentException("Verdict limits must not decrease: " + Arrays.toString(verdictLimits));
+        }
+        for (int i = 0; i < specialCharacters.length(); i++) {
+            char c = specialCharacters.charAt(i);
+            if (c >= 128 || Character.isLetterOrDigit(c)) {
+                throw new IllegalArgumentException("Special characters must be ASCII symbols: " + c);
+            }
+        }
+        return new StrengthPolicy(lengths, specialCharacters, maxRun, weakPatterns, weights, verdictLimits);
+    }
+
+    /**
+     * Checks a pattern here, so that a loaded policy always compiles
+     */
+    private static String weakPattern(String key, Object value) {
+        String pattern = stringValue(key, value).toLowerCase(Locale.ROOT);
+        if (pattern.isEmpty()) {
+            throw new IllegalArgumentException("Weak patterns must not be empty");
+        }
+        for (int i = 0; i < pattern.length(); i++) {
+            if (pattern.charAt(i) >= 128) {
+                throw new IllegalArgumentException("Weak patterns must be ASCII: " + pattern);
+            }
+        }
+        return pattern;
+    }
+
+    private static Rule scoredRule(String key) {
+        String name = key.substring("weight.".length());
+        for (Rule rule : Rule.values()) {
+            if (rule.key.equals(name) && rule.ordinal() < Rule.SCORED) {
+                return rule;
+            }
+        }
+        throw new IllegalArgumentException("Unknown policy key: " + key);
+    }
+
+    private static int intValue(String key, Object value, int min, int max) {
+        int number;
+        try {
+            number = Integer.parseInt(stringValue(key, value));
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException(key + " must be a whole number: " + value);
+        }
+        if (number < min || number > max) {
+            throw new IllegalArgumentException(key + " must be between " + min + " and " + max + ": " + number);
+        }
+        return number;
+    }
+
+    private static String stringValue(String key, Object value) {
+        if (!(value instanceof String)) {
+            throw new IllegalArgumentException(key + " must be a single value");
+        }
+        return (String) value;
+    }
+
+    private static List<String> splitList(String value) {
+        List<String> items = new ArrayList<>();
+        for (String item : value.split(",")) {
+            if (!item.isBlank()) {
+                items.add(item.trim());
+            }
+        }
+        return items;
+    }
+
+    /**
+     * Compiles the policy into character, length, score and verdict tables
+     * Never fails: every value, weak patterns included, was checked when the policy was read
+     */
+    public StrengthEvaluator compile() {
+        return new StrengthEvaluator(this);
+    }
+
+    /**
+     * @return Shortest length satisfying {@link Rule#LENGTH}, {@link Rule#LONG} or {@link Rule#VERY_LONG}
+     */
+    public int lengthThreshold(Rule rule) {
+        if (rule.ordinal() > Rule.VERY_LONG.ordinal()) {
+            throw new IllegalArgumentException("Not a length rule: " + rule);
+        }
+        return lengths[rule.ordinal()];
+    }
+
+    /**
+     * @return ASCII characters that satisfy {@link Rule#SPECIAL}
+     */
+    public String specialCharacters() {
+        return specialCharacters;
+    }
+
+    /**
+     * @return Longest run of one character that still satisfies {@link Rule#NO_REPEATING}
+     */
+    public int maxRun() {
+        return maxRun;
+    }
+
+    /**
+     * @return Lowercase patterns that break {@link Rule#NO_COMMON_PATTERN}
+     */
+    public String[] weakPatterns() {
+        return weakPatterns.clone();
+    }
+
+    /**
+     * @return Points a satisfied rule adds to the score; 0 for {@link Rule#NOT_BLOCKLISTED}
+     */
+    public int weight(Rule rule) {
+        return rule.ordinal() < Rule.SCORED ? weights[rule.ordinal()] : 0;
+    }
+
+    /**
+     * @return Verdict of a score
+     */
+    public Verdict verdict(int score) {
+        for (int i = 0; i < verdictLimits.length; i++) {
+            if (score <= verdictLimits[i]) {
+                return Verdict.values()[i];
+            }
+        }
+        return Verdict.VERY_STRONG;
+    }
+
+    /**
+     * Minimal JSON reader that flattens nested objects into dotted keys
+     * Numbers and booleans are kept as their text; arrays may hold strings only.
+     */
+    private static final class JsonReader {
+        private final CharSequence json;
+        private int position;
+
+        JsonReader(CharSequence json) {
+            this.json = json;
+        }
+
+        void readDocument(Map<String, Object> values) {
+            readObject("", values);
+            skipWhitespace();
+            if (position < json.length()) {
+                throw error("Unexpected text after the policy object");
+            }
+        }
+
+        private void readObject(String prefix, Map<String, Object> values) {
+            expect('{');
+            if (peek() == '}') {
+                position++;
+                return;
+            }
+            do {
+                String key = prefix + readString();
+                expect(':');
+                char next = peek();
+                if (next == '{') {
+                    readObject(key + ".", values);
+                } else if (next == '[') {
+                    values.put(key, readArray());
+                } else if (next == '"') {
+                    values.put(key, readString());
+                } else {
+                    values.put(key, readLiteral());
+                }
+            } while (consume(','));
+            expect('}');
+        }
+
+        private List<String> readArray() {
+            expect('[');
+            List<String> items = new ArrayList<>();
+            if (peek() == ']') {
+                position++;
+                return items;
+            }
+            do {
+                items.add(readString());
+            } while (consume(','));
+            expect(']');
+            return items;
+        }
+
+        private String readString() {
+            expect('"');
+            StringBuilder builder = new StringBuilder();
+            while (position < json.length()) {
+                char c = json.charAt(position++);
+                if (c == '"') {
+                    return builder.toString();
+                }
+                if (c != '\\') {
+                    builder.append(c);
+                    continue;
+                }
+                if (position >= json.length()) {
+                    break;
+                }
+                char escaped = json.charAt(position++);
+                switch (escaped) {
+                    case 'b': builder.append('\b'); break;
+                    case 'f': builder.append('\f'); break;
+                    case 'n': builder.append('\n'); break;
+                    case 'r': builder.append('\r'); break;
+                    case 't': builder.append('\t'); break;
+                    case 'u':
+                        if (position + 4 > json.length()) {
+                            throw error("Truncated escape");
+                        }
+                        try {
+                            builder.append((char) Integer.parseInt(json.subSequence(position, position + 4).toString(), 16));
+                        } catch (NumberFormatException e) {
+                            throw error("Invalid escape");
+                        }
+                        position += 4;
+                        break;
+                    default: builder.append(escaped);
+                }
+            }
+            throw error("Unterminated string");
+        }
+
+        private String readLiteral() {
+            int start = position;
+            while (position < json.length() && "{}[],:\" \t\r\n".indexOf(json.charAt(position)) < 0) {
+                position++;
+            }
+            if (start == position) {
+                throw error("Expected a value");
+            }
+            return json.subSequence(start, position).toString();
+        }
+
+        private boolean consume(char c) {
+            if (peek() == c) {
+                position++;
+                return true;
+            }
+            return false;
+        }
+
+        private void expect(char c) {
+            if (!consume(c)) {
+                throw error("Expected '" + c + "'");
+            }
+        }
+
+        private char peek() {
+            skipWhitespace();
+            return position < json.length() ? json.charAt(position) : 0;
+        }
+
+        private void skipWhitespace() {
+            while (position < json.length() && Character.isWhitespace(json.charAt(position))) {
+                position++;
+            }
+        }
+
+        private IllegalArgumentException error(String message) {
+            return new IllegalArgumentException(message + " at offset " + position);
+        }
+    }
+}
@@ -0,0 +1,101 @@
+package com.samesame.service;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.time.Duration;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Reloads a strength policy file whenever it changes
+ *
+ * Polls the file's modification time and size on a single daemon thread.
+ * A changed file is parsed and compiled on that thread and then swapped
+ * into the comparator with {@link PasswordComparator#setStrengthPolicy},
+ * so evaluations in flight are never blocked. A file that fails to load
+ * leaves the current policy in place.
+ */
+public final class StrengthPolicyReloader implements Closeable {
+
+    private final PasswordComparator passwordComparator;
+    private final Path file;
+    private final Consumer<String> log;
+    private final ScheduledExecutorService scheduler;
+    private long modified;
+    private long size;
+
+    /**
+     * Loads the policy now, then starts watching the file
+     *
+     * @param passwordComparator Comparator whose policy is replaced
+     * @param file Properties or JSON policy file
+     * @param interval Time between checks
+     * @param log Receives a line for every reload and every failed reload
+     * @throws IOException if the policy cannot be loaded the first time
+     */
+    public StrengthPolicyReloader(PasswordComparator passwordComparator, Path file, Duration interval,
+                                  Consumer<String> log) throws IOException {
+        if (interval.isNegative() || interval.isZero()) {
+            throw new IllegalArgumentException("Reload interval must be positive");
+        }
+        this.passwordComparator = passwordComparator;
+        this.file = file;
+        this.log = log;
+        load();
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "samesame-policy");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long millis = interval.toMillis();
+        scheduler.scheduleWithFixedDelay(this::check, millis, millis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Reloads the policy if the file changed since the last load
+     *
+     * @return true if a new policy was swapped in
+     */
+    public synchronized boolean check() {
+        try {
+            BasicFileAttributes attributes = Files.readAttributes(file, BasicFileAttributes.class);
+            if (attributes.lastModifiedTime().toMillis() == modified && attributes.size() == size) {
+                return false;
+            }
+            load();
+            log.accept("Strength policy reloaded from " + file);
+            return true;
+        } catch (IOException | RuntimeException e) {
+            // Keep the current policy until the file is fixed
+            log.accept("Strength policy not reloaded: " + e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * Reads the file and its attributes, then swaps in the compiled policy
+     */
+    private synchronized void load() throws IOException {
+        BasicFileAttributes attributes = Files.readAttributes(file, BasicFileAttributes.class);
+        try {
+            passwordComparator.setStrengthPolicy(StrengthPolicy.load(file));
+        } finally {
+            // A broken file is reported once, not on every check, until it changes again
+            modified = attributes.lastModifiedTime().toMillis();
+            size = attributes.size();
+        }
+    }
+
+    /**
+     * Stops watching; the current policy stays in effect
+     */
+    @Override
+    public void close() {
+        scheduler.shutdownNow();
+    }
+}
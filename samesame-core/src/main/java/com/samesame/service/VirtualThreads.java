@@ -0,0 +1,61 @@
+package com.samesame.service;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * Access to virtual threads without requiring them at compile time
+ * 
+ * The build targets Java 17, where virtual threads do not exist yet. On a
+ * Java 21+ runtime the factory methods are looked up reflectively once;
+ * on older runtimes a cached pool of daemon platform threads is used instead.
+ */
+public final class VirtualThreads {
+
+    private static final MethodHandle NEW_VIRTUAL_EXECUTOR = findVirtualExecutorFactory();
+
+    private VirtualThreads() {
+    }
+
+    /**
+     * @return true if the running JVM supports virtual threads
+     */
+    public static boolean isSupported() {
+        return NEW_VIRTUAL_EXECUTOR != null;
+    }
+
+    /**
+     * Creates an executor that starts a new virtual thread for each task,
+     * or a cached daemon thread pool where virtual threads are unavailable
+     * 
+     * @param name Thread name used by the platform-thread fallback
+     */
+    public static ExecutorService newThreadPerTaskExecutor(String name) {
+        if (NEW_VIRTUAL_EXECUTOR != null) {
+            try {
+                return (ExecutorService) NEW_VIRTUAL_EXECUTOR.invokeExact();
+            } catch (Throwable e) {
+                throw new IllegalStateException("Could not create virtual thread executor", e);
+            }
+        }
+        ThreadFactory factory = runnable -> {
+            Thread thread = new Thread(runnable, name);
+            thread.setDaemon(true);
+            return thread;
+        };
+        return Executors.newCachedThreadPool(factory);
+    }
+
+    private static MethodHandle findVirtualExecutorFactory() {
+        try {
+            return MethodHandles.publicLookup().findStatic(Executors.class,
+                "newVirtualThreadPerTaskExecutor", MethodType.methodType(ExecutorService.class));
+        } catch (NoSuchMethodException | IllegalAccessException e) {
+            return null;
+        }
+    }
+}
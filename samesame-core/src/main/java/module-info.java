@@ -0,0 +1,21 @@
+/**
+ * Headless SameSame core: comparison, strength, hashing, metrics and the HTTP service
+ *
+ * Depends on nothing outside the JDK, so jlink can build a runtime image from
+ * this module alone (see the jlink profile in pom.xml). The Vector API is
+ * optional: ConstantTime only uses it when the JVM was started with
+ * {@code --add-modules jdk.incubator.vector}.
+ */
+module com.samesame.core {
+    // Both appear in the exported API: ObjectName and the event superclass
+    requires transitive java.management;
+    requires transitive jdk.jfr;
+    requires jdk.httpserver;
+    // Unsafe.invokeCleaner unmaps file windows in FileComparator
+    requires jdk.unsupported;
+    requires static jdk.incubator.vector;
+
+    exports com.samesame.service;
+    exports com.samesame.metrics;
+    exports com.samesame.server;
+}
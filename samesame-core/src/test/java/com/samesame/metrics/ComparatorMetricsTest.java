@@ -0,0 +1,146 @@
+package com.samesame.metrics;
+
+import com.samesame.service.PasswordComparator;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.DisplayName;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import javax.management.openmbean.CompositeData;
+import javax.management.openmbean.TabularData;
+import java.lang.management.ManagementFactory;
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests the latency histogram, the comparator instrumentation and the JMX export
+ */
+class ComparatorMetricsTest {
+
+    @Test
+    @DisplayName("Should place values in log-linear buckets within 12.5%")
+    void testBucketBounds() {
+        for (long value : new long[] {0, 1, 15, 16, 17, 31, 32, 100, 1_000, 65_535, 1_000_000_007L}) {
+            int index = LatencyHistogram.bucketIndex(value);
+            long lower = LatencyHistogram.bucketLowerBound(index);
+            long upper = LatencyHistogram.bucketLowerBound(index + 1);
+            assertTrue(lower <= value && value < upper, value + " outside [" + lower + ", " + upper + ")");
+            assertTrue(upper - lower <= Math.max(1, lower / 8), "Bucket of " + value + " is too wide");
+        }
+    }
+
+    @Test
+    @DisplayName("Should report percentiles of recorded latencies")
+    void testPercentiles() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (int i = 1; i <= 1_000; i++) {
+            histogram.record(i * 1_000L);
+        }
+        histogram.record(-5);
+
+        LatencyHistogram.Snapshot snapshot = histogram.snapshot();
+        assertEquals(1_001, snapshot.count());
+        assertEquals(500_000, snapshot.percentileNanos(50), 500_000 / 8.0);
+        assertEquals(990_000, snapshot.percentileNanos(99), 990_000 / 8.0);
+        assertTrue(snapshot.maxNanos() >= 1_000_000);
+        assertEquals(0, new LatencyHistogram().snapshot().percentileNanos(99));
+    }
+
+    @Test
+    @DisplayName("Should count every operation by outcome")
+    void testComparatorCounts() {
+        ComparatorMetrics metrics = new ComparatorMetrics(1);
+        PasswordComparator passwordComparator = new PasswordComparator();
+        passwordComparator.setMetrics(metrics);
+
+        passwordComparator.comparePasswords("Secret1!", "Secret1!");
+        passwordComparator.compareChars("a".toCharArray(), "b".toCharArray());
+        passwordComparator.compareBytes((byte[]) null, new byte[0]);
+        passwordComparator.evaluatePasswordStrength("abc");
+        passwordComparator.evaluatePasswordStrength("MyStr0ng!P@ssw0rd");
+        passwordComparator.evaluatePasswordStrength("");
+        passwordComparator.generateSecureHash("Secret1!");
+
+        assertEquals(1, metrics.count(ComparatorMetrics.Outcome.COMPARE_MATCH));
+        assertEquals(2, metrics.count(ComparatorMetrics.Outcome.COMPARE_MISMATCH));
+        assertEquals(1, metrics.count(ComparatorMetrics.Outcome.STRENGTH_WEAK));
+        assertEquals(1, metrics.count(ComparatorMetrics.Outcome.STRENGTH_VERY_STRONG));
+        assertEquals(1, metrics.count(ComparatorMetrics.Outcome.STRENGTH_EMPTY));
+        assertEquals(1, metrics.getHashes());
+        assertEquals(3, metrics.getComparisons());
+        assertEquals(3, metrics.getStrengthEvaluations());
+        // Every call is timed with a sample interval of 1
+        assertEquals(2, metrics.latency(ComparatorMetrics.Outcome.COMPARE_MISMATCH).count());
+
+        passwordComparator.setMetrics(null);
+        passwordComparator.comparePasswords("Secret1!", "Secret1!");
+        assertEquals(1, metrics.count(ComparatorMetrics.Outcome.COMPARE_MATCH));
+    }
+
+    @Test
+    @DisplayName("Should time only a sample of calls but count all of them")
+    void testSampling() {
+        ComparatorMetrics metrics = new ComparatorMetrics(16);
+        PasswordComparator passwordComparator = new PasswordComparator();
+        passwordComparator.setMetrics(metrics);
+        for (int i = 0; i < 16_000; i++) {
+            passwordComparator.comparePasswords("abc", "abd");
+        }
+
+        long sampled = metrics.latency(ComparatorMetrics.Outcome.COMPARE_MISMATCH).count();
+        assertEquals(16_000, metrics.count(ComparatorMetrics.Outcome.COMPARE_MISMATCH));
+        assertTrue(sampled > 500 && sampled < 1_500, "Expected about 1000 timed calls, got " + sampled);
+        assertThrows(IllegalArgumentException.class, () -> new ComparatorMetrics(3));
+    }
+
+    @Test
+    @DisplayName("Should expose the counters through the platform MBean server")
+    void testMBean() throws Exception {
+        ComparatorMetrics metrics = new ComparatorMetrics(1);
+        metrics.record(ComparatorMetrics.Outcome.COMPARE_MATCH, metrics.start());
+        metrics.record(ComparatorMetrics.Outcome.HASH, ComparatorMetrics.NOT_SAMPLED);
+
+        ObjectName name = metrics.register("com.samesame:type=ComparatorMetrics,name=test");
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            assertEquals(1L, server.getAttribute(name, "Comparisons"));
+            assertEquals(1L, server.getAttribute(name, "Hashes"));
+            TabularData counts = (TabularData) server.getAttribute(name, "Counts");
+            CompositeData match = counts.get(new Object[] {"compare.match"});
+            assertEquals(1L, match.get("value"));
+
+            server.invoke(name, "reset", null, null);
+            assertEquals(0L, server.getAttribute(name, "Comparisons"));
+            assertThrows(IllegalStateException.class, () -> metrics.register(name.toString()));
+        } finally {
+            ComparatorMetrics.unregister(name);
+        }
+        ComparatorMetrics.unregister(name);
+    }
+
+    @Test
+    @DisplayName("Should deliver periodic snapshots until closed")
+    void testReporter() throws InterruptedException {
+        ComparatorMetrics metrics = new ComparatorMetrics();
+        metrics.record(ComparatorMetrics.Outcome.STRENGTH_MEDIUM, ComparatorMetrics.NOT_SAMPLED);
+        CountDownLatch reports = new CountDownLatch(2);
+        StringBuilder last = new StringBuilder();
+
+        try (MetricsReporter reporter = new MetricsReporter(metrics, Duration.ofMillis(20), text -> {
+            synchronized (last) {
+                last.setLength(0);
+                last.append(text);
+            }
+            reports.countDown();
+        })) {
+            assertTrue(reports.await(5, TimeUnit.SECONDS));
+        }
+        synchronized (last) {
+            assertTrue(last.toString().contains("strength.medium"), last.toString());
+            assertTrue(last.toString().contains("count=1"), last.toString());
+        }
+    }
+}
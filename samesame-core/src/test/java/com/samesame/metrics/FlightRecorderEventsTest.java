@@ -0,0 +1,127 @@
+package com.samesame.metrics;
+
+import com.samesame.service.PasswordComparator;
+import jdk.jfr.Configuration;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests the Flight Recorder events, the bundled settings and the recording summary
+ */
+class FlightRecorderEventsTest {
+
+    private static final String SECRET = "CorrectHorse42!";
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    @DisplayName("Should record each operation with outcome and length bucket only")
+    void testEventsRecorded() throws Exception {
+        Path file = tempDir.resolve("samesame.jfr");
+        PasswordComparator passwordComparator = new PasswordComparator();
+
+        try (Recording recording = new Recording(bundledSettings())) {
+            Map<String, String> settings = new HashMap<>(recording.getSettings());
+            settings.put(CompareEvent.NAME + "#threshold", "0 ns");
+            settings.put(StrengthEvent.NAME + "#threshold", "0 ns");
+            settings.put(HashEvent.NAME + "#threshold", "0 ns");
+            recording.setSettings(settings);
+            recording.start();
+
+            passwordComparator.comparePasswords(SECRET, SECRET);
+            passwordComparator.comparePasswords(SECRET, "wrong");
+            passwordComparator.compareBytes(new byte[20], new byte[20]);
+            passwordComparator.evaluatePasswordStrength(SECRET);
+            passwordComparator.generateSecureHash(SECRET);
+
+            recording.stop();
+            recording.dump(file);
+        }
+
+        List<RecordedEvent> events = RecordingFile.readAllEvents(file);
+        long samesameEvents = 0;
+        for (RecordedEvent event : events) {
+            if (!event.getEventType().getName().startsWith("com.samesame.")) {
+                continue;
+            }
+            samesameEvents++;
+            assertTrue(event.hasField("outcome") && event.hasField("lengthBucket"));
+            assertNull(event.getStackTrace(), "Stack traces are off by default");
+            int bucket = event.getInt("lengthBucket");
+            assertEquals(Integer.highestOneBit(Math.max(1, bucket)), bucket, "Length should be a power of two");
+            assertFalse(event.toString().contains(SECRET), "Event leaks the secret: " + event);
+        }
+        assertEquals(5, samesameEvents);
+
+        Map<String, LatencyHistogram.Snapshot> latencies = RecordingSummary.read(file).latencies();
+        assertEquals(2, latencies.get("Compare match").count());
+        assertEquals(1, latencies.get("Compare mismatch").count());
+        assertEquals(1, latencies.get("StrengthEvaluate Very Strong").count());
+        assertEquals(1, latencies.get("Hash SHA-256").count());
+        assertTrue(RecordingSummary.read(file).format().contains("Compare mismatch"));
+    }
+
+    @Test
+    @DisplayName("Should drop events faster than the threshold")
+    void testThresholdsFilterFastCalls() throws Exception {
+        Path file = tempDir.resolve("threshold.jfr");
+        PasswordComparator passwordComparator = new PasswordComparator();
+
+        try (Recording recording = new Recording(bundledSettings())) {
+            Map<String, String> settings = new HashMap<>(recording.getSettings());
+            assertEquals("1 us", settings.get(CompareEvent.NAME + "#threshold"));
+            settings.put(CompareEvent.NAME + "#threshold", "1 s");
+            settings.put(StrengthEvent.NAME + "#threshold", "0 ns");
+            recording.setSettings(settings);
+            recording.start();
+            for (int i = 0; i < 1_000; i++) {
+                passwordComparator.comparePasswords("abc", "abd");
+            }
+            passwordComparator.evaluatePasswordStrength("abc");
+            recording.stop();
+            recording.dump(file);
+        }
+
+        Map<String, LatencyHistogram.Snapshot> latencies = RecordingSummary.read(file).latencies();
+        assertNull(latencies.get("Compare mismatch"));
+        assertEquals(1, latencies.get("StrengthEvaluate Weak").count());
+    }
+
+    @Test
+    @DisplayName("Should record nothing without a recording")
+    void testNoRecording() throws Exception {
+        Path file = tempDir.resolve("empty.jfr");
+        try (Recording recording = new Recording()) {
+            recording.start();
+            new PasswordComparator().comparePasswords(SECRET, SECRET);
+            recording.stop();
+            recording.dump(file);
+        }
+
+        // The events are disabled unless the settings enable them
+        assertTrue(RecordingSummary.read(file).latencies().isEmpty());
+        assertTrue(RecordingSummary.read(file).format().contains("No SameSame events"));
+    }
+
+    private static Configuration bundledSettings() throws Exception {
+        try (InputStream in = FlightRecorderEventsTest.class.getResourceAsStream("/jfr/samesame.jfc")) {
+            assertNotNull(in, "jfr/samesame.jfc should be on the classpath");
+            return Configuration.create(new InputStreamReader(in, StandardCharsets.UTF_8));
+        }
+    }
+}
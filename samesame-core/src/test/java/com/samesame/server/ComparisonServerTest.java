@@ -0,0 +1,129 @@
+package com.samesame.server;
+
+import com.samesame.metrics.ComparatorMetrics;
+import com.samesame.service.PasswordComparator;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests the HTTP service end to end over loopback
+ */
+class ComparisonServerTest {
+
+    private final PasswordComparator passwordComparator = new PasswordComparator();
+    private final HttpClient client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+    private ComparisonServer server;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        server = new ComparisonServer(passwordComparator, 4, 1024);
+        server.start(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0));
+    }
+
+    @AfterEach
+    void tearDown() {
+        server.stop();
+    }
+
+    @Test
+    @DisplayName("Should compare length-prefixed secrets")
+    void testCompare() throws Exception {
+        assertEquals("MATCH", post("/compare", compareBody("Password123!", "Password123!")).body());
+        assertEquals("MISMATCH", post("/compare", compareBody("Password123!", "Password123?")).body());
+        assertEquals("MISMATCH", post("/compare", compareBody("short", "longer")).body());
+        assertEquals("MATCH", post("/compare", compareBody("", "")).body());
+        assertEquals(400, post("/compare", new byte[] {0, 0, 0, 9, 1}).statusCode());
+    }
+
+    @Test
+    @DisplayName("Should reject hostile length prefixes without dropping the connection")
+    void testHostileLengthPrefix() throws Exception {
+        byte[] body = compareBody("secret", "secret");
+        for (int length1 : new int[] {Integer.MAX_VALUE, Integer.MAX_VALUE - 3, -1, Integer.MIN_VALUE, body.length}) {
+            ByteBuffer.wrap(body).putInt(0, length1);
+            assertEquals(400, post("/compare", body).statusCode(), String.valueOf(length1));
+        }
+        body = compareBody("secret", "secret");
+        ByteBuffer.wrap(body).putInt(10, Integer.MAX_VALUE);
+        assertEquals(400, post("/compare", body).statusCode());
+        assertEquals("MATCH", post("/compare", compareBody("secret", "secret")).body());
+    }
+
+    @Test
+    @DisplayName("Should return the same verdict as the service")
+    void testStrength() throws Exception {
+        for (String password : new String[] {"weak", "Password1", "P@ssw0rd!Secure", "Pässwörd#2024xyz"}) {
+            HttpResponse<String> response = post("/strength", password.getBytes(StandardCharsets.UTF_8));
+            assertEquals(200, response.statusCode());
+            assertEquals(passwordComparator.evaluatePasswordStrength(password), response.body());
+        }
+        assertEquals(400, post("/strength", new byte[] {(byte) 0xC3}).statusCode());
+    }
+
+    @Test
+    @DisplayName("Should hash the body with the requested algorithm and count it in the comparator's metrics")
+    void testHash() throws Exception {
+        ComparatorMetrics metrics = new ComparatorMetrics(1);
+        passwordComparator.setMetrics(metrics);
+        byte[] body = "test".getBytes(StandardCharsets.UTF_8);
+        assertEquals(passwordComparator.generateSecureHash("test"), post("/hash", body).body());
+        assertEquals("a94a8fe5ccb19ba61c4c0873d391e987982fbbd3", post("/hash?algorithm=SHA-1", body).body());
+        assertEquals(400, post("/hash?algorithm=MD5", body).statusCode());
+        // The direct generateSecureHash call above counts too
+        assertEquals(3, metrics.getHashes());
+    }
+
+    @Test
+    @DisplayName("Should reject oversized bodies and wrong methods")
+    void testLimits() throws Exception {
+        assertEquals(413, post("/strength", new byte[1025]).statusCode());
+        byte[] secret = new byte[1025];
+        Arrays.fill(secret, (byte) 's');
+        assertEquals(413, post("/strength", secret).statusCode());
+        // Buffers go back to the pool just after the response is sent
+        assertTimeoutPreemptively(Duration.ofSeconds(5), () -> {
+            while (!server.buffersCleared()) {
+                Thread.sleep(10);
+            }
+        });
+        assertEquals(200, post("/strength", new byte[1024]).statusCode());
+        HttpResponse<String> get = client.send(
+            HttpRequest.newBuilder(uri("/strength")).GET().build(), HttpResponse.BodyHandlers.ofString());
+        assertEquals(405, get.statusCode());
+        assertEquals("OK", client.send(
+            HttpRequest.newBuilder(uri("/health")).GET().build(), HttpResponse.BodyHandlers.ofString()).body());
+    }
+
+    private HttpResponse<String> post(String path, byte[] body) throws Exception {
+        HttpRequest request = HttpRequest.newBuilder(uri(path))
+            .POST(HttpRequest.BodyPublishers.ofByteArray(body)).build();
+        return client.send(request, HttpResponse.BodyHandlers.ofString());
+    }
+
+    private URI uri(String path) {
+        return URI.create("http://127.0.0.1:" + server.port() + path);
+    }
+
+    private static byte[] compareBody(String first, String second) {
+        byte[] a = first.getBytes(StandardCharsets.UTF_8);
+        byte[] b = second.getBytes(StandardCharsets.UTF_8);
+        return ByteBuffer.allocate(8 + a.length + b.length)
+            .putInt(a.length).put(a).putInt(b.length).put(b).array();
+    }
+}
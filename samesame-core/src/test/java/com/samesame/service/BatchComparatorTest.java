@@ -0,0 +1,111 @@
+package com.samesame.service;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for the streaming batch comparison mode
+ */
+class BatchComparatorTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    @DisplayName("Should compare TSV pairs across many small chunks in input order")
+    void testTsvInOrder() throws IOException {
+        SplittableRandom random = new SplittableRandom(3);
+        StringBuilder input = new StringBuilder();
+        List<String> expected = new ArrayList<>();
+        for (int row = 1; row <= 5_000; row++) {
+            String secret = "Pässwörd" + random.nextInt(1_000_000) + "🔒";
+            boolean match = random.nextBoolean();
+            input.append(secret).append('\t').append(match ? secret : secret + "x").append(row % 7 == 0 ? "\r\n" : "\n");
+            expected.add(row + "\t" + (match ? "MATCH" : "MISMATCH"));
+        }
+        input.append("no-delimiter");
+        expected.add("5001\tINVALID");
+
+        BatchComparator.Summary summary = run(input.toString().getBytes(StandardCharsets.UTF_8),
+            BatchComparator.Format.TSV, 4, 256, expected);
+        assertEquals(5_001, summary.rows());
+        assertEquals(1, summary.invalid());
+        assertEquals(5_000, summary.matches() + summary.mismatches());
+    }
+
+    @Test
+    @DisplayName("Should honour CSV quoting including embedded commas, quotes and newlines")
+    void testCsvQuoting() throws IOException {
+        String input = "abc,abc\n"
+            + "\"a,b\",\"a,b\"\n"
+            // Stray quotes inside an unquoted field are taken literally
+            + "\"say \"\"hi\"\"\",say \"hi\"\n"
+            + "\"multi\nline\",\"multi\nline\"\n"
+            + "\"x\",\"y\"\n"
+            + "\"broken,x\n"
+            + "one,two,three\n";
+        List<String> expected = List.of(
+            "1\tMATCH", "2\tMATCH", "3\tMATCH", "4\tMATCH", "5\tMISMATCH", "6\tINVALID");
+        BatchComparator.Summary summary = run(input.getBytes(StandardCharsets.UTF_8),
+            BatchComparator.Format.CSV, 2, 64, expected);
+        assertEquals(4, summary.matches());
+    }
+
+    @Test
+    @DisplayName("Should read length-prefixed binary pairs")
+    void testBinary() throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        List<String> expected = new ArrayList<>();
+        for (int row = 1; row <= 1_000; row++) {
+            byte[] secret = new byte[row % 50];
+            new SplittableRandom(row).nextBytes(secret);
+            byte[] other = secret.clone();
+            if (row % 3 == 0 && other.length > 0) {
+                other[other.length - 1] ^= 1;
+            }
+            out.writeInt(secret.length);
+            out.write(secret);
+            out.writeInt(other.length);
+            out.write(other);
+            expected.add(row + "\t" + (row % 3 == 0 && secret.length > 0 ? "MISMATCH" : "MATCH"));
+        }
+        run(bytes.toByteArray(), BatchComparator.Format.BINARY, 3, 128, expected);
+    }
+
+    @Test
+    @DisplayName("Should reject records larger than a chunk")
+    void testOversizedRecord() throws IOException {
+        Path input = tempDir.resolve("pairs.tsv");
+        Files.writeString(input, "a".repeat(500) + "\t" + "a".repeat(500) + "\n");
+        BatchComparator batch = new BatchComparator(new PasswordComparator(), 1, 128);
+        assertThrows(IOException.class, () -> batch.run(input, BatchComparator.Format.TSV, tempDir.resolve("out")));
+    }
+
+    private BatchComparator.Summary run(byte[] content, BatchComparator.Format format, int threads, int chunkSize,
+                                        List<String> expected) throws IOException {
+        Path input = tempDir.resolve("pairs");
+        Path output = tempDir.resolve("results");
+        Files.write(input, content);
+
+        BatchComparator batch = new BatchComparator(new PasswordComparator(), threads, chunkSize);
+        BatchComparator.Summary summary = batch.run(input, format, output);
+
+        assertEquals(expected, Files.readAllLines(output));
+        assertEquals(content.length, summary.bytes());
+        return summary;
+    }
+}
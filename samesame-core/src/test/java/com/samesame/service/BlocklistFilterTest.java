@@ -0,0 +1,73 @@
+package com.samesame.service;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for the off-heap blocked Bloom filter
+ */
+class BlocklistFilterTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    @DisplayName("Should have no false negatives and stay near the target false-positive rate")
+    void testFalsePositiveRate() {
+        BlocklistFilter filter = BlocklistFilter.create(100_000, 0.01);
+        for (int i = 0; i < 100_000; i++) {
+            filter.add("common" + i);
+        }
+        for (int i = 0; i < 100_000; i++) {
+            assertTrue(filter.mightContain("common" + i));
+        }
+
+        int falsePositives = 0;
+        for (int i = 0; i < 100_000; i++) {
+            if (filter.mightContain("unique" + i)) {
+                falsePositives++;
+            }
+        }
+        assertTrue(falsePositives < 2_000, "False-positive rate too high: " + falsePositives + " / 100000");
+        assertTrue(filter.bitsPerEntry() < 15, "Filter uses too much memory per entry");
+    }
+
+    @Test
+    @DisplayName("Should survive a save and map round trip")
+    void testSaveAndOpen() throws Exception {
+        BlocklistFilter filter = BlocklistFilter.create(1_000, 0.001);
+        filter.add("letmein");
+        filter.add("Pässwörd🔒");
+        Path file = tempDir.resolve("blocklist.bin");
+        filter.save(file);
+
+        try (BlocklistFilter mapped = BlocklistFilter.open(file)) {
+            assertEquals(2, mapped.size());
+            assertEquals(filter.memoryBytes(), mapped.memoryBytes());
+            assertTrue(mapped.mightContain("letmein"));
+            assertTrue(mapped.mightContain(new StringBuilder("Pässwörd🔒")));
+            assertFalse(mapped.mightContain("LetMeIn"));
+            assertThrows(java.nio.ReadOnlyBufferException.class, () -> mapped.add("other"));
+        }
+    }
+
+    @Test
+    @DisplayName("Should rate blocklisted passwords as weak")
+    void testStrengthIntegration() {
+        PasswordComparator passwordComparator = new PasswordComparator();
+        String password = "Tr0ub4dor&3XtremelySecure";
+        assertEquals("Very Strong", passwordComparator.evaluatePasswordStrength(password));
+
+        BlocklistFilter filter = BlocklistFilter.create(10, 0.001);
+        filter.add(password);
+        passwordComparator.setBlocklist(filter);
+        assertEquals("Weak", passwordComparator.evaluatePasswordStrength(password));
+        assertEquals("Very Strong", passwordComparator.evaluatePasswordStrength("MyVerySecureP@ssw0rd2023!"));
+        assertEquals("", passwordComparator.evaluatePasswordStrength(""));
+    }
+}
@@ -0,0 +1,177 @@
+package com.samesame.service;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for building and querying the memory-mapped breach index
+ */
+class BreachIndexTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    @DisplayName("Should find every digest of a multi-run build and reject others")
+    void testBuildAndLookup() throws Exception {
+        SplittableRandom random = new SplittableRandom(1);
+        List<byte[]> present = new ArrayList<>();
+        StringBuilder lines = new StringBuilder();
+        for (int i = 0; i < 5_000; i++) {
+            byte[] digest = randomDigest(random, 20);
+            present.add(digest);
+            lines.append(hex(digest)).append(':').append(random.nextInt(1000)).append('\n');
+            if (i % 10 == 0) {
+                // Duplicates across runs must be merged
+                lines.append(hex(digest).toLowerCase()).append("\r\n");
+            }
+        }
+        lines.append("not a digest\n").append("ABCDEF\n");
+        Path input = tempDir.resolve("hashes.txt");
+        Files.writeString(input, lines, StandardCharsets.US_ASCII);
+
+        // A tiny run size forces the external merge path
+        BreachIndexBuilder builder = new BreachIndexBuilder("SHA-1", 97, tempDir);
+        Path output = tempDir.resolve("breach.idx");
+        long written = builder.build(input, output);
+
+        assertEquals(5_000, written);
+        assertEquals(2, builder.linesSkipped());
+        try (BreachIndex index = BreachIndex.open(output)) {
+            assertEquals("SHA-1", index.algorithm());
+            assertEquals(5_000, index.size());
+            for (byte[] digest : present) {
+                assertTrue(index.contains(digest));
+            }
+            for (int i = 0; i < 5_000; i++) {
+                assertFalse(index.contains(randomDigest(random, 20)));
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("Should report breached passwords through PasswordComparator")
+    void testPasswordComparatorIntegration() throws Exception {
+        MessageDigest sha256 = MessageDigest.getInstance("SHA-256");
+        String lines = hex(sha256.digest("password123".getBytes(StandardCharsets.UTF_8))) + "\n"
+            + hex(sha256.digest("Pässwörd🔒".getBytes(StandardCharsets.UTF_8))) + "\n";
+        Path input = tempDir.resolve("hashes.txt");
+        Files.writeString(input, lines, StandardCharsets.US_ASCII);
+        Path output = tempDir.resolve("breach.idx");
+        new BreachIndexBuilder("SHA-256", BreachIndexBuilder.DEFAULT_RUN_SIZE, tempDir).build(input, output);
+
+        PasswordComparator passwordComparator = new PasswordComparator();
+        assertFalse(passwordComparator.hasBreachIndex());
+        assertThrows(IllegalStateException.class, () -> passwordComparator.isBreached("password123"));
+
+        try (BreachIndex index = BreachIndex.open(output)) {
+            passwordComparator.setBreachIndex(index);
+            assertTrue(passwordComparator.isBreached("password123"));
+            assertTrue(passwordComparator.isBreached("Pässwörd🔒"));
+            assertFalse(passwordComparator.isBreached("password124"));
+            assertFalse(passwordComparator.isBreached(""));
+
+            // Cached lookups give the same answers and are dropped with the index
+            passwordComparator.setEvaluationCache(new EvaluationCache(64));
+            for (int i = 0; i < 2; i++) {
+                assertTrue(passwordComparator.isBreached("password123"));
+                assertFalse(passwordComparator.isBreached("password124"));
+            }
+            assertEquals(2, passwordComparator.getEvaluationCache().stats().hits());
+            passwordComparator.setBreachIndex(index);
+            assertEquals(0, passwordComparator.getEvaluationCache().stats().size());
+        }
+    }
+
+    @Test
+    @DisplayName("Should reject files that are not breach indexes")
+    void testInvalidFile() throws Exception {
+        Path file = tempDir.resolve("bogus.idx");
+        Files.write(file, new byte[(int) BreachIndex.DATA_OFFSET]);
+        assertThrows(java.io.IOException.class, () -> BreachIndex.open(file));
+
+        // A valid header over a fan-out table pointing past the records
+        SplittableRandom random = new SplittableRandom(4);
+        StringBuilder lines = new StringBuilder();
+        for (int i = 0; i < 100; i++) {
+            lines.append(hex(randomDigest(random, 20))).append('\n');
+        }
+        Path input = Files.writeString(tempDir.resolve("hashes.txt"), lines, StandardCharsets.US_ASCII);
+        Path index = tempDir.resolve("breach.idx");
+        new BreachIndexBuilder("SHA-1", BreachIndexBuilder.DEFAULT_RUN_SIZE, tempDir).build(input, index);
+        for (long corrupt : new long[] {1_000_000L, -1L}) {
+            try (FileChannel channel = FileChannel.open(index, StandardOpenOption.WRITE)) {
+                ByteBuffer entry = ByteBuffer.allocate(Long.BYTES).putLong(0, corrupt);
+                channel.write(entry, BreachIndex.HEADER_SIZE + 0x8000 * 8L);
+            }
+            assertThrows(java.io.IOException.class, () -> BreachIndex.open(index), "fan-out entry " + corrupt);
+        }
+
+        // Entry counts that are negative, or wrap to the real file size when multiplied by 20
+        for (long corrupt : new long[] {-1L, 100L + (1L << 62)}) {
+            new BreachIndexBuilder("SHA-1", BreachIndexBuilder.DEFAULT_RUN_SIZE, tempDir).build(input, index);
+            try (FileChannel channel = FileChannel.open(index, StandardOpenOption.WRITE)) {
+                channel.write(ByteBuffer.allocate(Long.BYTES).putLong(0, corrupt), 16);
+                channel.write(ByteBuffer.allocate(Long.BYTES).putLong(0, corrupt),
+                    BreachIndex.HEADER_SIZE + (BreachIndex.FANOUT_ENTRIES - 1) * 8L);
+            }
+            assertThrows(java.io.IOException.class, () -> BreachIndex.open(index), "entry count " + corrupt);
+        }
+
+        // A run must fit one array
+        assertThrows(IllegalArgumentException.class,
+            () -> new BreachIndexBuilder("SHA-1", Integer.MAX_VALUE / 20 + 1, tempDir));
+    }
+
+    @Test
+    @DisplayName("Should sort runs made mostly of repeated digests in linear-logarithmic time")
+    void testDuplicateHeavyInput() throws Exception {
+        SplittableRandom random = new SplittableRandom(7);
+        String[] digests = {hex(randomDigest(random, 20)), hex(randomDigest(random, 20)), hex(randomDigest(random, 20))};
+        StringBuilder lines = new StringBuilder();
+        for (int i = 0; i < 300_000; i++) {
+            lines.append(digests[i % 7 == 0 ? 2 : i % 2]).append('\n');
+        }
+        Path input = Files.writeString(tempDir.resolve("hashes.txt"), lines, StandardCharsets.US_ASCII);
+        Path output = tempDir.resolve("breach.idx");
+
+        // A single run holding every line; a two-way partition needs minutes here
+        long written = assertTimeoutPreemptively(Duration.ofSeconds(20),
+            () -> new BreachIndexBuilder("SHA-1", 300_000, tempDir).build(input, output));
+        assertEquals(3, written);
+        try (BreachIndex index = BreachIndex.open(output)) {
+            assertEquals(3, index.size());
+        }
+    }
+
+    private static byte[] randomDigest(SplittableRandom random, int length) {
+        byte[] digest = new byte[length];
+        for (int i = 0; i < length; i++) {
+            digest[i] = (byte) random.nextInt(256);
+        }
+        return digest;
+    }
+
+    private static String hex(byte[] bytes) {
+        StringBuilder builder = new StringBuilder();
+        for (byte b : bytes) {
+            builder.append(String.format("%02X", b));
+        }
+        return builder.toString();
+    }
+}
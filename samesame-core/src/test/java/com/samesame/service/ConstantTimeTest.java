@@ -0,0 +1,94 @@
+package com.samesame.service;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.DisplayName;
+
+import java.nio.ByteBuffer;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests that the vectorized comparison agrees with the scalar one
+ */
+class ConstantTimeTest {
+
+    private final Random random = new Random(14);
+
+    @Test
+    @DisplayName("Should agree with the scalar comparison for random lengths and differences")
+    void testEquivalenceWithScalar() {
+        for (int round = 0; round < 2_000; round++) {
+            byte[] a = new byte[random.nextInt(5_000)];
+            random.nextBytes(a);
+            byte[] b = a.clone();
+            if (b.length > 0 && random.nextBoolean()) {
+                b[random.nextInt(b.length)] ^= (byte) (1 + random.nextInt(255));
+            }
+
+            boolean expected = ConstantTime.scalarEquals(a, b);
+            assertEquals(expected, ConstantTime.equals(a, b), "Length " + a.length);
+            assertEquals(expected, ConstantTime.equals(ByteBuffer.wrap(a), ByteBuffer.wrap(b)));
+        }
+    }
+
+    @Test
+    @DisplayName("Should detect a difference in any byte around the vector boundaries")
+    void testDifferenceAtEveryPositionNearLaneBoundaries() {
+        int lanes = ConstantTime.bytesPerStep();
+        for (int length : new int[] {lanes - 1, lanes, lanes + 1, 2 * lanes, 3 * lanes + 7, 257}) {
+            if (length <= 0) {
+                continue;
+            }
+            byte[] a = new byte[length];
+            random.nextBytes(a);
+            assertTrue(ConstantTime.equals(a, a.clone()));
+            for (int i = 0; i < length; i++) {
+                byte[] b = a.clone();
+                b[i] ^= (byte) 0x80;
+                assertFalse(ConstantTime.equals(a, b), "Difference at " + i + " of " + length);
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("Should compare the remaining bytes of heap and direct buffers without moving them")
+    void testBuffers() {
+        byte[] secret = new byte[1_000];
+        random.nextBytes(secret);
+
+        ByteBuffer heap = ByteBuffer.allocate(secret.length + 13);
+        heap.position(13);
+        heap.put(secret).position(13);
+        ByteBuffer direct = ByteBuffer.allocateDirect(secret.length + 5);
+        direct.position(5);
+        direct.put(secret).position(5);
+
+        assertTrue(ConstantTime.equals(heap, direct));
+        assertTrue(ConstantTime.scalarEquals(heap, direct));
+        assertEquals(13, heap.position());
+        assertEquals(5, direct.position());
+
+        direct.put(direct.limit() - 1, (byte) (secret[secret.length - 1] + 1));
+        assertFalse(ConstantTime.equals(heap, direct));
+
+        direct.limit(direct.limit() - 1);
+        assertFalse(ConstantTime.equals(heap, direct), "Different remaining lengths never match");
+    }
+
+    @Test
+    @DisplayName("Should treat two empty inputs as equal")
+    void testEmpty() {
+        assertTrue(ConstantTime.equals(new byte[0], new byte[0]));
+        assertFalse(ConstantTime.equals(new byte[0], new byte[1]));
+        assertTrue(ConstantTime.equals(ByteBuffer.allocate(0), ByteBuffer.allocateDirect(0)));
+    }
+
+    @Test
+    @DisplayName("Should use the vector path when the incubator module is present")
+    void testVectorPathSelected() {
+        boolean modulePresent = ModuleLayer.boot().findModule("jdk.incubator.vector").isPresent();
+        boolean disabled = "false".equalsIgnoreCase(System.getProperty(ConstantTime.VECTOR_PROPERTY));
+        assertEquals(modulePresent && !disabled, ConstantTime.isVectorized());
+    }
+}
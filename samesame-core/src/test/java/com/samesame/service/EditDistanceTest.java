@@ -0,0 +1,125 @@
+package com.samesame.service;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.DisplayName;
+
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for the bit-parallel edit distances and the similarity classes built on them
+ */
+class EditDistanceTest {
+
+    @Test
+    @DisplayName("Should match the dynamic-programming distances in one word and across blocks")
+    void testAgainstDynamicProgramming() {
+        SplittableRandom random = new SplittableRandom(24);
+        // A small alphabet makes matches, and so carries and transpositions, frequent
+        String alphabet = "abcAé🔒";
+        for (int trial = 0; trial < 3_000; trial++) {
+            int lengthA = random.nextInt(trial < 2_000 ? 70 : 200);
+            String a = randomString(random, alphabet, lengthA);
+            String b = random.nextBoolean()
+                ? randomString(random, alphabet, random.nextInt(Math.max(1, lengthA + 5)))
+                : mutate(random, a, alphabet);
+            assertEquals(levenshtein(a, b), EditDistance.levenshtein(a, b), a + " / " + b);
+            assertEquals(optimalAlignment(a, b), EditDistance.damerau(a, b), a + " / " + b);
+        }
+        assertEquals(0, EditDistance.levenshtein("", ""));
+        assertEquals(3, EditDistance.levenshtein("", "abc"));
+        assertEquals(130, EditDistance.levenshtein("x".repeat(130), ""));
+    }
+
+    @Test
+    @DisplayName("Should report off-by-one, case-only and transposition differences")
+    void testClassify() {
+        assertEquals(EditDistance.Similarity.IDENTICAL, EditDistance.classify("Password123!", "Password123!"));
+        assertEquals(EditDistance.Similarity.CASE_ONLY, EditDistance.classify("Test123!", "test123!"));
+        assertEquals(EditDistance.Similarity.CASE_ONLY, EditDistance.classify("pASSWORD", "Password"));
+        assertEquals(EditDistance.Similarity.ONE_EDIT, EditDistance.classify("Password123!", "Password123"));
+        assertEquals(EditDistance.Similarity.ONE_EDIT, EditDistance.classify("Password123!", "Passw0rd123!"));
+        assertEquals(EditDistance.Similarity.ONE_EDIT, EditDistance.classify("", "a"));
+        assertEquals(EditDistance.Similarity.TRANSPOSITION, EditDistance.classify("Password123!", "Password132!"));
+        assertEquals(EditDistance.Similarity.DIFFERENT, EditDistance.classify("password", "admin123"));
+        assertEquals(EditDistance.Similarity.DIFFERENT, EditDistance.classify("Password123!", "Password1"));
+        assertEquals(EditDistance.Similarity.DIFFERENT, EditDistance.classify("Password123!", "Pasword123"));
+
+        String longPassword = "correct horse battery staple ".repeat(5);
+        String swapped = longPassword.substring(0, 100) + longPassword.charAt(101) + longPassword.charAt(100)
+            + longPassword.substring(102);
+        assertEquals(EditDistance.Similarity.TRANSPOSITION, EditDistance.classify(longPassword, swapped));
+        assertEquals(EditDistance.Similarity.CASE_ONLY, EditDistance.classify(longPassword, longPassword.toUpperCase()));
+        assertEquals(EditDistance.Similarity.ONE_EDIT, EditDistance.classify(longPassword, longPassword + "!"));
+
+        String tooLong = "a".repeat(EditDistance.MAX_LENGTH + 1);
+        assertThrows(IllegalArgumentException.class, () -> EditDistance.classify(tooLong, tooLong));
+    }
+
+    private static String randomString(SplittableRandom random, String alphabet, int length) {
+        StringBuilder builder = new StringBuilder(length);
+        while (builder.length() < length) {
+            builder.append(alphabet.charAt(random.nextInt(alphabet.length())));
+        }
+        return builder.toString();
+    }
+
+    /**
+     * Applies a few random substitutions, insertions, deletions and swaps
+     */
+    private static String mutate(SplittableRandom random, String source, String alphabet) {
+        StringBuilder builder = new StringBuilder(source);
+        for (int edits = random.nextInt(4); edits > 0; edits--) {
+            int position = random.nextInt(builder.length() + 1);
+            char c = alphabet.charAt(random.nextInt(alphabet.length()));
+            switch (random.nextInt(4)) {
+                case 0:
+                    builder.insert(position, c);
+                    break;
+                case 1:
+                    if (position < builder.length()) builder.deleteCharAt(position);
+                    break;
+                case 2:
+                    if (position < builder.length()) builder.setCharAt(position, c);
+                    break;
+                default:
+                    if (position + 1 < builder.length()) {
+                        char swap = builder.charAt(position);
+                        builder.setCharAt(position, builder.charAt(position + 1));
+                        builder.setCharAt(position + 1, swap);
+                    }
+            }
+        }
+        return builder.toString();
+    }
+
+    private static int levenshtein(String a, String b) {
+        return dynamicProgramming(a, b, false);
+    }
+
+    private static int optimalAlignment(String a, String b) {
+        return dynamicProgramming(a, b, true);
+    }
+
+    private static int dynamicProgramming(String a, String b, boolean transpositions) {
+        int[][] d = new int[a.length() + 1][b.length() + 1];
+        for (int i = 0; i <= a.length(); i++) {
+            d[i][0] = i;
+        }
+        for (int j = 0; j <= b.length(); j++) {
+            d[0][j] = j;
+        }
+        for (int i = 1; i <= a.length(); i++) {
+            for (int j = 1; j <= b.length(); j++) {
+                int cost = a.charAt(i - 1) == b.charAt(j - 1) ? 0 : 1;
+                d[i][j] = Math.min(Math.min(d[i - 1][j] + 1, d[i][j - 1] + 1), d[i - 1][j - 1] + cost);
+                if (transpositions && i > 1 && j > 1
+                        && a.charAt(i - 1) == b.charAt(j - 2) && a.charAt(i - 2) == b.charAt(j - 1)) {
+                    d[i][j] = Math.min(d[i][j], d[i - 2][j - 2] + 1);
+                }
+            }
+        }
+        return d[a.length()][b.length()];
+    }
+}
@@ -0,0 +1,135 @@
+package com.samesame.service;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.DisplayName;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests the keyed evaluation cache and the comparator APIs that use it
+ */
+class EvaluationCacheTest {
+
+    @Test
+    @DisplayName("Should key entries by a standard HMAC-SHA256 of kind and password")
+    void testKeysAreHmac() throws Exception {
+        byte[] key = new byte[32];
+        for (int i = 0; i < key.length; i++) {
+            key[i] = (byte) (i * 7);
+        }
+        EvaluationCache cache = new EvaluationCache(64, key);
+        Mac mac = Mac.getInstance("HmacSHA256");
+        mac.init(new SecretKeySpec(key, "HmacSHA256"));
+
+        for (String password : new String[] {"", "a", "Pässw0rd!😀", "x".repeat(1000)}) {
+            mac.update((byte) EvaluationCache.Kind.GUESSES.ordinal());
+            byte[] expected = mac.doFinal(password.getBytes(StandardCharsets.UTF_16BE));
+            assertArrayEquals(expected, cache.authenticate(EvaluationCache.Kind.GUESSES, password));
+        }
+        assertFalse(Arrays.equals(
+            cache.authenticate(EvaluationCache.Kind.GUESSES, "abc"),
+            cache.authenticate(EvaluationCache.Kind.BREACHED, "abc")));
+
+        // Each cache draws its own key
+        assertFalse(Arrays.equals(
+            new EvaluationCache(64).authenticate(EvaluationCache.Kind.GUESSES, "abc"),
+            new EvaluationCache(64).authenticate(EvaluationCache.Kind.GUESSES, "abc")));
+    }
+
+    @Test
+    @DisplayName("Should evaluate each password once and count hits and misses")
+    void testHitsAndMisses() {
+        EvaluationCache cache = new EvaluationCache(64);
+        AtomicInteger evaluations = new AtomicInteger();
+        for (int round = 0; round < 3; round++) {
+            for (String password : new String[] {"alpha", "beta", "gamma"}) {
+                long value = cache.computeIfAbsent(EvaluationCache.Kind.GUESSES, password, p -> {
+                    evaluations.incrementAndGet();
+                    return p.length();
+                });
+                assertEquals(password.length(), value);
+            }
+        }
+
+        EvaluationCache.Stats stats = cache.stats();
+        assertEquals(3, evaluations.get());
+        assertEquals(6, stats.hits());
+        assertEquals(3, stats.misses());
+        assertEquals(3, stats.size());
+        assertEquals(2.0 / 3, stats.hitRate(), 1e-9);
+        assertTrue(stats.toString().contains("hitRate=66.7%"), stats.toString());
+
+        cache.clear();
+        assertEquals(0, cache.stats().size());
+        cache.computeIfAbsent(EvaluationCache.Kind.GUESSES, "alpha", p -> 5);
+        assertEquals(4, cache.stats().misses());
+    }
+
+    @Test
+    @DisplayName("Should not cache a result computed while the cache was cleared")
+    void testClearDuringEvaluation() {
+        EvaluationCache cache = new EvaluationCache(64);
+        // As if a new breach index were swapped in while the old one was being consulted
+        long stale = cache.computeIfAbsent(EvaluationCache.Kind.BREACHED, "alpha", p -> {
+            cache.clear();
+            return 1;
+        });
+        assertEquals(1, stale);
+        assertEquals(0, cache.stats().size());
+        assertEquals(0, cache.computeIfAbsent(EvaluationCache.Kind.BREACHED, "alpha", p -> 0));
+        assertEquals(0, cache.computeIfAbsent(EvaluationCache.Kind.BREACHED, "alpha", p -> 1));
+        assertEquals(1, cache.stats().hits());
+    }
+
+    @Test
+    @DisplayName("Should stay within its bound and keep recently read entries")
+    void testClockEviction() {
+        EvaluationCache cache = new EvaluationCache(EvaluationCache.WAYS * 4);
+        assertEquals(32, cache.maximumSize());
+        String hot = "hot-password";
+        cache.computeIfAbsent(EvaluationCache.Kind.GUESSES, hot, p -> 1);
+
+        for (int i = 0; i < 10_000; i++) {
+            cache.computeIfAbsent(EvaluationCache.Kind.GUESSES, "cold-" + i, p -> 0);
+            // Reading the hot entry sets its reference bit, so the CLOCK hand skips it
+            cache.computeIfAbsent(EvaluationCache.Kind.GUESSES, hot, p -> {
+                fail("Hot entry was evicted");
+                return 0;
+            });
+        }
+
+        EvaluationCache.Stats stats = cache.stats();
+        assertTrue(stats.size() <= cache.maximumSize());
+        assertEquals(10_001 - stats.size(), stats.evictions(), "Every insert into a full set evicts");
+        assertEquals(10_000, stats.hits());
+        assertThrows(IllegalArgumentException.class, () -> new EvaluationCache(0));
+    }
+
+    @Test
+    @DisplayName("Should return the uncached results")
+    void testComparatorResultsUnchanged() {
+        PasswordComparator plain = new PasswordComparator();
+        PasswordComparator cached = new PasswordComparator();
+        cached.setEvaluationCache(new EvaluationCache(16));
+        List<String> passwords = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            passwords.add(i % 3 == 0 ? "Password123!" : i % 3 == 1 ? "ab" + (i % 40) : "Tr0ub4dor&3-" + (i % 70));
+        }
+
+        for (String password : passwords) {
+            assertEquals(plain.estimateGuesses(password), cached.estimateGuesses(password), 0);
+        }
+        assertEquals(0, cached.estimateGuesses(""));
+        EvaluationCache.Stats stats = cached.getEvaluationCache().stats();
+        assertEquals(200, stats.hits() + stats.misses());
+        assertTrue(stats.hits() > 0 && stats.evictions() > 0, stats.toString());
+    }
+}
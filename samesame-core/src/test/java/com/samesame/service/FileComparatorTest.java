@@ -0,0 +1,93 @@
+package com.samesame.service;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests the windowed constant-time file comparison
+ */
+class FileComparatorTest {
+
+    @TempDir
+    Path directory;
+
+    private final Random random = new Random(22);
+
+    @Test
+    @DisplayName("Should find a difference in any window, including at window boundaries")
+    void testDifferenceAcrossWindows() throws IOException {
+        int window = FileComparator.MIN_WINDOW_SIZE;
+        FileComparator fileComparator = new FileComparator(window);
+        byte[] contents = randomBytes(3 * window + 17);
+        Path original = write("original", contents);
+
+        FileComparator.Result same = fileComparator.compare(original, write("copy", contents.clone()));
+        assertTrue(same.identical());
+        assertEquals(contents.length, same.bytesCompared());
+        assertTrue(same.gigabytesPerSecond() > 0);
+
+        for (int position : new int[] {0, window - 1, window, 2 * window + 1, contents.length - 1}) {
+            byte[] changed = contents.clone();
+            changed[position] ^= 0x01;
+            FileComparator.Result result = fileComparator.compare(original, write("changed-" + position, changed));
+            assertFalse(result.identical(), "Difference at " + position);
+            assertTrue(result.sameSize());
+        }
+    }
+
+    @Test
+    @DisplayName("Should report files of different lengths without comparing them")
+    void testDifferentLengths() throws IOException {
+        byte[] contents = randomBytes(10_000);
+        Path original = write("original", contents);
+        Path truncated = write("truncated", Arrays.copyOf(contents, 9_999));
+
+        FileComparator.Result result = new FileComparator().compare(original, truncated);
+        assertFalse(result.identical());
+        assertFalse(result.sameSize());
+        assertEquals(0, result.bytesCompared());
+        assertEquals(10_000, result.firstSize());
+        assertEquals(9_999, result.secondSize());
+
+        Path empty = write("empty", new byte[0]);
+        assertTrue(new FileComparator().compare(empty, write("empty-copy", new byte[0])).identical());
+        assertThrows(IllegalArgumentException.class, () -> new FileComparator(FileComparator.MIN_WINDOW_SIZE - 1));
+    }
+
+    @Test
+    @DisplayName("Should fold every byte into the difference word on both the wide and the byte-wise path")
+    void testDifferenceWord() {
+        for (int length = 0; length < 100; length++) {
+            ByteBuffer a = ByteBuffer.allocateDirect(length).put(randomBytes(length)).flip();
+            ByteBuffer b = ByteBuffer.allocateDirect(length).put(a.duplicate()).flip();
+            assertEquals(0, ConstantTime.difference(a, b));
+            for (int i = 0; i < length; i++) {
+                b.put(i, (byte) (a.get(i) ^ 0x80));
+                assertNotEquals(0, ConstantTime.difference(a, b), "Difference at " + i + " of " + length);
+                b.put(i, a.get(i));
+            }
+        }
+        assertThrows(IllegalArgumentException.class,
+            () -> ConstantTime.difference(ByteBuffer.allocate(2), ByteBuffer.allocate(3)));
+    }
+
+    private Path write(String name, byte[] contents) throws IOException {
+        return Files.write(directory.resolve(name), contents);
+    }
+
+    private byte[] randomBytes(int length) {
+        byte[] bytes = new byte[length];
+        random.nextBytes(bytes);
+        return bytes;
+    }
+}
@@ -0,0 +1,110 @@
+package com.samesame.service;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.DisplayName;
+
+import java.lang.management.ManagementFactory;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/**
+ * Tests the guess estimator's matchers and its decomposition
+ */
+class GuessEstimatorTest {
+
+    private final GuessEstimator estimator = GuessEstimator.standard();
+
+    @Test
+    @DisplayName("Should rate a common password far below a random one of the same shape")
+    void testCommonVersusRandom() {
+        double common = estimator.log10Guesses("Password123!");
+        double random = estimator.log10Guesses("x7#Kq9!mZ2@v");
+
+        assertEquals(1, GuessEstimator.score(common));
+        assertEquals(4, GuessEstimator.score(random));
+        assertTrue(random - common > 6, "Random should need at least a million times more guesses");
+        // Both get the same rule-based verdict, which is what the estimate adds to
+        PasswordComparator passwordComparator = new PasswordComparator();
+        assertEquals(passwordComparator.evaluatePasswordStrength("Password123!"),
+            passwordComparator.evaluatePasswordStrength("x7#Kq9!mZ2@v"));
+    }
+
+    @Test
+    @DisplayName("Should recognise each kind of guessable pattern")
+    void testPatterns() {
+        String[] guessable = {
+            "password", "P@ssw0rd", "PASSWORD", "qwertyuiop", "zxcvbnm", "1qaz2wsx",
+            "abcdefgh", "97531", "aaaaaaaa", "abcabcabc", "19901231", "31.12.1999", "78963214"
+        };
+        for (String password : guessable) {
+            double guesses = estimator.log10Guesses(password);
+            assertTrue(GuessEstimator.score(guesses) <= 1, password + " estimated at 10^" + guesses);
+            assertTrue(guesses < password.length() - 2, password + " should beat brute force");
+        }
+    }
+
+    @Test
+    @DisplayName("Should charge for capitalisation and l33t variants")
+    void testVariants() {
+        double plain = estimator.log10Guesses("sunshine");
+        double capitalised = estimator.log10Guesses("Sunshine");
+        double mixed = estimator.log10Guesses("sUnShInE");
+        double l33t = estimator.log10Guesses("5un5h1n3");
+
+        assertTrue(capitalised > plain);
+        assertTrue(mixed > capitalised);
+        assertTrue(l33t > plain);
+        assertTrue(l33t < 8, "l33t words should still be found");
+    }
+
+    @Test
+    @DisplayName("Should handle empty, non-ASCII and very long input")
+    void testEdgeCases() {
+        assertEquals(0, estimator.log10Guesses(""));
+        // A single part costs its guesses plus one, as in zxcvbn
+        assertEquals(Math.log10(11 + 1), estimator.log10Guesses("x"), 1e-9);
+        assertEquals(10, estimator.log10Guesses("ünïcödé€ß√"), 1e-9);
+
+        String longPassword = "k".repeat(GuessEstimator.MAX_LENGTH) + "z".repeat(50);
+        double guesses = estimator.log10Guesses(longPassword);
+        assertTrue(guesses >= 50 && guesses < 60, "Characters past the limit count as brute force");
+    }
+
+    @Test
+    @DisplayName("Should use custom word lists ranked by position")
+    void testCustomDictionary() {
+        GuessEstimator custom = GuessEstimator.withDictionary(FrequencyTable.of(List.of(
+            List.of("samesame", "comparator"))));
+
+        assertEquals(Math.log10(1 + 1), custom.log10Guesses("samesame"), 1e-9);
+        assertEquals(Math.log10(2 + 1), custom.log10Guesses("comparator"), 1e-9);
+        assertEquals(10, custom.log10Guesses("password1x"), 1e-9);
+    }
+
+    @Test
+    @DisplayName("Should not allocate once warmed up")
+    void testNoAllocation() {
+        java.lang.management.ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        assumeTrue(threads instanceof com.sun.management.ThreadMXBean);
+        com.sun.management.ThreadMXBean allocations = (com.sun.management.ThreadMXBean) threads;
+        assumeTrue(allocations.isThreadAllocatedMemorySupported());
+        allocations.setThreadAllocatedMemoryEnabled(true);
+
+        String password = "Tr0ub4dor&3Michael19";
+        double sum = 0;
+        for (int i = 0; i < 20_000; i++) {
+            sum += estimator.log10Guesses(password);
+        }
+        long threadId = Thread.currentThread().getId();
+        long before = allocations.getThreadAllocatedBytes(threadId);
+        for (int i = 0; i < 10_000; i++) {
+            sum += estimator.log10Guesses(password);
+        }
+        long allocated = allocations.getThreadAllocatedBytes(threadId) - before;
+
+        assertTrue(sum > 0);
+        assertEquals(0, allocated / 10_000, "Estimates should allocate zero bytes per call");
+    }
+}
@@ -0,0 +1,103 @@
+package com.samesame.service;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests the hashing engine against MessageDigest over String.getBytes
+ */
+class HashingEngineTest {
+
+    @ParameterizedTest
+    @EnumSource(HashingEngine.Algorithm.class)
+    @DisplayName("Should produce the same digests as MessageDigest for every algorithm")
+    void testMatchesMessageDigest(HashingEngine.Algorithm algorithm) throws Exception {
+        HashingEngine engine = new HashingEngine(algorithm);
+        MessageDigest reference = MessageDigest.getInstance(algorithm.jcaName());
+        SplittableRandom random = new SplittableRandom(5);
+
+        for (int i = 0; i < 2_000; i++) {
+            String input = randomString(random, random.nextInt(300));
+            byte[] expected = reference.digest(input.getBytes(StandardCharsets.UTF_8));
+
+            assertArrayEquals(expected, engine.hash(input));
+            byte[] out = new byte[expected.length + 3];
+            assertEquals(expected.length, engine.hash(input.toCharArray(), 0, input.length(), out, 3));
+            assertArrayEquals(expected, Arrays.copyOfRange(out, 3, out.length));
+            assertEquals(hex(expected), engine.hashHex(new StringBuilder(input)));
+        }
+    }
+
+    @Test
+    @DisplayName("Should hash batches in input order")
+    void testBatch() {
+        HashingEngine engine = new HashingEngine(HashingEngine.Algorithm.SHA_256);
+        List<String> inputs = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            inputs.add("password" + i);
+        }
+
+        byte[] raw = engine.hashAll(inputs);
+        String[] hex = engine.hashHexAll(inputs);
+        assertEquals(100 * 32, raw.length);
+        for (int i = 0; i < inputs.size(); i++) {
+            assertEquals(engine.hashHex(inputs.get(i)), hex[i]);
+            assertEquals(hex[i], hex(Arrays.copyOfRange(raw, i * 32, i * 32 + 32)));
+        }
+    }
+
+    @Test
+    @DisplayName("Should keep generateSecureHash output unchanged")
+    void testGenerateSecureHashCompatibility() {
+        PasswordComparator passwordComparator = new PasswordComparator();
+        assertEquals("e3b0c44298fc1c149afbf4c8996fb92427ae41e4649b934ca495991b7852b855",
+            passwordComparator.generateSecureHash(""));
+        assertEquals("ef92b778bafe771e89245b89ecbc08a44a4e166c06659911881f383d4473e94f",
+            passwordComparator.generateSecureHash("password123"));
+        assertThrows(RuntimeException.class, () -> passwordComparator.generateSecureHash(null));
+    }
+
+    private static String randomString(SplittableRandom random, int length) {
+        StringBuilder builder = new StringBuilder();
+        for (int i = 0; i < length; i++) {
+            switch (random.nextInt(5)) {
+                case 0:
+                    builder.append((char) random.nextInt(0x80));
+                    break;
+                case 1:
+                    builder.append((char) (0x80 + random.nextInt(0x780)));
+                    break;
+                case 2:
+                    builder.append((char) (0x800 + random.nextInt(0xD000)));
+                    break;
+                case 3:
+                    builder.appendCodePoint(0x10000 + random.nextInt(0x10000));
+                    break;
+                default:
+                    // Unpaired surrogates
+                    builder.append((char) (0xD800 + random.nextInt(0x800)));
+                    break;
+            }
+        }
+        return builder.toString();
+    }
+
+    private static String hex(byte[] bytes) {
+        StringBuilder builder = new StringBuilder();
+        for (byte b : bytes) {
+            builder.append(String.format("%02x", b));
+        }
+        return builder.toString();
+    }
+}
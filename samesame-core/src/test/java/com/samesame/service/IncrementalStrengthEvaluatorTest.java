@@ -0,0 +1,113 @@
+package com.samesame.service;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.DisplayName;
+
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests that incremental evaluation always agrees with a full evaluation
+ */
+class IncrementalStrengthEvaluatorTest {
+
+    // Pattern fragments, repeats, every character class and non-ASCII
+    private static final String ALPHABET = "abcdqweasdzxcPASSWORDadminlogin0123!@#ééé€aaa111";
+
+    private final StrengthEvaluator strengthEvaluator = new StrengthEvaluator();
+
+    @Test
+    @DisplayName("Should match a full evaluation after every random edit")
+    void testRandomEdits() {
+        SplittableRandom random = new SplittableRandom(11);
+        IncrementalStrengthEvaluator incremental = new IncrementalStrengthEvaluator();
+        StringBuilder expected = new StringBuilder();
+
+        for (int step = 0; step < 50_000; step++) {
+            int operation = random.nextInt(4);
+            if (operation == 0 || expected.length() == 0) {
+                char c = ALPHABET.charAt(random.nextInt(ALPHABET.length()));
+                incremental.append(c);
+                expected.append(c);
+            } else if (operation == 1) {
+                int index = random.nextInt(expected.length());
+                incremental.deleteAt(index);
+                expected.deleteCharAt(index);
+            } else {
+                int start = random.nextInt(expected.length() + 1);
+                int end = start + random.nextInt(Math.min(6, expected.length() - start) + 1);
+                String text = randomText(random, random.nextInt(6));
+                incremental.replace(start, end, text);
+                expected.replace(start, end, text);
+            }
+            if (expected.length() > 40) {
+                incremental.clear();
+                expected.setLength(0);
+            }
+
+            assertEquals(expected.toString(), incremental.toString());
+            assertEquals(strengthEvaluator.evaluate(expected), incremental.criteria(),
+                () -> "Criteria differ for \"" + expected + "\"");
+        }
+    }
+
+    @Test
+    @DisplayName("Should give the same verdicts as evaluatePasswordStrength while typing")
+    void testTypingVerdicts() {
+        PasswordComparator passwordComparator = new PasswordComparator();
+        IncrementalStrengthEvaluator incremental = passwordComparator.newIncrementalEvaluator();
+        String password = "MyP@ssw0rd!2024aaaXYZ";
+
+        for (int i = 0; i < password.length(); i++) {
+            incremental.append(password.charAt(i));
+            String prefix = password.substring(0, i + 1);
+            assertEquals(passwordComparator.evaluatePasswordStrength(prefix),
+                passwordComparator.evaluateIncrementalStrength(incremental), prefix);
+        }
+        while (incremental.length() > 0) {
+            incremental.deleteAt(incremental.length() - 1);
+            assertEquals(passwordComparator.evaluatePasswordStrength(incremental.toString()),
+                passwordComparator.evaluateIncrementalStrength(incremental));
+        }
+        assertEquals("", passwordComparator.evaluateIncrementalStrength(incremental));
+    }
+
+    @Test
+    @DisplayName("Should detect patterns and runs created and broken by edits in the middle")
+    void testMiddleEdits() {
+        IncrementalStrengthEvaluator incremental = new IncrementalStrengthEvaluator();
+        incremental.append("pass-word");
+        assertNotEquals(0, incremental.criteria() & StrengthEvaluator.NO_COMMON_PATTERN);
+
+        incremental.deleteAt(4);
+        assertEquals(0, incremental.criteria() & StrengthEvaluator.NO_COMMON_PATTERN, "password");
+
+        incremental.replace(2, 3, "X");
+        assertNotEquals(0, incremental.criteria() & StrengthEvaluator.NO_COMMON_PATTERN, "paXsword");
+
+        incremental.replace(0, incremental.length(), "xx-x");
+        assertNotEquals(0, incremental.criteria() & StrengthEvaluator.NO_REPEATING);
+        incremental.deleteAt(2);
+        assertEquals(0, incremental.criteria() & StrengthEvaluator.NO_REPEATING, "xxx");
+
+        assertThrows(IndexOutOfBoundsException.class, () -> incremental.replace(2, 9, "y"));
+        // A rejected edit leaves the text and the counters untouched
+        int before = incremental.criteria();
+        assertThrows(IndexOutOfBoundsException.class, () -> incremental.replace(0, 1, "abc", 2, 1));
+        assertThrows(IndexOutOfBoundsException.class, () -> incremental.replace(0, 1, "abc", -1, 2));
+        assertThrows(IndexOutOfBoundsException.class, () -> incremental.replace(0, 1, "abc", 1, 4));
+        assertEquals("xxx", incremental.toString());
+        assertEquals(before, incremental.criteria());
+        incremental.append("Aa1!");
+        assertEquals(new StrengthEvaluator().evaluate("xxxAa1!"), incremental.criteria());
+    }
+
+    private static String randomText(SplittableRandom random, int length) {
+        StringBuilder text = new StringBuilder(length);
+        for (int i = 0; i < length; i++) {
+            text.append(ALPHABET.charAt(random.nextInt(ALPHABET.length())));
+        }
+        return text.toString();
+    }
+}
@@ -3,7 +3,13 @@ package com.samesame.service;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.DisplayName;
+
+import java.lang.management.ManagementFactory;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
 import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
 
 /**
  * Comprehensive test suite for PasswordComparator
@@ -106,6 +112,102 @@ class PasswordComparatorTest {
         assertTrue(passwordComparator.comparePasswords(unicodePassword, unicodePassword));
     }
 
+    // Allocation-free Comparison API Tests
+
+    @Test
+    @DisplayName("Should compare CharSequence implementations by content")
+    void testCharSequenceComparison() {
+        assertTrue(passwordComparator.comparePasswords(new StringBuilder("Secret123!"), "Secret123!"));
+        assertFalse(passwordComparator.comparePasswords(new StringBuilder("Secret123!"), "Secret123?"));
+        assertFalse(passwordComparator.comparePasswords((CharSequence) null, "Secret123!"));
+    }
+
+    @Test
+    @DisplayName("Should compare char arrays without modifying them")
+    void testCharArrayComparison() {
+        char[] password1 = "Pässwörd123🔒".toCharArray();
+        char[] password2 = "Pässwörd123🔒".toCharArray();
+        assertTrue(passwordComparator.compareChars(password1, password2));
+        assertArrayEquals("Pässwörd123🔒".toCharArray(), password1);
+
+        assertFalse(passwordComparator.compareChars(password1, "Pässwörd124🔒".toCharArray()));
+        assertFalse(passwordComparator.compareChars(password1, "Pässwörd".toCharArray()));
+        assertFalse(passwordComparator.compareChars(password1, null));
+    }
+
+    @Test
+    @DisplayName("Should compare byte arrays and buffers")
+    void testByteComparison() {
+        byte[] secret1 = "Pässwörd123🔒".getBytes(StandardCharsets.UTF_8);
+        byte[] secret2 = "Pässwörd123🔒".getBytes(StandardCharsets.UTF_8);
+        assertTrue(passwordComparator.compareBytes(secret1, secret2));
+        assertFalse(passwordComparator.compareBytes(secret1, "Passwörd123🔒".getBytes(StandardCharsets.UTF_8)));
+        assertFalse(passwordComparator.compareBytes((byte[]) null, secret2));
+
+        ByteBuffer direct = ByteBuffer.allocateDirect(secret2.length + 4);
+        direct.position(4);
+        direct.put(secret2).position(4);
+        ByteBuffer heap = ByteBuffer.wrap(secret1);
+        assertTrue(passwordComparator.compareBytes(heap, direct));
+        assertEquals(4, direct.position(), "Comparison should not move the buffer position");
+        assertEquals(0, heap.position(), "Comparison should not move the buffer position");
+
+        direct.limit(direct.limit() - 1);
+        assertFalse(passwordComparator.compareBytes(heap, direct));
+    }
+
+    @Test
+    @DisplayName("Should not allocate on the heap when comparing")
+    void testComparisonAllocatesNothing() {
+        java.lang.management.ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        assumeTrue(threads instanceof com.sun.management.ThreadMXBean,
+            "Per-thread allocation counters are not available on this JVM");
+        com.sun.management.ThreadMXBean allocations = (com.sun.management.ThreadMXBean) threads;
+        assumeTrue(allocations.isThreadAllocatedMemorySupported());
+        allocations.setThreadAllocatedMemoryEnabled(true);
+
+        String string1 = "AllocationBudgetPassword123!";
+        StringBuilder builder2 = new StringBuilder(string1);
+        char[] chars1 = string1.toCharArray();
+        char[] chars2 = string1.toCharArray();
+        byte[] bytes1 = string1.getBytes(StandardCharsets.UTF_8);
+        byte[] bytes2 = string1.getBytes(StandardCharsets.UTF_8);
+        ByteBuffer buffer1 = ByteBuffer.wrap(bytes1);
+        ByteBuffer buffer2 = ByteBuffer.allocateDirect(bytes2.length).put(bytes2).flip();
+
+        // Warm up so class loading and JIT compilation do not count against the budget
+        int matches = 0;
+        for (int i = 0; i < 20_000; i++) {
+            matches += runComparisons(string1, builder2, chars1, chars2, bytes1, bytes2, buffer1, buffer2);
+        }
+
+        long threadId = Thread.currentThread().getId();
+        long overhead = allocations.getThreadAllocatedBytes(threadId);
+        overhead = allocations.getThreadAllocatedBytes(threadId) - overhead;
+
+        long before = allocations.getThreadAllocatedBytes(threadId);
+        for (int i = 0; i < 10_000; i++) {
+            matches += runComparisons(string1, builder2, chars1, chars2, bytes1, bytes2, buffer1, buffer2);
+        }
+        long allocated = allocations.getThreadAllocatedBytes(threadId) - before - overhead;
+
+        assertEquals(30_000 * 5, matches);
+        // A per-call allocation would cost at least 16 bytes per call; less than one byte
+        // per call over the loop is JIT or safepoint noise, not the comparisons
+        assertEquals(0, allocated / (10_000 * 5), "Comparisons should allocate zero bytes per call");
+    }
+
+    private int runComparisons(String string1, StringBuilder builder2, char[] chars1, char[] chars2,
+                               byte[] bytes1, byte[] bytes2, ByteBuffer buffer1, ByteBuffer buffer2) {
+        int matches = 0;
+        if (passwordComparator.comparePasswords(string1, string1)) matches++;
+        if (passwordComparator.comparePasswords(string1, builder2)) matches++;
+        if (passwordComparator.compareChars(chars1, chars2)) matches++;
+        if (passwordComparator.compareBytes(bytes1, bytes2)) matches++;
+        if (passwordComparator.compareBytes(buffer1, buffer2)) matches++;
+        return matches;
+    }
+
     // Password Strength Tests
     
     @Test
@@ -0,0 +1,134 @@
+package com.samesame.service;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.DisplayName;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests stored-hash creation, verification and the rehash signal
+ */
+class PasswordHasherTest {
+
+    private static final int ITERATIONS = 1_000;
+
+    @Test
+    @DisplayName("Should verify the password a hash was made from")
+    void testHashAndVerify() {
+        try (PasswordHasher hasher = new PasswordHasher(PasswordHasher.Scheme.PBKDF2_SHA256, ITERATIONS, 1, 4)) {
+            String stored = hasher.hash("Password123!".toCharArray());
+
+            assertTrue(stored.startsWith("$pbkdf2-sha256$v=1$i=1000$"));
+            assertEquals(PasswordHasher.Verification.MATCH, hasher.verify("Password123!".toCharArray(), stored));
+            assertEquals(PasswordHasher.Verification.MISMATCH, hasher.verify("Password123?".toCharArray(), stored));
+            assertEquals(PasswordHasher.Verification.MISMATCH, hasher.verify(new char[0], stored));
+            assertNotEquals(stored, hasher.hash("Password123!".toCharArray()), "Each hash should get a fresh salt");
+        }
+    }
+
+    @Test
+    @DisplayName("Should match the RFC 7914 PBKDF2-HMAC-SHA256 test vector")
+    void testKnownVector() {
+        // P = "passwd", S = "salt", c = 1, first 32 bytes of the derived key
+        String stored = "$pbkdf2-sha256$v=1$i=1$c2FsdA$VawEblbjCJ/sFpHCJUS2BflBhSFt3gRl5oudV8INrLw";
+        try (PasswordHasher hasher = new PasswordHasher(PasswordHasher.Scheme.PBKDF2_SHA256, 1, 1, 1)) {
+            assertTrue(hasher.verify("passwd".toCharArray(), stored).matched());
+        }
+    }
+
+    @Test
+    @DisplayName("Should ask for a rehash when the stored cost is below the current one")
+    void testRehashSignal() {
+        try (PasswordHasher weak = new PasswordHasher(PasswordHasher.Scheme.PBKDF2_SHA256, ITERATIONS, 1, 1);
+             PasswordHasher strong = new PasswordHasher(PasswordHasher.Scheme.PBKDF2_SHA256, 2 * ITERATIONS, 1, 1);
+             PasswordHasher other = new PasswordHasher(PasswordHasher.Scheme.PBKDF2_SHA512, ITERATIONS, 1, 1)) {
+            char[] password = "Password123!".toCharArray();
+            String stored = weak.hash(password);
+
+            assertEquals(PasswordHasher.Verification.MATCH_NEEDS_REHASH, strong.verify(password, stored));
+            assertEquals(PasswordHasher.Verification.MATCH_NEEDS_REHASH, other.verify(password, stored));
+            assertEquals(PasswordHasher.Verification.MISMATCH, strong.verify("wrong".toCharArray(), stored));
+            assertTrue(strong.needsRehash(stored));
+            assertFalse(weak.needsRehash(stored));
+            assertFalse(strong.needsRehash(strong.hash(password)));
+        }
+    }
+
+    @Test
+    @DisplayName("Should reject malformed stored hashes")
+    void testMalformed() {
+        try (PasswordHasher hasher = new PasswordHasher(PasswordHasher.Scheme.PBKDF2_SHA256, ITERATIONS, 1, 1)) {
+            char[] password = "x".toCharArray();
+            String valid = hasher.hash(password);
+
+            assertThrows(IllegalArgumentException.class, () -> hasher.verify(password, null));
+            assertThrows(IllegalArgumentException.class, () -> hasher.verify(password, "plaintext"));
+            assertThrows(IllegalArgumentException.class, () -> hasher.verify(password, valid.replace("pbkdf2-sha256", "md5")));
+            assertThrows(IllegalArgumentException.class, () -> hasher.verify(password, valid.replace("$v=1$", "$v=9$")));
+            assertThrows(IllegalArgumentException.class, () -> hasher.verify(password, valid.replace("$i=1000$", "$i=0$")));
+            assertThrows(IllegalArgumentException.class, () -> hasher.verify(password, valid.substring(0, valid.length() - 4)));
+        }
+    }
+
+    @Test
+    @DisplayName("Should reject asynchronous verifications once the executor is saturated")
+    void testBoundedExecutor() throws Exception {
+        try (PasswordHasher hasher = new PasswordHasher(PasswordHasher.Scheme.PBKDF2_SHA256, ITERATIONS, 1, 1)) {
+            char[] password = "Password123!".toCharArray();
+            String stored = hasher.hash(password);
+            assertEquals(PasswordHasher.Verification.MATCH, hasher.verifyAsync(password, stored).get());
+
+            // An expensive stored hash keeps the only thread busy while the only queue slot fills
+            String slow = stored.replace("$i=1000$", "$i=500000$");
+            CompletableFuture<PasswordHasher.Verification> running = hasher.verifyAsync(password, slow);
+            while (hasher.queuedVerifications() > 0) {
+                Thread.onSpinWait();
+            }
+            CompletableFuture<PasswordHasher.Verification> queued = hasher.verifyAsync(password, slow);
+            assertThrows(RejectedExecutionException.class, () -> hasher.verifyAsync(password, stored));
+
+            assertEquals(PasswordHasher.Verification.MISMATCH, running.get());
+            assertEquals(PasswordHasher.Verification.MISMATCH, queued.get());
+            assertEquals(0, hasher.queuedVerifications());
+        }
+    }
+
+    @Test
+    @DisplayName("Should verify through the comparator once a hasher is configured")
+    void testComparatorIntegration() throws Exception {
+        PasswordComparator passwordComparator = new PasswordComparator();
+        char[] password = "Password123!".toCharArray();
+        assertThrows(IllegalStateException.class, () -> passwordComparator.verifyStoredHash(password, "$x"));
+        assertThrows(IllegalStateException.class, () -> passwordComparator.verifyStoredHashAsync(password, "$x"));
+
+        try (PasswordHasher hasher = new PasswordHasher(PasswordHasher.Scheme.PBKDF2_SHA256, ITERATIONS, 1, 1)) {
+            passwordComparator.setPasswordHasher(hasher);
+            String stored = hasher.hash(password);
+            assertEquals(PasswordHasher.Verification.MATCH, passwordComparator.verifyStoredHash(password, stored));
+            assertArrayEquals("Password123!".toCharArray(), password, "The candidate must not be modified");
+            assertEquals(PasswordHasher.Verification.MATCH, passwordComparator.verifyStoredHashAsync(password, stored).get());
+            assertEquals(PasswordHasher.Verification.MISMATCH,
+                passwordComparator.verifyStoredHashAsync("Password123?".toCharArray(), stored).get());
+        }
+    }
+
+    @Test
+    @DisplayName("Should calibrate to at least the minimum iteration count")
+    void testCalibrate() {
+        int iterations = PasswordHasher.calibrate(PasswordHasher.Scheme.PBKDF2_SHA256, Duration.ofMillis(1), 1_000);
+
+        assertEquals(PasswordHasher.MIN_ITERATIONS, iterations);
+        int generous = PasswordHasher.calibrate(PasswordHasher.Scheme.PBKDF2_SHA256, Duration.ofSeconds(10), 0.01);
+        assertTrue(generous > PasswordHasher.MIN_ITERATIONS);
+        assertEquals(0, generous % 1_000);
+
+        for (double rate : new double[] {0, -1, Double.NaN}) {
+            assertThrows(IllegalArgumentException.class,
+                () -> PasswordHasher.calibrate(PasswordHasher.Scheme.PBKDF2_SHA256, Duration.ofMillis(1), rate));
+        }
+    }
+}
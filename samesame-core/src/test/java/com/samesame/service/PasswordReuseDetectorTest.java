@@ -0,0 +1,125 @@
+package com.samesame.service;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.SplittableRandom;
+import java.util.TreeSet;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for the partitioned reused-password detection
+ */
+class PasswordReuseDetectorTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    @DisplayName("Should find every group of accounts sharing a secret across ranges and partitions")
+    void testGroupsAcrossRangesAndPartitions() throws IOException {
+        SplittableRandom random = new SplittableRandom(23);
+        StringBuilder input = new StringBuilder();
+        Map<String, Set<String>> accountsBySecret = new HashMap<>();
+        for (int row = 0; row < 20_000; row++) {
+            // A small pool of secrets gives groups of many sizes, plus plenty of singletons
+            String secret = random.nextInt(4) == 0 ? "Pässwörd" + random.nextInt(500) + "🔒" : "unique-" + row;
+            String account = "user" + row + "@example.com";
+            accountsBySecret.computeIfAbsent(secret, s -> new HashSet<>()).add(account);
+            input.append(account).append('\t').append(secret).append(row % 7 == 0 ? "\r\n" : "\n");
+        }
+        Set<Set<String>> expected = accountsBySecret.values().stream()
+            .filter(accounts -> accounts.size() > 1)
+            .collect(Collectors.toSet());
+
+        Path spillDirectory = Files.createDirectory(tempDir.resolve("spill"));
+        PasswordReuseDetector.Summary summary = run(input.toString(), 4, 16, 4096, spillDirectory);
+        Set<Set<String>> groups = readGroups();
+
+        assertEquals(expected, groups);
+        assertEquals(20_000, summary.rows());
+        assertEquals(0, summary.invalid());
+        assertEquals(accountsBySecret.size(), summary.distinctSecrets());
+        assertEquals(expected.size(), summary.groups());
+        assertEquals(expected.stream().mapToLong(Set::size).sum(), summary.reusedAccounts());
+        assertEquals(expected.stream().mapToLong(Set::size).max().orElse(0), summary.largestGroup());
+        try (Stream<Path> leftovers = Files.list(spillDirectory)) {
+            assertEquals(0, leftovers.count(), "Spill files must be deleted");
+        }
+    }
+
+    @Test
+    @DisplayName("Should count malformed rows and never write secrets to the output")
+    void testInvalidRowsAndSecrecy() throws IOException {
+        String input = "alice\tcorrect horse\n"
+            + "bob\tcorrect horse\n"
+            + "carol\tcorrect\thorse\n"
+            + "dave\tcorrect\thorse\n"
+            + "erin\tCorrect horse\n"
+            + "no-delimiter\n"
+            + "\tempty-account\n"
+            + "empty-secret\t\n"
+            + "\n"
+            + "a".repeat(PasswordReuseDetector.MAX_ACCOUNT_LENGTH + 1) + "\tcorrect horse\n"
+            + "frank\tcorrect horse";
+
+        PasswordReuseDetector.Summary summary = run(input, 2, 1, PasswordReuseDetector.DEFAULT_RANGE_SIZE, null);
+        assertEquals(10, summary.rows());
+        assertEquals(4, summary.invalid());
+        assertEquals(3, summary.distinctSecrets());
+        assertEquals(2, summary.groups());
+        assertEquals(Set.of(Set.of("alice", "bob", "frank"), Set.of("carol", "dave")), readGroups());
+
+        String output = Files.readString(tempDir.resolve("groups.tsv"), StandardCharsets.UTF_8);
+        assertFalse(output.contains("horse"));
+        assertFalse(output.contains("correct"));
+    }
+
+    @Test
+    @DisplayName("Should size partitions with the input and reject invalid settings")
+    void testSettings() {
+        assertEquals(16, PasswordReuseDetector.partitionsFor(0));
+        assertEquals(16, PasswordReuseDetector.partitionsFor(500L << 20));
+        assertEquals(64, PasswordReuseDetector.partitionsFor(2L << 30));
+        assertEquals(PasswordReuseDetector.MAX_PARTITIONS, PasswordReuseDetector.partitionsFor(Long.MAX_VALUE / 4));
+        assertThrows(IllegalArgumentException.class, () -> new PasswordReuseDetector(0, 16, 4096, null));
+        assertThrows(IllegalArgumentException.class, () -> new PasswordReuseDetector(1, 24, 4096, null));
+        assertThrows(IllegalArgumentException.class,
+            () -> new PasswordReuseDetector(1, PasswordReuseDetector.MAX_PARTITIONS * 2, 4096, null));
+    }
+
+    private PasswordReuseDetector.Summary run(String input, int threads, int partitions, int rangeSize,
+                                              Path spillDirectory) throws IOException {
+        Path file = Files.write(tempDir.resolve("accounts.tsv"), input.getBytes(StandardCharsets.UTF_8));
+        return new PasswordReuseDetector(threads, partitions, rangeSize, spillDirectory)
+            .run(file, tempDir.resolve("groups.tsv"));
+    }
+
+    /**
+     * Parses the output, checking that each count matches its accounts
+     */
+    private Set<Set<String>> readGroups() throws IOException {
+        List<String> lines = Files.readAllLines(tempDir.resolve("groups.tsv"), StandardCharsets.UTF_8);
+        return lines.stream().map(line -> {
+            String[] fields = line.split("\t");
+            Set<String> accounts = new TreeSet<>(Arrays.asList(fields).subList(1, fields.length));
+            assertEquals(Integer.parseInt(fields[0]), fields.length - 1, line);
+            assertEquals(fields.length - 1, accounts.size(), line);
+            return accounts;
+        }).collect(Collectors.toSet());
+    }
+}
@@ -0,0 +1,48 @@
+package com.samesame.service;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for the bounded scratch pool shared by the hashing and evaluation code
+ */
+class ScratchPoolTest {
+
+    @Test
+    @DisplayName("Should reuse returned instances across threads and drop those beyond capacity")
+    void testReuseAndCapacity() throws InterruptedException {
+        AtomicInteger created = new AtomicInteger();
+        ScratchPool<int[]> pool = new ScratchPool<>(() -> new int[] {created.incrementAndGet()}, 2);
+
+        int[] first = pool.acquire();
+        pool.release(first);
+        // A new thread, as for every request on a virtual thread, still gets the pooled instance
+        int[][] borrowed = new int[1][];
+        Thread thread = new Thread(() -> {
+            borrowed[0] = pool.acquire();
+            pool.release(borrowed[0]);
+        });
+        thread.start();
+        thread.join();
+        assertSame(first, borrowed[0]);
+        assertEquals(1, created.get());
+
+        int[] a = pool.acquire();
+        int[] b = pool.acquire();
+        int[] c = pool.acquire();
+        assertEquals(3, created.get());
+        pool.release(a);
+        pool.release(b);
+        pool.release(c);
+        for (int i = 0; i < 2; i++) {
+            assertNotSame(c, pool.acquire());
+        }
+        assertEquals(3, created.get());
+        pool.acquire();
+        assertEquals(4, created.get());
+    }
+}
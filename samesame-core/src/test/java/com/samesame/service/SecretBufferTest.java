@@ -0,0 +1,120 @@
+package com.samesame.service;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.DisplayName;
+
+import java.lang.management.BufferPoolMXBean;
+import java.lang.management.ManagementFactory;
+import java.nio.ByteBuffer;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests the off-heap secret buffer and the comparator APIs that read it
+ */
+class SecretBufferTest {
+
+    private final PasswordComparator passwordComparator = new PasswordComparator();
+
+    @Test
+    @DisplayName("Should hold characters off the heap and take ownership of the source")
+    void testTakeFrom() {
+        char[] source = "Pässw0rd!😀".toCharArray();
+        int length = source.length;
+        try (SecretBuffer secret = SecretBuffer.takeFrom(source)) {
+            assertEquals(length, secret.length());
+            assertEquals('P', secret.charAt(0));
+            assertEquals('ä', secret.charAt(1));
+            assertTrue(secret.bytes().isDirect());
+            assertArrayEquals(new char[length], source, "The source array should be zeroed");
+            assertFalse(secret.toString().contains("Pässw0rd"));
+            assertThrows(UnsupportedOperationException.class, () -> secret.subSequence(0, 2));
+            assertThrows(IndexOutOfBoundsException.class, () -> secret.charAt(length));
+        }
+    }
+
+    @Test
+    @DisplayName("Should compare, evaluate and hash exactly like the String APIs")
+    void testComparatorApis() {
+        String[] passwords = {"", "a", "Password123!", "MyStr0ng!P@ssw0rd", "x".repeat(200), "Pässw0rd!😀"};
+        for (String password : passwords) {
+            try (SecretBuffer secret = buffer(password);
+                 SecretBuffer same = buffer(password);
+                 SecretBuffer other = buffer(password + "!")) {
+                assertTrue(passwordComparator.compareSecrets(secret, same));
+                assertFalse(passwordComparator.compareSecrets(secret, other));
+                assertEquals(passwordComparator.evaluatePasswordStrength(password),
+                    passwordComparator.evaluatePasswordStrength(secret));
+                assertEquals(passwordComparator.generateSecureHash(password),
+                    passwordComparator.generateSecureHash(secret));
+                assertEquals(passwordComparator.estimateGuesses(password),
+                    passwordComparator.estimateGuesses(secret), 1e-9);
+            }
+        }
+        assertFalse(passwordComparator.compareSecrets(null, SecretBuffer.allocate()));
+    }
+
+    @Test
+    @DisplayName("Should zero the memory, free it on close and refuse further use")
+    void testCloseZeroes() {
+        SecretBuffer secret = buffer("CorrectHorseBatteryStaple");
+        ByteBuffer memory = secret.bytes().duplicate();
+        int used = memory.limit();
+
+        // Close frees the memory, so the zeroing is observed through clear, which close calls first
+        secret.clear();
+        for (int i = 0; i < used; i++) {
+            assertEquals(0, memory.get(i), "Byte " + i + " survived clear");
+        }
+        secret.append('x');
+        BufferPoolMXBean direct = directPool();
+        SecretBuffer large = SecretBuffer.allocate(1 << 20);
+        long allocated = direct.getMemoryUsed();
+        large.close();
+        if (DirectBuffers.freesEagerly()) {
+            assertTrue(allocated - direct.getMemoryUsed() >= 2L << 20, "Native memory was not freed on close");
+        }
+
+        secret.close();
+        assertTrue(secret.isClosed());
+        assertEquals(0, secret.length());
+        assertThrows(IllegalStateException.class, () -> secret.append('x'));
+        assertThrows(IllegalStateException.class,
+            () -> passwordComparator.compareSecrets(secret, SecretBuffer.allocate()));
+        secret.close();
+    }
+
+    @Test
+    @DisplayName("Should zero the old memory when growing and when deleting")
+    void testGrowAndDelete() {
+        try (SecretBuffer secret = SecretBuffer.allocate(4)) {
+            for (char c : "abcd".toCharArray()) {
+                secret.append(c);
+            }
+            ByteBuffer before = secret.bytes();
+            secret.append('e');
+            // The old memory is zeroed and then freed, so it can no longer be read here
+            assertNotSame(before, secret.bytes());
+
+            secret.deleteLast();
+            assertEquals(4, secret.length());
+            ByteBuffer memory = secret.bytes().duplicate();
+            memory.limit(memory.capacity());
+            assertEquals(0, memory.getChar(8), "Deleted character was not zeroed");
+            assertTrue(passwordComparator.compareSecrets(secret, buffer("abcd")));
+        }
+    }
+
+    private static BufferPoolMXBean directPool() {
+        for (BufferPoolMXBean pool : ManagementFactory.getPlatformMXBeans(BufferPoolMXBean.class)) {
+            if (pool.getName().equals("direct")) {
+                return pool;
+            }
+        }
+        throw new IllegalStateException("No direct buffer pool");
+    }
+
+    private static SecretBuffer buffer(String text) {
+        return SecretBuffer.takeFrom(text.toCharArray());
+    }
+}
@@ -0,0 +1,72 @@
+package com.samesame.service;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for the parallel strength audit
+ */
+class StrengthAuditTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    @DisplayName("Should produce the same histogram as evaluating each password in turn")
+    void testHistogramMatchesSequentialEvaluation() throws Exception {
+        PasswordComparator passwordComparator = new PasswordComparator();
+        BlocklistFilter blocklist = BlocklistFilter.create(10, 0.0001);
+        blocklist.add("MyVerySecureP@ssw0rd2023!");
+        passwordComparator.setBlocklist(blocklist);
+
+        String[] samples = {
+            "123", "password", "Password1", "MyPassword123!", "SecurePass2023", "Passsssword123!",
+            "MyVerySecureP@ssw0rd2023!", "Tr0ub4dor&3XtremelySecure", "Pässwörd🔒", "qwerty", "zZ9!zZ9!zZ9!zZ9!"
+        };
+        SplittableRandom random = new SplittableRandom(11);
+        StringBuilder content = new StringBuilder();
+        long[] expected = new long[StrengthAudit.VERDICTS.length];
+        for (int i = 0; i < 20_000; i++) {
+            String password = samples[random.nextInt(samples.length)] + (random.nextBoolean() ? "" : "x" + i);
+            content.append(password).append(i % 5 == 0 ? "\r\n" : "\n");
+            if (i % 1000 == 0) {
+                content.append('\n');
+            }
+            expected[Arrays.asList(StrengthAudit.VERDICTS).indexOf(passwordComparator.evaluatePasswordStrength(password))]++;
+        }
+        Path input = tempDir.resolve("export.txt");
+        Files.writeString(input, content, StandardCharsets.UTF_8);
+
+        StrengthAudit audit = new StrengthAudit(passwordComparator, 4, 1024);
+        StrengthAudit.Report report = audit.run(input);
+
+        assertEquals(20_000, report.passwords());
+        for (int i = 0; i < expected.length; i++) {
+            assertEquals(expected[i], report.verdictCount(i), StrengthAudit.VERDICTS[i]);
+        }
+        assertTrue(report.ruleFailures(0) > 0, "Short passwords should fail the length rule");
+        assertTrue(report.ruleFailures(4) > 0, "The blocklisted password should be counted");
+    }
+
+    @Test
+    @DisplayName("Should handle empty files and a final line without newline")
+    void testEdgeCases() throws Exception {
+        StrengthAudit audit = new StrengthAudit(new PasswordComparator(), 2, 16);
+        Path empty = tempDir.resolve("empty.txt");
+        Files.write(empty, new byte[0]);
+        assertEquals(0, audit.run(empty).passwords());
+
+        Path single = tempDir.resolve("single.txt");
+        Files.writeString(single, "a-rather-long-password-without-newline");
+        assertEquals(1, audit.run(single).passwords());
+    }
+}
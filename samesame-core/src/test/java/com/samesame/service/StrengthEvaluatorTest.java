@@ -0,0 +1,180 @@
+package com.samesame.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.DisplayName;
+
+import java.util.SplittableRandom;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Differential tests of the single-pass StrengthEvaluator against the
+ * original regex and substring based implementation
+ */
+class StrengthEvaluatorTest {
+
+    /** Characters that exercise every rule, including case folding edge cases */
+    private static final String ALPHABET =
+        "aAbBcCdDeEgGiIlLmMnNoOpPqQrRsSuUwWxXzZ0123!@#$%^&*()_+-=[]{};':,.<>?" +
+        " \t~`|/\\\"äÄßİıKK密🔒";
+
+    private PasswordComparator passwordComparator;
+    private StrengthEvaluator strengthEvaluator;
+
+    @BeforeEach
+    void setUp() {
+        passwordComparator = new PasswordComparator();
+        strengthEvaluator = new StrengthEvaluator();
+    }
+
+    @Test
+    @DisplayName("Should return the same verdict as the original implementation for random inputs")
+    void testDifferentialRandom() {
+        SplittableRandom random = new SplittableRandom(42);
+        for (int i = 0; i < 200_000; i++) {
+            String password = randomPassword(random, 1 + random.nextInt(24));
+            assertEquals(LegacyStrength.evaluate(password), passwordComparator.evaluatePasswordStrength(password),
+                () -> "Verdict differs for " + password);
+        }
+    }
+
+    @Test
+    @DisplayName("Should return the same verdict as the original implementation for known passwords")
+    void testDifferentialKnownPasswords() {
+        String[] passwords = {
+            "123", "password", "abc123", "Password1", "mypassword123", "MyPassword123!",
+            "SecurePass2023", "MyVerySecureP@ssw0rd2023!", "Tr0ub4dor&3XtremelySecure",
+            "Passsssword123!", "admin123", "qwerty123", "PASSWORD", "AdMiN", "LoGiN!",
+            "ppassword", "passwor", "aaa", "aab", "12", "İadmin", "ADMİN", "aKbc",
+            "userlogin", "xx000yy", "🔒🔒🔒", "密码密码", "Zxcvbnm!!", "As d", "qw e"
+        };
+        for (String password : passwords) {
+            assertEquals(LegacyStrength.evaluate(password), passwordComparator.evaluatePasswordStrength(password),
+                () -> "Verdict differs for " + password);
+        }
+    }
+
+    @Test
+    @DisplayName("Should report individual criteria")
+    void testCriteria() {
+        int criteria = strengthEvaluator.evaluate("Passsssword123!");
+        assertEquals(0, criteria & StrengthEvaluator.NO_REPEATING);
+        assertEquals(0, criteria & StrengthEvaluator.NO_COMMON_PATTERN);
+        assertNotEquals(0, criteria & StrengthEvaluator.SPECIAL);
+        assertNotEquals(0, criteria & StrengthEvaluator.LENGTH_12);
+        assertEquals(0, criteria & StrengthEvaluator.LENGTH_16);
+    }
+
+    @Test
+    @DisplayName("Should evaluate char array ranges like character sequences")
+    void testCharArrayRange() {
+        SplittableRandom random = new SplittableRandom(7);
+        for (int i = 0; i < 10_000; i++) {
+            String password = randomPassword(random, 1 + random.nextInt(24));
+            char[] padded = ("xx" + password + "xx").toCharArray();
+            assertEquals(strengthEvaluator.evaluate(password),
+                strengthEvaluator.evaluate(padded, 2, password.length()));
+        }
+    }
+
+    @Test
+    @DisplayName("Should match weak patterns regardless of case")
+    void testPatternAutomaton() {
+        PatternAutomaton automaton = PatternAutomaton.compile("abc", "bcd", "Login");
+        assertTrue(automaton.matchesAny("xxABCxx"));
+        assertTrue(automaton.matchesAny("abbcd"));
+        assertTrue(automaton.matchesAny("LOGIN"));
+        assertFalse(automaton.matchesAny("ab-c"));
+        assertFalse(automaton.matchesAny("logiän"));
+        assertEquals(5, automaton.maxPatternLength());
+    }
+
+    private static String randomPassword(SplittableRandom random, int length) {
+        StringBuilder builder = new StringBuilder();
+        for (int i = 0; i < length; i++) {
+            // Favour pattern fragments and runs so those rules fire often
+            int choice = random.nextInt(10);
+            if (choice == 0) {
+                builder.append(StrengthEvaluator.WEAK_PATTERNS[random.nextInt(StrengthEvaluator.WEAK_PATTERNS.length)]);
+            } else if (choice == 1 && builder.length() > 0) {
+                builder.append(builder.charAt(builder.length() - 1));
+            } else {
+                builder.appendCodePoint(ALPHABET.codePointAt(
+                    ALPHABET.offsetByCodePoints(0, random.nextInt(ALPHABET.codePointCount(0, ALPHABET.length())))));
+            }
+        }
+        return builder.toString();
+    }
+
+    /**
+     * Verbatim copy of the original multi-pass implementation, kept as the reference
+     */
+    private static final class LegacyStrength {
+
+        private static final Pattern LOWERCASE = Pattern.compile("[a-z]");
+        private static final Pattern UPPERCASE = Pattern.compile("[A-Z]");
+        private static final Pattern DIGITS = Pattern.compile("\\d");
+        private static final Pattern SPECIAL_CHARS = Pattern.compile("[!@#$%^&*()_+\\-=\\[\\]{};':,.<>?]");
+
+        static String evaluate(String password) {
+            if (password == null || password.isEmpty()) {
+                return "";
+            }
+            
+            int score = 0;
+            int length = password.length();
+            
+            if (length >= 8) score++;
+            if (length >= 12) score++;
+            if (length >= 16) score++;
+            
+            if (LOWERCASE.matcher(password).find()) score++;
+            if (UPPERCASE.matcher(password).find()) score++;
+            if (DIGITS.matcher(password).find()) score++;
+            if (SPECIAL_CHARS.matcher(password).find()) score++;
+            
+            if (hasNoRepeatingChars(password)) score++;
+            if (hasNoCommonPatterns(password)) score++;
+            
+            if (score <= 2) {
+                return "Weak";
+            } else if (score <= 4) {
+                return "Medium";
+            } else if (score <= 6) {
+                return "Strong";
+            } else {
+                return "Very Strong";
+            }
+        }
+
+        private static boolean hasNoRepeatingChars(String password) {
+            for (int i = 0; i < password.length() - 2; i++) {
+                if (password.charAt(i) == password.charAt(i + 1) && 
+                    password.charAt(i + 1) == password.charAt(i + 2)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private static boolean hasNoCommonPatterns(String password) {
+            String lowerPassword = password.toLowerCase();
+            
+            String[] weakPatterns = {
+                "123", "abc", "qwe", "asd", "zxc",
+                "password", "admin", "user", "login",
+                "000", "111", "222", "333"
+            };
+            
+            for (String pattern : weakPatterns) {
+                if (lowerPassword.contains(pattern)) {
+                    return false;
+                }
+            }
+            
+            return true;
+        }
+    }
+}
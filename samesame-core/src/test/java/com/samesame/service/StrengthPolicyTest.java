@@ -0,0 +1,235 @@
+package com.samesame.service;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Properties;
+import java.util.Set;
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for declarative strength policies, their compiled evaluators and reloading
+ */
+class StrengthPolicyTest {
+
+    private static final String CUSTOM_JSON = "{\n"
+        + "  \"length\": {\"minimum\": 10, \"long\": 14, \"veryLong\": 20},\n"
+        + "  \"characters\": {\"special\": \"!#\"},\n"
+        + "  \"repeat\": {\"maxRun\": 1},\n"
+        + "  \"weakPatterns\": [\"Acme\", \"\\u0073ummer\"],\n"
+        + "  \"weight\": {\"digit\": 3, \"uppercase\": 0},\n"
+        + "  \"verdict\": {\"weak\": 3, \"medium\": 6, \"strong\": 9}\n"
+        + "}";
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    @DisplayName("Should compile the built-in policy, from any source, to the built-in verdicts")
+    void testDefaultsMatchBuiltInRules() {
+        Properties empty = new Properties();
+        StrengthEvaluator builtIn = new StrengthEvaluator();
+        List<StrengthEvaluator> compiled = List.of(
+            StrengthPolicy.defaults().compile(),
+            StrengthPolicy.fromProperties(empty).compile(),
+            StrengthPolicy.fromJson(" { } ").compile());
+
+        SplittableRandom random = new SplittableRandom(25);
+        String alphabet = "aA1!é€ xqweasdpassword111";
+        for (int trial = 0; trial < 5_000; trial++) {
+            String password = randomText(random, alphabet, random.nextInt(24));
+            int criteria = builtIn.evaluate(password);
+            int points = Integer.bitCount(criteria);
+            StrengthPolicy.Verdict expected = points <= 2 ? StrengthPolicy.Verdict.WEAK
+                : points <= 4 ? StrengthPolicy.Verdict.MEDIUM
+                : points <= 6 ? StrengthPolicy.Verdict.STRONG
+                : StrengthPolicy.Verdict.VERY_STRONG;
+            for (StrengthEvaluator evaluator : compiled) {
+                assertEquals(criteria, evaluator.evaluate(password), password);
+                StrengthEvaluator.Result result = evaluator.result(criteria, false);
+                assertEquals(points, result.score(), password);
+                assertEquals(expected, result.verdict(), password);
+                assertEquals(Integer.bitCount(~criteria & 0x1FF), result.failedRules().size(), password);
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("Should apply custom thresholds, weights and verdict limits without allocating results")
+    void testCustomPolicy() {
+        StrengthPolicy policy = StrengthPolicy.fromJson(CUSTOM_JSON);
+        StrengthEvaluator evaluator = policy.compile();
+        assertEquals(1, policy.maxRun());
+        assertArrayEquals(new String[] {"acme", "summer"}, policy.weakPatterns());
+
+        // 11 characters: minimum length only; '$' is no longer special, the repeat and pattern rules fail
+        StrengthEvaluator.Result result = evaluator.result(evaluator.evaluate("ACME$$word1"), false);
+        assertEquals(EnumSet.of(StrengthPolicy.Rule.LONG, StrengthPolicy.Rule.VERY_LONG,
+            StrengthPolicy.Rule.SPECIAL, StrengthPolicy.Rule.NO_REPEATING, StrengthPolicy.Rule.NO_COMMON_PATTERN),
+            result.failedRules());
+        // length 1 + lowercase 1 + digit 3; the uppercase letters count for nothing
+        assertEquals(5, result.score());
+        assertEquals(StrengthPolicy.Verdict.MEDIUM, result.verdict());
+        assertFalse(result.failed(StrengthPolicy.Rule.UPPERCASE));
+
+        StrengthEvaluator.Result strong = evaluator.result(evaluator.evaluate("Tr0ub4dor#horse"), false);
+        assertEquals(Set.of(StrengthPolicy.Rule.VERY_LONG), strong.failedRules());
+        assertEquals(StrengthPolicy.Verdict.STRONG, strong.verdict());
+
+        StrengthEvaluator.Result blocklisted = evaluator.result(strong.criteria(), true);
+        assertEquals(0, blocklisted.score());
+        assertEquals(StrengthPolicy.Verdict.WEAK, blocklisted.verdict());
+        assertTrue(blocklisted.failed(StrengthPolicy.Rule.NOT_BLOCKLISTED));
+
+        // Results are precomputed per criteria mask and shared
+        assertSame(strong, evaluator.result(evaluator.evaluate("Tr0ub4dor#horse"), false));
+
+        // The incremental evaluator follows the same policy
+        IncrementalStrengthEvaluator incremental = new IncrementalStrengthEvaluator(evaluator);
+        String typed = "aa#Summer99xyzzy!Acme";
+        for (int i = 0; i < typed.length(); i++) {
+            incremental.append(typed.charAt(i));
+            assertEquals(evaluator.evaluate(typed.substring(0, i + 1)), incremental.criteria(), typed.substring(0, i + 1));
+        }
+
+        Properties properties = new Properties();
+        properties.setProperty("length.minimum", "10");
+        properties.setProperty("length.long", "14");
+        properties.setProperty("length.veryLong", "20");
+        properties.setProperty("characters.special", "!#");
+        properties.setProperty("repeat.maxRun", "1");
+        properties.setProperty("weakPatterns", "acme, summer");
+        properties.setProperty("weight.digit", "3");
+        properties.setProperty("weight.uppercase", "0");
+        properties.setProperty("verdict.weak", "3");
+        properties.setProperty("verdict.medium", "6");
+        properties.setProperty("verdict.strong", "9");
+        StrengthEvaluator fromProperties = StrengthPolicy.fromProperties(properties).compile();
+        for (String password : List.of("ACME$$word1", "Tr0ub4dor#horse", typed, "")) {
+            int criteria = fromProperties.evaluate(password);
+            assertEquals(evaluator.evaluate(password), criteria, password);
+            assertEquals(evaluator.result(criteria, false).toString(), fromProperties.result(criteria, false).toString());
+        }
+    }
+
+    @Test
+    @DisplayName("Should reject unknown keys and invalid values")
+    void testInvalidPolicies() {
+        List<String> invalid = new ArrayList<>(List.of(
+            "{\"length\": {\"minimum\": 8, \"maximum\": 64}}",
+            "{\"weight\": {\"notBlocklisted\": 1}}",
+            "{\"weight\": {\"digit\": 101}}",
+            "{\"length\": {\"minimum\": 12, \"long\": 10}}",
+            "{\"verdict\": {\"weak\": 5, \"medium\": 4}}",
+            "{\"repeat\": {\"maxRun\": 0}}",
+            "{\"characters\": {\"special\": \"!a\"}}",
+            "{\"weakPatterns\": \"abc\"}",
+            "{\"weakPatterns\": [\"\"]}",
+            "{\"length\": {\"minimum\": \"eight\"}}",
+            "{\"length\": 8",
+            "{} trailing"));
+        for (String json : invalid) {
+            assertThrows(IllegalArgumentException.class, () -> StrengthPolicy.fromJson(json).compile(), json);
+        }
+    }
+
+    @Test
+    @DisplayName("Should reject weak patterns that cannot compile when the policy is read")
+    void testInvalidWeakPatterns() throws IOException {
+        for (String json : List.of("{\"weakPatterns\": [\"\"]}", "{\"weakPatterns\": [\"abc\", \"pässwort\"]}")) {
+            assertThrows(IllegalArgumentException.class, () -> StrengthPolicy.fromJson(json), json);
+        }
+        Properties properties = new Properties();
+        properties.setProperty("weakPatterns", "abc, ﾊﾟｽ");
+        assertThrows(IllegalArgumentException.class, () -> StrengthPolicy.fromProperties(properties));
+
+        // A reloader started on such a file fails with an IOException, and a reload keeps the policy
+        Path file = tempDir.resolve("policy.json");
+        Files.writeString(file, "{\"weakPatterns\": [\"\u00e9t\u00e9\"]}", StandardCharsets.UTF_8);
+        assertThrows(IOException.class, () -> StrengthPolicy.load(file));
+        PasswordComparator passwordComparator = new PasswordComparator();
+        assertThrows(IOException.class, () -> new StrengthPolicyReloader(
+            passwordComparator, file, Duration.ofHours(1), line -> { }));
+        assertSame(StrengthPolicy.defaults(), passwordComparator.getStrengthPolicy());
+    }
+
+    @Test
+    @DisplayName("Should swap policies atomically and reload a changed policy file")
+    void testSwapAndReload() throws IOException {
+        PasswordComparator passwordComparator = new PasswordComparator();
+        String password = "summer2024!";
+        assertEquals("Strong", passwordComparator.evaluatePasswordStrength(password));
+
+        Path file = tempDir.resolve("policy.properties");
+        Files.writeString(file, "weakPatterns=summer\nverdict.medium=5\n", StandardCharsets.UTF_8);
+        List<String> log = new ArrayList<>();
+        try (StrengthPolicyReloader reloader = new StrengthPolicyReloader(
+                passwordComparator, file, Duration.ofHours(1), log::add)) {
+            // Length, lowercase, digit, special and no repeats; the pattern now fails
+            assertEquals(5, passwordComparator.evaluateStrength(password).score());
+            assertEquals("Medium", passwordComparator.evaluatePasswordStrength(password));
+            assertFalse(reloader.check());
+
+            Files.writeString(file, "verdict.weak=1\nverdict.medium=3\nverdict.strong=4\n", StandardCharsets.UTF_8);
+            Files.setLastModifiedTime(file, FileTime.fromMillis(System.currentTimeMillis() + 10_000));
+            assertTrue(reloader.check());
+            assertEquals("Very Strong", passwordComparator.evaluatePasswordStrength(password));
+
+            // A broken file keeps the policy in effect, and is reported once
+            Files.writeString(file, "verdict.weak=nine\n", StandardCharsets.UTF_8);
+            Files.setLastModifiedTime(file, FileTime.fromMillis(System.currentTimeMillis() + 20_000));
+            assertFalse(reloader.check());
+            assertFalse(reloader.check());
+            assertEquals("Very Strong", passwordComparator.evaluatePasswordStrength(password));
+            assertEquals(2, log.size(), log.toString());
+        }
+
+        passwordComparator.setStrengthPolicy(null);
+        assertSame(StrengthPolicy.defaults(), passwordComparator.getStrengthPolicy());
+        assertEquals("Strong", passwordComparator.evaluatePasswordStrength(password));
+
+        Path broken = Files.writeString(tempDir.resolve("broken.json"), "{\"unknown\": 1}", StandardCharsets.UTF_8);
+        assertThrows(IOException.class, () -> StrengthPolicy.load(broken));
+    }
+
+    @Test
+    @DisplayName("Should resolve incremental criteria under the policy they were evaluated with")
+    void testIncrementalAcrossSwap() {
+        PasswordComparator passwordComparator = new PasswordComparator();
+        String password = "summer2024!";
+        IncrementalStrengthEvaluator incremental = passwordComparator.newIncrementalEvaluator();
+        incremental.append(password);
+        assertEquals("Strong", passwordComparator.evaluateIncrementalStrength(incremental));
+
+        // The new verdict limits would call the old criteria "Very Strong"
+        passwordComparator.setStrengthPolicy(StrengthPolicy.fromJson(
+            "{\"weakPatterns\": [\"summer\"], \"verdict\": {\"weak\": 1, \"medium\": 2, \"strong\": 3}}"));
+        assertEquals("Strong", passwordComparator.evaluateIncrementalStrength(incremental));
+        assertEquals("Strong", passwordComparator.strengthVerdict(incremental.evaluator(), password, incremental.criteria()));
+
+        StrengthEvaluator.Result current = passwordComparator.strengthResult(password);
+        assertSame(passwordComparator.evaluateStrength(password), current);
+        assertTrue(current.failed(StrengthPolicy.Rule.NO_COMMON_PATTERN));
+        assertEquals("Very Strong", current.verdict().label());
+    }
+
+    private static String randomText(SplittableRandom random, String alphabet, int length) {
+        StringBuilder builder = new StringBuilder(length);
+        for (int i = 0; i < length; i++) {
+            builder.append(alphabet.charAt(random.nextInt(alphabet.length())));
+        }
+        return builder.toString();
+    }
+}
@@ -0,0 +1,205 @@
+package com.samesame.service;
+
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.Random;
+
+/**
+ * Statistical test for data-dependent timing, after dudect (Reparaz et al.)
+ *
+ * The caller prepares a pool of inputs, each belonging to one of two classes:
+ * typically a fixed input against random ones. The harness runs the target on
+ * inputs drawn in random order, so both classes see the same JIT state, cache
+ * state and background noise, and times each call with
+ * {@link System#nanoTime()}. A small batch of calls per measurement lifts
+ * fast operations above the clock's resolution.
+ *
+ * Welch's t-test is then run on the raw timings and on copies cropped at a
+ * series of upper percentiles, since a leak may only be visible once
+ * interrupts and GC pauses are removed. The largest |t| is the result: below
+ * about 4.5 there is no evidence of a leak, and above 10 the two classes
+ * certainly take different time.
+ */
+final class TimingLeakHarness {
+
+    /** |t| above which a target is reported as leaking */
+    static final double DEFAULT_THRESHOLD = 10;
+
+    /** Cropped variants of the data tested in addition to the raw timings */
+    private static final int CROPS = 100;
+
+    /** Classes with fewer samples than this are not tested */
+    private static final int MIN_SAMPLES = 1_000;
+
+    /**
+     * Code under test, run on one of the prepared inputs
+     */
+    @FunctionalInterface
+    interface Target {
+        /**
+         * @param input Index of the prepared input
+         * @return Result of the operation; it is consumed so the call cannot be eliminated
+         */
+        boolean run(int input);
+    }
+
+    /**
+     * Outcome of one target
+     */
+    static final class Result {
+        final String name;
+        final long measurements;
+        final double maxT;
+        final double cropPercentile;
+        final double fixedMeanNanos;
+        final double randomMeanNanos;
+        final double threshold;
+
+        Result(String name, long measurements, double maxT, double cropPercentile,
+               double fixedMeanNanos, double randomMeanNanos, double threshold) {
+            this.name = name;
+            this.measurements = measurements;
+            this.maxT = maxT;
+            this.cropPercentile = cropPercentile;
+            this.fixedMeanNanos = fixedMeanNanos;
+            this.randomMeanNanos = randomMeanNanos;
+            this.threshold = threshold;
+        }
+
+        /**
+         * @return true if |t| exceeded the threshold
+         */
+        boolean leaks() {
+            return Math.abs(maxT) > threshold;
+        }
+
+        /**
+         * @return One report line
+         */
+        String describe() {
+            return String.format(Locale.ROOT,
+                "%-40s %s  max |t| = %7.2f (crop p%.1f)  fixed %.1f ns  random %.1f ns  n = %,d",
+                name, leaks() ? "LEAK" : "ok  ", Math.abs(maxT), cropPercentile * 100,
+                fixedMeanNanos, randomMeanNanos, measurements);
+        }
+    }
+
+    private static volatile int sink;
+
+    private final int measurements;
+    private final int batch;
+    private final double threshold;
+    private final Random random;
+
+    /**
+     * @param measurements Timed measurements per target, split between both classes
+     * @param batch Calls per measurement
+     * @param threshold |t| above which a target is reported as leaking
+     * @param seed Seed for the measurement order
+     */
+    TimingLeakHarness(int measurements, int batch, double threshold, long seed) {
+        this.measurements = measurements;
+        this.batch = batch;
+        this.threshold = threshold;
+        this.random = new Random(seed);
+    }
+
+    /**
+     * Measures a target
+     *
+     * @param name Name shown in the report
+     * @param randomClass For each prepared input, whether it belongs to the random class
+     * @param target Operation to time
+     */
+    Result measure(String name, boolean[] randomClass, Target target) {
+        int inputs = randomClass.length;
+        int[] order = new int[measurements];
+        for (int i = 0; i < measurements; i++) {
+            order[i] = random.nextInt(inputs);
+        }
+
+        // Warm up on the same order so the timed loop runs fully compiled code
+        run(target, order, new long[Math.min(measurements, 200_000)]);
+        long[] timings = new long[measurements];
+        run(target, order, timings);
+
+        long[] sorted = timings.clone();
+        Arrays.sort(sorted);
+        long[] cutoffs = new long[CROPS + 1];
+        double[] percentiles = new double[CROPS + 1];
+        cutoffs[0] = Long.MAX_VALUE;
+        percentiles[0] = 1;
+        for (int k = 1; k <= CROPS; k++) {
+            // Crops concentrate near the median: p = 1 - 0.5^(10k/CROPS)
+            percentiles[k] = 1 - Math.pow(0.5, 10.0 * k / CROPS);
+            cutoffs[k] = sorted[(int) Math.min(measurements - 1, percentiles[k] * measurements)];
+        }
+
+        Welch[] tests = new Welch[CROPS + 1];
+        for (int k = 0; k <= CROPS; k++) {
+            tests[k] = new Welch();
+        }
+        for (int i = 0; i < measurements; i++) {
+            int group = randomClass[order[i]] ? 1 : 0;
+            long timing = timings[i];
+            for (int k = 0; k <= CROPS; k++) {
+                if (timing < cutoffs[k] || k == 0) {
+                    tests[k].add(group, timing);
+                }
+            }
+        }
+
+        int worst = 0;
+        for (int k = 1; k <= CROPS; k++) {
+            if (tests[k].testable() && Math.abs(tests[k].t()) > Math.abs(tests[worst].t())) {
+                worst = k;
+            }
+        }
+        Welch raw = tests[0];
+        return new Result(name, measurements, tests[worst].t(), percentiles[worst],
+            raw.mean[0] / batch, raw.mean[1] / batch, threshold);
+    }
+
+    private void run(Target target, int[] order, long[] timings) {
+        int consumed = 0;
+        for (int i = 0; i < timings.length; i++) {
+            int input = order[i];
+            long start = System.nanoTime();
+            for (int call = 0; call < batch; call++) {
+                consumed += target.run(input) ? 1 : 0;
+            }
+            timings[i] = System.nanoTime() - start;
+        }
+        sink = consumed;
+    }
+
+    /**
+     * Running means and variances of two groups (Welford), for Welch's t-test
+     */
+    private static final class Welch {
+        final double[] mean = new double[2];
+        final double[] m2 = new double[2];
+        final long[] count = new long[2];
+
+        void add(int group, double value) {
+            count[group]++;
+            double delta = value - mean[group];
+            mean[group] += delta / count[group];
+            m2[group] += delta * (value - mean[group]);
+        }
+
+        boolean testable() {
+            return count[0] >= MIN_SAMPLES && count[1] >= MIN_SAMPLES;
+        }
+
+        double t() {
+            if (!testable()) {
+                return 0;
+            }
+            double variance0 = m2[0] / (count[0] - 1);
+            double variance1 = m2[1] / (count[1] - 1);
+            double denominator = Math.sqrt(variance0 / count[0] + variance1 / count[1]);
+            return denominator == 0 ? 0 : (mean[0] - mean[1]) / denominator;
+        }
+    }
+}
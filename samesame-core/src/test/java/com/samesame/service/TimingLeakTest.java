@@ -0,0 +1,232 @@
+package com.samesame.service;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.function.IntConsumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Checks the comparison methods for data-dependent timing
+ *
+ * Each target compares a fixed secret with inputs of the same length: either
+ * a copy that differs only in the last position (the fixed class) or random
+ * data (the random class), which almost always differs in the first. An
+ * early-exit comparison finishes much sooner on random inputs. Both classes
+ * fail to match, so the test measures where a difference is, not whether
+ * there is one; the outcome of a comparison is public anyway. Lengths are
+ * equal in both classes because the length of a secret is not treated as
+ * secret.
+ *
+ * Excluded from the default build; run with {@code mvn -Ptiming-leaks test}.
+ * Tunable with -Dsamesame.timing.measurements, .threshold and .report.
+ */
+@Tag("timing-leak")
+class TimingLeakTest {
+
+    private static final int INPUTS = 1 << 10;
+    private static final int MEASUREMENTS = Integer.getInteger("samesame.timing.measurements", 2_000_000);
+    private static final double THRESHOLD = Double.parseDouble(
+        System.getProperty("samesame.timing.threshold", String.valueOf(TimingLeakHarness.DEFAULT_THRESHOLD)));
+    private static final Path REPORT = Path.of(
+        System.getProperty("samesame.timing.report", "target/timing-leak-report.txt"));
+
+    private static final List<TimingLeakHarness.Result> results = new ArrayList<>();
+
+    private final PasswordComparator passwordComparator = new PasswordComparator();
+    private final Random random = new Random(15);
+    private boolean[] randomClass;
+
+    @BeforeAll
+    static void resetReport() {
+        results.clear();
+    }
+
+    @AfterAll
+    static void writeReport() throws IOException {
+        List<String> lines = new ArrayList<>();
+        lines.add("Timing-leak report (Welch's t-test, fixed vs random inputs)");
+        lines.add("JVM: " + System.getProperty("java.vm.name") + " " + System.getProperty("java.runtime.version"));
+        lines.add("Vectorized byte comparison: " + ConstantTime.isVectorized());
+        lines.add("Threshold: |t| > " + THRESHOLD);
+        lines.add("");
+        for (TimingLeakHarness.Result result : results) {
+            lines.add(result.describe());
+        }
+        Path parent = REPORT.toAbsolutePath().getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+        Files.write(REPORT, lines, StandardCharsets.UTF_8);
+    }
+
+    @Test
+    @DisplayName("comparePasswords(String, String) should not leak where the inputs differ")
+    void testComparePasswords() {
+        String secret = randomAscii(32);
+        String[] inputs = new String[INPUTS];
+        prepare(i -> inputs[i] = randomClass[i] ? randomAscii(32) : lastDiffers(secret));
+
+        assertConstantTime("comparePasswords(String, 32)",
+            i -> passwordComparator.comparePasswords(secret, inputs[i]));
+    }
+
+    @Test
+    @DisplayName("comparePasswords(CharSequence, CharSequence) should not leak where the inputs differ")
+    void testCompareCharSequences() {
+        StringBuilder secret = new StringBuilder(randomAscii(32));
+        CharSequence[] inputs = new CharSequence[INPUTS];
+        prepare(i -> inputs[i] = new StringBuilder(randomClass[i] ? randomAscii(32) : lastDiffers(secret)));
+
+        assertConstantTime("comparePasswords(CharSequence, 32)",
+            i -> passwordComparator.comparePasswords(secret, inputs[i]));
+    }
+
+    @Test
+    @DisplayName("compareChars should not leak where the inputs differ")
+    void testCompareChars() {
+        char[] secret = randomAscii(32).toCharArray();
+        char[][] inputs = new char[INPUTS][];
+        prepare(i -> inputs[i] = randomClass[i] ? randomAscii(32).toCharArray() : lastDiffers(secret));
+
+        assertConstantTime("compareChars(32)", i -> passwordComparator.compareChars(secret, inputs[i]));
+    }
+
+    @Test
+    @DisplayName("compareBytes(byte[]) should not leak where the inputs differ")
+    void testCompareBytes() {
+        for (int length : new int[] {32, 1024}) {
+            byte[] secret = randomBytes(length);
+            byte[][] inputs = new byte[INPUTS][];
+            prepare(i -> inputs[i] = randomClass[i] ? randomBytes(length) : lastDiffers(secret));
+
+            assertConstantTime("compareBytes(byte[], " + length + ")",
+                i -> passwordComparator.compareBytes(secret, inputs[i]));
+        }
+    }
+
+    @Test
+    @DisplayName("compareBytes(ByteBuffer) should not leak where the inputs differ")
+    void testCompareDirectBuffers() {
+        byte[] secretBytes = randomBytes(1024);
+        ByteBuffer secret = ByteBuffer.allocateDirect(1024).put(secretBytes).flip();
+        ByteBuffer[] inputs = new ByteBuffer[INPUTS];
+        prepare(i -> {
+            ByteBuffer input = ByteBuffer.allocateDirect(1024);
+            input.put(randomClass[i] ? randomBytes(1024) : lastDiffers(secretBytes)).flip();
+            inputs[i] = input;
+        });
+
+        assertConstantTime("compareBytes(direct ByteBuffer, 1024)",
+            i -> passwordComparator.compareBytes(secret, inputs[i]));
+    }
+
+    @Test
+    @DisplayName("FileComparator should not leak where the files differ")
+    void testCompareFiles(@TempDir Path directory) throws IOException {
+        int length = 4 * FileComparator.MIN_WINDOW_SIZE;
+        byte[] secretBytes = randomBytes(length);
+        Path secret = Files.write(directory.resolve("secret"), secretBytes);
+        Path[] inputs = new Path[INPUTS];
+        prepare(i -> {
+            try {
+                inputs[i] = Files.write(directory.resolve("input-" + i),
+                    randomClass[i] ? randomBytes(length) : lastDiffers(secretBytes));
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+        FileComparator fileComparator = new FileComparator(FileComparator.MIN_WINDOW_SIZE);
+
+        // Each measurement opens and maps two files, so fewer of them fit in the same time
+        TimingLeakHarness.Result result = new TimingLeakHarness(MEASUREMENTS / 20, 8, THRESHOLD, random.nextLong())
+            .measure("FileComparator(4 windows of 4096)", randomClass, i -> {
+                try {
+                    return fileComparator.compare(secret, inputs[i]).identical();
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        results.add(result);
+        assertFalse(result.leaks(), result.describe());
+    }
+
+    @Test
+    @DisplayName("Should detect the leak in an early-exit comparison")
+    void testDetectsEarlyExit() {
+        byte[] secret = randomBytes(1024);
+        byte[][] inputs = new byte[INPUTS][];
+        prepare(i -> inputs[i] = randomClass[i] ? randomBytes(1024) : lastDiffers(secret));
+
+        TimingLeakHarness.Result result = harness()
+            .measure("control: Arrays.equals(byte[], 1024)", randomClass, i -> Arrays.equals(secret, inputs[i]));
+        results.add(result);
+        assertTrue(result.leaks(), "The harness should flag a known leak: " + result.describe());
+    }
+
+    private void assertConstantTime(String name, TimingLeakHarness.Target target) {
+        TimingLeakHarness.Result result = harness().measure(name, randomClass, target);
+        results.add(result);
+        assertFalse(result.leaks(), result.describe());
+    }
+
+    private TimingLeakHarness harness() {
+        return new TimingLeakHarness(MEASUREMENTS, 8, THRESHOLD, random.nextLong());
+    }
+
+    /**
+     * Assigns every input to a random class, then builds it
+     */
+    private void prepare(IntConsumer builder) {
+        randomClass = new boolean[INPUTS];
+        for (int i = 0; i < INPUTS; i++) {
+            randomClass[i] = random.nextBoolean();
+            builder.accept(i);
+        }
+    }
+
+    private static String lastDiffers(CharSequence secret) {
+        return new String(lastDiffers(secret.toString().toCharArray()));
+    }
+
+    private static char[] lastDiffers(char[] secret) {
+        char[] copy = secret.clone();
+        copy[copy.length - 1] = copy[copy.length - 1] == '!' ? '~' : '!';
+        return copy;
+    }
+
+    private static byte[] lastDiffers(byte[] secret) {
+        byte[] copy = secret.clone();
+        copy[copy.length - 1] ^= 1;
+        return copy;
+    }
+
+    private String randomAscii(int length) {
+        char[] chars = new char[length];
+        for (int i = 0; i < length; i++) {
+            chars[i] = (char) ('!' + random.nextInt(94));
+        }
+        return new String(chars);
+    }
+
+    private byte[] randomBytes(int length) {
+        byte[] bytes = new byte[length];
+        random.nextBytes(bytes);
+        return bytes;
+    }
+}
@@ -0,0 +1,171 @@
+package com.samesame.controller;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+/**
+ * Runs UI evaluations on background threads and delivers only the latest result
+ *
+ * Work is submitted to a {@link Lane}; each lane holds at most one job that
+ * still matters. Submitting new work, or calling {@link Lane#cancel()},
+ * bumps the lane's version and cancels the job in flight. A job checks the
+ * version before it starts and after it finishes, and its result is handed
+ * to the result executor (the JavaFX Application Thread in the GUI), which
+ * checks the version once more before the result is shown. A result
+ * therefore never overwrites a newer one, however the threads interleave.
+ *
+ * Lanes are meant to be driven from the single thread that also receives
+ * results; the pipeline itself is thread-safe.
+ */
+public final class EvaluationPipeline implements AutoCloseable {
+
+    private final ExecutorService workers;
+    private final Executor resultExecutor;
+    private final AtomicInteger queueDepth = new AtomicInteger();
+    private final LongAdder delivered = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
+
+    /**
+     * @param workers Executor that runs the evaluations, typically one virtual thread per task
+     * @param resultExecutor Executor that delivers results, e.g. {@code Platform::runLater}
+     */
+    public EvaluationPipeline(ExecutorService workers, Executor resultExecutor) {
+        this.workers = workers;
+        this.resultExecutor = resultExecutor;
+    }
+
+    /**
+     * Creates an independent lane; use one lane per kind of result shown
+     */
+    public <R> Lane<R> lane() {
+        return new Lane<>();
+    }
+
+    /**
+     * @return Jobs submitted that have neither finished nor been cancelled
+     */
+    public int queueDepth() {
+        return queueDepth.get();
+    }
+
+    /**
+     * @return Results handed to their consumer
+     */
+    public long delivered() {
+        return delivered.sum();
+    }
+
+    /**
+     * @return Jobs cancelled or results discarded because newer input arrived
+     */
+    public long dropped() {
+        return dropped.sum();
+    }
+
+    /**
+     * Cancels running evaluations and stops the worker executor
+     */
+    @Override
+    public void close() {
+        workers.shutdownNow();
+    }
+
+    /**
+     * Sequence of evaluations of which only the most recent one is delivered
+     */
+    public final class Lane<R> {
+
+        private final AtomicLong version = new AtomicLong();
+        private final AtomicReference<Job> inFlight = new AtomicReference<>();
+
+        private Lane() {
+        }
+
+        /**
+         * Supersedes any earlier work in this lane and schedules new work
+         *
+         * @param work Evaluation to run on a worker thread
+         * @param onResult Receives the result on the result executor, unless newer work was submitted meanwhile
+         */
+        public void submit(Callable<R> work, Consumer<R> onResult) {
+            long submitted = version.incrementAndGet();
+            // A job superseded before it completes is counted as dropped when it is cancelled
+            Job job = new Job(() -> {
+                if (version.get() != submitted) {
+                    return;
+                }
+                R result = work.call();
+                if (version.get() != submitted || Thread.currentThread().isInterrupted()) {
+                    return;
+                }
+                resultExecutor.execute(() -> {
+                    if (version.get() == submitted) {
+                        delivered.increment();
+                        onResult.accept(result);
+                    } else {
+                        dropped.increment();
+                    }
+                });
+            });
+            cancelInFlight(job);
+            queueDepth.incrementAndGet();
+            workers.execute(job);
+        }
+
+        /**
+         * Discards any pending result of this lane
+         */
+        public void cancel() {
+            version.incrementAndGet();
+            cancelInFlight(null);
+        }
+
+        private void cancelInFlight(Job replacement) {
+            Job previous = inFlight.getAndSet(replacement);
+            if (previous != null && previous.cancel(true)) {
+                dropped.increment();
+            }
+        }
+    }
+
+    /**
+     * Evaluation job that keeps the queue depth accurate however it ends
+     */
+    private final class Job extends FutureTask<Void> {
+
+        Job(ThrowingRunnable body) {
+            super(() -> {
+                body.run();
+                return null;
+            });
+        }
+
+        @Override
+        protected void done() {
+            queueDepth.decrementAndGet();
+            try {
+                get();
+            } catch (CancellationException e) {
+                // Superseded by newer input
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (ExecutionException e) {
+                System.err.println("Background evaluation failed: " + e.getCause());
+            }
+        }
+    }
+
+    @FunctionalInterface
+    private interface ThrowingRunnable {
+        void run() throws Exception;
+    }
+}
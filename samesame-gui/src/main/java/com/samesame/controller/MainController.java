@@ -0,0 +1,365 @@
+package com.samesame.controller;
+
+import javafx.application.Platform;
+import javafx.fxml.FXML;
+import javafx.fxml.Initializable;
+import javafx.scene.control.*;
+import javafx.scene.input.KeyCombination;
+import javafx.scene.input.KeyEvent;
+import javafx.scene.layout.VBox;
+import javafx.animation.AnimationTimer;
+import javafx.animation.PauseTransition;
+import javafx.util.Duration;
+import com.samesame.service.BlocklistFilter;
+import com.samesame.service.BreachIndex;
+import com.samesame.service.EditDistance;
+import com.samesame.service.EvaluationCache;
+import com.samesame.service.IncrementalStrengthEvaluator;
+import com.samesame.service.PasswordComparator;
+import com.samesame.service.StrengthEvaluator;
+import com.samesame.service.StrengthPolicy;
+import com.samesame.service.VirtualThreads;
+
+import java.io.IOException;
+import java.net.URL;
+import java.util.ResourceBundle;
+
+/**
+ * Controller for the main password comparison interface
+ * 
+ * Strength and comparison results are computed on background threads by an
+ * {@link EvaluationPipeline}; the JavaFX Application Thread only records the
+ * edit and shows results that still match the current input.
+ */
+public class MainController implements Initializable {
+
+    @FXML
+    private VBox rootContainer;
+    
+    @FXML
+    private PasswordField password1Field;
+    
+    @FXML
+    private PasswordField password2Field;
+    
+    @FXML
+    private CheckBox showPasswordsCheckBox;
+    
+    @FXML
+    private TextField visiblePassword1Field;
+    
+    @FXML
+    private TextField visiblePassword2Field;
+    
+    @FXML
+    private Label resultLabel;
+    
+    @FXML
+    private Button compareButton;
+    
+    @FXML
+    private Button clearButton;
+    
+    @FXML
+    private Label strengthLabel;
+    
+    @FXML
+    private Label debugOverlay;
+    
+    /** Shows or hides the frame-time and queue-depth overlay */
+    private static final KeyCombination DEBUG_OVERLAY_TOGGLE = KeyCombination.keyCombination("Shortcut+Shift+D");
+    
+    private final PasswordComparator passwordComparator = newPasswordComparator();
+    /** Small: it only has to cover backspacing and retyping within one session */
+    private final EvaluationCache evaluationCache = new EvaluationCache(1024);
+    private final IncrementalStrengthEvaluator password1Strength = passwordComparator.newIncrementalEvaluator();
+    private final EvaluationPipeline pipeline = new EvaluationPipeline(
+        VirtualThreads.newThreadPerTaskExecutor("samesame-ui"), Platform::runLater);
+    private final EvaluationPipeline.Lane<StrengthResult> strengthLane = pipeline.lane();
+    private final EvaluationPipeline.Lane<EditDistance.Similarity> comparisonLane = pipeline.lane();
+    private PauseTransition realTimeComparison;
+    private FrameStatistics frameStatistics;
+
+    @Override
+    public void initialize(URL location, ResourceBundle resources) {
+        passwordComparator.setEvaluationCache(evaluationCache);
+        setupPasswordFields();
+        setupRealTimeComparison();
+        setupUI();
+        setupDebugOverlay();
+        loadBreachIndex();
+        loadBlocklist();
+    }
+
+    /**
+     * Creates the service with the configured strength policy, so the
+     * incremental evaluator created next already applies it
+     */
+    private static PasswordComparator newPasswordComparator() {
+        PasswordComparator comparator = new PasswordComparator();
+        try {
+            comparator.setStrengthPolicy(StrengthPolicy.loadConfigured());
+        } catch (IOException e) {
+            // The policy is optional, continue with the built-in one
+            System.err.println("Could not load strength policy: " + e.getMessage());
+        }
+        return comparator;
+    }
+
+    private void loadBreachIndex() {
+        try {
+            passwordComparator.setBreachIndex(BreachIndex.openConfigured());
+        } catch (IOException e) {
+            // Breach checks are optional, continue without them
+            System.err.println("Could not load breach index: " + e.getMessage());
+        }
+    }
+
+    private void loadBlocklist() {
+        try {
+            passwordComparator.setBlocklist(BlocklistFilter.openConfigured());
+        } catch (IOException e) {
+            // The blocklist is optional, continue without it
+            System.err.println("Could not load blocklist: " + e.getMessage());
+        }
+    }
+
+    private void setupPasswordFields() {
+        // Bind visible text fields to password fields
+        visiblePassword1Field.textProperty().bindBidirectional(password1Field.textProperty());
+        visiblePassword2Field.textProperty().bindBidirectional(password2Field.textProperty());
+        
+        // Initially hide visible text fields
+        visiblePassword1Field.setVisible(false);
+        visiblePassword2Field.setVisible(false);
+        
+        // Toggle password visibility
+        showPasswordsCheckBox.setOnAction(e -> togglePasswordVisibility());
+    }
+
+    private void setupRealTimeComparison() {
+        // Create a pause transition for real-time comparison (debounced)
+        realTimeComparison = new PauseTransition(Duration.millis(300));
+        realTimeComparison.setOnFinished(e -> performComparison());
+        
+        // Add listeners to password fields for real-time comparison
+        password1Field.textProperty().addListener((obs, oldText, newText) -> {
+            comparisonLane.cancel();
+            realTimeComparison.stop();
+            realTimeComparison.play();
+            applyEdit(password1Strength, oldText, newText);
+            updatePasswordStrength(newText);
+        });
+        
+        password2Field.textProperty().addListener((obs, oldText, newText) -> {
+            comparisonLane.cancel();
+            realTimeComparison.stop();
+            realTimeComparison.play();
+        });
+    }
+
+    private void setupUI() {
+        // Set initial state
+        resultLabel.setText("");
+        strengthLabel.setText("");
+        
+        // Style the result label
+        resultLabel.getStyleClass().add("result-label");
+        strengthLabel.getStyleClass().add("strength-label");
+    }
+
+    private void setupDebugOverlay() {
+        debugOverlay.managedProperty().bind(debugOverlay.visibleProperty());
+        debugOverlay.setVisible(false);
+        frameStatistics = new FrameStatistics();
+        rootContainer.addEventFilter(KeyEvent.KEY_PRESSED, event -> {
+            if (DEBUG_OVERLAY_TOGGLE.match(event)) {
+                boolean show = !debugOverlay.isVisible();
+                debugOverlay.setVisible(show);
+                if (show) {
+                    frameStatistics.start();
+                } else {
+                    frameStatistics.stop();
+                }
+                event.consume();
+            }
+        });
+        if (Boolean.getBoolean("samesame.debugOverlay")) {
+            debugOverlay.setVisible(true);
+            frameStatistics.start();
+        }
+    }
+
+    @FXML
+    private void handleCompareAction() {
+        performComparison();
+    }
+
+    @FXML
+    private void handleClearAction() {
+        password1Field.clear();
+        password2Field.clear();
+        strengthLane.cancel();
+        comparisonLane.cancel();
+        resultLabel.setText("");
+        strengthLabel.setText("");
+        resultLabel.getStyleClass().removeAll("match", "no-match");
+    }
+
+    private void togglePasswordVisibility() {
+        boolean showPasswords = showPasswordsCheckBox.isSelected();
+        
+        password1Field.setVisible(!showPasswords);
+        password2Field.setVisible(!showPasswords);
+        visiblePassword1Field.setVisible(showPasswords);
+        visiblePassword2Field.setVisible(showPasswords);
+    }
+
+    private void performComparison() {
+        String password1 = password1Field.getText();
+        String password2 = password2Field.getText();
+        
+        if (password1.isEmpty() && password2.isEmpty()) {
+            comparisonLane.cancel();
+            resultLabel.setText("");
+            resultLabel.getStyleClass().removeAll("match", "no-match");
+            return;
+        }
+        
+        if (password1.isEmpty() || password2.isEmpty()) {
+            comparisonLane.cancel();
+            resultLabel.setText("Please enter both passwords");
+            resultLabel.getStyleClass().removeAll("match", "no-match");
+            return;
+        }
+        
+        // The match itself comes from the constant-time comparison; similarity only explains a mismatch
+        comparisonLane.submit(() -> passwordComparator.comparePasswords(password1, password2)
+            ? EditDistance.Similarity.IDENTICAL
+            : passwordComparator.classifySimilarity(password1, password2), this::showComparison);
+    }
+
+    private void showComparison(EditDistance.Similarity similarity) {
+        if (similarity == EditDistance.Similarity.IDENTICAL) {
+            resultLabel.setText("✓ Passwords match!");
+            resultLabel.getStyleClass().removeAll("no-match");
+            resultLabel.getStyleClass().add("match");
+        } else {
+            resultLabel.setText(similarity == EditDistance.Similarity.DIFFERENT
+                ? "✗ Passwords do not match"
+                : "✗ Passwords do not match (" + similarity.description() + ")");
+            resultLabel.getStyleClass().removeAll("match");
+            resultLabel.getStyleClass().add("no-match");
+        }
+    }
+
+    /**
+     * Replays a text change on the incremental evaluator as a single replace
+     * of the range between the unchanged prefix and suffix
+     */
+    private static void applyEdit(IncrementalStrengthEvaluator evaluator, String oldText, String newText) {
+        int shorter = Math.min(oldText.length(), newText.length());
+        int prefix = 0;
+        while (prefix < shorter && oldText.charAt(prefix) == newText.charAt(prefix)) {
+            prefix++;
+        }
+        int suffix = 0;
+        while (suffix < shorter - prefix
+                && oldText.charAt(oldText.length() - 1 - suffix) == newText.charAt(newText.length() - 1 - suffix)) {
+            suffix++;
+        }
+        evaluator.replace(prefix, oldText.length() - suffix, newText, prefix, newText.length() - suffix);
+    }
+
+    private void updatePasswordStrength(String password) {
+        if (password.isEmpty()) {
+            strengthLane.cancel();
+            strengthLabel.setText("");
+            return;
+        }
+        
+        // The criteria are O(1) to read here; blocklist and breach lookups run in the background
+        int criteria = password1Strength.criteria();
+        // The verdict follows the policy the criteria were evaluated under
+        StrengthEvaluator evaluator = password1Strength.evaluator();
+        strengthLane.submit(() -> {
+            String strength = passwordComparator.strengthVerdict(evaluator, password, criteria);
+            double guesses = passwordComparator.estimateGuesses(password);
+            boolean breached = passwordComparator.hasBreachIndex() && passwordComparator.isBreached(password);
+            return new StrengthResult(strength, guesses, breached);
+        }, this::showStrength);
+    }
+
+    private void showStrength(StrengthResult result) {
+        String text = String.format("Strength: %s • ~10^%.0f guesses", result.strength, result.guesses);
+        if (result.breached) {
+            text += " • Found in a known breach";
+        }
+        strengthLabel.setText(text);
+        
+        // Update style based on strength
+        strengthLabel.getStyleClass().removeAll("weak", "medium", "strong", "very-strong");
+        strengthLabel.getStyleClass().add(result.strength.toLowerCase().replace(" ", "-"));
+    }
+
+    /**
+     * Strength verdict computed off the JavaFX Application Thread
+     */
+    private static final class StrengthResult {
+        final String strength;
+        final double guesses;
+        final boolean breached;
+
+        StrengthResult(String strength, double guesses, boolean breached) {
+            this.strength = strength;
+            this.guesses = guesses;
+            this.breached = breached;
+        }
+    }
+
+    /**
+     * Measures the time between rendered frames and refreshes the debug overlay
+     * The label is refreshed four times a second so the overlay itself stays cheap
+     */
+    private final class FrameStatistics extends AnimationTimer {
+
+        private static final long REFRESH_NANOS = 250_000_000L;
+
+        private long lastFrame;
+        private long windowStart;
+        private long frames;
+        private long totalFrameNanos;
+        private long maxFrameNanos;
+
+        @Override
+        public void start() {
+            lastFrame = 0;
+            super.start();
+        }
+
+        @Override
+        public void handle(long now) {
+            if (lastFrame == 0) {
+                lastFrame = now;
+                windowStart = now;
+                return;
+            }
+            long frameNanos = now - lastFrame;
+            lastFrame = now;
+            frames++;
+            totalFrameNanos += frameNanos;
+            maxFrameNanos = Math.max(maxFrameNanos, frameNanos);
+            
+            if (now - windowStart >= REFRESH_NANOS) {
+                debugOverlay.setText(String.format(
+                    "frame avg %.1f ms, max %.1f ms | queue %d | delivered %d, dropped %d",
+                    totalFrameNanos / 1e6 / frames, maxFrameNanos / 1e6,
+                    pipeline.queueDepth(), pipeline.delivered(), pipeline.dropped()));
+                windowStart = now;
+                frames = 0;
+                totalFrameNanos = 0;
+                maxFrameNanos = 0;
+            }
+        }
+    }
+}
\ No newline at end of file
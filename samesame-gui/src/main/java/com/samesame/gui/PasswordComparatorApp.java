@@ -1,4 +1,4 @@
-package com.samesame;
+package com.samesame.gui;
 
 import javafx.application.Application;
 import javafx.fxml.FXMLLoader;
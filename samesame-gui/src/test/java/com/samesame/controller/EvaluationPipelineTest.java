@@ -0,0 +1,106 @@
+package com.samesame.controller;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests that the pipeline delivers only results of the latest input
+ */
+class EvaluationPipelineTest {
+
+    /** Stands in for the JavaFX Application Thread: results run when the test drains them */
+    private final BlockingQueue<Runnable> resultThread = new LinkedBlockingQueue<>();
+    private final EvaluationPipeline pipeline = new EvaluationPipeline(Executors.newCachedThreadPool(), resultThread::add);
+
+    @AfterEach
+    void tearDown() {
+        pipeline.close();
+    }
+
+    @Test
+    @DisplayName("Should cancel superseded work and deliver only the latest result")
+    void testLatestWins() throws Exception {
+        EvaluationPipeline.Lane<String> lane = pipeline.lane();
+        CountDownLatch blocked = new CountDownLatch(1);
+        List<String> shown = new ArrayList<>();
+
+        lane.submit(() -> {
+            blocked.await();
+            return "stale";
+        }, shown::add);
+        for (int i = 0; i < 10; i++) {
+            String text = "input-" + i;
+            lane.submit(() -> text, shown::add);
+        }
+
+        Runnable delivery = resultThread.poll(5, TimeUnit.SECONDS);
+        assertNotNull(delivery);
+        delivery.run();
+        blocked.countDown();
+        awaitIdle();
+        drainResults();
+
+        assertEquals(List.of("input-9"), shown);
+        assertEquals(1, pipeline.delivered());
+        assertEquals(10, pipeline.dropped());
+    }
+
+    @Test
+    @DisplayName("Should discard a finished result if newer input arrives before it is shown")
+    void testStaleAtDelivery() throws Exception {
+        EvaluationPipeline.Lane<String> lane = pipeline.lane();
+        List<String> shown = new ArrayList<>();
+
+        lane.submit(() -> "first", shown::add);
+        Runnable first = resultThread.poll(5, TimeUnit.SECONDS);
+        lane.submit(() -> "second", shown::add);
+        Runnable second = resultThread.poll(5, TimeUnit.SECONDS);
+
+        first.run();
+        second.run();
+        assertEquals(List.of("second"), shown);
+    }
+
+    @Test
+    @DisplayName("Should discard pending results when a lane is cancelled")
+    void testCancel() throws Exception {
+        EvaluationPipeline.Lane<String> lane = pipeline.lane();
+        EvaluationPipeline.Lane<String> other = pipeline.lane();
+        List<String> shown = new ArrayList<>();
+
+        lane.submit(() -> "cancelled", shown::add);
+        other.submit(() -> "independent", shown::add);
+        awaitIdle();
+        lane.cancel();
+        drainResults();
+
+        assertEquals(List.of("independent"), shown);
+        assertEquals(0, pipeline.queueDepth());
+    }
+
+    private void awaitIdle() throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (pipeline.queueDepth() > 0 && System.nanoTime() < deadline) {
+            Thread.sleep(1);
+        }
+        assertEquals(0, pipeline.queueDepth());
+    }
+
+    private void drainResults() {
+        Runnable delivery;
+        while ((delivery = resultThread.poll()) != null) {
+            delivery.run();
+        }
+    }
+}